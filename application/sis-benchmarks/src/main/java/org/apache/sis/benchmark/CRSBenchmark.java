@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of {@link CRS#forCode(String)} and {@link CRS#findOperation CRS.findOperation(…)}.
+ * The CRS codes used by this benchmark do not require an EPSG database, but the results will be different
+ * if such database is available.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CRSBenchmark {
+    /**
+     * Code of the CRS to get with {@link CRS#forCode(String)}.
+     */
+    @Param({"EPSG:4326", "EPSG:32631", "urn:ogc:def:crs:OGC:1.3:CRS84"})
+    public String code;
+
+    /**
+     * The CRS for {@link #code}, used as the target of coordinate operations.
+     */
+    private CoordinateReferenceSystem target;
+
+    /**
+     * Gets the target CRS.
+     *
+     * @throws FactoryException if the CRS can not be created.
+     */
+    @Setup
+    public void setup() throws FactoryException {
+        target = CRS.forCode(code);
+    }
+
+    /**
+     * Gets a CRS from its authority code.
+     *
+     * @return the CRS for the code.
+     * @throws FactoryException if the CRS can not be created.
+     */
+    @Benchmark
+    public CoordinateReferenceSystem forCode() throws FactoryException {
+        return CRS.forCode(code);
+    }
+
+    /**
+     * Finds the coordinate operation from a geographic CRS to the CRS for the code.
+     *
+     * @return the coordinate operation.
+     * @throws FactoryException if the operation can not be found.
+     */
+    @Benchmark
+    public CoordinateOperation findOperation() throws FactoryException {
+        return CRS.findOperation(CommonCRS.WGS84.geographic(), target, null);
+    }
+}
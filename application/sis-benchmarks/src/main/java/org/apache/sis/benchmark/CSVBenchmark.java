@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import org.apache.sis.feature.FoliationRepresentation;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.storage.DataOptionKey;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStores;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.StorageConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of reading a file in the <cite>OGC Moving Features</cite> CSV format.
+ * The file is generated in a temporary directory at setup time. Each benchmark invocation opens
+ * a new data store, because the store may cache the features.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVBenchmark {
+    /**
+     * Number of lines in the CSV file, excluding header.
+     */
+    @Param("200000")
+    public int numLines;
+
+    /**
+     * Whether to read each line as a feature ({@code FRAGMENTED})
+     * or to assemble the lines in trajectories ({@code ASSEMBLED}).
+     */
+    @Param({"FRAGMENTED", "ASSEMBLED"})
+    public FoliationRepresentation foliation;
+
+    /**
+     * The temporary file.
+     */
+    private Path file;
+
+    /**
+     * Writes the temporary CSV file.
+     *
+     * @throws IOException if an error occurred while writing the file.
+     */
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("sis-benchmarks", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("@stboundedby, urn:ogc:def:crs:CRS:1.3:84, 2D,  0 0,  100 100,  2012-01-17T12:33:41Z, 2012-01-20T12:33:41Z, sec\r\n");
+            out.write("@columns, mfidref, trajectory, state,xsd:string, code,xsd:integer\r\n");
+            for (int i=0; i<numLines; i++) {
+                final int id = i % 100;
+                final int t  = (i / 100) * 10;
+                out.write(String.format("f%d, %d, %d, %d.5 %d.25 %d.75 %d.5, s%d, %d\r\n",
+                          id, t, t + 10, id, t % 100, id + 1, (t + 10) % 100, (i / 50) % 3, i % 4));
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary file.
+     *
+     * @throws IOException if an error occurred while deleting the file.
+     */
+    @TearDown
+    public void dispose() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * Reads all features and returns their count.
+     */
+    private long read(final boolean parallel) throws DataStoreException {
+        final StorageConnector connector = new StorageConnector(file);
+        connector.setOption(OptionKey.ENCODING, StandardCharsets.UTF_8);
+        connector.setOption(DataOptionKey.FOLIATION_REPRESENTATION, foliation);
+        try (DataStore store = DataStores.open(connector)) {
+            // Do not use Stream.count() because it may skip the parsing of SIZED streams.
+            return ((FeatureSet) store).features(parallel).mapToLong((feature) -> 1).sum();
+        }
+    }
+
+    /**
+     * Reads all features in the current thread.
+     *
+     * @return number of features read.
+     * @throws DataStoreException if an error occurred while reading the file.
+     */
+    @Benchmark
+    public long readSequential() throws DataStoreException {
+        return read(false);
+    }
+
+    /**
+     * Reads all features using many threads.
+     *
+     * @return number of features read.
+     * @throws DataStoreException if an error occurred while reading the file.
+     */
+    @Benchmark
+    public long readParallel() throws DataStoreException {
+        return read(true);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.operation.transform.DefaultMathTransformFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the throughput of datum shifts interpolated in NTv2 and NADCON grids.
+ * The grids to use are selected by the {@link #grid} parameter:
+ *
+ * <ul>
+ *   <li>{@code "extract"}: the small extracts of {@code "NTF_R93.gsb"} and {@code "conus.las/los"} files
+ *       used by the {@code sis-referencing} tests. Those grids are loaded in Java arrays.</li>
+ *   <li>{@code "synthetic"}: binary grids generated at setup time with the size of real national grids
+ *       (about 38 Mb for NTv2 and 19 Mb for each NADCON file). Those grids are above the memory-mapping
+ *       threshold, so they are read through memory-mapped views of the files. The shift values are smooth
+ *       arbitrary functions, not real datum shifts.</li>
+ * </ul>
+ *
+ * All grid files are written in a temporary directory at setup time.
+ * The coordinates to transform are inside the grid domains.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatumShiftBenchmark {
+    /**
+     * Directory of the test grid files in the {@code sis-referencing} test JAR file.
+     */
+    private static final String GRIDS = "/org/apache/sis/internal/referencing/provider/";
+
+    /**
+     * Name of the datum shift operation method: {@code "NTv2"} or {@code "NADCON"}.
+     */
+    @Param({"NTv2", "NADCON"})
+    public String method;
+
+    /**
+     * Which grids to use: {@code "extract"} for the small test files,
+     * or {@code "synthetic"} for generated grids of realistic size.
+     */
+    @Param({"extract", "synthetic"})
+    public String grid;
+
+    /**
+     * Number of points to transform in each benchmark invocation.
+     */
+    @Param("100000")
+    public int numPoints;
+
+    /**
+     * Temporary directory where the grid files are copied.
+     */
+    private Path directory;
+
+    /**
+     * The datum shift and its inverse.
+     */
+    private MathTransform forward, inverse;
+
+    /**
+     * Source coordinates in degrees, in (longitude, latitude) order.
+     */
+    private double[] source;
+
+    /**
+     * Destination array of the coordinates computed by the benchmarks.
+     */
+    private double[] result;
+
+    /**
+     * Copies or generates the grid files in a temporary directory, then creates the datum shift transform.
+     *
+     * @throws IOException if an error occurred while writing the grid files.
+     * @throws FactoryException if the transform can not be created.
+     * @throws TransformException if the inverse transform can not be created.
+     */
+    @Setup
+    public void setup() throws IOException, FactoryException, TransformException {
+        directory = Files.createTempDirectory("sis-benchmarks");
+        final DefaultMathTransformFactory factory = new DefaultMathTransformFactory();
+        final ParameterValueGroup values = factory.getDefaultParameters(method);
+        final boolean synthetic;
+        switch (grid) {
+            case "extract":   synthetic = false; break;
+            case "synthetic": synthetic = true;  break;
+            default: throw new IllegalArgumentException(grid);
+        }
+        final double λmin, λmax, φmin, φmax;
+        switch (method) {
+            case "NTv2": {
+                values.parameter("Latitude and longitude difference file").setValue(
+                        synthetic ? writeNTv2("synthetic.gsb") : copy("NTF_R93-extract.gsb"));
+                λmin = 2.3; λmax = 2.8; φmin = 48.4; φmax = 49.0;
+                break;
+            }
+            case "NADCON": {
+                values.parameter("Latitude difference file") .setValue(
+                        synthetic ? writeNADCON("synthetic.las", true)  : copy("conus-extract.laa"));
+                values.parameter("Longitude difference file").setValue(
+                        synthetic ? writeNADCON("synthetic.los", false) : copy("conus-extract.loa"));
+                λmin = -99.75; λmax = -98; φmin = 37.5; φmax = 39.75;
+                break;
+            }
+            default: throw new IllegalArgumentException(method);
+        }
+        forward = factory.createParameterizedTransform(values, null);
+        inverse = forward.inverse();
+        final Random random = new Random(2460815734L);
+        source = new double[numPoints * 2];
+        for (int i=0; i<source.length;) {
+            source[i++] = random.nextDouble() * (λmax - λmin) + λmin;
+            source[i++] = random.nextDouble() * (φmax - φmin) + φmin;
+        }
+        result = new double[source.length];
+    }
+
+    /**
+     * Copies the given grid file from the test JAR file to the temporary directory.
+     */
+    private Path copy(final String file) throws IOException {
+        final Path target = directory.resolve(file);
+        try (InputStream in = DatumShiftBenchmark.class.getResourceAsStream(GRIDS + file)) {
+            if (in == null) {
+                throw new IOException("Grid file not found: " + file);
+            }
+            Files.copy(in, target);
+        }
+        return target;
+    }
+
+    /**
+     * Writes a synthetic NTv2 grid of 1801 × 1321 nodes with a spacing of 30 seconds of angle,
+     * covering 5°W to 10°E and 41°N to 52°N. The file is written in little endian byte order
+     * with a single grid and the usual 11 records in the overview and sub-grid headers.
+     */
+    private Path writeNTv2(final String file) throws IOException {
+        final int width  = 15 * 120 + 1;
+        final int height = 11 * 120 + 1;
+        final Path target = directory.resolve(file);
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(16 * 4096).order(ByteOrder.LITTLE_ENDIAN);
+            record(buffer, "NUM_OREC", 11);
+            record(buffer, "NUM_SREC", 11);
+            record(buffer, "NUM_FILE", 1);
+            record(buffer, "GS_TYPE",  "SECONDS");
+            record(buffer, "VERSION",  "NTv2.0");
+            record(buffer, "SYSTEM_F", "SYNTH_F");
+            record(buffer, "SYSTEM_T", "SYNTH_T");
+            record(buffer, "MAJOR_F",  6378249.2);
+            record(buffer, "MINOR_F",  6356515.0);
+            record(buffer, "MAJOR_T",  6378137.0);
+            record(buffer, "MINOR_T",  6356752.314);
+            record(buffer, "SUB_NAME", "SYNTH");
+            record(buffer, "PARENT",   "NONE");
+            record(buffer, "CREATED",  "");
+            record(buffer, "UPDATED",  "");
+            record(buffer, "S_LAT",    41 * 3600.0);
+            record(buffer, "N_LAT",    52 * 3600.0);
+            record(buffer, "E_LONG",  -10 * 3600.0);          // Positive west.
+            record(buffer, "W_LONG",    5 * 3600.0);
+            record(buffer, "LAT_INC",  30.0);
+            record(buffer, "LONG_INC", 30.0);
+            record(buffer, "GS_COUNT", width * height);
+            for (int y=0; y<height; y++) {
+                for (int x=0; x<width; x++) {
+                    if (!buffer.hasRemaining()) {
+                        write(out, buffer);
+                    }
+                    buffer.putFloat((float) (-0.05 + 0.01 * Math.sin(x * 0.01)))     // Latitude shift.
+                          .putFloat((float) ( 3.70 + 0.02 * Math.cos(y * 0.01)))     // Longitude shift.
+                          .putFloat(0.001f).putFloat(0.001f);                        // Accuracies.
+                }
+            }
+            write(out, buffer);
+            record(buffer, "END", "");
+            write(out, buffer);
+        }
+        return target;
+    }
+
+    /**
+     * Writes a NTv2 header record with a string value.
+     */
+    private static void record(final ByteBuffer buffer, final String key, final String value) {
+        buffer.put(String.format("%-8s%-8s", key, value).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Writes a NTv2 header record with an integer value followed by 4 bytes of padding.
+     */
+    private static void record(final ByteBuffer buffer, final String key, final int value) {
+        record(buffer, key, "");
+        buffer.putInt(buffer.position() - Long.BYTES, value);
+    }
+
+    /**
+     * Writes a NTv2 header record with a floating point value.
+     */
+    private static void record(final ByteBuffer buffer, final String key, final double value) {
+        record(buffer, key, "");
+        buffer.putDouble(buffer.position() - Double.BYTES, value);
+    }
+
+    /**
+     * Writes a synthetic NADCON binary grid of 2401 × 2001 nodes covering 131°W to 71°W and 20°N to 45°N.
+     * Each record, including the header, contains 2402 {@code float} values in little endian byte order.
+     *
+     * @param  latitude  {@code true} for the latitude shifts file, or {@code false} for the longitude shifts file.
+     */
+    private Path writeNADCON(final String file, final boolean latitude) throws IOException {
+        final int nx = 2401;
+        final int ny = 2001;
+        final Path target = directory.resolve(file);
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((nx + 1) * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(String.format("%-56s%-8s", "NADCON EXTRACTED REGION", "NADGRD").getBytes(StandardCharsets.US_ASCII))
+                  .putInt(nx).putInt(ny).putInt(1)
+                  .putFloat(-131).putFloat(0.025f)
+                  .putFloat(20).putFloat(0.0125f)
+                  .putFloat(0);
+            buffer.position(buffer.capacity());
+            write(out, buffer);
+            for (int y=0; y<ny; y++) {
+                buffer.putFloat(0);                                     // Not a translation value.
+                for (int x=0; x<nx; x++) {
+                    buffer.putFloat((float) (latitude ? 0.2 + 0.1 * Math.sin(x * 0.01)
+                                                      : 1.5 + 0.3 * Math.cos(y * 0.01)));
+                }
+                write(out, buffer);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Writes the buffer content to the given channel, then clears the buffer.
+     */
+    private static void write(final FileChannel out, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        do out.write(buffer);
+        while (buffer.hasRemaining());
+        buffer.clear();
+    }
+
+    /**
+     * Deletes the temporary grid files.
+     *
+     * @throws IOException if an error occurred while deleting the files.
+     */
+    @TearDown
+    public void dispose() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Applies the datum shift on all coordinates.
+     *
+     * @return the transformed coordinates.
+     * @throws TransformException if a coordinate can not be transformed.
+     */
+    @Benchmark
+    public double[] forward() throws TransformException {
+        forward.transform(source, 0, result, 0, numPoints);
+        return result;
+    }
+
+    /**
+     * Applies the inverse datum shift on all coordinates. The inverse is computed by iterations.
+     *
+     * @return the transformed coordinates.
+     * @throws TransformException if a coordinate can not be transformed.
+     */
+    @Benchmark
+    public double[] inverse() throws TransformException {
+        inverse.transform(source, 0, result, 0, numPoints);
+        return result;
+    }
+}
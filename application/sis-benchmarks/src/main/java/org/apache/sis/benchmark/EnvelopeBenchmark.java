@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.util.FactoryException;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures the performance of {@link Envelopes#transform(CoordinateOperation, Envelope)}.
+ * Envelopes are transformed from geographic coordinates to a Universal Transverse Mercator (UTM)
+ * projection, or to a Universal Polar Stereographic (UPS) projection for testing the pole handling.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeBenchmark {
+    /**
+     * The target projection: {@code "UTM"} or {@code "UPS"}.
+     */
+    @Param({"UTM", "UPS"})
+    public String projection;
+
+    /**
+     * Number of envelopes to transform in each benchmark invocation.
+     */
+    @Param("1000")
+    public int numEnvelopes;
+
+    /**
+     * The operation from geographic coordinates to the projected coordinates.
+     */
+    private CoordinateOperation operation;
+
+    /**
+     * The envelopes to transform, in geographic coordinates.
+     */
+    private Envelope[] envelopes;
+
+    /**
+     * Creates the coordinate operation and the envelopes to transform.
+     *
+     * @throws FactoryException if the coordinate operation can not be created.
+     */
+    @Setup
+    public void setup() throws FactoryException {
+        final CoordinateReferenceSystem source = CommonCRS.WGS84.normalizedGeographic();
+        final CoordinateReferenceSystem target;
+        final double φmin, Δφ;
+        switch (projection) {
+            case "UTM": target = CommonCRS.WGS84.universal(45, 3); φmin = 40; Δφ = 10; break;
+            case "UPS": target = CommonCRS.WGS84.universal(89, 0); φmin = 80; Δφ = 10; break;
+            default: throw new IllegalArgumentException(projection);
+        }
+        operation = CRS.findOperation(source, target, null);
+        final Random random = new Random(7105284361L);
+        envelopes = new Envelope[numEnvelopes];
+        for (int i=0; i<numEnvelopes; i++) {
+            final double λ = random.nextDouble() * 5;
+            final double φ = random.nextDouble() * (Δφ - 1) + φmin;
+            final GeneralEnvelope envelope = new GeneralEnvelope(source);
+            envelope.setRange(0, λ, λ + random.nextDouble() + 0.01);
+            envelope.setRange(1, φ, φ + random.nextDouble() + 0.01);
+            envelopes[i] = envelope;
+        }
+    }
+
+    /**
+     * Transforms all envelopes using the coordinate operation, which allows special handling of poles.
+     *
+     * @param  result  where to send the transformed envelopes.
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Benchmark
+    public void transformWithOperation(final Blackhole result) throws TransformException {
+        for (final Envelope envelope : envelopes) {
+            result.consume(Envelopes.transform(operation, envelope));
+        }
+    }
+
+    /**
+     * Transforms all envelopes using only the math transform.
+     *
+     * @param  result  where to send the transformed envelopes.
+     * @throws TransformException if an envelope can not be transformed.
+     */
+    @Benchmark
+    public void transformWithMathTransform(final Blackhole result) throws TransformException {
+        for (final Envelope envelope : envelopes) {
+            result.consume(Envelopes.transform(operation.getMathTransform(), envelope));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.results.format.ResultFormatType;
+
+
+/**
+ * Entry point of the benchmarks JAR file. This is the same than JMH {@code org.openjdk.jmh.Main}
+ * except that the results are written in a JSON file by default, for making possible to compare
+ * the results of different runs.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final class Main {
+    /**
+     * The default name of the file where to write the results.
+     */
+    public static final String RESULT_FILE = "sis-benchmarks.json";
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Main() {
+    }
+
+    /**
+     * Runs the benchmarks selected by the given command-line arguments.
+     *
+     * @param  args  JMH command-line options.
+     * @throws Exception if an error occurred while parsing the options or running the benchmarks.
+     */
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        final ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+            if (!options.getResult().hasValue()) {
+                builder.result(RESULT_FILE);
+            }
+        }
+        new Runner(builder.build()).run();
+    }
+}
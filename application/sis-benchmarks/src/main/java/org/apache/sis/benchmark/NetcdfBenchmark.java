@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.io.DataOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.awt.image.RenderedImage;
+import org.apache.sis.storage.Aggregate;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStores;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of reading a raster from a netCDF file.
+ * A netCDF 3 (classic format) file is generated in a temporary directory at setup time,
+ * with one {@code float} variable on a (latitude, longitude) grid. Each benchmark invocation
+ * opens a new data store and reads all sample values.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetcdfBenchmark {
+    /**
+     * Constants of the netCDF classic format.
+     */
+    private static final int NC_DIMENSION = 0x0A, NC_VARIABLE = 0x0B, NC_ATTRIBUTE = 0x0C,
+                             NC_CHAR = 2, NC_FLOAT = 5, NC_DOUBLE = 6;
+
+    /**
+     * Number of cells along the longitude axis. The latitude axis has half this number of cells.
+     */
+    @Param("4096")
+    public int width;
+
+    /**
+     * The temporary file.
+     */
+    private Path file;
+
+    /**
+     * Writes the temporary netCDF file.
+     *
+     * @throws IOException if an error occurred while writing the file.
+     */
+    @Setup
+    public void setup() throws IOException {
+        final int height = width / 2;
+        file = Files.createTempFile("sis-benchmarks", ".nc");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBytes("CDF");
+        out.writeByte(1);                           // Classic format.
+        out.writeInt(0);                            // Number of records.
+        out.writeInt(NC_DIMENSION);
+        out.writeInt(2);
+        writeName(out, "lat"); out.writeInt(height);
+        writeName(out, "lon"); out.writeInt(width);
+        out.writeInt(0); out.writeInt(0);           // No global attribute.
+        out.writeInt(NC_VARIABLE);
+        out.writeInt(3);
+        /*
+         * The header size does not depend on the "begin" values (fixed 4 bytes integers),
+         * so we can compute the offsets after we built the variable headers.
+         */
+        final byte[][] headers = {
+            variable("lat",  new int[] {0},    "degrees_north", NC_DOUBLE, height * Double.BYTES),
+            variable("lon",  new int[] {1},    "degrees_east",  NC_DOUBLE, width  * Double.BYTES),
+            variable("data", new int[] {0, 1}, null,            NC_FLOAT,  width * height * Float.BYTES)
+        };
+        int begin = bytes.size();
+        for (final byte[] header : headers) {
+            begin += header.length + Integer.BYTES;
+        }
+        final int[] sizes = {height * Double.BYTES, width * Double.BYTES, width * height * Float.BYTES};
+        for (int i=0; i<headers.length; i++) {
+            out.write(headers[i]);
+            out.writeInt(begin);
+            begin += sizes[i];
+        }
+        out.flush();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            ByteBuffer buffer = ByteBuffer.allocate(sizes[0]);
+            for (int i=0; i<height; i++) buffer.putDouble(90 - (i + 0.5) * (180.0 / height));
+            write(channel, buffer);
+            buffer = ByteBuffer.allocate(sizes[1]);
+            for (int i=0; i<width; i++) buffer.putDouble((i + 0.5) * (360.0 / width) - 180);
+            write(channel, buffer);
+            buffer = ByteBuffer.allocate(width * Float.BYTES);
+            final Random random = new Random(3820561947L);
+            for (int j=0; j<height; j++) {
+                buffer.clear();
+                for (int i=0; i<width; i++) buffer.putFloat(random.nextFloat() * 100);
+                write(channel, buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes a name in netCDF format, padded to a multiple of 4 bytes.
+     */
+    private static void writeName(final DataOutputStream out, final String name) throws IOException {
+        final byte[] chars = name.getBytes(StandardCharsets.US_ASCII);
+        out.writeInt(chars.length);
+        out.write(chars);
+        out.write(new byte[(4 - (chars.length & 3)) & 3]);
+    }
+
+    /**
+     * Returns the header of a variable, excluding the "begin" offset.
+     */
+    private static byte[] variable(final String name, final int[] dimensions, final String units,
+                                   final int type, final int size) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeName(out, name);
+        out.writeInt(dimensions.length);
+        for (final int dim : dimensions) {
+            out.writeInt(dim);
+        }
+        if (units != null) {
+            out.writeInt(NC_ATTRIBUTE);
+            out.writeInt(1);
+            writeName(out, "units");
+            out.writeInt(NC_CHAR);
+            writeName(out, units);              // Same encoding than names: length, characters, padding.
+        } else {
+            out.writeInt(0); out.writeInt(0);   // No attribute.
+        }
+        out.writeInt(type);
+        out.writeInt(size);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes fully the given buffer, which is flipped by this method.
+     */
+    private static void write(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        do channel.write(buffer);
+        while (buffer.hasRemaining());
+    }
+
+    /**
+     * Deletes the temporary file.
+     *
+     * @throws IOException if an error occurred while deleting the file.
+     */
+    @TearDown
+    public void dispose() throws IOException {
+        Files.delete(file);
+    }
+
+    /**
+     * Returns the first grid coverage resource found in the given resource.
+     */
+    private static GridCoverageResource find(final Resource resource) throws DataStoreException {
+        if (resource instanceof GridCoverageResource) {
+            return (GridCoverageResource) resource;
+        }
+        if (resource instanceof Aggregate) {
+            for (final Resource component : ((Aggregate) resource).components()) {
+                final GridCoverageResource r = find(component);
+                if (r != null) return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens the netCDF file and reads all sample values of the raster.
+     *
+     * @return the raster data.
+     * @throws DataStoreException if an error occurred while reading the file.
+     */
+    @Benchmark
+    public Object read() throws DataStoreException {
+        try (DataStore store = DataStores.open(file)) {
+            final RenderedImage image = find(store).read(null).render(null);
+            return image.getData();
+        }
+    }
+}
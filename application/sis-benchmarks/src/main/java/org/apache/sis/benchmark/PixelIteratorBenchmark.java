@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import org.apache.sis.image.PixelIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of {@link PixelIterator} compared to direct calls to {@link Raster} methods.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PixelIteratorBenchmark {
+    /**
+     * The type of sample values: {@code "byte"} or {@code "float"}.
+     */
+    @Param({"byte", "float"})
+    public String dataType;
+
+    /**
+     * Width and height of the raster.
+     */
+    @Param("1024")
+    public int size;
+
+    /**
+     * Number of bands in the raster.
+     */
+    @Param({"1", "3"})
+    public int numBands;
+
+    /**
+     * The raster to iterate over.
+     */
+    private Raster raster;
+
+    /**
+     * Creates the raster filled with random values.
+     */
+    @Setup
+    public void setup() {
+        final int type;
+        switch (dataType) {
+            case "byte":  type = DataBuffer.TYPE_BYTE;  break;
+            case "float": type = DataBuffer.TYPE_FLOAT; break;
+            default: throw new IllegalArgumentException(dataType);
+        }
+        final WritableRaster data = Raster.createWritableRaster(
+                new BandedSampleModel(type, size, size, numBands), null);
+        final Random random = new Random(9130472658L);
+        for (int b=0; b<numBands; b++) {
+            for (int y=0; y<size; y++) {
+                for (int x=0; x<size; x++) {
+                    data.setSample(x, y, b, random.nextInt(256));
+                }
+            }
+        }
+        raster = data;
+    }
+
+    /**
+     * Computes the sum of all sample values using a pixel iterator.
+     *
+     * @return sum of all sample values.
+     */
+    @Benchmark
+    public double iterate() {
+        final PixelIterator it = new PixelIterator.Builder().create(raster);
+        double sum = 0;
+        while (it.next()) {
+            for (int b=0; b<numBands; b++) {
+                sum += it.getSampleDouble(b);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the sum of all sample values using direct calls to {@link Raster#getSampleDouble(int, int, int)}.
+     * This is the reference against which to compare the pixel iterator performance.
+     *
+     * @return sum of all sample values.
+     */
+    @Benchmark
+    public double baseline() {
+        double sum = 0;
+        for (int y=0; y<size; y++) {
+            for (int x=0; x<size; x++) {
+                for (int b=0; b<numBands; b++) {
+                    sum += raster.getSampleDouble(x, y, b);
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.opengis.util.FactoryException;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.parameter.InvalidParameterValueException;
+import org.opengis.parameter.ParameterNotFoundException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.referencing.operation.transform.DefaultMathTransformFactory;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the throughput of map projections applied on arrays of coordinates.
+ * The map projections are complete, i.e. they include the conversions from degrees
+ * to radians and the false easting/northing which are applied by affine transforms
+ * before and after the non-linear kernel.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    /**
+     * Name of the operation method of the map projection to benchmark.
+     */
+    @Param({"Mercator (variant A)",
+            "Transverse Mercator",
+            "Lambert Conic Conformal (2SP)",
+            "Albers Equal Area",
+            "Oblique Stereographic",
+            "Polar Stereographic (variant B)",
+            "Popular Visualisation Pseudo Mercator"})
+    public String method;
+
+    /**
+     * Number of points to project in each benchmark invocation.
+     */
+    @Param("100000")
+    public int numPoints;
+
+    /**
+     * The map projection and its inverse.
+     */
+    private MathTransform forward, inverse;
+
+    /**
+     * Geographic coordinates in degrees, in (longitude, latitude) order.
+     */
+    private double[] geographic;
+
+    /**
+     * Projected coordinates computed from {@link #geographic} at setup time.
+     */
+    private double[] projected;
+
+    /**
+     * Destination array of the coordinates computed by the benchmarks.
+     */
+    private double[] result;
+
+    /**
+     * Creates the map projection and the coordinates to project.
+     *
+     * @throws FactoryException if the map projection can not be created.
+     * @throws TransformException if the coordinates can not be projected.
+     */
+    @Setup
+    public void setup() throws FactoryException, TransformException {
+        final DefaultMathTransformFactory factory = new DefaultMathTransformFactory();
+        final ParameterValueGroup values = factory.getDefaultParameters(method);
+        set(values, "semi_major",          6378137);
+        set(values, "semi_minor",          6356752.314245179);
+        set(values, "central_meridian",    3);
+        set(values, "latitude_of_origin",  45);
+        set(values, "standard_parallel_1", 60);
+        set(values, "standard_parallel_2", 30);
+        forward = factory.createParameterizedTransform(values, null);
+        inverse = forward.inverse();
+        final Random random = new Random(5381270319L);
+        geographic = new double[numPoints * 2];
+        for (int i=0; i<geographic.length;) {
+            geographic[i++] = random.nextDouble() * 20 - 7;         // Longitude in [-7 … 13]°
+            geographic[i++] = random.nextDouble() * 30 + 35;        // Latitude in [35 … 65]°
+        }
+        projected = new double[geographic.length];
+        forward.transform(geographic, 0, projected, 0, numPoints);
+        result = new double[geographic.length];
+    }
+
+    /**
+     * Sets the value of the given parameter if the map projection has such parameter
+     * and if the given value is allowed (some projections restrict a parameter to a fixed value).
+     */
+    private static void set(final ParameterValueGroup values, final String name, final double value) {
+        try {
+            values.parameter(name).setValue(value);
+        } catch (ParameterNotFoundException | InvalidParameterValueException e) {
+            // Parameter not used by this map projection, or value fixed by this projection.
+        }
+    }
+
+    /**
+     * Projects all geographic coordinates in the current thread.
+     *
+     * @return the projected coordinates.
+     * @throws TransformException if a coordinate can not be projected.
+     */
+    @Benchmark
+    public double[] forward() throws TransformException {
+        forward.transform(geographic, 0, result, 0, numPoints);
+        return result;
+    }
+
+    /**
+     * Converts all projected coordinates back to geographic coordinates in the current thread.
+     *
+     * @return the geographic coordinates.
+     * @throws TransformException if a coordinate can not be converted.
+     */
+    @Benchmark
+    public double[] inverse() throws TransformException {
+        inverse.transform(projected, 0, result, 0, numPoints);
+        return result;
+    }
+
+    /**
+     * Projects all geographic coordinates using many threads.
+     *
+     * @return the projected coordinates.
+     * @throws TransformException if a coordinate can not be projected.
+     */
+    @Benchmark
+    public double[] forwardParallel() throws TransformException {
+        MathTransforms.parallelTransform(forward, geographic, 0, result, 0, numPoints);
+        return result;
+    }
+}
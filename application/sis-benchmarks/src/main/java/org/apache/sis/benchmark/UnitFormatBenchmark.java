@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import javax.measure.Unit;
+import org.apache.sis.measure.UnitFormat;
+import org.apache.sis.measure.Units;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of unit parsing and formatting.
+ * The symbols to parse include simple units, prefixed units and unit products.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnitFormatBenchmark {
+    /**
+     * The unit symbol to parse.
+     */
+    @Param({"m", "km", "m/s", "kg⋅m/s²", "mm/a", "°C", "degrees_north"})
+    public String symbol;
+
+    /**
+     * The object to use for parsing and formatting units.
+     */
+    private UnitFormat format;
+
+    /**
+     * The unit to format, which is the result of parsing {@link #symbol}.
+     */
+    private Unit<?> unit;
+
+    /**
+     * Creates the unit format and the unit to format.
+     */
+    @Setup
+    public void setup() {
+        format = new UnitFormat(Locale.ENGLISH);
+        unit = format.parse(symbol);
+    }
+
+    /**
+     * Parses the unit symbol using the {@link UnitFormat} instance.
+     *
+     * @return the parsed unit.
+     */
+    @Benchmark
+    public Unit<?> parse() {
+        return format.parse(symbol);
+    }
+
+    /**
+     * Parses the unit symbol using {@link Units#valueOf(String)}, which may use a cache.
+     *
+     * @return the parsed unit.
+     */
+    @Benchmark
+    public Unit<?> valueOf() {
+        return Units.valueOf(symbol);
+    }
+
+    /**
+     * Formats the unit using the {@link UnitFormat} instance.
+     *
+     * @return the unit symbol.
+     */
+    @Benchmark
+    public String format() {
+        return format.format(unit);
+    }
+}
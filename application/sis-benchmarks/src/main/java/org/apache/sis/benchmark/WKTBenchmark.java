@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.benchmark;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.apache.sis.io.wkt.Convention;
+import org.apache.sis.io.wkt.WKTFormat;
+import org.apache.sis.referencing.CommonCRS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the performance of Well Known Text (WKT) parsing and formatting.
+ * The object parsed and formatted is a Universal Transverse Mercator (UTM) projected CRS.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WKTBenchmark {
+    /**
+     * The WKT convention: {@code "WKT2"} or {@code "WKT1"}.
+     */
+    @Param({"WKT2", "WKT1"})
+    public String convention;
+
+    /**
+     * The object to use for parsing and formatting WKT.
+     */
+    private WKTFormat format;
+
+    /**
+     * The CRS to format.
+     */
+    private CoordinateReferenceSystem crs;
+
+    /**
+     * The WKT to parse.
+     */
+    private String wkt;
+
+    /**
+     * Creates the CRS to format and the WKT to parse.
+     */
+    @Setup
+    public void setup() {
+        format = new WKTFormat(null, null);
+        format.setConvention(Convention.valueOf(convention));
+        crs = CommonCRS.WGS84.universal(45, 3);
+        wkt = format.format(crs);
+    }
+
+    /**
+     * Parses a WKT string for a projected CRS.
+     *
+     * @return the parsed CRS.
+     * @throws ParseException if the WKT can not be parsed.
+     */
+    @Benchmark
+    public Object parseWKT() throws ParseException {
+        return format.parseObject(wkt);
+    }
+
+    /**
+     * Formats a projected CRS as a WKT string.
+     *
+     * @return the WKT string.
+     */
+    @Benchmark
+    public String formatWKT() {
+        return format.format(crs);
+    }
+}
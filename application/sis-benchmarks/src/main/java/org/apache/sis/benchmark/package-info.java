@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * <a href="https://openjdk.java.net/projects/code-tools/jmh/">JMH</a> benchmarks of Apache SIS hot paths.
+ * Those benchmarks complement the ad-hoc {@code Benchmark} and {@code FeatureMemoryBenchmark} programs
+ * in the test directories with reproducible measurements which can be compared between versions.
+ *
+ * <h2>Usage</h2>
+ * This module is built only when the {@code benchmarks} profile is activated.
+ * The build produces a self-contained {@code benchmarks.jar} file:
+ *
+ * {@preformat shell
+ *   mvn install --activate-profiles benchmarks --projects application/sis-benchmarks --also-make
+ *   java -jar application/sis-benchmarks/target/benchmarks.jar
+ * }
+ *
+ * All standard JMH options are accepted. For example the following command runs only the map projection
+ * benchmarks for the Mercator projection: {@code java -jar benchmarks.jar Projection -p method="Mercator (variant A)"}.
+ * Unless another result file is specified with the {@code -rf} and {@code -rff} options, results are written in
+ * JSON format in the {@value org.apache.sis.benchmark.Main#RESULT_FILE} file of the current directory.
+ * That file can be compared with the results of a previous run for detecting performance regressions.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+package org.apache.sis.benchmark;
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.coverage;
+
+import java.awt.image.DataBuffer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+
+
+/**
+ * A Java2D data buffer backed by NIO buffers which are not backed by Java arrays.
+ * This is used for wrapping direct buffers, for example views over memory-mapped files,
+ * without copying the sample values. Accesses to sample values are slower than with the
+ * standard {@link java.awt.image.DataBufferInt} <i>etc.</i> classes because Java2D can not
+ * use its optimized code paths for that kind of buffer, but no memory is allocated on the heap.
+ *
+ * <p>If the NIO buffers are read-only, then all {@code setElem(…)} methods throw
+ * {@link java.nio.ReadOnlyBufferException}.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class DirectDataBuffer extends DataBuffer {
+    /**
+     * The sample values for each bank. The buffer types shall be consistent with the data type:
+     * {@link ByteBuffer} for {@link #TYPE_BYTE}, {@link ShortBuffer} for {@link #TYPE_SHORT} and
+     * {@link #TYPE_USHORT}, <i>etc.</i> Buffer positions and limits are ignored; the offset of
+     * each bank is given by {@link #offsets}.
+     */
+    private final Buffer[] banks;
+
+    /**
+     * Creates a new data buffer wrapping the given NIO buffers.
+     * Caller is responsible for verifying that the buffer types are consistent with the data type.
+     *
+     * @param  dataType  the data type as one of {@link DataBuffer} constants.
+     * @param  banks     the sample values for each bank.
+     * @param  size      number of elements in each bank, starting at the bank offset.
+     * @param  offsets   index of the first element of each bank.
+     */
+    DirectDataBuffer(final int dataType, final Buffer[] banks, final int size, final int[] offsets) {
+        super(dataType, size, banks.length, offsets);
+        this.banks = banks;
+    }
+
+    /**
+     * Returns the expected type of NIO buffer for the given data type, or {@code null} if unsupported.
+     */
+    static Class<? extends Buffer> bufferType(final int dataType) {
+        switch (dataType) {
+            case TYPE_BYTE:   return ByteBuffer.class;
+            case TYPE_USHORT: // Fall through
+            case TYPE_SHORT:  return ShortBuffer.class;
+            case TYPE_INT:    return IntBuffer.class;
+            case TYPE_FLOAT:  return FloatBuffer.class;
+            case TYPE_DOUBLE: return DoubleBuffer.class;
+            default:          return null;
+        }
+    }
+
+    /**
+     * Returns the requested data array element from the specified bank as an integer.
+     */
+    @Override
+    public int getElem(final int bank, int i) {
+        final Buffer b = banks[bank];
+        i += offsets[bank];
+        switch (dataType) {
+            case TYPE_BYTE:   return ((ByteBuffer)  b).get(i) & 0xFF;
+            case TYPE_USHORT: return ((ShortBuffer) b).get(i) & 0xFFFF;
+            case TYPE_SHORT:  return ((ShortBuffer) b).get(i);
+            case TYPE_INT:    return ((IntBuffer)   b).get(i);
+            case TYPE_FLOAT:  return (int) ((FloatBuffer)  b).get(i);
+            case TYPE_DOUBLE: return (int) ((DoubleBuffer) b).get(i);
+            default: throw new AssertionError(dataType);
+        }
+    }
+
+    /**
+     * Returns the requested data array element from the specified bank as a float.
+     */
+    @Override
+    public float getElemFloat(final int bank, final int i) {
+        switch (dataType) {
+            case TYPE_FLOAT:  return ((FloatBuffer) banks[bank]).get(i + offsets[bank]);
+            case TYPE_DOUBLE: return (float) getElemDouble(bank, i);
+            default:          return getElem(bank, i);
+        }
+    }
+
+    /**
+     * Returns the requested data array element from the specified bank as a double.
+     */
+    @Override
+    public double getElemDouble(final int bank, final int i) {
+        switch (dataType) {
+            case TYPE_FLOAT:  return getElemFloat(bank, i);
+            case TYPE_DOUBLE: return ((DoubleBuffer) banks[bank]).get(i + offsets[bank]);
+            default:          return getElem(bank, i);
+        }
+    }
+
+    /**
+     * Sets the requested data array element in the specified bank from the given integer.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    @Override
+    public void setElem(final int bank, int i, final int value) {
+        final Buffer b = banks[bank];
+        i += offsets[bank];
+        switch (dataType) {
+            case TYPE_BYTE:   ((ByteBuffer)   b).put(i, (byte)  value); break;
+            case TYPE_USHORT: // Fall through
+            case TYPE_SHORT:  ((ShortBuffer)  b).put(i, (short) value); break;
+            case TYPE_INT:    ((IntBuffer)    b).put(i, value); break;
+            case TYPE_FLOAT:  ((FloatBuffer)  b).put(i, value); break;
+            case TYPE_DOUBLE: ((DoubleBuffer) b).put(i, value); break;
+            default: throw new AssertionError(dataType);
+        }
+    }
+
+    /**
+     * Sets the requested data array element in the specified bank from the given float.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    @Override
+    public void setElemFloat(final int bank, final int i, final float value) {
+        switch (dataType) {
+            case TYPE_FLOAT:  ((FloatBuffer)  banks[bank]).put(i + offsets[bank], value); break;
+            case TYPE_DOUBLE: ((DoubleBuffer) banks[bank]).put(i + offsets[bank], value); break;
+            default: setElem(bank, i, (int) value); break;
+        }
+    }
+
+    /**
+     * Sets the requested data array element in the specified bank from the given double.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    @Override
+    public void setElemDouble(final int bank, final int i, final double value) {
+        switch (dataType) {
+            case TYPE_FLOAT:  ((FloatBuffer)  banks[bank]).put(i + offsets[bank], (float) value); break;
+            case TYPE_DOUBLE: ((DoubleBuffer) banks[bank]).put(i + offsets[bank], value); break;
+            default: setElem(bank, i, (int) value); break;
+        }
+    }
+}
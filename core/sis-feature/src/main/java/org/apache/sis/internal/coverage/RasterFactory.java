@@ -44,7 +44,7 @@ import org.apache.sis.util.Workaround;
  * Creates rasters from given properties.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -91,6 +91,18 @@ public final class RasterFactory extends Static {
          * itself. Furthermore those arguments are verified by WritableRaster constructors anyway.
          */
         final int dataType = buffer.getDataType();
+        if (buffer instanceof DirectDataBuffer) {
+            /*
+             * Java2D optimized rasters (ByteInterleavedRaster, etc.) require standard DataBuffer subclasses.
+             * For other buffers, ComponentSampleModel is the only model supporting both interleaved and
+             * banded layouts without being special-cased by WritableRaster factory methods.
+             */
+            if (bankIndices == null) {
+                bankIndices = (buffer.getNumBanks() == 1) ? new int[bandOffsets.length] : ArraysExt.range(0, bandOffsets.length);
+            }
+            final SampleModel model = new ComponentSampleModel(dataType, width, height, pixelStride, scanlineStride, bankIndices, bandOffsets);
+            return WritableRaster.createWritableRaster(model, buffer, location);
+        }
         /*
          * This SampleModel variable is a workaround for WritableRaster static methods not supporting all data types.
          * If 'dataType' is unsupported, then we create a SampleModel ourselves in the 'switch' statements below and
@@ -155,6 +167,25 @@ public final class RasterFactory extends Static {
         return WritableRaster.createWritableRaster(model, buffer, location);
     }
 
+    /**
+     * Creates a raster with the given sample model and data buffer. This method is equivalent to
+     * {@link WritableRaster#createWritableRaster(SampleModel, DataBuffer, Point)} except that it
+     * also accepts the buffers created by {@link #wrap(int, Buffer...)} for direct NIO buffers.
+     *
+     * @param  model     the sample model of the raster to create.
+     * @param  buffer    buffer that contains the sample values.
+     * @param  location  the upper-left corner of the raster, or {@code null} for (0,0).
+     * @return a raster built from given properties.
+     */
+    public static WritableRaster createRaster(SampleModel model, final DataBuffer buffer, final Point location) {
+        if (buffer instanceof DirectDataBuffer && model instanceof PixelInterleavedSampleModel) {
+            final ComponentSampleModel c = (ComponentSampleModel) model;
+            model = new ComponentSampleModel(c.getDataType(), c.getWidth(), c.getHeight(),
+                    c.getPixelStride(), c.getScanlineStride(), c.getBankIndices(), c.getBandOffsets());
+        }
+        return WritableRaster.createWritableRaster(model, buffer, location);
+    }
+
     /**
      * Returns the {@link DataBuffer} constant for the given type. The given {@code sample} class
      * should be a primitive type such as {@link Float#TYPE}. Wrappers class are also accepted.
@@ -180,6 +211,10 @@ public final class RasterFactory extends Static {
      * For each buffer, the data starts at {@linkplain Buffer#position() buffer position}
      * and ends at {@linkplain Buffer#limit() limit}.
      *
+     * <p>If all buffers are {@linkplain Buffer#isDirect() direct} (for example views over memory-mapped files),
+     * then this method returns a Java2D buffer reading the NIO buffers directly, still without copying the data.
+     * Rasters using such Java2D buffers should be created by the {@code createRaster(…)} methods in this class.</p>
+     *
      * @param  dataType  type of buffer to create as one of {@link DataBuffer} constants.
      * @param  data      the data, one for each band.
      * @return buffer of the given type, or {@code null} if {@code dataType} is unrecognized.
@@ -203,6 +238,22 @@ public final class RasterFactory extends Static {
         }
         final int[] offsets = new int[numBands];
         int length = 0;
+        if (numBands != 0 && isDirect(data)) {
+            final Class<? extends Buffer> type = DirectDataBuffer.bufferType(dataType);
+            for (int i=0; i<numBands; i++) {
+                final Buffer buffer = data[i];
+                if (!type.isInstance(buffer)) {
+                    throw new ArrayStoreException(buffer.getClass().getName());
+                }
+                offsets[i] = buffer.position();
+                final int r = buffer.remaining();
+                if (i == 0) length = r;
+                else if (length != r) {
+                    throw new RasterFormatException(Resources.format(Resources.Keys.MismatchedBandSize));
+                }
+            }
+            return new DirectDataBuffer(dataType, data.clone(), length, offsets);
+        }
         for (int i=0; i<numBands; i++) {
             final Buffer buffer = data[i];
             ArgumentChecks.ensureNonNullElement("data", i, buffer);
@@ -224,4 +275,16 @@ public final class RasterFactory extends Static {
             default: return null;
         }
     }
+
+    /**
+     * Returns {@code true} if all given buffers are direct buffers.
+     */
+    private static boolean isDirect(final Buffer[] data) {
+        for (int i=0; i<data.length; i++) {
+            final Buffer buffer = data[i];
+            ArgumentChecks.ensureNonNullElement("data", i, buffer);
+            if (!buffer.isDirect()) return false;
+        }
+        return true;
+    }
 }
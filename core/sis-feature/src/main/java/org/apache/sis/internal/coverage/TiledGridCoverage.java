@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.coverage;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.awt.image.ColorModel;
+import java.awt.image.ImagingOpException;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.DisjointExtentException;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.feature.Resources;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.collection.Cache;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A grid coverage where sample values are loaded one tile at a time, only when a tile is requested.
+ * The {@linkplain #render(GridExtent) rendered images} are views over the tiles of this coverage;
+ * tiles are read by {@link #readTile(int, int)} and cached for sharing between all images
+ * rendered by this coverage.
+ *
+ * <p>This base class handles only two-dimensional grids, or grids where all dimensions except two
+ * have a size of 1 cell. Tile (0,0) starts at the {@linkplain GridExtent#getLow(int) low} grid
+ * coordinates of the coverage extent, and tiles are arranged left-to-right and top-to-bottom.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public abstract class TiledGridCoverage extends GridCoverage {
+    /**
+     * Default maximal number of tiles to retain by strong references.
+     * Tiles in excess of this limit are retained by soft references.
+     */
+    private static final int DEFAULT_CACHE_SIZE = 32;
+
+    /**
+     * The sample model shared by all tiles. The sample model width and height are the tile size.
+     */
+    protected final SampleModel sampleModel;
+
+    /**
+     * The color model to associate to rendered images, or {@code null} if none.
+     */
+    private final ColorModel colorModel;
+
+    /**
+     * Index of the grid dimensions to show as image <var>x</var> and <var>y</var> axes.
+     */
+    private final int xDimension, yDimension;
+
+    /**
+     * Number of tiles in the X and Y direction.
+     */
+    private final int numXTiles, numYTiles;
+
+    /**
+     * Tiles which have been read so far. Keys are tile indices packed in a {@code long}.
+     */
+    private final Cache<Long,Raster> tiles;
+
+    /**
+     * Result of the call to {@link #forConvertedValues(boolean)}, created when first needed.
+     */
+    private GridCoverage converted;
+
+    /**
+     * Creates a new tiled grid coverage. The coverage extent shall have exactly two dimensions
+     * with a size greater than 1 cell.
+     *
+     * @param  domain       the grid extent, CRS and conversion from cell indices to CRS.
+     * @param  bands        sample dimensions for each image band.
+     * @param  sampleModel  the sample model of tiles. Its size is the tile size.
+     * @param  colorModel   the color model to associate to rendered images, or {@code null} if none.
+     * @throws ArithmeticException if the number of tiles exceeds 32 bits integer capacity.
+     */
+    protected TiledGridCoverage(final GridGeometry domain, final Collection<? extends SampleDimension> bands,
+                                final SampleModel sampleModel, final ColorModel colorModel)
+    {
+        this(domain, bands, sampleModel, colorModel, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new tiled grid coverage with the given limit on the number of tiles
+     * retained by strong references.
+     *
+     * @param  domain       the grid extent, CRS and conversion from cell indices to CRS.
+     * @param  bands        sample dimensions for each image band.
+     * @param  sampleModel  the sample model of tiles. Its size is the tile size.
+     * @param  colorModel   the color model to associate to rendered images, or {@code null} if none.
+     * @param  cacheSize    maximal number of tiles to retain by strong references.
+     * @throws ArithmeticException if the number of tiles exceeds 32 bits integer capacity.
+     */
+    protected TiledGridCoverage(final GridGeometry domain, final Collection<? extends SampleDimension> bands,
+                                final SampleModel sampleModel, final ColorModel colorModel, final int cacheSize)
+    {
+        super(domain, bands);
+        ArgumentChecks.ensureNonNull("sampleModel", sampleModel);
+        ArgumentChecks.ensureStrictlyPositive("cacheSize", cacheSize);
+        this.sampleModel = sampleModel;
+        this.colorModel  = colorModel;
+        final GridExtent extent = domain.getExtent();
+        final int[] dimensions = extent.getSubspaceDimensions(2);
+        xDimension = dimensions[0];
+        yDimension = dimensions[1];
+        numXTiles  = Math.toIntExact(ceilDiv(extent.getSize(xDimension), sampleModel.getWidth()));
+        numYTiles  = Math.toIntExact(ceilDiv(extent.getSize(yDimension), sampleModel.getHeight()));
+        tiles      = new Cache<>(cacheSize, cacheSize, true);
+    }
+
+    /**
+     * Returns the given numerator divided by the given denominator, rounded toward positive infinity.
+     */
+    private static long ceilDiv(final long numerator, final int denominator) {
+        return (numerator + (denominator - 1)) / denominator;
+    }
+
+    /**
+     * Returns the number of tiles in the X direction.
+     *
+     * @return number of tiles along the image <var>x</var> axis.
+     */
+    public final int getNumXTiles() {
+        return numXTiles;
+    }
+
+    /**
+     * Returns the number of tiles in the Y direction.
+     *
+     * @return number of tiles along the image <var>y</var> axis.
+     */
+    public final int getNumYTiles() {
+        return numYTiles;
+    }
+
+    /**
+     * Returns the tile at the given index, reading it if it is not already in the cache.
+     * The raster location is relative to the coverage extent, i.e. the upper-left corner
+     * of tile (0,0) is located at pixel (0,0).
+     *
+     * @param  tileX  column index of the tile, from 0 inclusive to {@link #getNumXTiles()} exclusive.
+     * @param  tileY  row index of the tile, from 0 inclusive to {@link #getNumYTiles()} exclusive.
+     * @return the tile at the given index.
+     * @throws ImagingOpException if an error occurred while reading the tile.
+     */
+    public final Raster getTile(final int tileX, final int tileY) {
+        ArgumentChecks.ensureBetween("tileX", 0, numXTiles - 1, tileX);
+        ArgumentChecks.ensureBetween("tileY", 0, numYTiles - 1, tileY);
+        final Long key = key(tileX, tileY);
+        Raster tile = tiles.peek(key);
+        if (tile == null) {
+            final Cache.Handler<Raster> handler = tiles.lock(key);
+            try {
+                tile = handler.peek();
+                if (tile == null) {
+                    tile = readTile(tileX, tileY);
+                }
+            } catch (Exception e) {
+                throw (ImagingOpException) new ImagingOpException(
+                        Resources.format(Resources.Keys.CanNotComputeTile_2, tileX, tileY)).initCause(e);
+            } finally {
+                handler.putAndUnlock(tile);
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the tiles in the given range of indices, reading all missing tiles in a single call to
+     * {@link #readTiles(int[], int[])}. Tiles read by this method are added to the cache, but without
+     * blocking other threads that may be reading the same tiles concurrently.
+     *
+     * @param  firstTileX  column index of the first tile, inclusive.
+     * @param  firstTileY  row index of the first tile, inclusive.
+     * @param  lastTileX   column index of the last tile, inclusive.
+     * @param  lastTileY   row index of the last tile, inclusive.
+     * @return the tiles in the given range, in no particular order.
+     * @throws ImagingOpException if an error occurred while reading the tiles.
+     */
+    final List<Raster> getTiles(final int firstTileX, final int firstTileY, final int lastTileX, final int lastTileY) {
+        ArgumentChecks.ensureBetween("firstTileX", 0, numXTiles - 1, firstTileX);
+        ArgumentChecks.ensureBetween("firstTileY", 0, numYTiles - 1, firstTileY);
+        ArgumentChecks.ensureBetween("lastTileX", firstTileX, numXTiles - 1, lastTileX);
+        ArgumentChecks.ensureBetween("lastTileY", firstTileY, numYTiles - 1, lastTileY);
+        final List<Raster> result = new ArrayList<>();
+        final List<Long> missing = new ArrayList<>();
+        for (int ty = firstTileY; ty <= lastTileY; ty++) {
+            for (int tx = firstTileX; tx <= lastTileX; tx++) {
+                final Long key = key(tx, ty);
+                final Raster tile = tiles.peek(key);
+                if (tile != null) {
+                    result.add(tile);
+                } else {
+                    missing.add(key);
+                }
+            }
+        }
+        final int n = missing.size();
+        if (n != 0) {
+            final int[] tileX = new int[n];
+            final int[] tileY = new int[n];
+            for (int i=0; i<n; i++) {
+                final long key = missing.get(i);
+                tileX[i] = (int) key;
+                tileY[i] = (int) (key >>> Integer.SIZE);
+            }
+            final Raster[] loaded;
+            try {
+                loaded = readTiles(tileX, tileY);
+            } catch (Exception e) {
+                throw (ImagingOpException) new ImagingOpException(
+                        Resources.format(Resources.Keys.CanNotComputeTile_2, tileX[0], tileY[0])).initCause(e);
+            }
+            for (int i=0; i<n; i++) {
+                final Raster tile = loaded[i];
+                tiles.putIfAbsent(missing.get(i), tile);
+                result.add(tile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key of the given tile in the cache.
+     */
+    private static Long key(final int tileX, final int tileY) {
+        return (((long) tileY) << Integer.SIZE) | Integer.toUnsignedLong(tileX);
+    }
+
+    /**
+     * Reads the tile at the given index. The raster location shall be
+     * ({@code tileX} × tile width, {@code tileY} × tile height) and its sample model shall be
+     * compatible with {@link #sampleModel}. This method is invoked by {@link #getTile(int, int)}
+     * when the tile is not in the cache; the returned tile will be cached by the caller.
+     *
+     * <p>This method may be invoked from any thread. Implementations are responsible for
+     * synchronization on the underlying data store if needed.</p>
+     *
+     * @param  tileX  column index of the tile, from 0 inclusive to {@link #getNumXTiles()} exclusive.
+     * @param  tileY  row index of the tile, from 0 inclusive to {@link #getNumYTiles()} exclusive.
+     * @return the tile at the given index.
+     * @throws Exception if an error occurred while reading the tile.
+     */
+    protected abstract Raster readTile(int tileX, int tileY) throws Exception;
+
+    /**
+     * Reads all tiles at the given indices. This method is invoked when many tiles are requested
+     * together, for example by {@link RenderedImage#getData()}. The default implementation invokes
+     * {@link #readTile(int, int)} for each tile in parallel. Subclasses can override this method
+     * if reading many tiles in a single operation is more efficient, for example by merging the
+     * reads of tiles stored in adjacent ranges of bytes.
+     *
+     * @param  tileX  column indices of the tiles to read. Shall not be modified.
+     * @param  tileY  row indices of the tiles to read, in the same order than {@code tileX}.
+     * @return the tiles at the given indices, in the same order than the given arrays.
+     * @throws Exception if an error occurred while reading the tiles.
+     */
+    protected Raster[] readTiles(final int[] tileX, final int[] tileY) throws Exception {
+        final List<Callable<Raster>> tasks = new ArrayList<>(tileX.length);
+        for (int i=0; i<tileX.length; i++) {
+            final int tx = tileX[i], ty = tileY[i];
+            tasks.add(() -> readTile(tx, ty));
+        }
+        return CommonExecutor.invokeAll(tasks).toArray(new Raster[tileX.length]);
+    }
+
+    /**
+     * Returns a two-dimensional slice of grid data as a rendered image. The returned image is a view
+     * over the tiles of this coverage; only the tiles requested by {@link RenderedImage#getTile(int, int)}
+     * are read. The image bounds are expanded to an integer amount of tiles (clipped to the coverage extent),
+     * so the image may have more data than requested.
+     *
+     * @param  sliceExtent  a subspace of this grid coverage extent, or {@code null} for the whole coverage.
+     * @return the grid slice as a rendered image. Image location is relative to {@code sliceExtent}.
+     * @throws DisjointExtentException if the given extent does not intersect this grid coverage.
+     */
+    @Override
+    public RenderedImage render(GridExtent sliceExtent) {
+        final GridExtent extent = getGridGeometry().getExtent();
+        if (sliceExtent == null) {
+            sliceExtent = extent;
+        } else if (sliceExtent.getDimension() != extent.getDimension()) {
+            throw new MismatchedDimensionException(Errors.format(
+                    Errors.Keys.MismatchedDimension_3, "sliceExtent", extent.getDimension(), sliceExtent.getDimension()));
+        }
+        final int  xd   = xDimension;
+        final int  yd   = yDimension;
+        final long xcov = extent.getLow(xd);
+        final long ycov = extent.getLow(yd);
+        final long xmin = Math.max(sliceExtent.getLow (xd), xcov);
+        final long ymin = Math.max(sliceExtent.getLow (yd), ycov);
+        final long xmax = Math.min(sliceExtent.getHigh(xd), extent.getHigh(xd));
+        final long ymax = Math.min(sliceExtent.getHigh(yd), extent.getHigh(yd));
+        if (xmax < xmin || ymax < ymin) {                                           // max are inclusive.
+            final int d = (xmax < xmin) ? xd : yd;
+            throw new DisjointExtentException(Resources.format(Resources.Keys.GridEnvelopeOutsideCoverage_5, new Object[] {
+                    d, extent.getLow(d), extent.getHigh(d), sliceExtent.getLow(d), sliceExtent.getHigh(d)}));
+        }
+        final int tileWidth  = sampleModel.getWidth();
+        final int tileHeight = sampleModel.getHeight();
+        final int minTileX   = Math.toIntExact((xmin - xcov) / tileWidth);
+        final int minTileY   = Math.toIntExact((ymin - ycov) / tileHeight);
+        final int maxTileX   = Math.toIntExact((xmax - xcov) / tileWidth);             // Inclusive.
+        final int maxTileY   = Math.toIntExact((ymax - ycov) / tileHeight);
+        /*
+         * Pixel coordinates in the image are relative to the slice extent. The image covers
+         * an integer amount of tiles, clipped to the coverage extent on the right and bottom.
+         */
+        final long xOffset = Math.subtractExact(xcov, sliceExtent.getLow(xd));
+        final long yOffset = Math.subtractExact(ycov, sliceExtent.getLow(yd));
+        final long x0 = ((long) minTileX) * tileWidth;
+        final long y0 = ((long) minTileY) * tileHeight;
+        final long x1 = Math.min(((long) maxTileX + 1) * tileWidth,  extent.getSize(xd));
+        final long y1 = Math.min(((long) maxTileY + 1) * tileHeight, extent.getSize(yd));
+        return new Image(Math.toIntExact(x0 + xOffset), Math.toIntExact(y0 + yOffset),
+                         Math.toIntExact(x1 - x0), Math.toIntExact(y1 - y0),
+                         minTileX, minTileY, Math.toIntExact(xOffset), Math.toIntExact(yOffset));
+    }
+
+    /**
+     * A view over the tiles of the enclosing coverage, with pixel coordinates translated
+     * to the coordinate system of the slice extent given to {@link #render(GridExtent)}.
+     */
+    private final class Image extends TiledImage {
+        /**
+         * Translation from coverage pixel coordinates to image pixel coordinates.
+         */
+        private final int xOffset, yOffset;
+
+        /**
+         * Creates a new view over the tiles of the enclosing coverage.
+         */
+        Image(final int minX, final int minY, final int width, final int height,
+              final int minTileX, final int minTileY, final int xOffset, final int yOffset)
+        {
+            super(sampleModel, colorModel, minX, minY, width, height, minTileX, minTileY);
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+        }
+
+        /**
+         * Returns the tile at the given index, reading it when first needed.
+         */
+        @Override
+        public Raster getTile(final int tileX, final int tileY) {
+            ensureValidTile(tileX, tileY);
+            final Raster tile = TiledGridCoverage.this.getTile(tileX, tileY);
+            if (xOffset == 0 && yOffset == 0) {
+                return tile;
+            }
+            return tile.createTranslatedChild(tile.getMinX() + xOffset, tile.getMinY() + yOffset);
+        }
+
+        /**
+         * Returns the tiles in the given range, reading all missing tiles in a single operation.
+         */
+        @Override
+        protected List<Raster> getTiles(final int firstTileX, final int firstTileY, final int lastTileX, final int lastTileY) {
+            final List<Raster> tiles = TiledGridCoverage.this.getTiles(firstTileX, firstTileY, lastTileX, lastTileY);
+            if (xOffset != 0 || yOffset != 0) {
+                tiles.replaceAll((tile) -> tile.createTranslatedChild(tile.getMinX() + xOffset, tile.getMinY() + yOffset));
+            }
+            return tiles;
+        }
+    }
+
+    /**
+     * Returns a grid coverage that contains real values or sample values,
+     * depending if {@code converted} is {@code true} or {@code false} respectively.
+     *
+     * @return a coverage containing converted or packed values, depending on {@code converted} argument value.
+     */
+    @Override
+    public synchronized GridCoverage forConvertedValues(final boolean converted) {
+        if (converted) {
+            if (this.converted == null) {
+                this.converted = BufferedGridCoverage.convert(this);
+            }
+            return this.converted;
+        }
+        return this;
+    }
+}
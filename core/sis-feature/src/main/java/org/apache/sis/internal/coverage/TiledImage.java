@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.coverage;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.ColorModel;
+import java.awt.image.ImagingOpException;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.List;
+import java.util.Vector;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.util.ArgumentChecks;
+
+
+/**
+ * Base class of rendered images where tiles are computed or read only when first requested.
+ * This class provides the {@link RenderedImage} plumbing (image bounds, tile grid, copies of
+ * arbitrary regions) and leaves to subclasses the work of providing each tile.
+ *
+ * <p>The tile grid is defined by the {@linkplain SampleModel sample model} size (which is the tile size),
+ * the index of the upper-left tile and the pixel coordinates of that tile. All tiles have the same size,
+ * but tiles on the right and bottom borders may extend outside the image bounds.</p>
+ *
+ * <p>Subclasses are responsible for caching tiles if desired; this base class does not keep any
+ * reference to the rasters returned by {@link #getTile(int, int)}.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public abstract class TiledImage implements RenderedImage {
+    /**
+     * The sample model shared by all tiles. The sample model width and height are the tile size.
+     */
+    private final SampleModel sampleModel;
+
+    /**
+     * The color model, or {@code null} if none.
+     */
+    private final ColorModel colorModel;
+
+    /**
+     * The minimum X or Y coordinate (inclusive) of the rendered image.
+     */
+    private final int minX, minY;
+
+    /**
+     * Number of pixels along X or Y axis in the whole rendered image.
+     */
+    private final int width, height;
+
+    /**
+     * The minimum tile index in the X or Y direction.
+     */
+    private final int minTileX, minTileY;
+
+    /**
+     * Number of tiles in the X or Y direction.
+     */
+    private final int numXTiles, numYTiles;
+
+    /**
+     * Creates a new tiled image. The upper-left pixel of the image shall be the upper-left pixel
+     * of tile ({@code minTileX}, {@code minTileY}); i.e. the image starts on a tile boundary.
+     *
+     * @param  sampleModel  the sample model shared by all tiles. Its size is the tile size.
+     * @param  colorModel   the color model, or {@code null} if none.
+     * @param  minX         minimum X coordinate (inclusive) of the rendered image.
+     * @param  minY         minimum Y coordinate (inclusive) of the rendered image.
+     * @param  width        number of pixels along X axis in the rendered image.
+     * @param  height       number of pixels along Y axis in the rendered image.
+     * @param  minTileX     index of the upper-left tile along X axis.
+     * @param  minTileY     index of the upper-left tile along Y axis.
+     */
+    protected TiledImage(final SampleModel sampleModel, final ColorModel colorModel,
+                         final int minX, final int minY, final int width, final int height,
+                         final int minTileX, final int minTileY)
+    {
+        ArgumentChecks.ensureNonNull("sampleModel", sampleModel);
+        ArgumentChecks.ensureStrictlyPositive("width",  width);
+        ArgumentChecks.ensureStrictlyPositive("height", height);
+        this.sampleModel = sampleModel;
+        this.colorModel  = colorModel;
+        this.minX        = minX;
+        this.minY        = minY;
+        this.width       = width;
+        this.height      = height;
+        this.minTileX    = minTileX;
+        this.minTileY    = minTileY;
+        final int tileWidth  = sampleModel.getWidth();
+        final int tileHeight = sampleModel.getHeight();
+        numXTiles = (width  + tileWidth  - 1) / tileWidth;          // Round toward upper integer value.
+        numYTiles = (height + tileHeight - 1) / tileHeight;
+    }
+
+    /*
+     * No source and no property by default. Subclasses can override.
+     */
+    @Override public Vector<RenderedImage> getSources()             {return null;}
+    @Override public Object                getProperty(String name) {return Image.UndefinedProperty;}
+    @Override public String[]              getPropertyNames()       {return null;}
+
+    /*
+     * Information specified to the constructor or computed from it.
+     */
+    @Override public final ColorModel  getColorModel()        {return colorModel;}
+    @Override public final SampleModel getSampleModel()       {return sampleModel;}
+    @Override public final int         getMinX()              {return minX;}
+    @Override public final int         getMinY()              {return minY;}
+    @Override public final int         getWidth()             {return width;}
+    @Override public final int         getHeight()            {return height;}
+    @Override public final int         getTileWidth()         {return sampleModel.getWidth();}
+    @Override public final int         getTileHeight()        {return sampleModel.getHeight();}
+    @Override public final int         getNumXTiles()         {return numXTiles;}
+    @Override public final int         getNumYTiles()         {return numYTiles;}
+    @Override public final int         getMinTileX()          {return minTileX;}
+    @Override public final int         getMinTileY()          {return minTileY;}
+    @Override public final int         getTileGridXOffset()   {return minX - minTileX * getTileWidth();}
+    @Override public final int         getTileGridYOffset()   {return minY - minTileY * getTileHeight();}
+
+    /**
+     * Returns the bounds of this image in pixel coordinates.
+     */
+    private Rectangle getBounds() {
+        return new Rectangle(minX, minY, width, height);
+    }
+
+    /**
+     * Returns the tile at the given location in tile coordinates. The raster location shall be
+     * {@code (tileX - minTileX) * tileWidth + minX} and {@code (tileY - minTileY) * tileHeight + minY}.
+     * Implementations may compute or read the tile on the fly.
+     *
+     * @param  tileX  the X index of the requested tile in the tile array.
+     * @param  tileY  the Y index of the requested tile in the tile array.
+     * @return the tile specified by the specified indices.
+     * @throws IndexOutOfBoundsException if a given tile index is out of bounds.
+     * @throws java.awt.image.ImagingOpException if an error occurred while computing the tile.
+     */
+    @Override
+    public abstract Raster getTile(int tileX, int tileY);
+
+    /**
+     * Verifies that the given tile indices are inside the bounds of this image.
+     * This is a helper method for {@link #getTile(int, int)} implementations.
+     *
+     * @param  tileX  the X index of the tile to check.
+     * @param  tileY  the Y index of the tile to check.
+     * @throws IndexOutOfBoundsException if a given tile index is out of bounds.
+     */
+    protected final void ensureValidTile(final int tileX, final int tileY) {
+        ArgumentChecks.ensureBetween("tileX", minTileX, minTileX + numXTiles - 1, tileX);
+        ArgumentChecks.ensureBetween("tileY", minTileY, minTileY + numYTiles - 1, tileY);
+    }
+
+    /**
+     * Returns all tiles in the given range of tile indices. This method is invoked by
+     * {@link #copyData(WritableRaster)} for fetching all tiles intersecting the region to copy.
+     * The default implementation invokes {@link #getTile(int, int)} for each tile in parallel.
+     * Subclasses can override if they can fetch many tiles more efficiently in a single operation,
+     * for example by merging the reads of adjacent tiles.
+     *
+     * @param  firstTileX  X index of the first tile to fetch, inclusive.
+     * @param  firstTileY  Y index of the first tile to fetch, inclusive.
+     * @param  lastTileX   X index of the last tile to fetch, inclusive.
+     * @param  lastTileY   Y index of the last tile to fetch, inclusive.
+     * @return the tiles in the given range, in no particular order.
+     * @throws java.awt.image.ImagingOpException if an error occurred while computing a tile.
+     */
+    protected List<Raster> getTiles(final int firstTileX, final int firstTileY, final int lastTileX, final int lastTileY) {
+        final List<Callable<Raster>> tasks = new ArrayList<>();
+        for (int ty = firstTileY; ty <= lastTileY; ty++) {
+            for (int tx = firstTileX; tx <= lastTileX; tx++) {
+                final int tileX = tx, tileY = ty;
+                tasks.add(() -> getTile(tileX, tileY));
+            }
+        }
+        try {
+            return CommonExecutor.invokeAll(tasks);             // Tiles may be computed in parallel.
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw (ImagingOpException) new ImagingOpException(e.toString()).initCause(e);
+        }
+    }
+
+    /**
+     * Returns a copy of this image as one large tile.
+     * This method may be costly since it forces the computation of all tiles.
+     *
+     * @return a copy of this image as one large tile.
+     */
+    @Override
+    public Raster getData() {
+        return copyData(null);
+    }
+
+    /**
+     * Returns a copy of an arbitrary region of this image.
+     * Only the tiles intersecting the given region are computed.
+     *
+     * @param  region  the region of this image to copy.
+     * @return a copy of this image in the given area of interest.
+     */
+    @Override
+    public Raster getData(final Rectangle region) {
+        final Rectangle bounds = region.intersection(getBounds());
+        if (bounds.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        final WritableRaster raster = Raster.createWritableRaster(
+                sampleModel.createCompatibleSampleModel(bounds.width, bounds.height), bounds.getLocation());
+        return copyData(raster);
+    }
+
+    /**
+     * Copies an arbitrary rectangular region of this image to the supplied writable raster.
+     * The region to be copied is determined from the bounds of the supplied raster.
+     * Tiles intersecting the region are fetched by {@link #getTiles(int, int, int, int)}.
+     * If the given raster is {@code null}, then a new raster is created for the whole image.
+     *
+     * @param  raster  the raster to hold the copy of this image, or {@code null}.
+     * @return the given raster if it was not-null, or a new raster otherwise.
+     */
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        final Rectangle bounds;
+        if (raster == null) {
+            bounds = getBounds();
+            raster = Raster.createWritableRaster(
+                    sampleModel.createCompatibleSampleModel(width, height), bounds.getLocation());
+        } else {
+            bounds = raster.getBounds().intersection(getBounds());
+        }
+        if (!bounds.isEmpty()) {
+            final int tileWidth   = getTileWidth();
+            final int tileHeight  = getTileHeight();
+            final int xOffset     = getTileGridXOffset();
+            final int yOffset     = getTileGridYOffset();
+            final int firstTileX  = Math.floorDiv(bounds.x - xOffset, tileWidth);
+            final int firstTileY  = Math.floorDiv(bounds.y - yOffset, tileHeight);
+            final int lastTileX   = Math.floorDiv(bounds.x + bounds.width  - 1 - xOffset, tileWidth);
+            final int lastTileY   = Math.floorDiv(bounds.y + bounds.height - 1 - yOffset, tileHeight);
+            for (final Raster tile : getTiles(firstTileX, firstTileY, lastTileX, lastTileY)) {
+                raster.setRect(tile);                           // Clipped to raster bounds by Java2D.
+            }
+        }
+        return raster;
+    }
+}
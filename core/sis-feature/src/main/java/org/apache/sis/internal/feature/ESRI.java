@@ -20,6 +20,7 @@ import java.util.Iterator;
 import com.esri.core.geometry.Geometry;
 import com.esri.core.geometry.Envelope2D;
 import com.esri.core.geometry.MultiPath;
+import com.esri.core.geometry.MultiPoint;
 import com.esri.core.geometry.Polyline;
 import com.esri.core.geometry.Polygon;
 import com.esri.core.geometry.Point;
@@ -42,7 +43,7 @@ import org.apache.sis.util.Classes;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -135,19 +136,36 @@ final class ESRI extends Geometries<Geometry> {
     }
 
     /**
-     * Creates a polyline from the given coordinate values.
-     * Each {@link Double#NaN} coordinate value starts a new path.
+     * Creates a three-dimensional point from the given coordinate.
+     */
+    @Override
+    public Object createPoint(final double x, final double y, final double z) {
+        return new Point(x, y, z);
+    }
+
+    /**
+     * Creates a polygon from the given coordinate values.
+     * Each {@link Double#NaN} coordinate value starts a new ring.
      *
      * @param  dimension  the number of dimensions (2 or 3).
      * @throws UnsupportedOperationException if this operation is not implemented for the given number of dimensions.
      */
     @Override
-    public Geometry createPolyline(final int dimension, final Vector... coordinates) {
+    public Geometry createPolygon(final int dimension, final Vector... coordinates) {
         if (dimension != 2) {
             throw new UnsupportedOperationException(unsupported(dimension));
         }
+        final Polygon polygon = new Polygon();
+        appendPaths(polygon, coordinates);
+        return polygon;
+    }
+
+    /**
+     * Appends the paths in the given coordinates to the given polyline or polygon.
+     * Each {@link Double#NaN} coordinate value starts a new path.
+     */
+    private static void appendPaths(final MultiPath path, final Vector[] coordinates) {
         boolean lineTo = false;
-        final Polyline path = new Polyline();
         for (final Vector v : coordinates) {
             if (v != null) {
                 final int size = v.size();
@@ -165,6 +183,50 @@ final class ESRI extends Geometries<Geometry> {
                 }
             }
         }
+    }
+
+    /**
+     * Creates a multi-point, multi-polyline or multi-polygon from the given components.
+     * ESRI library does not support heterogeneous geometry collections.
+     *
+     * @throws UnsupportedOperationException if the requested type is a geometry collection.
+     * @throws ClassCastException if a component is not of the type expected by the collection.
+     */
+    @Override
+    public Geometry createMultiGeometry(final GeometryType type, final Object... components) {
+        final MultiPath path;
+        switch (type) {
+            case MULTI_POINT: {
+                final MultiPoint points = new MultiPoint();
+                for (final Object component : components) {
+                    points.add((Point) component);
+                }
+                return points;
+            }
+            case MULTI_LINESTRING: path = new Polyline(); break;
+            case MULTI_POLYGON:    path = new Polygon();  break;
+            default: throw new UnsupportedOperationException(unsupported("GeometryCollection"));
+        }
+        for (final Object component : components) {
+            path.add((MultiPath) component, false);
+        }
+        return path;
+    }
+
+    /**
+     * Creates a polyline from the given coordinate values.
+     * Each {@link Double#NaN} coordinate value starts a new path.
+     *
+     * @param  dimension  the number of dimensions (2 or 3).
+     * @throws UnsupportedOperationException if this operation is not implemented for the given number of dimensions.
+     */
+    @Override
+    public Geometry createPolyline(final int dimension, final Vector... coordinates) {
+        if (dimension != 2) {
+            throw new UnsupportedOperationException(unsupported(dimension));
+        }
+        final Polyline path = new Polyline();
+        appendPaths(path, coordinates);
         return path;
     }
 
@@ -44,7 +44,7 @@ import org.apache.sis.math.Vector;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -355,6 +355,61 @@ public abstract class Geometries<G> {
      */
     public abstract G createPolyline(int dimension, Vector... coordinates);
 
+    /**
+     * Creates a three-dimensional point from the given coordinate. The default implementation ignores the
+     * <var>z</var> value and delegates to {@link #createPoint(double, double)}. Libraries capable to store
+     * <var>z</var> values override this method.
+     *
+     * @param  x  the first coordinate value.
+     * @param  y  the second coordinate value.
+     * @param  z  the third coordinate value.
+     * @return the point for the given coordinate values.
+     *
+     * @see #supports3D()
+     */
+    public Object createPoint(final double x, final double y, final double z) {
+        return createPoint(x, y);
+    }
+
+    /**
+     * Returns whether this library can store <var>z</var> values in points, polylines and polygons.
+     * If {@code false}, then {@link #createPolyline(int, Vector...)} and {@link #createPolygon(int, Vector...)}
+     * accept only two-dimensional coordinates.
+     *
+     * @return whether this library supports three-dimensional geometries.
+     */
+    public boolean supports3D() {
+        return false;
+    }
+
+    /**
+     * Creates a polygon from the given coordinate values.
+     * The array of coordinate values will be handled as if all vectors were concatenated in a single vector,
+     * ignoring {@code null} array elements.
+     * Each {@link Double#NaN} coordinate value in the concatenated vector starts a new ring.
+     * The first ring is the exterior boundary and all other rings are holes.
+     *
+     * @param  dimension    the number of dimensions (2 or 3).
+     * @param  coordinates  sequence of (x,y) or (x,y,z) tuples.
+     * @return the polygon for the given rings.
+     * @throws UnsupportedOperationException if the geometry library can not create the requested polygon.
+     */
+    public abstract G createPolygon(int dimension, Vector... coordinates);
+
+    /**
+     * Creates a multi-point, multi-polyline, multi-polygon or geometry collection from the given components.
+     * The components shall be geometries created by this library with a type compatible with the requested
+     * collection type.
+     *
+     * @param  type        the type of collection to create. Shall be a {@linkplain GeometryType#isCollection() collection}.
+     * @param  components  the geometries to put in the collection.
+     * @return the collection of geometries.
+     * @throws UnsupportedOperationException if the geometry library can not create the requested collection.
+     * @throws ClassCastException if a component is not of the type expected by the collection.
+     *         Some implementations throw {@link ArrayStoreException} instead.
+     */
+    public abstract Object createMultiGeometry(GeometryType type, Object... components);
+
     /**
      * Merges a sequence of polyline instances if the first instance is an implementation of this library.
      *
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.feature;
+
+
+/**
+ * Kinds of geometries defined by the OGC Simple Feature Access specification.
+ * The enumeration order matches the codes used in Well-Known Binary (WKB) encoding,
+ * so that {@link #ordinal()} is the binary code of the geometry type.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public enum GeometryType {
+    /**
+     * Base class of all geometries. Binary code is 0.
+     */
+    GEOMETRY,
+
+    /**
+     * A single coordinate tuple. Binary code is 1.
+     */
+    POINT,
+
+    /**
+     * A sequence of coordinate tuples connected by straight lines. Binary code is 2.
+     */
+    LINESTRING,
+
+    /**
+     * An exterior ring and zero or more interior rings (holes). Binary code is 3.
+     */
+    POLYGON,
+
+    /**
+     * A collection of points. Binary code is 4.
+     */
+    MULTI_POINT,
+
+    /**
+     * A collection of line strings. Binary code is 5.
+     */
+    MULTI_LINESTRING,
+
+    /**
+     * A collection of polygons. Binary code is 6.
+     */
+    MULTI_POLYGON,
+
+    /**
+     * A collection of arbitrary geometries. Binary code is 7.
+     */
+    GEOMETRY_COLLECTION;
+
+    /**
+     * All enumeration values, cached for avoiding to clone the array every time.
+     */
+    private static final GeometryType[] VALUES = values();
+
+    /**
+     * Returns {@code true} if this type is a collection of other geometries.
+     *
+     * @return whether this type is a multi-geometry or a geometry collection.
+     */
+    public final boolean isCollection() {
+        return ordinal() >= MULTI_POINT.ordinal();
+    }
+
+    /**
+     * Returns the enumeration value for the given Well-Known Binary code, or {@code null} if unknown.
+     * The given code shall be the base code, without the flags or offsets for <var>z</var> and <var>m</var> values.
+     *
+     * @param  code  the WKB code, from 0 to 7 inclusive.
+     * @return the geometry type for the given code, or {@code null} if the code is unknown.
+     */
+    public static GeometryType forBinaryType(final int code) {
+        return (code >= 0 && code < VALUES.length) ? VALUES[code] : null;
+    }
+}
@@ -29,6 +29,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.MultiLineString;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
@@ -48,7 +49,7 @@ import org.apache.sis.util.Classes;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -202,6 +203,92 @@ final class JTS extends Geometries<Geometry> {
         return factory.createPoint(new Coordinate(x, y));
     }
 
+    /**
+     * Creates a three-dimensional point from the given coordinate.
+     *
+     * @return the point for the given coordinate values.
+     */
+    @Override
+    public Object createPoint(final double x, final double y, final double z) {
+        return factory.createPoint(new Coordinate(x, y, z));
+    }
+
+    /**
+     * Returns {@code true} since JTS can store <var>z</var> values.
+     */
+    @Override
+    public boolean supports3D() {
+        return true;
+    }
+
+    /**
+     * Creates a polygon from the given coordinate values.
+     * Each {@link Double#NaN} coordinate value starts a new ring.
+     * The first ring is the shell and all other rings are holes.
+     *
+     * @param  dimension  the number of dimensions (2 or 3).
+     * @return the polygon for the given rings.
+     * @throws UnsupportedOperationException if this operation is not implemented for the given number of dimensions.
+     */
+    @Override
+    public Geometry createPolygon(final int dimension, final Vector... coords) {
+        final boolean is3D = (dimension == 3);
+        if (!is3D && dimension != 2) {
+            throw new UnsupportedOperationException(unsupported(dimension));
+        }
+        final List<Coordinate> coordinates = new ArrayList<>(32);
+        final List<LinearRing> rings = new ArrayList<>();
+        for (final Vector v : coords) {
+            if (v != null) {
+                final int size = v.size();
+                for (int i=0; i<size;) {
+                    final double x = v.doubleValue(i++);
+                    final double y = v.doubleValue(i++);
+                    final double z = is3D ? v.doubleValue(i++) : Double.NaN;
+                    if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                        coordinates.add(new Coordinate(x, y, z));
+                    } else {
+                        toLinearRing(coordinates, rings);
+                    }
+                }
+            }
+        }
+        toLinearRing(coordinates, rings);
+        if (rings.isEmpty()) {
+            return factory.createPolygon();
+        }
+        final LinearRing shell = rings.remove(0);
+        return factory.createPolygon(shell, rings.toArray(new LinearRing[rings.size()]));
+    }
+
+    /**
+     * Makes a linear ring from the given coordinates, and add the ring to the given list.
+     * If the given coordinates list is empty, then this method does nothing.
+     * This method clears the given coordinates list.
+     */
+    private void toLinearRing(final List<Coordinate> coordinates, final List<LinearRing> addTo) {
+        if (!coordinates.isEmpty()) {
+            addTo.add(factory.createLinearRing(coordinates.toArray(new Coordinate[coordinates.size()])));
+            coordinates.clear();
+        }
+    }
+
+    /**
+     * Creates a multi-point, multi-line string, multi-polygon or geometry collection from the given components.
+     *
+     * @throws ArrayStoreException if a component is not of the type expected by the collection.
+     */
+    @Override
+    public Geometry createMultiGeometry(final GeometryType type, final Object... components) {
+        final int n = components.length;
+        switch (type) {
+            case MULTI_POINT:      return factory.createMultiPoint     (Arrays.copyOf(components, n, Point[].class));
+            case MULTI_LINESTRING: return factory.createMultiLineString(Arrays.copyOf(components, n, LineString[].class));
+            case MULTI_POLYGON:    return factory.createMultiPolygon   (Arrays.copyOf(components, n, Polygon[].class));
+            default:               return factory.createGeometryCollection(Arrays.copyOf(components, n, Geometry[].class));
+        }
+    }
+
     /**
      * Creates a polyline from the given coordinate values.
      * Each {@link Double#NaN} coordinate value starts a new path.
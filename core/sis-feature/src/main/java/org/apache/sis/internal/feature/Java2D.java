@@ -39,7 +39,7 @@ import org.apache.sis.util.UnsupportedImplementationException;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -170,15 +170,56 @@ final class Java2D extends Geometries<Shape> {
                 return path;
             }
         }
-        final Path2D path = isFloat ? new Path2D.Float (Path2D.WIND_NON_ZERO, length)
-                                    : new Path2D.Double(Path2D.WIND_NON_ZERO, length);
+        return toPath(coordinates, length, isFloat, false);
+    }
+
+    /**
+     * Creates a polygon from the given coordinate values.
+     * Each {@link Double#NaN} coordinate value starts a new ring.
+     * Rings after the first one are holes, which are handled by the even-odd winding rule.
+     *
+     * @param  dimension  the number of dimensions (2 or 3).
+     * @throws UnsupportedOperationException if this operation is not implemented for the given number of dimensions.
+     */
+    @Override
+    public Shape createPolygon(final int dimension, final Vector... coordinates) {
+        if (dimension != 2) {
+            throw new UnsupportedOperationException(unsupported(dimension));
+        }
+        int length = 0;
+        boolean isFloat = true;
+        for (final Vector v : coordinates) {
+            if (v != null) {
+                length = Math.addExact(length, v.size());
+                if (isFloat) {
+                    isFloat = Numbers.getEnumConstant(v.getElementType()) <= Numbers.FLOAT;
+                }
+            }
+        }
+        return toPath(coordinates, length / 2, isFloat, true);
+    }
+
+    /**
+     * Creates a path from the given coordinate values, closing each sub-path if {@code polygon} is {@code true}.
+     *
+     * @param  coordinates  sequence of (x,y) tuples. Each {@link Double#NaN} value starts a new sub-path.
+     * @param  length       number of points, used as an hint for the initial capacity.
+     * @param  isFloat      whether single-precision is sufficient.
+     * @param  polygon      whether to close each sub-path and use the even-odd winding rule.
+     */
+    private static Shape toPath(final Vector[] coordinates, final int length, final boolean isFloat, final boolean polygon) {
+        final int rule = polygon ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO;
+        final Path2D path = isFloat ? new Path2D.Float (rule, length)
+                                    : new Path2D.Double(rule, length);
         boolean lineTo = false;
         for (final Vector v : coordinates) {
+            if (v == null) continue;
             final int size = v.size();
             for (int i=0; i<size;) {
                 final double x = v.doubleValue(i++);
                 final double y = v.doubleValue(i++);
                 if (Double.isNaN(x) || Double.isNaN(y)) {
+                    if (polygon && lineTo) path.closePath();
                     lineTo = false;
                 } else if (lineTo) {
                     path.lineTo(x, y);
@@ -188,9 +229,39 @@ final class Java2D extends Geometries<Shape> {
                 }
             }
         }
+        if (polygon && lineTo) {
+            path.closePath();
+        }
         return ShapeUtilities.toPrimitive(path);
     }
 
+    /**
+     * Creates a collection of polylines or polygons. Java2D can not represent collections of points,
+     * since {@link Point2D} is not a {@link Shape}.
+     *
+     * @throws UnsupportedOperationException if the collection contains points.
+     * @throws ClassCastException if a component is not a Java2D shape.
+     */
+    @Override
+    public Shape createMultiGeometry(final GeometryType type, final Object... components) {
+        if (type == GeometryType.MULTI_POINT) {
+            throw new UnsupportedOperationException(unsupported("MultiPoint"));
+        }
+        boolean isFloat = true;
+        for (final Object component : components) {
+            if (component instanceof Point2D) {
+                throw new UnsupportedOperationException(unsupported("MultiPoint"));
+            }
+            isFloat &= ShapeUtilities.isFloat(component);
+        }
+        final int rule = (type == GeometryType.MULTI_LINESTRING) ? Path2D.WIND_NON_ZERO : Path2D.WIND_EVEN_ODD;
+        final Path2D path = isFloat ? new Path2D.Float(rule) : new Path2D.Double(rule);
+        for (final Object component : components) {
+            path.append((Shape) component, false);
+        }
+        return path;
+    }
+
     /**
      * Merges a sequence of points or paths if the first instance is an implementation of this library.
      *
@@ -43,7 +43,7 @@ import org.apache.sis.feature.DefaultAttributeType;
  * However in future versions, it could extend {@code DenseFeature} directly.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -155,6 +155,34 @@ public final class MovingFeature {
         }
     }
 
+    /**
+     * Appends all time ranges and property values of the given moving feature after the values of this feature.
+     * This method is used for merging the results of many readers, each of them having parsed a different part
+     * of the same file. The given feature shall contain periods that are after the periods of this feature,
+     * and shall have the same number of properties.
+     *
+     * @param  next  the moving feature to append after this one.
+     *
+     * @since 1.1
+     */
+    public final void addAll(final MovingFeature next) {
+        addTimeRange(next.tmin, next.tmax);
+        for (int index=0; index < properties.length; index++) {
+            int n = next.count[index];
+            final Period[] periods = new Period[n];
+            for (Period p = next.properties[index]; p != null; p = p.previous) {
+                periods[--n] = p;
+            }
+            if (n != 0) {
+                // Should never happen unless the given object has been modified concurrently in another thread.
+                throw new CorruptedObjectException();
+            }
+            for (final Period p : periods) {
+                addValue(index, p.startTime, p.endTime, p.value);
+            }
+        }
+    }
+
     /**
      * Stores the start time and end time in the given feature.
      *
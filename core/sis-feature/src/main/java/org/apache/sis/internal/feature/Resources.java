@@ -69,6 +69,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short CanNotAssignCharacteristics_1 = 2;
 
+        /**
+         * Can not compute tile ({0}, {1}).
+         */
+        public static final short CanNotComputeTile_2 = 59;
+
         /**
          * Can not enumerate values in the {0} range.
          */
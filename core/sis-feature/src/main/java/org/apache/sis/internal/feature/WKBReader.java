@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.feature;
+
+import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.BufferUnderflowException;
+import org.apache.sis.math.Vector;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * Reader of geometries encoded in Well-Known Binary (WKB) format. This reader supports the ISO and OGC variants
+ * (with <var>z</var> and <var>m</var> dimensions encoded as offsets of 1000, 2000 or 3000 added to the type code)
+ * and the PostGIS "Extended WKB" (EWKB) variant (with dimensions and SRID encoded as flags in the high bits).
+ * Geometries are created directly in the library represented by the {@link Geometries} given at construction time.
+ *
+ * <p>A reader keeps its coordinate buffer between calls to {@code read(…)} methods, so it is more efficient
+ * to reuse the same instance for all geometries of a sequential stream (for example a database cursor).
+ * This class is not thread-safe.</p>
+ *
+ * <p>The <var>m</var> values are ignored. The <var>z</var> values are ignored if the geometry library
+ * does not {@linkplain Geometries#supports3D() support three-dimensional geometries}.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final class WKBReader {
+    /**
+     * EWKB flag telling that coordinates have a <var>z</var> value.
+     */
+    private static final int EWKB_Z = 0x80000000;
+
+    /**
+     * EWKB flag telling that coordinates have a <var>m</var> value.
+     */
+    private static final int EWKB_M = 0x40000000;
+
+    /**
+     * EWKB flag telling that a SRID follows the geometry type.
+     */
+    private static final int EWKB_SRID = 0x20000000;
+
+    /**
+     * The library to use for creating geometries.
+     */
+    private final Geometries<?> geometries;
+
+    /**
+     * Whether the geometry library can store <var>z</var> values.
+     */
+    private final boolean supports3D;
+
+    /**
+     * The coordinate values of the geometry being read. This array is reused for all geometries.
+     * Only the {@link #count} first elements are valid.
+     */
+    private double[] coordinates;
+
+    /**
+     * Number of valid values in the {@link #coordinates} array.
+     */
+    private int count;
+
+    /**
+     * Bytes decoded from the last hexadecimal string, or {@code null} if none.
+     * This array is reused for all geometries read from hexadecimal strings.
+     */
+    private ByteBuffer hexBytes;
+
+    /**
+     * The spatial reference identifier of the last geometry read, or 0 if none.
+     */
+    private int srid;
+
+    /**
+     * Creates a new reader creating geometries with the given library.
+     *
+     * @param  geometries  the library to use for creating geometries.
+     */
+    public WKBReader(final Geometries<?> geometries) {
+        ArgumentChecks.ensureNonNull("geometries", geometries);
+        this.geometries  = geometries;
+        this.supports3D  = geometries.supports3D();
+        this.coordinates = new double[64];
+    }
+
+    /**
+     * Returns the spatial reference identifier declared in the last geometry read, or 0 if none.
+     * Only Extended WKB (EWKB) can declare a SRID.
+     *
+     * @return the SRID of the last geometry read, or 0 if none.
+     */
+    public int getSRID() {
+        return srid;
+    }
+
+    /**
+     * Reads a geometry encoded as an hexadecimal string. This is the textual representation
+     * of geometries used by PostGIS (for example in the result of {@code ResultSet.getString(…)}).
+     *
+     * @param  hex  the hexadecimal string to decode.
+     * @return the geometry decoded from the given string.
+     * @throws IllegalArgumentException if the string is not a valid hexadecimal encoding of a WKB geometry.
+     */
+    public Object readHex(final CharSequence hex) {
+        final int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnexpectedEndOfString_1, "WKB"));
+        }
+        final int n = length >>> 1;
+        ByteBuffer buffer = hexBytes;
+        if (buffer == null || buffer.capacity() < n) {
+            hexBytes = buffer = ByteBuffer.allocate(Math.max(n, 256));
+        }
+        buffer.clear();
+        for (int i=0; i<length;) {
+            final int high = digit(hex.charAt(i++));
+            buffer.put((byte) ((high << 4) | digit(hex.charAt(i++))));
+        }
+        buffer.flip();
+        return read(buffer);
+    }
+
+    /**
+     * Returns the value of the given hexadecimal digit.
+     */
+    private static int digit(final char c) {
+        final int d = Character.digit(c, 16);
+        if (d < 0) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.IllegalCharacter_2, "WKB", c));
+        }
+        return d;
+    }
+
+    /**
+     * Reads a geometry encoded in the given array.
+     *
+     * @param  wkb  the encoded geometry.
+     * @return the decoded geometry.
+     * @throws IllegalArgumentException if the array does not contain a valid WKB geometry.
+     */
+    public Object read(final byte[] wkb) {
+        return read(ByteBuffer.wrap(wkb));
+    }
+
+    /**
+     * Reads a geometry encoded in the given buffer, starting at the current position.
+     * After this method call, the buffer position is after the last byte of the geometry.
+     * The buffer byte order is ignored since it is specified in the WKB encoding.
+     *
+     * @param  wkb  the encoded geometry.
+     * @return the decoded geometry.
+     * @throws IllegalArgumentException if the buffer does not contain a valid WKB geometry.
+     */
+    public Object read(final ByteBuffer wkb) {
+        srid = 0;
+        try {
+            return readGeometry(wkb);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnexpectedEndOfString_1, "WKB"), e);
+        }
+    }
+
+    /**
+     * Reads a geometry, including its header, starting at the current buffer position.
+     * This method invokes itself recursively for the components of collections.
+     */
+    private Object readGeometry(final ByteBuffer wkb) {
+        switch (wkb.get()) {
+            case 0:  wkb.order(ByteOrder.BIG_ENDIAN);    break;
+            case 1:  wkb.order(ByteOrder.LITTLE_ENDIAN); break;
+            default: throw new IllegalArgumentException(Errors.format(Errors.Keys.UnparsableStringForClass_2, "WKB", "byte order"));
+        }
+        final int code = wkb.getInt();
+        boolean hasZ = (code & EWKB_Z) != 0;
+        boolean hasM = (code & EWKB_M) != 0;
+        if ((code & EWKB_SRID) != 0) {
+            srid = wkb.getInt();
+        }
+        int base = code & 0x0FFFFFFF;
+        switch (base / 1000) {                      // ISO variant.
+            case 0:  break;
+            case 1:  hasZ = true; break;
+            case 2:  hasM = true; break;
+            case 3:  hasZ = true; hasM = true; break;
+        }
+        base %= 1000;
+        final GeometryType type = GeometryType.forBinaryType(base);
+        if (type == null || type == GeometryType.GEOMETRY) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.UnknownType_1, base));
+        }
+        final int dimension = (hasZ && supports3D) ? 3 : 2;
+        final int pointSize = (2 + (hasZ ? 1 : 0) + (hasM ? 1 : 0)) * Double.BYTES;
+        count = 0;
+        switch (type) {
+            case POINT: {
+                readCoordinates(wkb, 1, hasZ, hasM);
+                final double[] c = coordinates;
+                return (dimension == 3) ? geometries.createPoint(c[0], c[1], c[2])
+                                        : geometries.createPoint(c[0], c[1]);
+            }
+            case LINESTRING: {
+                readCoordinates(wkb, checkCount(wkb, "numPoints", pointSize, wkb.getInt()), hasZ, hasM);
+                return geometries.createPolyline(dimension, coordinates());
+            }
+            case POLYGON: {
+                final int numRings = checkCount(wkb, "numRings", Integer.BYTES, wkb.getInt());
+                for (int i=0; i<numRings; i++) {
+                    if (i != 0) {
+                        ensureCapacity(dimension);
+                        Arrays.fill(coordinates, count, count += dimension, Double.NaN);
+                    }
+                    readCoordinates(wkb, checkCount(wkb, "numPoints", pointSize, wkb.getInt()), hasZ, hasM);
+                }
+                return geometries.createPolygon(dimension, coordinates());
+            }
+            default: {
+                final Object[] components = new Object[checkCount(wkb, "numGeometries", Byte.BYTES + Integer.BYTES, wkb.getInt())];
+                for (int i=0; i<components.length; i++) {
+                    components[i] = readGeometry(wkb);
+                }
+                return geometries.createMultiGeometry(type, components);
+            }
+        }
+    }
+
+    /**
+     * Verifies that the given number of elements read from the WKB is not negative and does not exceed
+     * the number of elements that the remaining bytes can contain. This check is done before to allocate
+     * arrays for those elements, for avoiding huge allocations when the WKB is corrupted.
+     *
+     * @param  wkb          the buffer from which the count has been read.
+     * @param  name         name of the count, used in error message.
+     * @param  elementSize  minimal number of bytes used by each element.
+     * @param  n            the number of elements that have been read from the buffer.
+     * @return the given number of elements.
+     * @throws IllegalArgumentException if the count is negative or too large.
+     */
+    private static int checkCount(final ByteBuffer wkb, final String name, final int elementSize, final int n) {
+        final int max = wkb.remaining() / elementSize;
+        if (n < 0 || n > max) {
+            throw new IllegalArgumentException(Errors.format(Errors.Keys.ValueOutOfRange_4, name, 0, max, n));
+        }
+        return n;
+    }
+
+    /**
+     * Returns a view over the valid values of the coordinates buffer.
+     */
+    private Vector coordinates() {
+        return Vector.create(coordinates).subList(0, count);
+    }
+
+    /**
+     * Ensures that the {@link #coordinates} array can receive the given amount of additional values.
+     */
+    private void ensureCapacity(final int n) {
+        final int required = Math.addExact(count, n);
+        if (required > coordinates.length) {
+            coordinates = Arrays.copyOf(coordinates, Math.max(required, coordinates.length * 2));
+        }
+    }
+
+    /**
+     * Reads the given amount of points and appends their coordinates in the {@link #coordinates} buffer.
+     * The <var>m</var> values are skipped, and the <var>z</var> values are skipped if the geometry library
+     * can not store them.
+     */
+    private void readCoordinates(final ByteBuffer wkb, final int numPoints, final boolean hasZ, final boolean hasM) {
+        final boolean keepZ = hasZ && supports3D;
+        ensureCapacity(Math.multiplyExact(numPoints, keepZ ? 3 : 2));
+        final double[] c = coordinates;
+        int i = count;
+        for (int p=0; p<numPoints; p++) {
+            c[i++] = wkb.getDouble();
+            c[i++] = wkb.getDouble();
+            if (hasZ) {
+                final double z = wkb.getDouble();
+                if (keepZ) c[i++] = z;
+            }
+            if (hasM) {
+                wkb.getDouble();
+            }
+        }
+        count = i;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.coverage;
+
+import java.awt.Point;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferShort;
+import java.awt.image.WritableRaster;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ReadOnlyBufferException;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link RasterFactory}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class RasterFactoryTest extends TestCase {
+    /**
+     * Tests {@link RasterFactory#wrap(int, Buffer...)} with buffers backed by Java arrays.
+     */
+    @Test
+    public void testWrapArrays() {
+        final short[] data = {1, 2, 3, 4, 5, 6};
+        final DataBuffer buffer = RasterFactory.wrap(DataBuffer.TYPE_SHORT, ShortBuffer.wrap(data, 2, 4));
+        assertTrue(buffer instanceof DataBufferShort);
+        assertSame(data, ((DataBufferShort) buffer).getData());
+        assertEquals(2, buffer.getOffset());
+        assertEquals(4, buffer.getSize());
+        assertEquals(3, buffer.getElem(0));
+    }
+
+    /**
+     * Tests {@link RasterFactory#wrap(int, Buffer...)} with direct buffers, then the creation of a raster
+     * from the returned buffer. Values shall be read from the NIO buffers without copy.
+     */
+    @Test
+    public void testWrapDirect() {
+        final ShortBuffer data = ByteBuffer.allocateDirect(6 * Short.BYTES).asShortBuffer();
+        for (int i=0; i<6; i++) {
+            data.put(i, (short) (i == 5 ? -1 : i + 1));
+        }
+        final DataBuffer buffer = RasterFactory.wrap(DataBuffer.TYPE_USHORT, data);
+        assertTrue(buffer instanceof DirectDataBuffer);
+        assertEquals(6, buffer.getSize());
+        assertEquals(0xFFFF, buffer.getElem(5));
+        final WritableRaster raster = RasterFactory.createRaster(buffer, 3, 2, 1, 3, null, new int[1], new Point(10, 20));
+        assertEquals(2, raster.getSample(11, 20, 0));
+        assertEquals(4, raster.getSample(10, 21, 0));
+        raster.setSample(10, 20, 0, 9);
+        assertEquals("Modification shall be visible in the NIO buffer.", 9, data.get(0));
+        /*
+         * Read-only buffers shall be wrapped too, but modifications shall be rejected.
+         */
+        final FloatBuffer values = ByteBuffer.allocateDirect(4 * Float.BYTES).asFloatBuffer();
+        values.put(new float[] {1.5f, 2.5f, 3.5f, 4.5f});
+        values.clear();
+        final Buffer readOnly = values.asReadOnlyBuffer();
+        final WritableRaster floats = RasterFactory.createRaster(RasterFactory.wrap(DataBuffer.TYPE_FLOAT, readOnly),
+                2, 2, 1, 2, null, new int[1], null);
+        assertEquals(3.5f, floats.getSampleFloat(0, 1, 0), STRICT);
+        try {
+            floats.setSample(0, 0, 0, 1f);
+            fail("Read-only buffer shall not be modifiable.");
+        } catch (ReadOnlyBufferException e) {
+            // This is the expected exception.
+        }
+    }
+
+    /**
+     * Tests {@link RasterFactory#wrap(int, Buffer...)} with a direct buffer of the wrong type.
+     */
+    @Test(expected = ArrayStoreException.class)
+    public void testWrapDirectMismatchedType() {
+        RasterFactory.wrap(DataBuffer.TYPE_INT, ByteBuffer.allocateDirect(4 * Float.BYTES).asFloatBuffer());
+    }
+}
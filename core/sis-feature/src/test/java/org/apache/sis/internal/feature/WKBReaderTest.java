@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.feature;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.awt.geom.Point2D;
+import java.awt.geom.Path2D;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link WKBReader}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class WKBReaderTest extends TestCase {
+    /**
+     * Creates a buffer with a geometry header in the given byte order.
+     */
+    private static ByteBuffer header(final ByteBuffer buffer, final int type) {
+        buffer.put((byte) (buffer.order() == ByteOrder.BIG_ENDIAN ? 0 : 1)).putInt(type);
+        return buffer;
+    }
+
+    /**
+     * Tests reading points in big-endian and little-endian byte orders, with and without <var>z</var> values.
+     */
+    @Test
+    public void testPoint() {
+        final WKBReader reader = new WKBReader(new JTS());
+        ByteBuffer wkb = header(ByteBuffer.allocate(21), 1).putDouble(4).putDouble(5);
+        wkb.flip();
+        Point p = (Point) reader.read(wkb);
+        assertEquals(new Coordinate(4, 5), p.getCoordinate());
+        assertEquals("SRID", 0, reader.getSRID());
+
+        wkb = header(ByteBuffer.allocate(29).order(ByteOrder.LITTLE_ENDIAN), 1001).putDouble(4).putDouble(5).putDouble(6);
+        wkb.flip();
+        p = (Point) reader.read(wkb);
+        assertEquals(6, p.getCoordinate().getZ(), STRICT);
+        assertEquals(4, p.getX(), STRICT);
+    }
+
+    /**
+     * Tests reading a PostGIS extended WKB with a SRID, <var>z</var> and <var>m</var> values,
+     * encoded as an hexadecimal string.
+     */
+    @Test
+    public void testExtendedHex() {
+        final ByteBuffer wkb = ByteBuffer.allocate(77).order(ByteOrder.LITTLE_ENDIAN);
+        header(wkb, 0x80000000 | 0x40000000 | 0x20000000 | 2).putInt(4326).putInt(2)
+                .putDouble(1).putDouble(2).putDouble(3).putDouble(-1)
+                .putDouble(4).putDouble(5).putDouble(6).putDouble(-1);
+        final StringBuilder hex = new StringBuilder();
+        for (int i=0; i < wkb.position(); i++) {
+            hex.append(String.format("%02X", wkb.get(i)));
+        }
+        final WKBReader reader = new WKBReader(new JTS());
+        final LineString line = (LineString) reader.readHex(hex);
+        assertEquals("SRID", 4326, reader.getSRID());
+        assertEquals(2, line.getNumPoints());
+        assertEquals(new Coordinate(4, 5, 6), line.getCoordinateN(1));
+        assertEquals(3, line.getCoordinateN(0).getZ(), STRICT);
+    }
+
+    /**
+     * Tests reading a polygon with a hole.
+     */
+    @Test
+    public void testPolygon() {
+        final ByteBuffer wkb = header(ByteBuffer.allocate(200), 3).putInt(2);
+        wkb.putInt(5).putDouble(0).putDouble(0).putDouble(10).putDouble(0).putDouble(10).putDouble(10)
+                     .putDouble(0).putDouble(10).putDouble(0).putDouble(0);
+        wkb.putInt(4).putDouble(2).putDouble(2).putDouble(4).putDouble(2).putDouble(2).putDouble(4)
+                     .putDouble(2).putDouble(2);
+        wkb.flip();
+        final Polygon polygon = (Polygon) new WKBReader(new JTS()).read(wkb);
+        assertEquals("numInteriorRing", 1, polygon.getNumInteriorRing());
+        assertEquals(5, polygon.getExteriorRing().getNumPoints());
+        assertEquals(100 - 2, polygon.getArea(), STRICT);
+        assertFalse("hasRemaining", wkb.hasRemaining());
+
+        wkb.rewind();
+        final Path2D path = (Path2D) new WKBReader(new Java2D()).read(wkb);
+        assertTrue (path.contains(1, 1));
+        assertFalse(path.contains(2.5, 2.5));
+    }
+
+    /**
+     * Tests reading a multi-point, which contains nested geometries with their own headers.
+     */
+    @Test
+    public void testMultiPoint() {
+        final ByteBuffer wkb = header(ByteBuffer.allocate(100), 4).putInt(2);
+        header(wkb, 1).putDouble(1).putDouble(2);
+        header(wkb, 1).putDouble(3).putDouble(4);
+        wkb.flip();
+        final MultiPoint mp = (MultiPoint) new WKBReader(new JTS()).read(wkb);
+        assertEquals(2, mp.getNumGeometries());
+        assertEquals(new Coordinate(3, 4), mp.getGeometryN(1).getCoordinate());
+    }
+
+    /**
+     * Tests reading a point with Java2D, which does not support <var>z</var> values.
+     */
+    @Test
+    public void testJava2D() {
+        final ByteBuffer wkb = header(ByteBuffer.allocate(29), 1001).putDouble(4).putDouble(5).putDouble(6);
+        wkb.flip();
+        assertEquals(new Point2D.Double(4, 5), new WKBReader(new Java2D()).read(wkb));
+    }
+
+    /**
+     * Tests that an unknown geometry type is reported.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        final ByteBuffer wkb = header(ByteBuffer.allocate(5), 99);
+        wkb.flip();
+        new WKBReader(new JTS()).read(wkb);
+    }
+
+    /**
+     * Tests that invalid element counts are reported before any array allocation.
+     */
+    @Test
+    public void testInvalidCount() {
+        final WKBReader reader = new WKBReader(new JTS());
+        for (final int count : new int[] {-1, Integer.MAX_VALUE}) {
+            for (final int type : new int[] {2, 3, 4}) {
+                final ByteBuffer wkb = header(ByteBuffer.allocate(25), type).putInt(count).putDouble(1).putDouble(2);
+                wkb.flip();
+                try {
+                    reader.read(wkb);
+                    fail("Expected an exception for count " + count + " in geometry type " + type);
+                } catch (IllegalArgumentException e) {
+                    assertNotNull(e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -54,6 +54,7 @@ import org.junit.runners.Suite;
     org.apache.sis.internal.feature.Java2DTest.class,
     org.apache.sis.internal.feature.ESRITest.class,
     org.apache.sis.internal.feature.JTSTest.class,
+    org.apache.sis.internal.feature.WKBReaderTest.class,
     org.apache.sis.internal.feature.jts.JTSTest.class,
     org.apache.sis.feature.builder.CharacteristicTypeBuilderTest.class,
     org.apache.sis.feature.builder.AttributeTypeBuilderTest.class,
@@ -72,7 +73,8 @@ import org.junit.runners.Suite;
     org.apache.sis.coverage.SampleDimensionTest.class,
     org.apache.sis.coverage.SampleRangeFormatTest.class,
     org.apache.sis.internal.coverage.ScaledColorSpaceTest.class,
-    org.apache.sis.internal.coverage.BufferedGridCoverageTest.class
+    org.apache.sis.internal.coverage.BufferedGridCoverageTest.class,
+    org.apache.sis.internal.coverage.RasterFactoryTest.class
 })
 public final strictfp class FeatureTestSuite extends TestSuite {
     /**
@@ -82,7 +82,8 @@ abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quantity<T>>
     /**
      * Cache of grids loaded so far. Those grids will be stored by soft references until the amount of
      * data exceed 32768 (about 128 kilobytes if the values use the {@code float} type). in which case
-     * the oldest grids will be replaced by weak references.
+     * the oldest grids will be replaced by weak references. Memory-mapped grids have a small cost
+     * since their values are not stored in the Java heap.
      */
     static final Cache<Object, DatumShiftGridFile<?,?>> CACHE = new Cache<Object, DatumShiftGridFile<?,?>>(4, 32*1024, true) {
         @Override protected int cost(final DatumShiftGridFile<?,?> grid) {
@@ -90,7 +91,7 @@ abstract class DatumShiftGridFile<C extends Quantity<C>, T extends Quantity<T>>
             for (final Object data : grid.getData()) {
                 if (data instanceof DatumShiftGridFile<?,?>) {
                     p += cost((DatumShiftGridFile<?,?>) data);          // When `grid` is a DatumShiftGridGroup.
-                } else {
+                } else if (!(data instanceof DatumShiftGridMapped.Region)) {     // Mapped data not counted.
                     p *= Array.getLength(data);                         // short[], float[] or double[].
                 }
             }
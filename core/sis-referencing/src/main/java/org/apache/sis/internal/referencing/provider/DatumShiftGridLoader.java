@@ -21,9 +21,12 @@ import java.util.logging.LogRecord;
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.nio.file.NoSuchFileException;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import org.opengis.util.FactoryException;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.util.logging.Logging;
@@ -37,7 +40,7 @@ import org.apache.sis.referencing.factory.MissingFactoryResourceException;
  * Base class of datum shift grid loaders.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -136,6 +139,71 @@ class DatumShiftGridLoader {
         buffer.position(p);
     }
 
+    /**
+     * Returns the position in the file of the next byte to be read from the {@linkplain #buffer}.
+     * This method can be invoked only if the channel given at construction time is seekable.
+     *
+     * @return position of the buffer position in the file.
+     * @throws IOException if an error occurred while fetching the channel position.
+     */
+    final long position() throws IOException {
+        return ((SeekableByteChannel) channel).position() - buffer.remaining();
+    }
+
+    /**
+     * Moves to the given position in the file. This method can be invoked only if the channel given
+     * at construction time is seekable. It is used for skipping data that are not read through the
+     * buffer, for example data accessed through a memory-mapped view.
+     *
+     * @param  position  the new position in the file.
+     * @throws IOException if an error occurred while setting the channel position.
+     */
+    final void seek(final long position) throws IOException {
+        final SeekableByteChannel sc = (SeekableByteChannel) channel;
+        final long p = position - (sc.position() - buffer.limit());
+        if (p >= 0 && p <= buffer.limit()) {
+            buffer.position((int) p);
+        } else {
+            sc.position(position);
+            buffer.clear();
+            buffer.limit(0);
+        }
+    }
+
+    /**
+     * Returns whether data of the given length starting at the current position can be memory-mapped.
+     * This is {@code true} if the channel is a {@link FileChannel} and if the length is not smaller than
+     * the given threshold and not greater than the maximal buffer capacity.
+     *
+     * @param  length     number of bytes to map.
+     * @param  threshold  minimal number of bytes for using a memory-mapped view.
+     * @return whether the data should be accessed with {@link #map(long)}.
+     */
+    final boolean canMap(final long length, final long threshold) {
+        return (channel instanceof FileChannel) && length >= threshold && length <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns a read-only memory-mapped view of the next <var>length</var> bytes as {@code float} values,
+     * then moves the position after those bytes. The view uses the {@linkplain #buffer} byte order.
+     * This method can be invoked only if {@link #canMap(long, long)} returned {@code true}.
+     *
+     * @param  length  number of bytes to map.
+     * @return the mapped region, with a view of the {@code float} values in that region of the file.
+     * @throws EOFException if the file is shorter than expected.
+     * @throws IOException if an other kind of error occurred while mapping the file.
+     */
+    final DatumShiftGridMapped.Region map(final long length) throws IOException {
+        final FileChannel fc = (FileChannel) channel;
+        final long start = position();
+        if (start + length > fc.size()) {
+            throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, file));
+        }
+        final FloatBuffer view = fc.map(FileChannel.MapMode.READ_ONLY, start, length).order(buffer.order()).asFloatBuffer();
+        seek(start + length);
+        return new DatumShiftGridMapped.Region(file, start, length, view);
+    }
+
     /**
      * Logs a message about a grid which is about to be loaded.
      *
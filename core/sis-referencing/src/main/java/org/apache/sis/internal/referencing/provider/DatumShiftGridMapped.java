@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.referencing.provider;
+
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import javax.measure.Unit;
+import javax.measure.Quantity;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.apache.sis.math.DecimalFunctions;
+
+
+/**
+ * A datum shift grid which reads the offset values directly from a read-only memory-mapped view of the file.
+ * Values are read only when {@link #getCellValue(int, int, int)} is invoked, so the operating system loads only
+ * the pages of the file which are actually used by {@code interpolateInCell(…)}. Those pages are shared between
+ * all Java processes mapping the same file, and do not consume Java heap space.
+ *
+ * <p>This class is used for large binary grids (NTv2 or NADCON) where loading all values in Java arrays
+ * would be costly. Values in the file are {@code float} numbers stored in the byte order of the file.
+ * The values of a translation vector may be interleaved with other values (e.g. NTv2 accuracies) or
+ * stored in separated files (e.g. NADCON), as described by the offsets and strides given to the constructor.</p>
+ *
+ * <p>Compared to {@link DatumShiftGridFile.Float}, this class does not compute the smallest accuracy
+ * declared in the file since that would require reading the whole grid. The loaders use a default
+ * accuracy instead.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ *
+ * @param <C>  dimension of the coordinate unit (usually {@link javax.measure.quantity.Angle}).
+ * @param <T>  dimension of the translation unit (usually {@link javax.measure.quantity.Angle}).
+ *
+ * @since 1.1
+ * @module
+ */
+final class DatumShiftGridMapped<C extends Quantity<C>, T extends Quantity<T>> extends DatumShiftGridFile<C,T> {
+    /**
+     * Serial number for inter-operability with different versions.
+     */
+    private static final long serialVersionUID = 6541470367339624208L;
+
+    /**
+     * Minimal size (in bytes) of the data in a grid file for using a memory-mapped view.
+     * Smaller grids are loaded in Java arrays, which allow compression and have faster access.
+     */
+    static final long MAPPING_THRESHOLD = 0x1000000;
+
+    /**
+     * The memory-mapped regions of the file(s) for each translation dimension. Many dimensions may share
+     * the same region if their values are interleaved in the same file. This is the array returned by
+     * {@link #getData()}, which allows grids to be compared by file identity.
+     */
+    private final Region[] regions;
+
+    /**
+     * Views over the file data for each translation dimension, extracted from {@link #regions}.
+     * Values are read with absolute {@code get(int)} methods, so the buffer positions are never
+     * modified and the views can be used concurrently.
+     */
+    private final FloatBuffer[] data;
+
+    /**
+     * Index in {@code data[dim]} of the value at grid indices (0,0) for each dimension.
+     */
+    private final int[] offsets;
+
+    /**
+     * Number of {@code float} values between two consecutive cells in a row,
+     * and between two consecutive rows in the grid.
+     */
+    private final int cellStride, rowStride;
+
+    /**
+     * The values by which to divide the values stored in the file for each dimension.
+     * This is used for converting units and for dividing by the cell size,
+     * since {@link #isCellValueRatio()} is {@code true} for this class.
+     */
+    private final double[] divisors;
+
+    /**
+     * Creates a new datum shift grid for the given grid geometry and memory-mapped data.
+     * The {@link #isCellValueRatio()} property is fixed to {@code true}.
+     *
+     * @param coordinateUnit   the unit of measurement of input values, before conversion to grid indices.
+     * @param translationUnit  the unit of measurement of output values.
+     * @param x0               longitude of the center of the cell at grid index (0,0).
+     * @param y0               latitude of the center of the cell at grid index (0,0).
+     * @param Δx               increment in <var>x</var> value between cells at index <var>gridX</var> and <var>gridX</var> + 1.
+     * @param Δy               increment in <var>y</var> value between cells at index <var>gridY</var> and <var>gridY</var> + 1.
+     * @param nx               number of cells along the <var>x</var> axis in the grid.
+     * @param ny               number of cells along the <var>y</var> axis in the grid.
+     * @param descriptor       the parameter descriptor of the provider that created this grid.
+     * @param files            the file(s) from which the grid has been mapped. This array is not cloned.
+     * @param regions          memory-mapped regions of the files for each dimension. This array is not cloned.
+     * @param offsets          index in {@code data[dim]} of the value at grid indices (0,0). This array is not cloned.
+     * @param cellStride       number of {@code float} values between two consecutive cells in a row.
+     * @param rowStride        number of {@code float} values between two consecutive rows.
+     * @param divisors         values by which to divide the file values for each dimension. This array is not cloned.
+     */
+    DatumShiftGridMapped(final Unit<C> coordinateUnit,
+                         final Unit<T> translationUnit,
+                         final double x0, final double y0,
+                         final double Δx, final double Δy,
+                         final int    nx, final int    ny,
+                         final ParameterDescriptorGroup descriptor,
+                         final Path[] files,
+                         final Region[] regions,
+                         final int[] offsets,
+                         final int cellStride,
+                         final int rowStride,
+                         final double[] divisors) throws NoninvertibleTransformException
+    {
+        super(coordinateUnit, translationUnit, true, x0, y0, Δx, Δy, nx, ny, descriptor, files);
+        this.regions    = regions;
+        this.data       = views(regions);
+        this.offsets    = offsets;
+        this.cellStride = cellStride;
+        this.rowStride  = rowStride;
+        this.divisors   = divisors;
+        for (int dim=0; dim < data.length; dim++) {
+            final long last = offsets[dim] + (nx - 1L) * cellStride + (ny - 1L) * rowStride;
+            if (offsets[dim] < 0 || last >= data[dim].limit()) {
+                throw new IndexOutOfBoundsException(String.valueOf(last));
+            }
+        }
+    }
+
+    /**
+     * Creates a new grid of the same geometry than the given grid but using different memory-mapped regions.
+     */
+    private DatumShiftGridMapped(final DatumShiftGridMapped<C,T> grid, final Region[] regions) {
+        super(grid);
+        this.regions = regions;
+        data       = views(regions);
+        offsets    = grid.offsets;
+        cellStride = grid.cellStride;
+        rowStride  = grid.rowStride;
+        divisors   = grid.divisors;
+    }
+
+    /**
+     * Returns the views of the given memory-mapped regions.
+     */
+    private static FloatBuffer[] views(final Region[] regions) {
+        final FloatBuffer[] data = new FloatBuffer[regions.length];
+        for (int i=0; i<data.length; i++) {
+            data[i] = regions[i].view;
+        }
+        return data;
+    }
+
+    /**
+     * Returns a new grid with the same geometry than this grid but different memory-mapped regions.
+     * See {@link DatumShiftGridFile.Float#setData(Object[])} for more documentation.
+     */
+    @Override
+    protected DatumShiftGridFile<C,T> setData(final Object[] other) {
+        return new DatumShiftGridMapped<>(this, (Region[]) other);
+    }
+
+    /**
+     * Returns direct references (not cloned) to the memory-mapped regions. Those regions are compared
+     * by file identity, so {@link #equals(Object)} and {@link #useSharedData()} do not read the values.
+     * See {@link DatumShiftGridFile.Float#getData()} for more documentation.
+     */
+    @Override
+    @SuppressWarnings("ReturnOfCollectionOrArrayField")
+    protected Object[] getData() {
+        return regions;
+    }
+
+    /**
+     * Returns the number of shift dimensions.
+     */
+    @Override
+    public int getTranslationDimensions() {
+        return data.length;
+    }
+
+    /**
+     * Returns the cell value at the given dimension and grid index. The value is read from the memory-mapped file.
+     * The {@code float} value is converted to {@code double} by setting the extra <em>decimal</em> digits to 0,
+     * on the same assumption than {@link DatumShiftGridFile.Float#getCellValue(int, int, int)}.
+     *
+     * @param  dim    the dimension for which to get an average value.
+     * @param  gridX  the grid index along the <var>x</var> axis, from 0 inclusive to {@code nx} exclusive.
+     * @param  gridY  the grid index along the <var>y</var> axis, from 0 inclusive to {@code ny} exclusive.
+     * @return the offset at the given dimension in the grid cell at the given index.
+     */
+    @Override
+    public double getCellValue(final int dim, final int gridX, final int gridY) {
+        final float value = data[dim].get(offsets[dim] + gridX*cellStride + gridY*rowStride);
+        return DecimalFunctions.floatToDouble(value) / divisors[dim];
+    }
+
+    /**
+     * A read-only memory-mapped region of a grid file, together with the file identity.
+     * Two regions are equal if they map the same range of bytes of the same file.
+     * The values in the view are not compared, since doing so would require
+     * the operating system to load every page of the file.
+     */
+    static final class Region {
+        /**
+         * The file which is mapped.
+         */
+        private final Path file;
+
+        /**
+         * Position in the file of the first mapped byte.
+         */
+        private final long position;
+
+        /**
+         * Number of bytes in the mapped region.
+         */
+        private final long length;
+
+        /**
+         * View of the mapped bytes as {@code float} values.
+         */
+        final FloatBuffer view;
+
+        /**
+         * Creates a new region for the given file range and view.
+         *
+         * @param  file      the file which is mapped.
+         * @param  position  position in the file of the first mapped byte.
+         * @param  length    number of bytes in the mapped region.
+         * @param  view      view of the mapped bytes as {@code float} values.
+         */
+        Region(final Path file, final long position, final long length, final FloatBuffer view) {
+            this.file     = file;
+            this.position = position;
+            this.length   = length;
+            this.view     = view;
+        }
+
+        /**
+         * Returns whether the given object is a region mapping the same bytes of the same file.
+         */
+        @Override
+        public boolean equals(final Object other) {
+            if (other instanceof Region) {
+                final Region that = (Region) other;
+                return position == that.position && length == that.length && file.equals(that.file);
+            }
+            return false;
+        }
+
+        /**
+         * Returns a hash code value computed from the file identity.
+         */
+        @Override
+        public int hashCode() {
+            return file.hashCode() + 31 * Long.hashCode(position) + 37 * Long.hashCode(length);
+        }
+    }
+}
@@ -55,7 +55,7 @@ import org.apache.sis.measure.Units;
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @author  Rueben Schulz (UBC)
- * @version 0.8
+ * @version 1.1
  *
  * @see <a href="http://www.ngs.noaa.gov/cgi-bin/nadcon.prl">NADCON on-line computation</a>
  *
@@ -176,27 +176,7 @@ public final class NADCON extends AbstractProvider {
             try {
                 grid = handler.peek();
                 if (grid == null) {
-                    final Loader loader;
-                    Path file = latitudeShifts;
-                    try {
-                        // Note: buffer size must be divisible by the size of 'float' data type.
-                        final ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
-                        final FloatBuffer fb = buffer.asFloatBuffer();
-                        try (ReadableByteChannel in = Files.newByteChannel(rlat)) {
-                            DatumShiftGridLoader.startLoading(NADCON.class, CharSequences.commonPrefix(
-                                    latitudeShifts.toString(), longitudeShifts.toString()).toString() + '…');
-                            loader = new Loader(in, buffer, file);
-                            loader.readGrid(fb, null, longitudeShifts);
-                        }
-                        buffer.clear();
-                        file = longitudeShifts;
-                        try (ReadableByteChannel in = Files.newByteChannel(rlon)) {
-                            new Loader(in, buffer, file).readGrid(fb, loader, null);
-                        }
-                    } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
-                        throw DatumShiftGridLoader.canNotLoad("NADCON", file, e);
-                    }
-                    grid = DatumShiftGridCompressed.compress(loader.grid, null, loader.grid.accuracy);
+                    grid = load(latitudeShifts, longitudeShifts, rlat, rlon, DatumShiftGridMapped.MAPPING_THRESHOLD);
                     grid = grid.useSharedData();
                 }
             } finally {
@@ -206,6 +186,57 @@ public final class NADCON extends AbstractProvider {
         return grid.castTo(Angle.class, Angle.class);
     }
 
+    /**
+     * Loads the grid from the given files without using the cache. Binary grids having at least
+     * {@code mappingThreshold} bytes of data in each file are read through memory-mapped views of
+     * the files instead of being loaded in Java arrays. ASCII files are always loaded in memory.
+     *
+     * @param  latitudeShifts    name of the grid file for latitude shifts, as specified by the user.
+     * @param  longitudeShifts   name of the grid file for longitude shifts, as specified by the user.
+     * @param  rlat              the latitude shifts file resolved against the data directory.
+     * @param  rlon              the longitude shifts file resolved against the data directory.
+     * @param  mappingThreshold  minimal size in bytes of grid data for using memory-mapped views.
+     */
+    static DatumShiftGridFile<Angle,Angle> load(final Path latitudeShifts, final Path longitudeShifts,
+            final Path rlat, final Path rlon, final long mappingThreshold) throws FactoryException
+    {
+        Path file = latitudeShifts;
+        try {
+            // Note: buffer size must be divisible by the size of 'float' data type.
+            final ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+            final FloatBuffer fb = buffer.asFloatBuffer();
+            final Loader loader;
+            final DatumShiftGridMapped.Region latitudeView, longitudeView;
+            try (ReadableByteChannel in = Files.newByteChannel(rlat)) {
+                DatumShiftGridLoader.startLoading(NADCON.class, CharSequences.commonPrefix(
+                        latitudeShifts.toString(), longitudeShifts.toString()).toString() + '…');
+                loader = new Loader(in, buffer, file);
+                latitudeView = loader.mapGrid(mappingThreshold);
+                if (latitudeView == null) {
+                    loader.readGrid(fb, null, longitudeShifts);
+                }
+            }
+            buffer.clear();
+            file = longitudeShifts;
+            try (ReadableByteChannel in = Files.newByteChannel(rlon)) {
+                final Loader longitudes = new Loader(in, buffer, file);
+                if (latitudeView == null) {
+                    longitudes.readGrid(fb, loader, null);
+                    return DatumShiftGridCompressed.compress(loader.grid, null, loader.grid.accuracy);
+                }
+                longitudes.verifyGeometry(loader);
+                longitudeView = longitudes.mapGrid(0);
+            }
+            if (longitudeView == null) {
+                // May happen if only one of the two files is an ASCII file.
+                return load(latitudeShifts, longitudeShifts, rlat, rlon, Long.MAX_VALUE);
+            }
+            return loader.createMapped(latitudeView, longitudeView, longitudeShifts);
+        } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
+            throw DatumShiftGridLoader.canNotLoad("NADCON", file, e);
+        }
+    }
+
 
 
 
@@ -229,7 +260,7 @@ public final class NADCON extends AbstractProvider {
      *
      * @author  Martin Desruisseaux (Geomatys)
      * @author  Rueben Schulz (UBC)
-     * @version 0.7
+     * @version 1.1
      * @since   0.7
      * @module
      */
@@ -382,6 +413,65 @@ public final class NADCON extends AbstractProvider {
             return new FactoryException(Errors.format(Errors.Keys.UnexpectedFileFormat_2, NADCON, file));
         }
 
+        /**
+         * Verifies that the grid geometry declared in the header of this file is the same
+         * than the grid geometry declared in the latitude shifts file.
+         *
+         * @param  latitudeShifts  the loader of latitude shifts.
+         */
+        final void verifyGeometry(final Loader latitudeShifts) throws FactoryException {
+            if (x0 != latitudeShifts.x0 || Δx != latitudeShifts.Δx || nx != latitudeShifts.nx ||
+                y0 != latitudeShifts.y0 || Δy != latitudeShifts.Δy || ny != latitudeShifts.ny || nz != latitudeShifts.nz)
+            {
+                throw new FactoryException(Errors.format(Errors.Keys.MismatchedGridGeometry_2,
+                        latitudeShifts.file.getFileName(), file.getFileName()));
+            }
+        }
+
+        /**
+         * Returns a memory-mapped view of the shift values if the file is binary and large enough.
+         * The view contains all records after the header, including the {@code float} value at
+         * the beginning of each row which is not a translation value.
+         *
+         * @param  threshold  minimal size in bytes of grid data for using a memory-mapped view.
+         * @return region of the shift values, or {@code null} if the values need to be loaded in memory.
+         */
+        final DatumShiftGridMapped.Region mapGrid(final long threshold) throws IOException, FactoryException {
+            if (ascii == null) {
+                final long length = (nx + 1L) * ny * Float.BYTES;
+                if (canMap(length, threshold)) {
+                    final DatumShiftGridMapped.Region region = map(length);
+                    if (region.view.get(0) != 0) {
+                        throw unexpectedFormat();
+                    }
+                    return region;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Creates a grid reading the shift values from memory-mapped views of the latitude and longitude files.
+         * This method shall be invoked on the loader of latitude shifts. Values are converted from seconds of
+         * angle to cell size ratios in the same way than {@link #readGrid(FloatBuffer, Loader, Path)}.
+         *
+         * @param  latitudeShifts   region of latitude shift values, as returned by {@link #mapGrid(long)}.
+         * @param  longitudeShifts  region of longitude shift values, as returned by {@link #mapGrid(long)}.
+         * @param  longitudeFile    the file for the longitude grid.
+         */
+        final DatumShiftGridFile<Angle,Angle> createMapped(final DatumShiftGridMapped.Region latitudeShifts,
+                final DatumShiftGridMapped.Region longitudeShifts, final Path longitudeFile) throws NoninvertibleTransformException
+        {
+            final DatumShiftGridMapped<Angle,Angle> mapped = new DatumShiftGridMapped<>(Units.DEGREE, Units.DEGREE,
+                    x0, y0, Δx, Δy, nx, ny, PARAMETERS, new Path[] {file, longitudeFile},
+                    new DatumShiftGridMapped.Region[] {longitudeShifts, latitudeShifts},
+                    new int[] {1, 1}, 1, nx + 1,                            // Skip the first value of each row.
+                    new double[] {-DEGREES_TO_SECONDS * Δx,                 // NADCON shifts are positive west.
+                                   DEGREES_TO_SECONDS * Δy});
+            mapped.accuracy = SECOND_PRECISION / DEGREES_TO_SECONDS;
+            return mapped;
+        }
+
         /**
          * Loads latitude or longitude shifts data. This method should be invoked twice:
          *
@@ -409,12 +499,7 @@ public final class NADCON extends AbstractProvider {
                         true, x0, y0, Δx, Δy, nx, ny, PARAMETERS, file, longitudeShifts);
                 grid.accuracy = SECOND_PRECISION / DEGREES_TO_SECONDS;
             } else {
-                if (x0 != latitudeShifts.x0 || Δx != latitudeShifts.Δx || nx != latitudeShifts.nx ||
-                    y0 != latitudeShifts.y0 || Δy != latitudeShifts.Δy || ny != latitudeShifts.ny || nz != latitudeShifts.nz)
-                {
-                    throw new FactoryException(Errors.format(Errors.Keys.MismatchedGridGeometry_2,
-                            latitudeShifts.file.getFileName(), file.getFileName()));
-                }
+                verifyGeometry(latitudeShifts);
                 dim   = 0;                                              // Dimension of longitudes
                 scale = -DEGREES_TO_SECONDS * Δx;                       // NADCON shifts are positive west.
                 grid  = latitudeShifts.grid;                            // Continue writing in existing grid.
@@ -177,14 +177,7 @@ public final class NTv2 extends AbstractProvider {
             try {
                 grid = handler.peek();
                 if (grid == null) {
-                    try (ReadableByteChannel in = Files.newByteChannel(resolved)) {
-                        DatumShiftGridLoader.startLoading(provider, file);
-                        final Loader loader = new Loader(in, file, version);
-                        grid = loader.readAllGrids();
-                        loader.report(provider);
-                    } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
-                        throw DatumShiftGridLoader.canNotLoad(provider.getSimpleName(), file, e);
-                    }
+                    grid = load(provider, file, resolved, version, DatumShiftGridMapped.MAPPING_THRESHOLD);
                     grid = grid.useSharedData();
                 }
             } finally {
@@ -194,6 +187,31 @@ public final class NTv2 extends AbstractProvider {
         return grid.castTo(Angle.class, Angle.class);
     }
 
+    /**
+     * Loads the grid from the given file without using the cache. Grids having at least {@code mappingThreshold}
+     * bytes of data are read through a memory-mapped view of the file instead of being loaded in Java arrays.
+     * Memory mapping is used only for NTv2 files (not NTv1) read from the default file system.
+     *
+     * @param  provider          the provider which is creating a transform.
+     * @param  file              name of the datum shift grid file to load, as specified by the user.
+     * @param  resolved          the file to load resolved against the data directory.
+     * @param  version           the expected version (1 or 2).
+     * @param  mappingThreshold  minimal size in bytes of grid data for using a memory-mapped view.
+     */
+    static DatumShiftGridFile<Angle,Angle> load(final Class<? extends AbstractProvider> provider, final Path file,
+            final Path resolved, final int version, final long mappingThreshold) throws FactoryException
+    {
+        try (ReadableByteChannel in = Files.newByteChannel(resolved)) {
+            DatumShiftGridLoader.startLoading(provider, file);
+            final Loader loader = new Loader(in, file, version, mappingThreshold);
+            final DatumShiftGridFile<Angle,Angle> grid = loader.readAllGrids();
+            loader.report(provider);
+            return grid;
+        } catch (IOException | NoninvertibleTransformException | RuntimeException e) {
+            throw DatumShiftGridLoader.canNotLoad(provider.getSimpleName(), file, e);
+        }
+    }
+
 
 
 
@@ -313,6 +331,11 @@ public final class NTv2 extends AbstractProvider {
          */
         private final int numGrids;
 
+        /**
+         * Minimal size in bytes of grid data for using a memory-mapped view instead of Java arrays.
+         */
+        private final long mappingThreshold;
+
         /**
          * Dates at which the grid has been created or updated, or {@code null} if unknown.
          * Used for information purpose only.
@@ -329,10 +352,14 @@ public final class NTv2 extends AbstractProvider {
          * @param  file     path to the longitude and latitude difference file.
          *                  Used for parameter declaration and error reporting.
          * @param  version  the expected version (1 or 2).
+         * @param  mappingThreshold  minimal size in bytes of grid data for using a memory-mapped view.
          * @throws FactoryException if a data record can not be parsed.
          */
-        Loader(final ReadableByteChannel channel, final Path file, int version) throws IOException, FactoryException {
+        Loader(final ReadableByteChannel channel, final Path file, int version, final long mappingThreshold)
+                throws IOException, FactoryException
+        {
             super(channel, ByteBuffer.allocate(4096), file);
+            this.mappingThreshold = mappingThreshold;
             header = new LinkedHashMap<>();
             ensureBufferContains(RECORD_LENGTH);
             if (isLittleEndian(buffer.getInt(KEY_LENGTH))) {
@@ -564,7 +591,20 @@ public final class NTv2 extends AbstractProvider {
              */
             final double size = Math.max(dx, dy);
             final DatumShiftGridFile<Angle,Angle> grid;
-            if (isV2) {
+            final long length = count * (long) RECORD_LENGTH;
+            if (isV2 && canMap(length, mappingThreshold)) {
+                /*
+                 * Large NTv2 grid: read values from a memory-mapped view of the file. Each record contains
+                 * 4 floats (latitude shift, longitude shift, latitude accuracy and longitude accuracy).
+                 * The accuracy is not read since it would require to scan the whole file; a default
+                 * accuracy is computed below instead.
+                 */
+                final DatumShiftGridMapped.Region region = map(length);
+                final int cellStride = RECORD_LENGTH / Float.BYTES;
+                grid = new DatumShiftGridMapped<>(unit, unit, -xmin, ymin, -dx, dy, width, height, PARAMETERS,
+                        new Path[] {file}, new DatumShiftGridMapped.Region[] {region, region}, new int[] {1, 0},
+                        cellStride, cellStride * width, new double[] {dx, dy});
+            } else if (isV2) {
                 final DatumShiftGridFile.Float<Angle,Angle> data;
                 data = new DatumShiftGridFile.Float<>(2, unit, unit, true,
                         -xmin, ymin, -dx, dy, width, height, PARAMETERS, file);
@@ -23,6 +23,7 @@ import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.MathTransformFactory;
 import org.opengis.referencing.operation.OperationMethod;
 import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.measure.Latitude;
 import org.apache.sis.parameter.Parameters;
 import org.apache.sis.referencing.operation.matrix.Matrix2;
@@ -419,20 +420,10 @@ public class LambertConicConformal extends ConformalProjection {
          */
         final double θ    = wraparoundScaledLongitude(srcPts[srcOff], θ_bound);     // θ = Δλ⋅n
         final double φ    = srcPts[srcOff + 1];                         // Sign may be reversed
-        final double absφ = abs(φ);
         final double sinθ = sin(θ);
         final double cosθ = cos(θ);
-        final double sinφ;
-        final double ρ;     // EPSG guide uses "r", but we keep the symbol from Snyder p. 108 for consistency with PolarStereographic.
-        if (absφ < PI/2) {
-            sinφ = sin(φ);
-            ρ = pow(expΨ(φ, eccentricity*sinφ), n);
-        } else if (absφ < PI/2 + ANGULAR_TOLERANCE) {
-            sinφ = 1;
-            ρ = (φ*n >= 0) ? POSITIVE_INFINITY : 0;
-        } else {
-            ρ = sinφ = NaN;
-        }
+        final double sinφ = sin(φ);
+        final double ρ    = ρ(φ, sinφ);
         final double x = ρ * sinθ;
         final double y = ρ * cosθ;
         if (dstPts != null) {
@@ -446,7 +437,7 @@ public class LambertConicConformal extends ConformalProjection {
          * End of map projection. Now compute the derivative.
          */
         final double dρ;
-        if (sinφ != 1) {
+        if (sinφ != 1 && abs(φ) < PI/2) {
             dρ = n * dy_dφ(sinφ, cos(φ)) * ρ;
         } else {
             dρ = ρ;
@@ -455,6 +446,55 @@ public class LambertConicConformal extends ConformalProjection {
                           -x, dρ*cosθ);     // ∂y/∂λ , ∂y/∂φ
     }
 
+    /**
+     * Computes the ρ value of the normalized Lambert Conic Conformal projection for the given latitude.
+     * This method is shared by the single point and the array transforms for guaranteeing that they
+     * produce identical results. EPSG guide uses "r", but we keep the symbol from Snyder p. 108 for
+     * consistency with {@link PolarStereographic}.
+     *
+     * @param  φ     the latitude in radians (sign may be reversed).
+     * @param  sinφ  the sine of φ.
+     * @return the radius ρ on the normalized ellipsoid.
+     */
+    private double ρ(final double φ, final double sinφ) {
+        final double absφ = abs(φ);
+        if (absφ < PI/2) {
+            return pow(expΨ(φ, eccentricity*sinφ), n);
+        } else if (absφ < PI/2 + ANGULAR_TOLERANCE) {
+            return (φ*n >= 0) ? POSITIVE_INFINITY : 0;
+        } else {
+            return NaN;
+        }
+    }
+
+    /**
+     * Converts a list of coordinate points. This method performs the same calculation than above
+     * {@link #transform(double[], int, double[], int, boolean)} method, but is overridden for efficiency:
+     * it avoids the derivative-related checks and the per-point exception handling of the default implementation.
+     * The loop reads each source point before to write the target point, which allows to iterate in ascending
+     * order when the target coordinates are stored before or at the same location than the source coordinates.
+     * Other cases of overlapping arrays are delegated to the super-class.
+     *
+     * @throws TransformException if a point can not be converted.
+     */
+    @Override
+    public void transform(final double[] srcPts, int srcOff,
+                          final double[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        if ((srcPts == dstPts && srcOff < dstOff) || getClass() != LambertConicConformal.class) {
+            super.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } else while (--numPts >= 0) {
+            final double θ = wraparoundScaledLongitude(srcPts[srcOff], θ_bound);
+            final double φ = srcPts[srcOff + 1];
+            final double ρ = ρ(φ, sin(φ));
+            dstPts[dstOff  ] = ρ * sin(θ);
+            dstPts[dstOff+1] = ρ * cos(θ);
+            srcOff += DIMENSION;
+            dstOff += DIMENSION;
+        }
+    }
+
     /**
      * Converts the specified (<var>x</var>,<var>y</var>) coordinates and stores the (θ,φ) result in {@code dstPts}.
      *
@@ -73,7 +73,7 @@ import static org.apache.sis.math.MathFunctions.isPositive;
  * @author  Rueben Schulz (UBC)
  * @author  Simon Reynard (Geomatys)
  * @author  Rémi Maréchal (Geomatys)
- * @version 0.8
+ * @version 1.1
  *
  * @see TransverseMercator
  * @see ObliqueMercator
@@ -344,30 +344,8 @@ public class Mercator extends ConformalProjection {
         final double φ    = srcPts[srcOff+1];
         final double sinφ = sin(φ);
         if (dstPts != null) {
-            /*
-             * Projection of zero is zero. However the formulas below have a slight rounding error
-             * which produce values close to 1E-10, so we will avoid them when y=0. In addition of
-             * avoiding rounding error, this also preserve the sign (positive vs negative zero).
-             */
-            final double y;
-            if (φ == 0) {
-                y = φ;
-            } else {
-                /*
-                 * See the javadoc of the Spherical inner class for a note
-                 * about why we perform explicit checks for the pole cases.
-                 */
-                final double a = abs(φ);
-                if (a < PI/2) {
-                    y = log(expΨ(φ, eccentricity * sinφ));                      // Snyder (7-7)
-                } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
-                    y = copySign(POSITIVE_INFINITY, φ);
-                } else {
-                    y = NaN;
-                }
-            }
             dstPts[dstOff  ] = srcPts[srcOff];   // Scale will be applied by the denormalization matrix.
-            dstPts[dstOff+1] = y;
+            dstPts[dstOff+1] = y(φ, sinφ);
         }
         /*
          * End of map projection. Now compute the derivative, if requested.
@@ -375,9 +353,45 @@ public class Mercator extends ConformalProjection {
         return derivate ? new Matrix2(1, 0, 0, dy_dφ(sinφ, cos(φ))) : null;
     }
 
+    /**
+     * Computes the <var>y</var> value of the normalized Mercator projection for the given latitude.
+     * This is the only non-linear part of this projection, since <var>x</var> is left unchanged.
+     * This method is shared by the single point and the array transforms for guaranteeing that
+     * they produce identical results.
+     *
+     * @param  φ     the latitude in radians.
+     * @param  sinφ  the sine of φ.
+     * @return the northing on the normalized ellipsoid.
+     */
+    private double y(final double φ, final double sinφ) {
+        /*
+         * Projection of zero is zero. However the formulas below have a slight rounding error
+         * which produce values close to 1E-10, so we will avoid them when y=0. In addition of
+         * avoiding rounding error, this also preserve the sign (positive vs negative zero).
+         */
+        if (φ == 0) {
+            return φ;
+        }
+        /*
+         * See the javadoc of the Spherical inner class for a note
+         * about why we perform explicit checks for the pole cases.
+         */
+        final double a = abs(φ);
+        if (a < PI/2) {
+            return log(expΨ(φ, eccentricity * sinφ));                       // Snyder (7-7)
+        } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
+            return copySign(POSITIVE_INFINITY, φ);
+        } else {
+            return NaN;
+        }
+    }
+
     /**
      * Converts a list of coordinate points. This method performs the same calculation than above
      * {@link #transform(double[], int, double[], int, boolean)} method, but is overridden for efficiency.
+     * The loop below reads each source point before to write the target point, which allows to iterate
+     * in ascending order when the target coordinates are stored before or at the same location than the
+     * source coordinates. Other cases of overlapping arrays are delegated to the super-class.
      *
      * @throws TransformException if a point can not be converted.
      */
@@ -386,34 +400,14 @@ public class Mercator extends ConformalProjection {
                           final double[] dstPts, int dstOff, int numPts)
             throws TransformException
     {
-        if (srcPts != dstPts || srcOff != dstOff || getClass() != Mercator.class) {
+        if ((srcPts == dstPts && srcOff < dstOff) || getClass() != Mercator.class) {
             super.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        } else {
-            /*
-             * Override the super-class method only as an optimization in the special case where the target coordinates
-             * are written at the same locations than the source coordinates. In such case, we can take advantage of
-             * the fact that the λ values are not modified by the normalized Mercator projection.
-             */
-            dstOff--;
-            while (--numPts >= 0) {
-                final double φ = dstPts[dstOff += DIMENSION];                   // Same as srcPts[srcOff + 1].
-                if (φ != 0) {
-                    /*
-                     * See the javadoc of the Spherical inner class for a note
-                     * about why we perform explicit checks for the pole cases.
-                     */
-                    final double a = abs(φ);
-                    final double y;
-                    if (a < PI/2) {
-                        y = log(expΨ(φ, eccentricity * sin(φ)));
-                    } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
-                        y = copySign(POSITIVE_INFINITY, φ);
-                    } else {
-                        y = NaN;
-                    }
-                    dstPts[dstOff] = y;
-                }
-            }
+        } else while (--numPts >= 0) {
+            final double φ = srcPts[srcOff+1];
+            dstPts[dstOff  ] = srcPts[srcOff];
+            dstPts[dstOff+1] = y(φ, sin(φ));
+            srcOff += DIMENSION;
+            dstOff += DIMENSION;
         }
     }
 
@@ -484,31 +478,39 @@ public class Mercator extends ConformalProjection {
         {
             final double φ = srcPts[srcOff+1];
             if (dstPts != null) {
-                /*
-                 * Projection of zero is zero. However the formulas below have a slight rounding error
-                 * which produce values close to 1E-10, so we will avoid them when y=0. In addition of
-                 * avoiding rounding error, this also preserve the sign (positive vs negative zero).
-                 */
-                final double y;
-                if (φ == 0) {
-                    y = φ;
-                } else {
-                    // See class javadoc for a note about explicit check for poles.
-                    final double a = abs(φ);
-                    if (a < PI/2) {
-                        y = log(tan(PI/4 + 0.5*φ));                             // Part of Snyder (7-2)
-                    } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
-                        y = copySign(POSITIVE_INFINITY, φ);
-                    } else {
-                        y = NaN;
-                    }
-                }
                 dstPts[dstOff  ] = srcPts[srcOff];
-                dstPts[dstOff+1] = y;
+                dstPts[dstOff+1] = y(φ);
             }
             return derivate ? new Matrix2(1, 0, 0, 1/cos(φ)) : null;
         }
 
+        /**
+         * Computes the <var>y</var> value of the normalized spherical Mercator projection for the given latitude.
+         * This method is shared by the single point and the array transforms.
+         *
+         * @param  φ  the latitude in radians.
+         * @return the northing on the normalized sphere.
+         */
+        private static double y(final double φ) {
+            /*
+             * Projection of zero is zero. However the formulas below have a slight rounding error
+             * which produce values close to 1E-10, so we will avoid them when y=0. In addition of
+             * avoiding rounding error, this also preserve the sign (positive vs negative zero).
+             */
+            if (φ == 0) {
+                return φ;
+            }
+            // See class javadoc for a note about explicit check for poles.
+            final double a = abs(φ);
+            if (a < PI/2) {
+                return log(tan(PI/4 + 0.5*φ));                                  // Part of Snyder (7-2)
+            } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
+                return copySign(POSITIVE_INFINITY, φ);
+            } else {
+                return NaN;
+            }
+        }
+
         /**
          * {@inheritDoc}
          *
@@ -521,26 +523,14 @@ public class Mercator extends ConformalProjection {
                               final double[] dstPts, int dstOff, int numPts)
                 throws TransformException
         {
-            if (srcPts != dstPts || srcOff != dstOff) {
+            if (srcPts == dstPts && srcOff < dstOff) {
                 super.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-            } else {
-                dstOff--;
-                while (--numPts >= 0) {
-                    final double φ = dstPts[dstOff += DIMENSION];               // Same as srcPts[srcOff + 1].
-                    if (φ != 0) {
-                        // See class javadoc for a note about explicit check for poles.
-                        final double a = abs(φ);
-                        final double y;
-                        if (a < PI/2) {
-                            y = log(tan(PI/4 + 0.5*φ));                         // Part of Snyder (7-2)
-                        } else if (a <= (PI/2 + ANGULAR_TOLERANCE)) {
-                            y = copySign(POSITIVE_INFINITY, φ);
-                        } else {
-                            y = NaN;
-                        }
-                        dstPts[dstOff] = y;
-                    }
-                }
+            } else while (--numPts >= 0) {
+                final double φ = srcPts[srcOff+1];
+                dstPts[dstOff  ] = srcPts[srcOff];
+                dstPts[dstOff+1] = y(φ);
+                srcOff += DIMENSION;
+                dstOff += DIMENSION;
             }
         }
 
@@ -55,7 +55,7 @@ import org.apache.sis.util.resources.Errors;
  * <p>Concatenated transforms are serializable if all their step transforms are serializable.</p>
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 1.0
+ * @version 1.1
  *
  * @see org.opengis.referencing.operation.MathTransformFactory#createConcatenatedTransform(MathTransform, MathTransform)
  *
@@ -552,6 +552,131 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
         }
     }
 
+    /**
+     * Transforms many coordinates using the destination array as the storage for intermediate results.
+     * This method can be used only if the transfer dimension is not greater than the target dimension.
+     * Instead of applying {@link #transform1} on the whole array followed by {@link #transform2} on the
+     * whole array again, this method applies the two transforms on blocks of at most
+     * {@value #MAXIMUM_BUFFER_SIZE} coordinates. Consequently each block stays in the CPU cache
+     * for all steps, which avoid to be limited by memory bandwidth when transforming large arrays.
+     * Since nested concatenated transforms receive only small blocks, chains of many steps
+     * (for example normalization → map projection → denormalization) are fused that way.
+     *
+     * <p>If a block fails to be transformed, the remaining blocks are nevertheless transformed
+     * and the first exception is rethrown after the last block.</p>
+     *
+     * @throws TransformException if {@link #transform1} or {@link #transform2} failed for at least one block.
+     */
+    final void transformByBlocks(final double[] srcPts, int srcOff,
+                                 final double[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        int sourceDim = transform1.getSourceDimensions();
+        int targetDim = transform2.getTargetDimensions();
+        int numBuf = Math.max(1, MAXIMUM_BUFFER_SIZE / Math.max(sourceDim, targetDim));
+        boolean descending = false;
+        if (numPts > numBuf && srcPts == dstPts) {
+            // Each block is like a single coordinate point.
+            switch (IterationStrategy.suggest(srcOff, numBuf*sourceDim, dstOff, numBuf*targetDim, (numPts - 1) / numBuf + 1)) {
+                case ASCENDING: {
+                    // No special care needed.
+                    break;
+                }
+                case DESCENDING: {
+                    // Traversing in reverse order is sufficient.
+                    final int shift = numPts - numBuf;
+                    srcOff += shift*sourceDim; sourceDim = -sourceDim;
+                    dstOff += shift*targetDim; targetDim = -targetDim;
+                    descending = true;
+                    break;
+                }
+                default: {
+                    // Blocks would overwrite source coordinates of other blocks: process the whole array at once.
+                    numBuf = numPts;
+                    break;
+                }
+            }
+        }
+        if (numBuf >= numPts) {
+            transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            return;
+        }
+        TransformException failure = null;
+        int failureCount = 0;
+        do {
+            if (!descending && numBuf > numPts) {
+                // Must be done before transforms if we are iterating in ascending order.
+                numBuf = numPts;
+            }
+            try {
+                transform1.transform(srcPts, srcOff, dstPts, dstOff, numBuf);
+                transform2.transform(dstPts, dstOff, dstPts, dstOff, numBuf);
+            } catch (TransformException exception) {
+                if (failure == null) {
+                    failure = exception;
+                } else if (++failureCount <= MAXIMUM_FAILURES) {
+                    failure.addSuppressed(exception);
+                }
+            }
+            numPts -= numBuf;
+            if (descending && numBuf > numPts) {
+                // Must be done after transforms if we are iterating in descending order.
+                numBuf = numPts;
+            }
+            srcOff += numBuf * sourceDim;
+            dstOff += numBuf * targetDim;
+        } while (numPts != 0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Transforms many coordinates by blocks, with source coordinates in an array of type {@code float[]}.
+     * Same code than {@link #transformByBlocks(double[], int, double[], int, int)} but the method calls
+     * are actually different because of overloading of the "transform" methods. Source and destination
+     * arrays can not overlap since they are of different types.
+     *
+     * @throws TransformException if {@link #transform1} or {@link #transform2} failed for at least one block.
+     */
+    final void transformByBlocks(final float[] srcPts, int srcOff,
+                                 final double[] dstPts, int dstOff, int numPts)
+            throws TransformException
+    {
+        final int sourceDim = transform1.getSourceDimensions();
+        final int targetDim = transform2.getTargetDimensions();
+        int numBuf = Math.max(1, MAXIMUM_BUFFER_SIZE / Math.max(sourceDim, targetDim));
+        if (numBuf >= numPts) {
+            transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            return;
+        }
+        TransformException failure = null;
+        int failureCount = 0;
+        do {
+            if (numBuf > numPts) {
+                numBuf = numPts;
+            }
+            try {
+                transform1.transform(srcPts, srcOff, dstPts, dstOff, numBuf);
+                transform2.transform(dstPts, dstOff, dstPts, dstOff, numBuf);
+            } catch (TransformException exception) {
+                if (failure == null) {
+                    failure = exception;
+                } else if (++failureCount <= MAXIMUM_FAILURES) {
+                    failure.addSuppressed(exception);
+                }
+            }
+            srcOff += numBuf * sourceDim;
+            dstOff += numBuf * targetDim;
+            numPts -= numBuf;
+        } while (numPts != 0);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     /**
      * Transforms many coordinates in a list of ordinal values. The source points are first
      * transformed by {@link #transform1}, then the intermediate points are transformed by
@@ -574,8 +699,7 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
          * unconditionally in ConcatenatedTransformDirect.
          */
         if (bufferDim <= targetDim) {
-            transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-            transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            transformByBlocks(srcPts, srcOff, dstPts, dstOff, numPts);
             return;
         }
         if (numPts <= 0) {
@@ -760,8 +884,7 @@ class ConcatenatedTransform extends AbstractMathTransform implements Serializabl
         final int bufferDim = transform2.getSourceDimensions();
         final int targetDim = transform2.getTargetDimensions();
         if (bufferDim <= targetDim) {
-            transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-            transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+            transformByBlocks(srcPts, srcOff, dstPts, dstOff, numPts);
             return;
         }
         if (numPts <= 0) {
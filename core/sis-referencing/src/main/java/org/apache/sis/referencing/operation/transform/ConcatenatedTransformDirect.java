@@ -27,7 +27,7 @@ import org.opengis.referencing.operation.TransformException;
  * of an intermediate buffer in some case.
  *
  * @author  Martin Desruisseaux (IRD, Geomatys)
- * @version 0.5
+ * @version 1.1
  * @since   0.5
  * @module
  */
@@ -70,6 +70,7 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
 
     /**
      * Transforms many coordinates in a list of ordinal values.
+     * The two transforms are applied on blocks of coordinates small enough for staying in the CPU cache.
      */
     @Override
     public void transform(final double[] srcPts, final int srcOff,
@@ -77,12 +78,12 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
                           final int numPts) throws TransformException
     {
         assert isValid();
-        transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+        transformByBlocks(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /**
      * Transforms many coordinates in a list of ordinal values.
+     * The two transforms are applied on blocks of coordinates small enough for staying in the CPU cache.
      */
     @Override
     public void transform(final float[]  srcPts, final int srcOff,
@@ -90,8 +91,7 @@ class ConcatenatedTransformDirect extends ConcatenatedTransform {
                           final int numPts) throws TransformException
     {
         assert isValid();
-        transform1.transform(srcPts, srcOff, dstPts, dstOff, numPts);
-        transform2.transform(dstPts, dstOff, dstPts, dstOff, numPts);
+        transformByBlocks(srcPts, srcOff, dstPts, dstOff, numPts);
     }
 
     /*
@@ -56,7 +56,7 @@ import org.apache.sis.util.Static;
  * GeoAPI factory interfaces instead.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  *
  * @see MathTransformFactory
  *
@@ -689,4 +689,47 @@ public final class MathTransforms extends Static {
         }
         return derivative;
     }
+
+    /**
+     * Transforms a list of coordinate tuples, using many threads if the number of points is large enough.
+     * This method has the same contract than {@link MathTransform#transform(double[], int, double[], int, int)},
+     * except that the array is split in chunks transformed concurrently in the {@linkplain
+     * java.util.concurrent.ForkJoinPool#commonPool() common fork-join pool}. The chunk sizes are multiples
+     * of the buffer size used internally by {@link AbstractMathTransform}, and small arrays are transformed
+     * in the current thread.
+     *
+     * <p>The {@code srcPts} and {@code dstPts} arrays may be the same, with overlapping regions.
+     * If the chunks can not be processed independently (i.e. the transformation is not an in-place
+     * transformation with identical source and target dimensions), then the source coordinates are
+     * copied in a temporary array before to start the concurrent transformations.</p>
+     *
+     * <p>If a chunk fails to be transformed, the other chunks are nevertheless transformed.
+     * The first {@link TransformException} (in array order) is thrown after all chunks have been processed,
+     * with exceptions from other chunks added as {@linkplain Throwable#getSuppressed() suppressed exceptions}.
+     * Whether the coordinates of the failed chunks are set to {@linkplain Double#NaN NaN} or left unmodified
+     * depends on the transform implementation.</p>
+     *
+     * @param  transform  the transform to apply. Shall be thread-safe.
+     * @param  srcPts     the array containing the source point coordinates.
+     * @param  srcOff     the offset to the first point to be transformed in the source array.
+     * @param  dstPts     the array into which the transformed point coordinates are returned.
+     *                    May be the same than {@code srcPts}.
+     * @param  dstOff     the offset to the location of the first transformed point that is stored in the destination array.
+     * @param  numPts     the number of point objects to be transformed.
+     * @throws TransformException if at least one point can not be transformed.
+     *
+     * @see MathTransform#transform(double[], int, double[], int, int)
+     *
+     * @since 1.1
+     */
+    public static void parallelTransform(final MathTransform transform,
+                                         final double[] srcPts, final int srcOff,
+                                         final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        ArgumentChecks.ensureNonNull("transform", transform);
+        if (numPts > 0) {
+            ParallelTransform.transform(transform, srcPts, srcOff, dstPts, dstOff, numPts);
+        }
+    }
 }
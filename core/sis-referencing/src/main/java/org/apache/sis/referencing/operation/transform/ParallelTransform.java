@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.referencing.operation.transform;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * A fork-join task transforming a sub-range of a coordinate array.
+ * The range is split in halves until the number of points is small enough, with split points aligned
+ * on blocks of {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} coordinates (not coordinate tuples)
+ * for consistency with the buffers used by {@link AbstractMathTransform}. Each leaf task delegates to
+ * {@link MathTransform#transform(double[], int, double[], int, int)} in a single thread.
+ *
+ * <p>The {@link TransformException}s thrown by leaf tasks are caught and stored, so that a failure in one chunk
+ * does not prevent the other chunks from being transformed. After all tasks completed, the first exception
+ * (in iteration order) is rethrown with the other ones added as {@linkplain Throwable#getSuppressed() suppressed}
+ * exceptions.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@SuppressWarnings("serial")                 // Not intended to be serialized.
+final class ParallelTransform extends RecursiveAction {
+    /**
+     * Minimal number of blocks of {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} coordinates
+     * that a leaf task should process. Ranges smaller than twice this amount are not split.
+     */
+    private static final int MINIMAL_BLOCKS = 8;
+
+    /**
+     * The transform to apply. Must be thread-safe, as required by {@link MathTransform} contract.
+     */
+    private final MathTransform transform;
+
+    /**
+     * The source and destination arrays, which shall not overlap in a way that cause a task
+     * to overwrite the source coordinates of another task.
+     */
+    private final double[] srcPts, dstPts;
+
+    /**
+     * Index of the first coordinate to read or write in source and destination arrays respectively.
+     */
+    private final int srcOff, dstOff;
+
+    /**
+     * Number of points to transform in this task.
+     */
+    private final int numPts;
+
+    /**
+     * Number of points in a block of {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} coordinates.
+     * Splits happen only on multiples of this value.
+     */
+    private final int blockSize;
+
+    /**
+     * The two halves of this task, or {@code null} if this task is a leaf.
+     */
+    private ParallelTransform lower, upper;
+
+    /**
+     * The exception thrown by the transform in a leaf task, or {@code null} if none.
+     */
+    private TransformException failure;
+
+    /**
+     * Creates a new task for the given range of points.
+     */
+    private ParallelTransform(final MathTransform transform, final double[] srcPts, final int srcOff,
+                              final double[] dstPts, final int dstOff, final int numPts, final int blockSize)
+    {
+        this.transform = transform;
+        this.srcPts    = srcPts;
+        this.srcOff    = srcOff;
+        this.dstPts    = dstPts;
+        this.dstOff    = dstOff;
+        this.numPts    = numPts;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the number of points in a block of {@value AbstractMathTransform#MAXIMUM_BUFFER_SIZE} coordinates.
+     */
+    private static int blockSize(final int srcDim, final int tgtDim) {
+        return Math.max(1, AbstractMathTransform.MAXIMUM_BUFFER_SIZE / Math.max(srcDim, tgtDim));
+    }
+
+    /**
+     * Transforms the given coordinates, using many threads if the number of points is large enough.
+     * See {@link MathTransforms#parallelTransform(MathTransform, double[], int, double[], int, int)}
+     * for the contract.
+     */
+    static void transform(final MathTransform transform, double[] srcPts, int srcOff,
+                          final double[] dstPts, final int dstOff, final int numPts) throws TransformException
+    {
+        final int srcDim    = transform.getSourceDimensions();
+        final int tgtDim    = transform.getTargetDimensions();
+        final int blockSize = blockSize(srcDim, tgtDim);
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (numPts < 2 * MINIMAL_BLOCKS * blockSize || pool.getParallelism() <= 1) {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+            return;
+        }
+        /*
+         * In case of overlapping source and destination arrays, the IterationStrategy rules for a single thread
+         * are not sufficient since the chunks are processed in any order. The only overlapping case that is safe
+         * in parallel is when each chunk reads and writes exactly the same region (in-place transform with the
+         * same source and target dimensions). All other overlapping cases are handled as BUFFER_SOURCE.
+         */
+        if (srcPts == dstPts && !(srcOff == dstOff && srcDim == tgtDim)) {
+            final int srcEnd = srcOff + numPts * srcDim;
+            if (srcEnd > dstOff && dstOff + numPts * tgtDim > srcOff) {
+                srcPts = Arrays.copyOfRange(srcPts, srcOff, srcEnd);
+                srcOff = 0;
+            }
+        }
+        final ParallelTransform task = new ParallelTransform(transform, srcPts, srcOff, dstPts, dstOff, numPts, blockSize);
+        pool.invoke(task);
+        final TransformException failure = task.collectFailures(null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Transforms the points in the range managed by this task, or splits this task in two halves
+     * if the range is large enough. Splits are aligned on multiple of {@link #blockSize}.
+     */
+    @Override
+    protected void compute() {
+        final int n = (numPts / (2 * blockSize)) * blockSize;
+        if (n >= MINIMAL_BLOCKS * blockSize) {
+            lower = new ParallelTransform(transform, srcPts, srcOff, dstPts, dstOff, n, blockSize);
+            upper = new ParallelTransform(transform, srcPts, srcOff + n * transform.getSourceDimensions(),
+                                                     dstPts, dstOff + n * transform.getTargetDimensions(),
+                                                     numPts - n, blockSize);
+            invokeAll(lower, upper);
+        } else try {
+            transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+        } catch (TransformException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Collects the failures of this task and all sub-tasks, in iteration order.
+     *
+     * @param  first  the first failure found in previous tasks, or {@code null} if none.
+     * @return the first failure with other failures added as suppressed exceptions, or {@code null} if none.
+     */
+    private TransformException collectFailures(TransformException first) {
+        if (failure != null) {
+            if (first == null) {
+                first = failure;
+            } else {
+                first.addSuppressed(failure);
+            }
+        }
+        if (lower != null) first = lower.collectFailures(first);
+        if (upper != null) first = upper.collectFailures(first);
+        return first;
+    }
+}
@@ -21,6 +21,7 @@ import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.FileSystemNotFoundException;
+import org.apache.sis.referencing.datum.DatumShiftGrid;
 import org.apache.sis.test.TestCase;
 
 import static org.junit.Assert.*;
@@ -33,7 +34,7 @@ import static org.junit.Assume.assumeFalse;
  * convertible to {@link Path}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -80,4 +81,27 @@ public abstract strictfp class DatumShiftTestCase extends TestCase {
         }
         return null;
     }
+
+    /**
+     * Asserts that the given grids have the same size and the same cell values in all translation dimensions.
+     * This is used for comparing grids loaded in memory with grids read from memory-mapped files.
+     *
+     * @param  expected   the grid containing the expected values.
+     * @param  actual     the grid to compare with the expected one.
+     * @param  tolerance  the tolerance threshold for comparing cell values.
+     */
+    static void assertCellValuesEqual(final DatumShiftGrid<?,?> expected, final DatumShiftGrid<?,?> actual,
+                                      final double tolerance)
+    {
+        assertArrayEquals("gridSize", expected.getGridSize(), actual.getGridSize());
+        final int dimension = expected.getTranslationDimensions();
+        assertEquals("translationDimensions", dimension, actual.getTranslationDimensions());
+        for (int dim=0; dim<dimension; dim++) {
+            for (int y=expected.getGridSize(1); --y >= 0;) {
+                for (int x=expected.getGridSize(0); --x >= 0;) {
+                    assertEquals("cellValue", expected.getCellValue(dim, x, y), actual.getCellValue(dim, x, y), tolerance);
+                }
+            }
+        }
+    }
 }
@@ -20,8 +20,11 @@ import java.util.Locale;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import javax.measure.quantity.Angle;
 import org.opengis.geometry.Envelope;
 import org.opengis.util.FactoryException;
@@ -40,7 +43,7 @@ import static org.apache.sis.test.Assert.*;
  *
  * @author  Martin Desruisseaux (Geomatys)
  * @author  Simon Reynard (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -103,6 +106,68 @@ public final strictfp class NADCONTest extends DatumShiftTestCase {
                    -99.75, -98.0, 37.5, 39.75);
     }
 
+    /**
+     * Tests reading binary grid files through memory-mapped views. This method writes small binary files
+     * with synthetic values in a temporary directory, then compares the grid read through memory-mapped
+     * views with the grid loaded in Java arrays.
+     *
+     * @throws IOException if an error occurred while writing the test files.
+     * @throws FactoryException if an error occurred while loading or computing the grid.
+     * @throws TransformException if an error occurred while testing a point.
+     */
+    @Test
+    public void testMappedLoader() throws IOException, FactoryException, TransformException {
+        final Path latitudeShifts  = Files.createTempFile("nadcon", ".las");
+        final Path longitudeShifts = Files.createTempFile("nadcon", ".los");
+        try {
+            writeBinary(latitudeShifts,   0.02);
+            writeBinary(longitudeShifts, -0.03);
+            final DatumShiftGridFile<Angle,Angle> loaded = NADCON.load(latitudeShifts, longitudeShifts,
+                    latitudeShifts, longitudeShifts, Long.MAX_VALUE);
+            final DatumShiftGridFile<Angle,Angle> grid = NADCON.load(latitudeShifts, longitudeShifts,
+                    latitudeShifts, longitudeShifts, 0);
+            assertInstanceOf("Should be memory-mapped.", DatumShiftGridMapped.class, grid);
+            assertEquals("coordinateUnit", Units.DEGREE, grid.getCoordinateUnit());
+            assertTrue  ("cellPrecision",  grid.getCellPrecision() > 0);
+            assertMatrixEquals("coordinateToGrid", loaded.getCoordinateToGrid().getMatrix(),
+                                                     grid.getCoordinateToGrid().getMatrix(), STRICT);
+            assertCellValuesEqual(loaded, grid, 1E-7);
+            final double[] position = {-99.3, 38.1};
+            assertArrayEquals("interpolateAt", loaded.interpolateAt(position), grid.interpolateAt(position), ANGULAR_TOLERANCE);
+            /*
+             * Grids mapping the same regions of the same files shall be equal,
+             * without comparison of the values in the memory-mapped views.
+             */
+            final DatumShiftGridFile<Angle,Angle> other = NADCON.load(latitudeShifts, longitudeShifts,
+                    latitudeShifts, longitudeShifts, 0);
+            assertNotSame(grid, other);
+            assertEquals("equals", grid, other);
+        } finally {
+            Files.delete(latitudeShifts);
+            Files.delete(longitudeShifts);
+        }
+    }
+
+    /**
+     * Writes a NADCON binary file of 40×30 cells of 0.25° starting at 100°W 37°N.
+     * The shift values are computed from the cell indices multiplied by the given factor.
+     */
+    private static void writeBinary(final Path file, final double factor) throws IOException {
+        final int nx = 40, ny = 30;
+        final int recordLength = (nx + 1) * Float.BYTES;
+        final ByteBuffer buffer = ByteBuffer.allocate(recordLength * (ny + 1)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("NADCON EXTRACTED REGION".getBytes(StandardCharsets.US_ASCII)).position(64);
+        buffer.putInt(nx).putInt(ny).putInt(1).putFloat(-100).putFloat(0.25f).putFloat(37).putFloat(0.25f).putFloat(0);
+        for (int y=0; y<ny; y++) {
+            buffer.position((y + 1) * recordLength);
+            buffer.putFloat(0);                             // Not a shift value.
+            for (int x=0; x<nx; x++) {
+                buffer.putFloat((float) (factor * (x + 2*y)));
+            }
+        }
+        Files.write(file, buffer.array());
+    }
+
     /**
      * Tests loading an official {@code "conus.las"} and {@code "conus.los"} datum shift grid files and interpolating
      * the sample point given by {@link #samplePoint(int)}. This test is normally not executed because Apache SIS does
@@ -37,6 +37,7 @@ import org.apache.sis.measure.Units;
 import org.apache.sis.internal.referencing.Formulas;
 import org.apache.sis.internal.system.DataDirectory;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.junit.Test;
 
 import static org.junit.Assume.assumeTrue;
@@ -94,6 +95,29 @@ public final strictfp class NTv2Test extends DatumShiftTestCase {
                 147600 + 360 * (74 + 6));   // Subgrid uses 7 cells along latitude axis
     }
 
+    /**
+     * Tests reading a grid file through a memory-mapped view. The values are compared with the grid loaded
+     * in Java arrays.
+     *
+     * @throws URISyntaxException if the URL to the test file can not be converted to a path.
+     * @throws FactoryException if an error occurred while loading or computing the grid.
+     */
+    @Test
+    @DependsOnMethod("testLoader")
+    public void testMappedLoader() throws URISyntaxException, FactoryException {
+        final Path file = getResource(TEST_FILE);
+        final DatumShiftGridFile<Angle,Angle> loaded = NTv2.load(NTv2.class, file, file, 2, Long.MAX_VALUE);
+        final DatumShiftGridFile<Angle,Angle> grid   = NTv2.load(NTv2.class, file, file, 2, 0);
+        assertInstanceOf("Should be memory-mapped.", DatumShiftGridMapped.class, grid);
+        assertEquals("coordinateUnit",  Units.ARC_SECOND, grid.getCoordinateUnit());
+        assertEquals("translationUnit", Units.ARC_SECOND, grid.getTranslationUnit());
+        assertTrue  ("isCellValueRatio", grid.isCellValueRatio());
+        assertTrue  ("cellPrecision",    grid.getCellPrecision() > 0);
+        assertMatrixEquals("coordinateToGrid", loaded.getCoordinateToGrid().getMatrix(),
+                                                 grid.getCoordinateToGrid().getMatrix(), STRICT);
+        assertCellValuesEqual(loaded, grid, 1E-9);
+    }
+
     /**
      * Tests loading an official {@code "NTF_R93.gsb"} datum shift grid file and interpolating the sample point
      * given by {@link FranceGeocentricInterpolationTest#samplePoint(int)}. This test is normally not executed
@@ -362,4 +362,19 @@ public final strictfp class LambertConicConformalTest extends MapProjectionTestC
         tolerance = Formulas.LINEAR_TOLERANCE;
         verifyTransform(source, target);
     }
+
+    /**
+     * Verifies that the optimized array transformation gives the same results than the single point
+     * transformation, for both the ellipsoidal and spherical formulas.
+     *
+     * @throws TransformException if an error occurred while projecting a point.
+     */
+    @Test
+    @DependsOnMethod("testSpecialLatitudes")
+    public void testArrayTransform() throws TransformException {
+        createNormalizedProjection(true, 40);
+        verifyArrayTransform(8402735196L);
+        createNormalizedProjection(false, 40);
+        verifyArrayTransform(8402735196L);
+    }
 }
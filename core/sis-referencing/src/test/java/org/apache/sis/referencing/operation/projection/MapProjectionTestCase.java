@@ -16,6 +16,8 @@
  */
 package org.apache.sis.referencing.operation.projection;
 
+import java.util.Arrays;
+import java.util.Random;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.datum.Ellipsoid;
 import org.opengis.referencing.operation.MathTransform;
@@ -39,7 +41,7 @@ import static org.junit.Assert.*;
  * Base class of map projection tests.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.6
  * @module
  */
@@ -215,4 +217,39 @@ abstract strictfp class MapProjectionTestCase extends MathTransformTestCase {
         }
         verifyInDomain(domain, randomSeed);
     }
+
+    /**
+     * Verifies that the transformation of an array of coordinates by the current normalized projection
+     * gives the same results than the transformation of each point individually. This method tests
+     * some special latitudes (0, ±π/2, NaN, out of range) and overlapping source and target arrays.
+     *
+     * @param  randomSeed  the seed for the random number generator.
+     * @throws TransformException if a conversion failed.
+     */
+    final void verifyArrayTransform(final long randomSeed) throws TransformException {
+        final NormalizedProjection kernel = (NormalizedProjection) transform;
+        final Random random = new Random(randomSeed);
+        final int numPts = 1000;
+        final double[] source = new double[(numPts + 1) * 2];
+        for (int i=0; i<source.length; i++) {
+            source[i] = (random.nextDouble() - 0.5) * PI;
+        }
+        source[3] = 0;                                          // φ of first point (source offset is 2).
+        source[5] = +PI/2;
+        source[7] = -PI/2;
+        source[9] = Double.NaN;
+        source[11] = 2;
+        final double[] expected = new double[numPts * 2];
+        for (int i=0; i<numPts; i++) {
+            kernel.transform(source, 2 + i*2, expected, i*2, false);
+        }
+        final double[] actual = new double[numPts * 2];
+        kernel.transform(source, 2, actual, 0, numPts);
+        assertArrayEquals("Separated arrays", expected, actual, 0);
+        for (int dstOff = 0; dstOff <= 4; dstOff += 2) {
+            final double[] shared = Arrays.copyOf(source, source.length + 2);
+            kernel.transform(shared, 2, shared, dstOff, numPts);
+            assertArrayEquals("Overlapping arrays", expected, Arrays.copyOfRange(shared, dstOff, dstOff + numPts*2), 0);
+        }
+    }
 }
@@ -45,7 +45,7 @@ import static org.apache.sis.test.Assert.PENDING_NEXT_GEOAPI_RELEASE;
  * @author  Martin Desruisseaux (Geomatys)
  * @author  Simon Reynard (Geomatys)
  * @author  Rémi Maréchal (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.6
  * @module
  */
@@ -295,4 +295,19 @@ public final strictfp class MercatorTest extends MapProjectionTestCase {
         tolerance = Formulas.LINEAR_TOLERANCE;
         compareEllipticalWithSpherical(CoordinateDomain.GEOGRAPHIC_SAFE, 0);
     }
+
+    /**
+     * Verifies that the optimized array transformation gives the same results than the single point
+     * transformation, for both the ellipsoidal and spherical formulas.
+     *
+     * @throws TransformException if an error occurred while projecting a point.
+     */
+    @Test
+    @DependsOnMethod("testSpecialLatitudes")
+    public void testArrayTransform() throws TransformException {
+        createNormalizedProjection(true);
+        verifyArrayTransform(8402735196L);
+        createNormalizedProjection(false);
+        verifyArrayTransform(8402735196L);
+    }
 }
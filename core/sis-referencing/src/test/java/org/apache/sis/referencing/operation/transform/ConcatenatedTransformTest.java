@@ -16,6 +16,8 @@
  */
 package org.apache.sis.referencing.operation.transform;
 
+import java.util.Arrays;
+import java.util.Random;
 import org.opengis.util.FactoryException;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
@@ -23,6 +25,7 @@ import org.apache.sis.internal.referencing.j2d.AffineTransform2D;
 import org.apache.sis.referencing.operation.matrix.Matrices;
 import org.apache.sis.referencing.operation.matrix.Matrix4;
 import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
 import org.junit.Test;
 
 import static org.opengis.test.Assert.*;
@@ -32,7 +35,7 @@ import static org.opengis.test.Assert.*;
  * Tests the {@link ConcatenatedTransform} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.5
  * @module
  */
@@ -147,4 +150,55 @@ public final strictfp class ConcatenatedTransformTest extends MathTransformTestC
         assertEquals("Source dimensions", 3, transform.getSourceDimensions());
         assertEquals("Target dimensions", 4, transform.getTargetDimensions());
     }
+
+    /**
+     * Tests the transformation of an array large enough for being processed by blocks,
+     * including the case where source and destination arrays overlap.
+     *
+     * @throws TransformException if an error occurred while transforming the test coordinates.
+     */
+    @Test
+    @DependsOnMethod("testDirect2D")
+    public void testTransformByBlocks() throws TransformException {
+        final AffineTransform2D first  = new AffineTransform2D(2, 0, 0, 3, 2.00, 4.00);
+        final AffineTransform2D second = new AffineTransform2D(0, 1, 1, 0, 0.25, 0.75);     // Swap axes.
+        transform = new ConcatenatedTransformDirect2D(first, second);
+        final Random random = new Random(6743520915L);
+        final int numPts = 2000;
+        final double[] source = new double[numPts * 2 + 10];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 100;
+        }
+        final double[] expected = new double[numPts * 2];
+        first .transform(source, 3, expected, 0, numPts);
+        second.transform(expected, 0, expected, 0, numPts);
+        final double[] actual = new double[numPts * 2];
+        transform.transform(source, 3, actual, 0, numPts);
+        assertArrayEquals("Separated arrays", expected, actual, 0);
+        /*
+         * Overlapping arrays, with target coordinates before and after the source coordinates.
+         */
+        for (final int dstOff : new int[] {1, 3, 5}) {
+            final double[] shared = source.clone();
+            transform.transform(shared, 3, shared, dstOff, numPts);
+            assertArrayEquals("Overlapping arrays", expected, Arrays.copyOfRange(shared, dstOff, dstOff + numPts*2), 0);
+        }
+        /*
+         * Non-direct case where intermediate results are stored in the destination array
+         * (transfer dimension smaller than target dimension).
+         */
+        final MathTransform expand = MathTransforms.linear(Matrices.create(4, 3, new double[] {
+            1, 0, 0,
+            0, 1, 0,
+            1, 1, 0,
+            0, 0, 1}));
+        transform = new ConcatenatedTransform(first, expand);
+        final double[] expected3D = new double[numPts * 3];
+        first .transform(source, 3, expected3D, 0, numPts);
+        expand.transform(expected3D, 0, expected3D, 0, numPts);
+        final double[] actual3D = new double[numPts * 3 + 5];
+        System.arraycopy(source, 0, actual3D, 0, source.length);
+        transform.transform(actual3D, 3, actual3D, 5, numPts);
+        assertArrayEquals("Expanded dimension", expected3D, Arrays.copyOfRange(actual3D, 5, 5 + numPts*3), 0);
+    }
 }
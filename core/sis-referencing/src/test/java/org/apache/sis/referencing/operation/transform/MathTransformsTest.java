@@ -17,6 +17,8 @@
 package org.apache.sis.referencing.operation.transform;
 
 import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
 import org.opengis.geometry.DirectPosition;
 import org.opengis.referencing.operation.Matrix;
 import org.opengis.referencing.operation.MathTransform;
@@ -39,7 +41,7 @@ import static org.apache.sis.test.Assert.*;
  * Tests {@link MathTransforms}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.5
  * @module
  */
@@ -212,4 +214,70 @@ public final strictfp class MathTransformsTest extends TestCase {
         assertInstanceOf("2D", MathTransform2D.class, tr);
         assertFalse("isIdentity", tr.isIdentity());
     }
+
+    /**
+     * A thread-safe transform for {@link #testParallelTransform()}. Points having a negative
+     * <var>x</var> coordinate value can not be transformed.
+     */
+    private static final class ScaleWithFailures extends AbstractMathTransform {
+        @Override public int getSourceDimensions() {return 3;}
+        @Override public int getTargetDimensions() {return 2;}
+        @Override public Matrix transform(final double[] srcPts, final int srcOff,
+                                          final double[] dstPts, final int dstOff,
+                                          final boolean derivate) throws TransformException
+        {
+            final double x = srcPts[srcOff];
+            final double y = srcPts[srcOff + 1];
+            final double z = srcPts[srcOff + 2];
+            if (x < 0) {
+                throw new TransformException("Negative x value for testing purpose.");
+            }
+            dstPts[dstOff    ] = 2*x + z;
+            dstPts[dstOff + 1] = y - z;
+            return null;
+        }
+    }
+
+    /**
+     * Tests {@link MathTransforms#parallelTransform(MathTransform, double[], int, double[], int, int)}
+     * with separated arrays, overlapping arrays and failures in some chunks.
+     *
+     * @throws TransformException if an unexpected transformation failure occurred.
+     */
+    @Test
+    public void testParallelTransform() throws TransformException {
+        final MathTransform tr = new ScaleWithFailures();
+        final int numPts = 50000;
+        final Random random = new Random(4280571932L);
+        final double[] source = new double[numPts * 3 + 7];
+        for (int i=0; i<source.length; i++) {
+            source[i] = random.nextDouble() * 100;
+        }
+        final double[] expected = new double[numPts * 2];
+        tr.transform(source, 5, expected, 0, numPts);
+        final double[] actual = new double[numPts * 2];
+        MathTransforms.parallelTransform(tr, source, 5, actual, 0, numPts);
+        assertArrayEquals("Separated arrays", expected, actual, 0);
+        /*
+         * Overlapping arrays: target coordinates written after the source coordinates begin.
+         */
+        final double[] shared = source.clone();
+        MathTransforms.parallelTransform(tr, shared, 5, shared, 7, numPts);
+        assertArrayEquals("Overlapping arrays", expected, Arrays.copyOfRange(shared, 7, 7 + numPts*2), 0);
+        /*
+         * Introduce failures in the first and last points. All other points should be transformed.
+         */
+        source[5] = -1;
+        source[5 + (numPts - 1) * 3] = -1;
+        try {
+            MathTransforms.parallelTransform(tr, source, 5, actual, 0, numPts);
+            fail("Expected TransformException.");
+        } catch (TransformException e) {
+            assertEquals("suppressed", 1, e.getSuppressed().length);
+        }
+        assertTrue(Double.isNaN(actual[0]));
+        assertTrue(Double.isNaN(actual[actual.length - 1]));
+        assertArrayEquals(Arrays.copyOfRange(expected, 2, expected.length - 2),
+                          Arrays.copyOfRange(actual,   2, actual.length   - 2), 0);
+    }
 }
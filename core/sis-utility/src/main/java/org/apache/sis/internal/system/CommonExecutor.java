@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.system;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * The executor shared by most of Apache SIS library for relatively "heavy" operations.
+ * The operations should be relatively long tasks, otherwise work-stealing algorithms may
+ * provide better performances. For example it may be used when each computational unit
+ * is an image tile, in which case the thread scheduling overhead is small compared to
+ * the size of the computational task.
+ *
+ * <p>This executor uses a fixed number of threads, which is the number of available processors.
+ * Threads are daemons and are disposed after one minute of inactivity. Consequently this class
+ * does not consume resources when not used.</p>
+ *
+ * <p>This class extends {@link AtomicInteger} for opportunistic reason.
+ * Users should not rely on this implementation details.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@SuppressWarnings("serial")                         // Not intended to be serialized.
+public final class CommonExecutor extends AtomicInteger implements ThreadFactory {
+    /**
+     * Maximal number of threads that {@link #INSTANCE} can execute.
+     * If the number of tasks is greater than this parallelism value,
+     * then extraneous tasks will be queued.
+     */
+    public static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The executor for background tasks. The maximum number of threads is the number of processors.
+     * Threads are created only when needed and disposed after one minute of inactivity.
+     */
+    private static final ThreadPoolExecutor INSTANCE;
+    static {
+        INSTANCE = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 1, TimeUnit.MINUTES,
+                                          new LinkedBlockingQueue<>(), new CommonExecutor());
+        INSTANCE.allowCoreThreadTimeOut(true);
+        synchronized (Threads.class) {
+            Threads.executor = INSTANCE;
+        }
+    }
+
+    /**
+     * Returns the executor service shared by SIS modules for most background tasks.
+     * Users should not shutdown this executor; it is disposed automatically when
+     * Apache SIS is {@linkplain Shutdown#stop(Class) stopped}.
+     *
+     * @return the executor service for SIS tasks to run in background.
+     */
+    public static ExecutorService instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Executes the given tasks, potentially in parallel, and returns their results in the same order.
+     * The calling thread participates to the work: when the result of a task is requested, that task
+     * is executed in the calling thread if no worker thread started it yet. Consequently this method
+     * does not block indefinitely when invoked from a worker thread, even if all workers are busy.
+     *
+     * <p>If a task fails, the remaining tasks are cancelled and the exception thrown by the task is
+     * rethrown by this method (unwrapped from the {@link ExecutionException}).</p>
+     *
+     * @param  <V>    type of task results.
+     * @param  tasks  the tasks to execute.
+     * @return the results of all tasks, in the same order than the given tasks.
+     * @throws Exception if a task failed or the calling thread has been interrupted.
+     */
+    public static <V> List<V> invokeAll(final List<? extends Callable<V>> tasks) throws Exception {
+        final int count = tasks.size();
+        final List<V> results = new ArrayList<>(count);
+        if (count <= 1 || PARALLELISM <= 1) {
+            for (final Callable<V> task : tasks) {
+                results.add(task.call());
+            }
+            return results;
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final FutureTask<V>[] futures = new FutureTask[count];
+        for (int i=0; i<count; i++) {
+            futures[i] = new FutureTask<>(tasks.get(i));
+        }
+        try {
+            for (int i=1; i<count; i++) {               // First task will be executed by the calling thread.
+                INSTANCE.execute(futures[i]);
+            }
+        } catch (RejectedExecutionException e) {
+            // Executor shutdown: remaining tasks will be executed in the calling thread.
+        }
+        try {
+            for (final FutureTask<V> future : futures) {
+                future.run();                           // No-op if the task has already been started.
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error)     throw (Error) cause;
+            throw e;
+        } finally {
+            for (final FutureTask<V> future : futures) {
+                future.cancel(false);                   // No-op if the task is already completed.
+            }
+        }
+        return results;
+    }
+
+    /**
+     * For the singleton {@link #INSTANCE}.
+     */
+    private CommonExecutor() {
+    }
+
+    /**
+     * Invoked by the executor for creating a new thread.
+     *
+     * @param  r  the runnable to execute in the new thread.
+     * @return the thread for executing the given runnable.
+     */
+    @Override
+    public Thread newThread(final Runnable r) {
+        final Thread t = new Thread(Threads.WORKERS, r, "Worker #" + incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    }
+}
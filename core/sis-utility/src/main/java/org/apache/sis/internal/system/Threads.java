@@ -16,6 +16,8 @@
  */
 package org.apache.sis.internal.system;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.apache.sis.util.Static;
 import org.apache.sis.util.logging.Logging;
 
@@ -31,7 +33,7 @@ import org.apache.sis.util.logging.Logging;
  * dependencies the other way around.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.1
  * @since   0.3
  * @module
  */
@@ -67,6 +69,16 @@ final class Threads extends Static {
 
 
 
+    /**
+     * The sub-group for worker threads executing background tasks submitted by SIS modules.
+     * Those threads are managed by {@link CommonExecutor}.
+     */
+    static final ThreadGroup WORKERS = new ThreadGroup(SIS, "Workers") {
+        @Override public void uncaughtException(final Thread thread, final Throwable exception) {
+            Logging.severeException(Logging.getLogger(Loggers.SYSTEM), thread.getClass(), "run", exception);
+        }
+    };
+
     /* -------------------------------------------------------------------------------------
      * Every non-final static variables below this point are initialized by other classes,
      * like DaemonThread or Executors - this class will never initialize those variables by
@@ -80,6 +92,12 @@ final class Threads extends Static {
      */
     static DaemonThread lastCreatedDaemon;
 
+    /**
+     * The executor service created by {@link CommonExecutor}, or {@code null} if that class has not
+     * been initialized. Stored here because this {@code Threads} class shall not initialize it.
+     */
+    static ExecutorService executor;
+
     /**
      * Do not allows instantiation of this class.
      */
@@ -99,6 +117,12 @@ final class Threads extends Static {
      *         we were waiting for the daemon threads to die.
      */
     static synchronized void shutdown(final long stopWaitingAt) throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+        }
         DaemonThread.killAll(lastCreatedDaemon, stopWaitingAt);
+        if (executor != null) {
+            executor.awaitTermination(Math.max(stopWaitingAt - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        }
     }
 }
@@ -61,7 +61,7 @@ import org.apache.sis.util.CharSequences;
  * but nevertheless allows to specify a timezone.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.6
  * @module
  */
@@ -164,6 +164,92 @@ public final class StandardDateFormat extends DateFormat {
         return time.toInstant();
     }
 
+    /**
+     * Parses an instant in the {@code "yyyy-MM-ddTHH:mm:ss[.fffffffff]Z"} format without creating any object.
+     * This is a fast path for the most common format found in data files; callers should fallback on
+     * {@link #parseInstantUTC(CharSequence, int, int)} or {@link Instant#parse(CharSequence)} if this
+     * method returns {@link Long#MIN_VALUE}. This method does not handle other formats, years before
+     * 1678 or after 2261 (for avoiding overflow), and leading or trailing spaces.
+     *
+     * @param  text   the text to parse.
+     * @param  lower  index of the first character to parse.
+     * @param  upper  index after the last character to parse.
+     * @return nanoseconds since January 1st, 1970 midnight UTC, or {@link Long#MIN_VALUE}
+     *         if the text is not in the format handled by this method.
+     *
+     * @since 1.1
+     */
+    public static long parseEpochNanos(final CharSequence text, final int lower, final int upper) {
+        if (upper - lower < 20 || text.charAt(upper - 1) != 'Z'
+                || text.charAt(lower +  4) != '-' || text.charAt(lower +  7) != '-' || text.charAt(lower + 10) != 'T'
+                || text.charAt(lower + 13) != ':' || text.charAt(lower + 16) != ':')
+        {
+            return Long.MIN_VALUE;
+        }
+        final int year   = digits(text, lower,      4);
+        final int month  = digits(text, lower +  5, 2);
+        final int day    = digits(text, lower +  8, 2);
+        final int hour   = digits(text, lower + 11, 2);
+        final int minute = digits(text, lower + 14, 2);
+        final int second = digits(text, lower + 17, 2);
+        if (year < 1678 || year > 2261 || (month | day | hour | minute | second) < 0 || month < 1 || month > 12
+                || day < 1 || day > daysInMonth(year, month) || hour > 23 || minute > 59 || second > 59)
+        {
+            return Long.MIN_VALUE;
+        }
+        int fraction = 0;
+        int i = lower + 19;
+        final int end = upper - 1;
+        if (i < end) {
+            if (text.charAt(i) != '.' || end - ++i > 9 || i == end) {
+                return Long.MIN_VALUE;
+            }
+            final int n = end - i;
+            fraction = digits(text, i, n);
+            if (fraction < 0) {
+                return Long.MIN_VALUE;
+            }
+            for (int k=n; k<9; k++) fraction *= 10;
+        }
+        /*
+         * Number of days since epoch, using the algorithm from Howard Hinnant:
+         * http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+         */
+        final int  y   = (month <= 2) ? year - 1 : year;
+        final int  era = Math.floorDiv(y, 400);
+        final int  yoe = y - era * 400;
+        final int  doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int  doe = yoe * 365 + yoe/4 - yoe/100 + doy;
+        final long days = era * 146097L + doe - 719468;
+        return (days * 86400 + hour * 3600 + minute * 60 + second) * NANOS_PER_SECOND + fraction;
+    }
+
+    /**
+     * Parses the given number of decimal digits starting at the given index.
+     *
+     * @return the parsed value, or -1 if a character is not a decimal digit.
+     */
+    private static int digits(final CharSequence text, int i, int n) {
+        int value = 0;
+        while (--n >= 0) {
+            final char c = text.charAt(i++);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of days in the given month of the given year.
+     */
+    private static int daysInMonth(final int year, final int month) {
+        switch (month) {
+            case 2:  return ((year % 4 == 0) && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
     /**
      * Modifies the given date and time string for making it more compliant to ISO syntax.
      * If date and time are separated by spaces, then this method replaces those spaces by
@@ -34,7 +34,7 @@ import static org.junit.Assert.*;
  * Tests the {@link StandardDateFormat} class.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.6
  * @module
  */
@@ -131,6 +131,28 @@ public final strictfp class StandardDateFormatTest extends TestCase {
         assertEquals(Instant.ofEpochMilli(day),                                    StandardDateFormat.parseInstantUTC("2016-06-27"));
     }
 
+    /**
+     * Tests {@link StandardDateFormat#parseEpochNanos(CharSequence, int, int)}
+     * by comparison with {@link Instant#parse(CharSequence)}.
+     *
+     * @since 1.1
+     */
+    @Test
+    public void testParseEpochNanos() {
+        for (final String text : new String[] {"2012-01-17T12:33:41Z", "1969-12-31T23:59:59.999Z",
+                "2000-02-29T00:00:00.5Z", "1700-03-01T10:11:12.123456789Z"})
+        {
+            final Instant expected = Instant.parse(text);
+            final long nanos = StandardDateFormat.parseEpochNanos("[" + text + "]", 1, text.length() + 1);
+            assertEquals(text, expected, Instant.ofEpochSecond(0, nanos));
+        }
+        for (final String text : new String[] {"2016-12-31T23:59:60Z", "+12016-01-01T00:00:00Z",
+                "1600-03-01T10:11:12Z", "2001-02-29T00:00:00Z", "2001-02-01T00:00:00.Z", "2001-02-01T00:00:00"})
+        {
+            assertEquals(text, Long.MIN_VALUE, StandardDateFormat.parseEpochNanos(text, 0, text.length()));
+        }
+    }
+
     /**
      * Tests formatting and parsing a negative year.
      * This test uses the Julian epoch (January 1st, 4713 BC at 12:00 UTC in proleptic Julian calendar;
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.io.IOException;
+import org.apache.sis.internal.system.DefaultFactories;
+
+
+/**
+ * Base class of algorithms for uncompressing the sample values stored in a TIFF tile or strip.
+ * Each subclass implements one of the compression methods identified by the {@code Compression}
+ * TIFF tag. Instances are created by {@link #create(int)} for each tile to uncompress; they are
+ * not thread-safe, but different instances can be used concurrently for different tiles.
+ *
+ * <p>Support for new compression methods can be added by {@link DecompressorProvider} implementations
+ * declared in {@code META-INF/services/org.apache.sis.internal.geotiff.DecompressorProvider} files.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public abstract class Decompressor {
+    /**
+     * The providers of decompressors, indexed by values of the {@code Compression} TIFF tag.
+     * Built when first needed by scanning the providers declared on the class path.
+     */
+    private static final class Registry {
+        /** The providers for each compression. */
+        static final Map<Integer, DecompressorProvider> PROVIDERS = new HashMap<>();
+        static {
+            for (final DecompressorProvider provider : DefaultFactories.createServiceLoader(DecompressorProvider.class)) {
+                for (final int compression : provider.getCompressions()) {
+                    PROVIDERS.putIfAbsent(compression, provider);
+                }
+            }
+        }
+    }
+
+    /**
+     * For subclass constructors.
+     */
+    protected Decompressor() {
+    }
+
+    /**
+     * Creates a new decompressor for the given value of the {@code Compression} TIFF tag.
+     * If more than one provider supports the given compression, the first one found on the
+     * class path is used.
+     *
+     * @param  compression  value of the {@code Compression} TIFF tag.
+     * @return a decompressor for the given compression method, or {@code null} if the compression is not supported.
+     */
+    public static Decompressor create(final int compression) {
+        final DecompressorProvider provider = Registry.PROVIDERS.get(compression);
+        return (provider != null) ? provider.create(compression) : null;
+    }
+
+    /**
+     * Uncompresses the given bytes. This method stops either when the input is exhausted or when the output
+     * is full. In the later case, remaining input bytes are ignored. If the input is exhausted before the
+     * output is full, then remaining output bytes are left unchanged.
+     *
+     * @param  input   the compressed bytes.
+     * @param  length  number of valid bytes in the {@code input} array.
+     * @param  output  where to store the uncompressed bytes.
+     * @return number of bytes written in the {@code output} array.
+     * @throws IOException if the input is not a valid stream for this compression method.
+     */
+    public abstract int uncompress(byte[] input, int length, byte[] output) throws IOException;
+}
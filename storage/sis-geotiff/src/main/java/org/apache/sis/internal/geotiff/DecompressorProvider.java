@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+
+/**
+ * Provider of {@link Decompressor} instances for some values of the {@code Compression} TIFF tag.
+ * Implementations are discovered by {@link java.util.ServiceLoader}; they shall be declared in a
+ * {@code META-INF/services/org.apache.sis.internal.geotiff.DecompressorProvider} file and have
+ * a public no-argument constructor.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public abstract class DecompressorProvider {
+    /**
+     * For subclass constructors.
+     */
+    protected DecompressorProvider() {
+    }
+
+    /**
+     * Returns the values of the {@code Compression} TIFF tag supported by this provider.
+     *
+     * @return the supported compression methods.
+     */
+    public abstract int[] getCompressions();
+
+    /**
+     * Creates a new decompressor for the given value of the {@code Compression} TIFF tag.
+     * This method is invoked for each tile or strip to uncompress.
+     *
+     * @param  compression  one of the values returned by {@link #getCompressions()}.
+     * @return a new decompressor for the given compression method.
+     */
+    public abstract Decompressor create(int compression);
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import java.io.IOException;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+
+
+/**
+ * Decompressor for the "Deflate" compression method, which is the same algorithm than the ZIP format.
+ * This is sometime named {@code "ADOBE_DEFLATE"}. The compressed data are in the zlib format.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class Deflate extends Decompressor {
+    /**
+     * Creates a new decompressor.
+     */
+    Deflate() {
+    }
+
+    /**
+     * Uncompresses the given bytes.
+     *
+     * @param  input   the compressed bytes.
+     * @param  length  number of valid bytes in the {@code input} array.
+     * @param  output  where to store the uncompressed bytes.
+     * @return number of bytes written in the {@code output} array.
+     * @throws IOException if the input is not a valid zlib stream.
+     */
+    @Override
+    public int uncompress(final byte[] input, final int length, final byte[] output) throws IOException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, 0, length);
+            int n = 0;
+            while (n < output.length && !inflater.finished()) {
+                final int r = inflater.inflate(output, n, output.length - n);
+                if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;                      // Truncated stream: keep what we got.
+                }
+                n += r;
+            }
+            return n;
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import java.io.IOException;
+
+
+/**
+ * Decompressor for the LZW compression method as specified in TIFF 6.0 specification.
+ * Codes are read in most significant bit first order, starting with a length of 9 bits
+ * and increasing up to 12 bits. Code length is incremented one code before the table
+ * size requires it ("early change"), as done by all TIFF writers.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class LZW extends Decompressor {
+    /**
+     * Code for clearing the table.
+     */
+    private static final int CLEAR_CODE = 256;
+
+    /**
+     * Code for end of information.
+     */
+    private static final int EOI_CODE = 257;
+
+    /**
+     * First code which is not a single byte or a special code.
+     */
+    private static final int FIRST_ADAPTATIVE_CODE = 258;
+
+    /**
+     * Maximal number of bits in a code.
+     */
+    private static final int MAX_CODE_SIZE = 12;
+
+    /**
+     * For each code, index of the code for the sequence without its last byte.
+     */
+    private final short[] prefixes;
+
+    /**
+     * For each code, the last byte of the sequence.
+     */
+    private final byte[] suffixes;
+
+    /**
+     * For each code, the first byte of the sequence.
+     */
+    private final byte[] firsts;
+
+    /**
+     * For each code, the length of the sequence.
+     */
+    private final int[] lengths;
+
+    /**
+     * Creates a new decompressor.
+     */
+    LZW() {
+        final int capacity = 1 << MAX_CODE_SIZE;
+        prefixes = new short[capacity];
+        suffixes = new byte [capacity];
+        firsts   = new byte [capacity];
+        lengths  = new int  [capacity];
+        for (int i=0; i<256; i++) {
+            suffixes[i] = (byte) i;
+            firsts  [i] = (byte) i;
+            lengths [i] = 1;
+        }
+    }
+
+    /**
+     * Uncompresses the given bytes.
+     *
+     * @param  input   the compressed bytes.
+     * @param  length  number of valid bytes in the {@code input} array.
+     * @param  output  where to store the uncompressed bytes.
+     * @return number of bytes written in the {@code output} array.
+     * @throws IOException if a code references an entry not yet defined.
+     */
+    @Override
+    public int uncompress(final byte[] input, final int length, final byte[] output) throws IOException {
+        final long bitLength = length * (long) Byte.SIZE;
+        long bitPosition = 0;
+        int  codeSize    = 9;
+        int  nextCode    = FIRST_ADAPTATIVE_CODE;
+        int  previous    = -1;
+        int  out         = 0;
+        while (out < output.length && bitPosition + codeSize <= bitLength) {
+            /*
+             * Read the next code, most significant bit first. A code can span at most 3 bytes.
+             */
+            int index = (int) (bitPosition >>> 3);
+            int bits  = (input[index] & 0xFF) << 16;
+            if (++index < length) bits |= (input[index] & 0xFF) << 8;
+            if (++index < length) bits |= (input[index] & 0xFF);
+            final int code = (bits >>> (24 - codeSize - (int) (bitPosition & 7))) & ((1 << codeSize) - 1);
+            bitPosition += codeSize;
+            if (code == EOI_CODE) {
+                break;
+            }
+            if (code == CLEAR_CODE) {
+                codeSize = 9;
+                nextCode = FIRST_ADAPTATIVE_CODE;
+                previous = -1;
+                continue;
+            }
+            /*
+             * Write the sequence for the code, then add a new entry in the table made of the previous
+             * sequence followed by the first byte of current sequence. If the code is the one of the
+             * entry being added (the KwKwK case), the sequence is the previous one followed by its
+             * own first byte.
+             */
+            final byte first;
+            if (code < nextCode) {
+                first = firsts[code];
+                if (previous >= 0 && nextCode < prefixes.length) {
+                    add(nextCode++, previous, first);
+                }
+                out = write(code, output, out);
+            } else if (code == nextCode && previous >= 0) {
+                first = firsts[previous];
+                add(nextCode++, previous, first);
+                out = write(code, output, out);
+            } else {
+                throw new IOException("Invalid LZW code: " + code);
+            }
+            previous = code;
+            if (nextCode >= (1 << codeSize) - 1 && codeSize < MAX_CODE_SIZE) {
+                codeSize++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Adds a new entry in the table.
+     *
+     * @param  code    the code of the new entry.
+     * @param  prefix  code of the sequence without the last byte.
+     * @param  suffix  the last byte of the sequence.
+     */
+    private void add(final int code, final int prefix, final byte suffix) {
+        prefixes[code] = (short) prefix;
+        suffixes[code] = suffix;
+        firsts  [code] = firsts[prefix];
+        lengths [code] = lengths[prefix] + 1;
+    }
+
+    /**
+     * Writes the sequence of the given code in the output array.
+     * The sequence is truncated if it does not fit in the array.
+     *
+     * @return the new position in the output array.
+     */
+    private int write(int code, final byte[] output, final int out) {
+        final int n = lengths[code];
+        for (int i = out + n; --i >= out;) {
+            if (i < output.length) {
+                output[i] = suffixes[code];
+            }
+            code = prefixes[code];
+        }
+        return Math.min(out + n, output.length);
+    }
+}
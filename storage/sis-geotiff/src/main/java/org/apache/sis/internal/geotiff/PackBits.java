@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+
+/**
+ * Decompressor for the "PackBits" compression method, a simple byte-oriented run length scheme.
+ * Each run starts with a header byte <var>n</var> interpreted as a signed integer:
+ *
+ * <ul>
+ *   <li>0 ≤ <var>n</var> ≤ 127: copy the next <var>n</var>+1 bytes literally.</li>
+ *   <li>-127 ≤ <var>n</var> ≤ -1: repeat the next byte 1-<var>n</var> times.</li>
+ *   <li><var>n</var> = -128: no operation.</li>
+ * </ul>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class PackBits extends Decompressor {
+    /**
+     * Creates a new decompressor.
+     */
+    PackBits() {
+    }
+
+    /**
+     * Uncompresses the given bytes.
+     *
+     * @param  input   the compressed bytes.
+     * @param  length  number of valid bytes in the {@code input} array.
+     * @param  output  where to store the uncompressed bytes.
+     * @return number of bytes written in the {@code output} array.
+     */
+    @Override
+    public int uncompress(final byte[] input, final int length, final byte[] output) {
+        int in = 0, out = 0;
+        while (in < length && out < output.length) {
+            final int n = input[in++];
+            if (n >= 0) {
+                final int count = Math.min(Math.min(n + 1, length - in), output.length - out);
+                System.arraycopy(input, in, output, out, count);
+                in  += n + 1;
+                out += count;
+            } else if (n != -128) {
+                if (in >= length) break;
+                final byte value = input[in++];
+                final int end = Math.min(out + (1 - n), output.length);
+                while (out < end) {
+                    output[out++] = value;
+                }
+            }
+        }
+        return out;
+    }
+}
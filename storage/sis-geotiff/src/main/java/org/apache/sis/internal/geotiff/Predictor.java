@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import org.apache.sis.util.Static;
+
+
+/**
+ * Reverses the differencing applied on sample values before compression, as specified by the
+ * {@code Predictor} TIFF tag. The predictor is applied on uncompressed data, one tile or strip
+ * at a time. Each row is processed independently.
+ *
+ * <ul>
+ *   <li>{@value #HORIZONTAL}: horizontal differencing of integer sample values, as specified in TIFF 6.0.</li>
+ *   <li>{@value #FLOATING_POINT}: horizontal differencing of the bytes of floating point values after
+ *       those bytes have been reordered by significance, as specified in Adobe Technical Note 3.</li>
+ * </ul>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final class Predictor extends Static {
+    /**
+     * Value of the {@code Predictor} TIFF tag for no prediction scheme.
+     */
+    public static final int NONE = 1;
+
+    /**
+     * Value of the {@code Predictor} TIFF tag for horizontal differencing.
+     */
+    public static final int HORIZONTAL = 2;
+
+    /**
+     * Value of the {@code Predictor} TIFF tag for floating point predictor.
+     */
+    public static final int FLOATING_POINT = 3;
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private Predictor() {
+    }
+
+    /**
+     * Reverses the horizontal differencing applied on bytes.
+     *
+     * @param  data        the sample values to modify in-place.
+     * @param  rowLength   number of samples in a row, which is the tile width multiplied by the number of samples per pixel.
+     * @param  numSamples  number of samples per pixel (the distance between two samples of the same band).
+     */
+    public static void horizontal(final byte[] data, final int rowLength, final int numSamples) {
+        for (int row = 0; row < data.length; row += rowLength) {
+            final int end = Math.min(row + rowLength, data.length);
+            for (int i = row + numSamples; i < end; i++) {
+                data[i] += data[i - numSamples];
+            }
+        }
+    }
+
+    /**
+     * Reverses the horizontal differencing applied on 16 bits integers.
+     *
+     * @param  data        the sample values to modify in-place.
+     * @param  rowLength   number of samples in a row, which is the tile width multiplied by the number of samples per pixel.
+     * @param  numSamples  number of samples per pixel (the distance between two samples of the same band).
+     */
+    public static void horizontal(final short[] data, final int rowLength, final int numSamples) {
+        for (int row = 0; row < data.length; row += rowLength) {
+            final int end = Math.min(row + rowLength, data.length);
+            for (int i = row + numSamples; i < end; i++) {
+                data[i] += data[i - numSamples];
+            }
+        }
+    }
+
+    /**
+     * Reverses the horizontal differencing applied on 32 bits integers.
+     *
+     * @param  data        the sample values to modify in-place.
+     * @param  rowLength   number of samples in a row, which is the tile width multiplied by the number of samples per pixel.
+     * @param  numSamples  number of samples per pixel (the distance between two samples of the same band).
+     */
+    public static void horizontal(final int[] data, final int rowLength, final int numSamples) {
+        for (int row = 0; row < data.length; row += rowLength) {
+            final int end = Math.min(row + rowLength, data.length);
+            for (int i = row + numSamples; i < end; i++) {
+                data[i] += data[i - numSamples];
+            }
+        }
+    }
+
+    /**
+     * Reverses the floating point predictor. In each row, the bytes of the floating point values
+     * have been reordered with all most significant bytes first, then all second most significant
+     * bytes, <i>etc.</i>, and horizontal differencing has been applied on the reordered bytes.
+     * After this method call, the bytes are in big-endian order regardless the TIFF byte order.
+     *
+     * @param  data            the bytes to modify in-place.
+     * @param  rowLength       number of samples in a row, which is the tile width multiplied by the number of samples per pixel.
+     * @param  numSamples      number of samples per pixel (the distance between two samples of the same band).
+     * @param  bytesPerSample  number of bytes in a sample value: 4 for {@code float} or 8 for {@code double}.
+     */
+    public static void floatingPoint(final byte[] data, final int rowLength, final int numSamples, final int bytesPerSample) {
+        final int rowBytes = rowLength * bytesPerSample;
+        final byte[] row = new byte[rowBytes];
+        for (int start = 0; start + rowBytes <= data.length; start += rowBytes) {
+            for (int i = start + numSamples; i < start + rowBytes; i++) {
+                data[i] += data[i - numSamples];
+            }
+            System.arraycopy(data, start, row, 0, rowBytes);
+            for (int i=0; i<rowLength; i++) {
+                final int base = start + i * bytesPerSample;
+                for (int b=0; b<bytesPerSample; b++) {
+                    data[base + b] = row[b * rowLength + i];
+                }
+            }
+        }
+    }
+}
@@ -65,6 +65,12 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short CanNotComputeGridGeometry_1 = 26;
 
+        /**
+         * Can not write the “{1}” coordinate reference system in TIFF file “{0}” because it can not be
+         * encoded as GeoTIFF keys.
+         */
+        public static final short CanNotEncodeCRS_2 = 30;
+
         /**
          * TIFF file “{0}” has circular references in its chain of images.
          */
@@ -139,6 +145,17 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short MissingValue_2 = 13;
 
+        /**
+         * No image has been written in “{0}” yet.
+         */
+        public static final short NoImageWritten_1 = 31;
+
+        /**
+         * Can not write TIFF file “{0}” because the conversion from pixel to CRS coordinates is not
+         * affine.
+         */
+        public static final short NonAffineGridToCRS_1 = 32;
+
         /**
          * The file defines “{2}” with value {3}{4}, but that value should be {1}{4} according parent
          * definition ({0}).
@@ -175,6 +192,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnknownCRS_1 = 22;
 
+        /**
+         * Can not read TIFF image from “{0}” because the “{1}” compression method is not supported.
+         */
+        public static final short UnsupportedCompression_2 = 27;
+
         /**
          * Coordinate system kind {0} is unsupported.
          */
@@ -190,10 +212,22 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnsupportedGeoKeyStorage_1 = 21;
 
+        /**
+         * Can not read TIFF image from “{0}” because the predictor {1} is not supported for this
+         * sample format.
+         */
+        public static final short UnsupportedPredictor_2 = 29;
+
         /**
          * TIFF file “{0}” uses an unsupported map projection.
          */
         public static final short UnsupportedProjectionMethod_1 = 23;
+
+        /**
+         * Can not read TIFF image from “{0}” because samples of {1} bits in “{2}” format are not
+         * supported.
+         */
+        public static final short UnsupportedSampleFormat_3 = 28;
     }
 
     /**
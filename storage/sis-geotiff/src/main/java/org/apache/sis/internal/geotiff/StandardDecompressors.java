@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+
+/**
+ * Provider of the decompressors implemented in this package: LZW, Deflate and PackBits.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final class StandardDecompressors extends DecompressorProvider {
+    /**
+     * Creates a new provider. This constructor is invoked by {@link java.util.ServiceLoader}.
+     */
+    public StandardDecompressors() {
+    }
+
+    /**
+     * Returns the values of the {@code Compression} TIFF tag supported by this provider.
+     *
+     * @return LZW (5), Deflate (8), legacy Deflate (32946) and PackBits (32773).
+     */
+    @Override
+    public int[] getCompressions() {
+        return new int[] {5, 8, 32946, 32773};
+    }
+
+    /**
+     * Creates a new decompressor for the given value of the {@code Compression} TIFF tag.
+     *
+     * @param  compression  one of the values returned by {@link #getCompressions()}.
+     * @return a new decompressor for the given compression method.
+     */
+    @Override
+    public Decompressor create(final int compression) {
+        switch (compression) {
+            case 5:     return new LZW();
+            case 8:
+            case 32946: return new Deflate();
+            case 32773: return new PackBits();
+            default:    throw new IllegalArgumentException(String.valueOf(compression));
+        }
+    }
+}
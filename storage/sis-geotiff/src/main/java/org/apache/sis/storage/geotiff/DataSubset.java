@@ -0,0 +1,442 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.coverage.ColorModelFactory;
+import org.apache.sis.internal.coverage.RasterFactory;
+import org.apache.sis.internal.coverage.TiledGridCoverage;
+import org.apache.sis.internal.geotiff.Decompressor;
+import org.apache.sis.internal.geotiff.Predictor;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.internal.util.CollectionsExt;
+import org.apache.sis.util.ArraysExt;
+
+
+/**
+ * Raster data read from a GeoTIFF image, loaded one tile at a time.
+ * Each tile of this coverage is computed from the TIFF tiles (or strips) which intersect it;
+ * other TIFF tiles are never read. The TIFF tiles are located with the {@code TileOffsets}
+ * and {@code TileByteCounts} (or {@code StripOffsets} and {@code StripByteCounts}) tags.
+ *
+ * <p>Tiles of this coverage are aligned on the requested area of interest (not on the TIFF tiles)
+ * and have the TIFF tile size divided by the subsampling. Consequently when no subsampling is applied
+ * and the area of interest starts on a TIFF tile boundary, each tile of this coverage is read from
+ * exactly one TIFF tile.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class DataSubset extends TiledGridCoverage {
+    /**
+     * Minimal number of pixels that we would like in a tile. Used for grouping many TIFF tiles in a
+     * single tile of this coverage when the TIFF file uses small tiles or few rows per strip.
+     */
+    private static final int MIN_TILE_SIZE = 0x10000;
+
+    /**
+     * The image file directory from which to read tiles.
+     */
+    private final ImageFileDirectory source;
+
+    /**
+     * Pixel coordinates in the TIFF image of the upper-left pixel of this coverage.
+     */
+    private final long xmin, ymin;
+
+    /**
+     * The subsampling to apply along <var>x</var> and <var>y</var> axes.
+     */
+    private final int xSubsampling, ySubsampling;
+
+    /**
+     * Number of pixels along <var>x</var> and <var>y</var> axes in this coverage.
+     */
+    private final long width, height;
+
+    /**
+     * Number of TIFF tiles along the <var>x</var> axis, and number of TIFF tiles in a plane.
+     * The later is used for locating the tiles of bands other than the first one in planar images.
+     */
+    private final int tilesAcross, tilesPerImage;
+
+    /**
+     * Indices of TIFF bands to read, in the order they shall appear in the rendered images.
+     */
+    private final int[] bands;
+
+    /**
+     * The type of sample values as one of the {@link DataBuffer} constants.
+     */
+    private final int dataType;
+
+    /**
+     * Creates a new coverage for the given area of interest.
+     *
+     * @param  source          the image file directory from which to read tiles.
+     * @param  domain          the grid geometry of the coverage to create.
+     * @param  range           sample dimensions of the coverage to create, in user-specified order.
+     * @param  bands           indices of TIFF bands to read, in the same order than {@code range}.
+     * @param  areaOfInterest  pixel coordinates in the TIFF image of the region to read.
+     * @param  subsamplings    subsampling along <var>x</var> and <var>y</var> axes.
+     * @param  dataType        the type of sample values as one of the {@link DataBuffer} constants.
+     */
+    DataSubset(final ImageFileDirectory source, final GridGeometry domain, final List<SampleDimension> range,
+               final int[] bands, final GridExtent areaOfInterest, final int[] subsamplings, final int dataType)
+    {
+        super(domain, range, createSampleModel(source, domain.getExtent(), bands.length, subsamplings, dataType),
+              ColorModelFactory.createColorModel(CollectionsExt.toArray(range, SampleDimension.class),
+                                                 0, dataType, ColorModelFactory.GRAYSCALE));
+        final GridExtent extent = domain.getExtent();
+        this.source        = source;
+        this.bands         = bands;
+        this.dataType      = dataType;
+        this.xmin          = areaOfInterest.getLow(0);
+        this.ymin          = areaOfInterest.getLow(1);
+        this.xSubsampling  = subsamplings[0];
+        this.ySubsampling  = subsamplings[1];
+        this.width         = extent.getSize(0);
+        this.height        = extent.getSize(1);
+        this.tilesAcross   = Math.toIntExact((source.imageWidth + source.tileWidth - 1) / source.tileWidth);
+        this.tilesPerImage = Math.multiplyExact(tilesAcross,
+                Math.toIntExact((source.imageHeight + source.tileHeight - 1) / source.tileHeight));
+    }
+
+    /**
+     * Creates the sample model for the tiles of the coverage. The tile size is the TIFF tile size
+     * divided by the subsampling, clipped to the coverage size. If the TIFF file uses strips with
+     * few rows, then many strips are grouped in a single tile.
+     */
+    private static SampleModel createSampleModel(final ImageFileDirectory source, final GridExtent extent,
+            final int numBands, final int[] subsamplings, final int dataType)
+    {
+        final long width  = extent.getSize(0);
+        final long height = extent.getSize(1);
+        final int tileWidth = (int) Math.min(width, (source.tileWidth + subsamplings[0] - 1) / subsamplings[0]);
+        int tileHeight = (source.tileHeight + subsamplings[1] - 1) / subsamplings[1];
+        if (((long) tileWidth) * tileHeight < MIN_TILE_SIZE) {
+            final int n = MIN_TILE_SIZE / (tileWidth * tileHeight);
+            if (n > 1) tileHeight *= n;                         // Group many strips in a single tile.
+        }
+        tileHeight = (int) Math.min(height, tileHeight);
+        if (source.isPlanar) {
+            return new BandedSampleModel(dataType, tileWidth, tileHeight, numBands);
+        } else {
+            return new PixelInterleavedSampleModel(dataType, tileWidth, tileHeight,
+                    numBands, tileWidth * numBands, ArraysExt.range(0, numBands));
+        }
+    }
+
+    /**
+     * Reads the tile at the given index. This method reads all TIFF tiles which intersect the
+     * requested tile, then copies the sample values (with subsampling if any) in a new raster.
+     *
+     * @param  tileX  column index of the tile to read.
+     * @param  tileY  row index of the tile to read.
+     * @return the tile at the given index.
+     * @throws Exception if an error occurred while reading or uncompressing the TIFF file.
+     */
+    @Override
+    protected Raster readTile(final int tileX, final int tileY) throws Exception {
+        return readTiles(new int[] {tileX}, new int[] {tileY})[0];
+    }
+
+    /**
+     * Reads all tiles at the given indices. The bytes of all TIFF tiles intersecting the requested tiles
+     * are fetched together, with byte ranges which are adjacent in the file merged in single read operations.
+     * If the TIFF tiles need to be uncompressed, uncompression is done in parallel since each TIFF tile is
+     * independent. Then sample values are copied (with subsampling if any) in new rasters.
+     *
+     * @param  tileX  column indices of the tiles to read.
+     * @param  tileY  row indices of the tiles to read.
+     * @return the tiles at the given indices.
+     * @throws Exception if an error occurred while reading or uncompressing the TIFF file.
+     */
+    @Override
+    protected Raster[] readTiles(final int[] tileX, final int[] tileY) throws Exception {
+        final RangeFetcher fetcher = new RangeFetcher(source.reader);
+        final WritableRaster[] tiles = new WritableRaster[tileX.length];
+        final List<Part> parts = new ArrayList<>();
+        final int[] partsEnd = new int[tiles.length];
+        for (int i=0; i<tiles.length; i++) {
+            tiles[i] = addParts(tileX[i], tileY[i], parts, fetcher);
+            partsEnd[i] = parts.size();
+        }
+        final byte[][] bytes = fetcher.fetch();
+        final ByteOrder order = source.reader.input.buffer.order();
+        final List<Callable<DataBuffer>> tasks = new ArrayList<>(parts.size());
+        for (final Part part : parts) {
+            tasks.add(() -> decode(part, bytes, order));
+        }
+        final List<DataBuffer> data;
+        if (isCompressed()) {
+            data = CommonExecutor.invokeAll(tasks);
+        } else {
+            data = new ArrayList<>(tasks.size());
+            for (final Callable<DataBuffer> task : tasks) {
+                data.add(task.call());
+            }
+        }
+        /*
+         * Wrap each TIFF tile in a raster with strides taking subsampling in account.
+         * The location of the first sample to copy is given by band offsets.
+         */
+        final int numSamples = source.isPlanar ? 1 : source.samplesPerPixel;
+        final int[] bankIndices = source.isPlanar ? ArraysExt.range(0, bands.length) : new int[bands.length];
+        int k = 0;
+        for (int i=0; i<tiles.length; i++) {
+            for (; k < partsEnd[i]; k++) {
+                final Part part = parts.get(k);
+                final Rectangle region = part.region;
+                final int[] bandOffsets = new int[bands.length];
+                for (int b=0; b<bandOffsets.length; b++) {
+                    bandOffsets[b] = Math.toIntExact(part.origin * numSamples + (source.isPlanar ? 0 : bands[b]));
+                }
+                final ComponentSampleModel model = new ComponentSampleModel(dataType,
+                        region.width, region.height, numSamples * xSubsampling,
+                        Math.multiplyExact(source.tileWidth * numSamples, ySubsampling),
+                        bankIndices, bandOffsets);
+                tiles[i].setRect(Raster.createRaster(model, data.get(k), region.getLocation()));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * A TIFF tile (or strip) intersecting a tile of this coverage.
+     */
+    private static final class Part {
+        /** Region of the coverage tile where to copy the TIFF tile. */
+        final Rectangle region;
+
+        /** Index in the TIFF tile of the first pixel to copy. */
+        final long origin;
+
+        /** Indices of the byte ranges in the {@link RangeFetcher}, one for each bank. */
+        final int[] ranges;
+
+        Part(final Rectangle region, final long origin, final int[] ranges) {
+            this.region = region;
+            this.origin = origin;
+            this.ranges = ranges;
+        }
+    }
+
+    /**
+     * Creates an initially empty tile at the given index and adds the TIFF tiles intersecting it
+     * to the given list. The byte ranges of those TIFF tiles are added to the given fetcher.
+     *
+     * @param  tileX    column index of the tile to create.
+     * @param  tileY    row index of the tile to create.
+     * @param  parts    where to add the TIFF tiles intersecting the tile.
+     * @param  fetcher  where to add the byte ranges to read.
+     * @return the tile to fill with the sample values of the parts.
+     */
+    private WritableRaster addParts(final int tileX, final int tileY, final List<Part> parts, final RangeFetcher fetcher) {
+        final int  targetWidth  = sampleModel.getWidth();
+        final int  targetHeight = sampleModel.getHeight();
+        final long targetX      = ((long) tileX) * targetWidth;                     // Inclusive.
+        final long targetY      = ((long) tileY) * targetHeight;
+        final long targetXMax   = Math.min(targetX + targetWidth,  width)  - 1;     // Inclusive.
+        final long targetYMax   = Math.min(targetY + targetHeight, height) - 1;
+        /*
+         * Indices of TIFF tiles intersecting the requested tile. We iterate over TIFF tiles
+         * in the order they are stored in the file (left-to-right, top-to-bottom).
+         */
+        final int  sourceWidth  = source.tileWidth;
+        final int  sourceHeight = source.tileHeight;
+        final long firstRow     = sourceY(targetY)    / sourceHeight;
+        final long lastRow      = sourceY(targetYMax) / sourceHeight;
+        final long firstColumn  = sourceX(targetX)    / sourceWidth;
+        final long lastColumn   = sourceX(targetXMax) / sourceWidth;
+        for (long row = firstRow; row <= lastRow; row++) {
+            final long sy = row * sourceHeight;                     // First TIFF pixel row in the TIFF tile.
+            final long ty = Math.max(targetY,    targetIndex(sy, ymin, ySubsampling));
+            final long ey = Math.min(targetYMax, targetIndex(sy + sourceHeight, ymin, ySubsampling) - 1);
+            if (ty > ey) continue;
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                final long sx = column * sourceWidth;
+                final long tx = Math.max(targetX,    targetIndex(sx, xmin, xSubsampling));
+                final long ex = Math.min(targetXMax, targetIndex(sx + sourceWidth, xmin, xSubsampling) - 1);
+                if (tx > ex) continue;
+                /*
+                 * If the image is planar, each band to read is in a separated plane of TIFF tiles.
+                 * Otherwise all samples are interleaved in a single TIFF tile.
+                 */
+                final int tileIndex = Math.toIntExact(row * tilesAcross + column);
+                final int[] ranges = new int[source.isPlanar ? bands.length : 1];
+                for (int b=0; b<ranges.length; b++) {
+                    int index = tileIndex;
+                    if (source.isPlanar) {
+                        index = Math.addExact(Math.multiplyExact(bands[b], tilesPerImage), index);
+                    }
+                    ranges[b] = fetcher.add(source.tileOffsets.longValue(index), source.tileByteCounts.longValue(index));
+                }
+                parts.add(new Part(new Rectangle(Math.toIntExact(tx), Math.toIntExact(ty),
+                                                 Math.toIntExact(ex - tx + 1), Math.toIntExact(ey - ty + 1)),
+                                   (sourceY(ty) - sy) * sourceWidth + (sourceX(tx) - sx), ranges));
+            }
+        }
+        return Raster.createWritableRaster(sampleModel, new Point(Math.toIntExact(targetX), Math.toIntExact(targetY)));
+    }
+
+    /**
+     * Returns whether sample values need to be uncompressed or otherwise transformed after reading.
+     * If {@code false}, sample values only need to be copied, which is not worth parallelization.
+     */
+    private boolean isCompressed() {
+        return source.compression != Compression.NONE || source.predictor != Predictor.NONE || source.reverseBitsOrder;
+    }
+
+    /**
+     * Converts a pixel <var>x</var> coordinate in this coverage to a pixel coordinate in the TIFF image.
+     */
+    private long sourceX(final long x) {
+        return xmin + x * xSubsampling;
+    }
+
+    /**
+     * Converts a pixel <var>y</var> coordinate in this coverage to a pixel coordinate in the TIFF image.
+     */
+    private long sourceY(final long y) {
+        return ymin + y * ySubsampling;
+    }
+
+    /**
+     * Returns the index in this coverage of the first pixel at or after the given TIFF pixel coordinate.
+     *
+     * @param  s            pixel coordinate in the TIFF image.
+     * @param  min          pixel coordinate in the TIFF image of the first pixel of this coverage.
+     * @param  subsampling  the subsampling along the axis.
+     */
+    private static long targetIndex(final long s, final long min, final int subsampling) {
+        return Math.floorDiv(s - min + subsampling - 1, subsampling);
+    }
+
+    /**
+     * Uncompresses the bytes of all banks of the given TIFF tile. If the image is planar,
+     * then the returned buffer contains one bank for each band in {@link #bands} order.
+     * Otherwise the returned buffer contains a single bank with all samples interleaved.
+     * This method does not use the input channel and can be executed in any thread.
+     *
+     * @param  part   the TIFF tile to uncompress.
+     * @param  bytes  the bytes fetched by {@link RangeFetcher}.
+     * @param  order  byte order of the TIFF file.
+     * @return the uncompressed sample values.
+     */
+    private DataBuffer decode(final Part part, final byte[][] bytes, final ByteOrder order) throws IOException {
+        final int numSamples = source.isPlanar ? 1 : source.samplesPerPixel;
+        final int length = Math.multiplyExact(Math.multiplyExact(source.tileWidth, source.tileHeight), numSamples);
+        final int capacity = Math.multiplyExact(length, source.bitsPerSample / Byte.SIZE);
+        final Buffer[] banks = new Buffer[part.ranges.length];
+        for (int i=0; i<banks.length; i++) {
+            banks[i] = uncompress(bytes[part.ranges[i]], capacity, numSamples, order);
+        }
+        return RasterFactory.wrap(dataType, banks);
+    }
+
+    /**
+     * Uncompresses the given bytes of a single TIFF tile (or strip) and converts them to sample values.
+     * If the TIFF tile is a strip shorter than the tile height (this happen with the last strip),
+     * then missing values are left to zero. The given array may be modified.
+     *
+     * @param  bytes       the compressed bytes read from the TIFF file.
+     * @param  capacity    number of bytes in an uncompressed tile.
+     * @param  numSamples  number of samples per pixel in the tile.
+     * @param  order       byte order of the TIFF file.
+     * @return the sample values in a buffer backed by a Java array.
+     */
+    private Buffer uncompress(final byte[] bytes, final int capacity, final int numSamples, ByteOrder order)
+            throws IOException
+    {
+        if (source.reverseBitsOrder) {
+            for (int i=0; i<bytes.length; i++) {
+                bytes[i] = (byte) (Integer.reverse(bytes[i]) >>> (Integer.SIZE - Byte.SIZE));
+            }
+        }
+        final byte[] data;
+        if (source.compression == Compression.NONE) {
+            data = Arrays.copyOf(bytes, capacity);
+        } else {
+            data = new byte[capacity];
+            Decompressor.create(source.compression.code).uncompress(bytes, bytes.length, data);
+        }
+        final int rowLength = source.tileWidth * numSamples;
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (source.predictor == Predictor.FLOATING_POINT) {
+            Predictor.floatingPoint(data, rowLength, numSamples, source.bitsPerSample / Byte.SIZE);
+            order = ByteOrder.BIG_ENDIAN;
+        }
+        buffer.order(order);
+        final boolean horizontal = (source.predictor == Predictor.HORIZONTAL);
+        switch (dataType) {
+            case DataBuffer.TYPE_BYTE: {
+                if (horizontal) Predictor.horizontal(data, rowLength, numSamples);
+                return buffer;
+            }
+            case DataBuffer.TYPE_USHORT:
+            case DataBuffer.TYPE_SHORT: {
+                final short[] a = new short[capacity / Short.BYTES];
+                buffer.asShortBuffer().get(a);
+                if (horizontal) Predictor.horizontal(a, rowLength, numSamples);
+                return ShortBuffer.wrap(a);
+            }
+            case DataBuffer.TYPE_INT: {
+                final int[] a = new int[capacity / Integer.BYTES];
+                buffer.asIntBuffer().get(a);
+                if (horizontal) Predictor.horizontal(a, rowLength, numSamples);
+                return IntBuffer.wrap(a);
+            }
+            case DataBuffer.TYPE_FLOAT: {
+                final float[] a = new float[capacity / Float.BYTES];
+                buffer.asFloatBuffer().get(a);
+                return FloatBuffer.wrap(a);
+            }
+            case DataBuffer.TYPE_DOUBLE: {
+                final double[] a = new double[capacity / Double.BYTES];
+                buffer.asDoubleBuffer().get(a);
+                return DoubleBuffer.wrap(a);
+            }
+            default: throw new AssertionError(dataType);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.Map;
+import java.util.TreeMap;
+import javax.measure.Unit;
+import javax.measure.quantity.Length;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.apache.sis.internal.util.Constants;
+import org.apache.sis.measure.Units;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.IdentifiedObjects;
+
+
+/**
+ * Helper class for encoding a {@link CoordinateReferenceSystem} as GeoTIFF keys.
+ * This is the converse of {@link CRSBuilder}, but with less capabilities: CRS having an EPSG code
+ * are encoded by their code, and only geographic CRS can be encoded with user-defined parameters.
+ * The result is provided in the three arrays to write in the following TIFF tags:
+ *
+ * <ul>
+ *   <li>{@link Tags#GeoKeyDirectory} — array of unsigned {@code short} values grouped into blocks of 4.</li>
+ *   <li>{@link Tags#GeoDoubleParams} — array of {@code double} values referenced by {@code GeoKeyDirectory} elements.</li>
+ *   <li>{@link Tags#GeoAsciiParams}  — array of characters referenced by {@code GeoKeyDirectory} elements.</li>
+ * </ul>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class GeoEncoder {
+    /**
+     * The GeoTIFF keys with their values as {@link Short}, {@link Double} or {@link String} instances.
+     * Keys are sorted in increasing order, as required by the GeoTIFF specification.
+     */
+    private final Map<Short,Object> keys = new TreeMap<>();
+
+    /**
+     * Creates an initially empty encoder.
+     */
+    GeoEncoder() {
+    }
+
+    /**
+     * Adds the keys for the given coordinate reference system.
+     * If this method returns {@code false}, then the keys may be incomplete and should not be written.
+     *
+     * @param  crs  the coordinate reference system to encode.
+     * @return whether the CRS has been fully encoded.
+     * @throws FactoryException if an error occurred while searching for the EPSG code.
+     */
+    boolean write(final CoordinateReferenceSystem crs) throws FactoryException {
+        keys.put(GeoKeys.RasterType, GeoCodes.RasterPixelIsArea);
+        final String name = IdentifiedObjects.getName(crs, null);
+        if (name != null) {
+            keys.put(GeoKeys.Citation, name);
+        }
+        final Integer code = IdentifiedObjects.lookupEPSG(crs);
+        final boolean hasCode = (code != null && code > 0 && code < GeoCodes.userDefined);
+        if (crs instanceof GeographicCRS) {
+            keys.put(GeoKeys.ModelType, GeoCodes.ModelTypeGeographic);
+            if (hasCode) {
+                keys.put(GeoKeys.GeographicType, code.shortValue());
+            } else {
+                writeUserDefined((GeographicCRS) crs);
+            }
+            return true;
+        }
+        if (crs instanceof ProjectedCRS) {
+            keys.put(GeoKeys.ModelType, GeoCodes.ModelTypeProjected);
+            if (hasCode) {
+                keys.put(GeoKeys.ProjectedCSType, code.shortValue());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the keys for a geographic CRS without EPSG code. The datum is encoded by its ellipsoid
+     * and prime meridian. Angular units are always degrees.
+     */
+    private void writeUserDefined(final GeographicCRS crs) {
+        final Ellipsoid ellipsoid = crs.getDatum().getEllipsoid();
+        final Unit<Length> unit = ellipsoid.getAxisUnit();
+        keys.put(GeoKeys.GeographicType,  GeoCodes.userDefined);
+        keys.put(GeoKeys.GeodeticDatum,   GeoCodes.userDefined);
+        keys.put(GeoKeys.Ellipsoid,       GeoCodes.userDefined);
+        keys.put(GeoKeys.GeogLinearUnits, Constants.EPSG_METRE);
+        keys.put(GeoKeys.AngularUnits,    Constants.EPSG_PARAM_DEGREES);
+        keys.put(GeoKeys.SemiMajorAxis,   unit.getConverterTo(Units.METRE).convert(ellipsoid.getSemiMajorAxis()));
+        if (ellipsoid.isIvfDefinitive()) {
+            keys.put(GeoKeys.InvFlattening, ellipsoid.getInverseFlattening());
+        } else {
+            keys.put(GeoKeys.SemiMinorAxis, unit.getConverterTo(Units.METRE).convert(ellipsoid.getSemiMinorAxis()));
+        }
+        final double pm = CRS.getGreenwichLongitude(crs);
+        if (pm == 0) {
+            keys.put(GeoKeys.PrimeMeridian, Constants.EPSG_GREENWICH);
+        } else {
+            keys.put(GeoKeys.PrimeMeridian, GeoCodes.userDefined);
+            keys.put(GeoKeys.PrimeMeridianLong, pm);
+        }
+        final String name = IdentifiedObjects.getName(crs, null);
+        if (name != null) {
+            keys.put(GeoKeys.GeogCitation, name);
+        }
+    }
+
+    /**
+     * Returns the content of the {@link Tags#GeoKeyDirectory} tag.
+     * The directory is version 1, revision 1.2.
+     *
+     * @return the key directory as unsigned short values.
+     */
+    short[] directory() {
+        final short[] directory = new short[(keys.size() + 1) * 4];
+        directory[0] = 1;                                   // Key directory version.
+        directory[1] = 1;                                   // Key revision.
+        directory[2] = 2;                                   // Minor revision.
+        directory[3] = (short) keys.size();
+        int i = 4, numDoubles = 0, numChars = 0;
+        for (final Map.Entry<Short,Object> entry : keys.entrySet()) {
+            final Object value = entry.getValue();
+            directory[i++] = entry.getKey();
+            if (value instanceof Short) {
+                directory[i++] = 0;
+                directory[i++] = 1;
+                directory[i++] = (Short) value;
+            } else if (value instanceof Double) {
+                directory[i++] = Tags.GeoDoubleParams;
+                directory[i++] = 1;
+                directory[i++] = (short) numDoubles++;
+            } else {
+                final int length = ((String) value).length() + 1;   // Include the '|' terminator.
+                directory[i++] = Tags.GeoAsciiParams;
+                directory[i++] = (short) length;
+                directory[i++] = (short) numChars;
+                numChars += length;
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Returns the content of the {@link Tags#GeoDoubleParams} tag.
+     *
+     * @return the values of keys stored as {@code double} values, or an empty array if none.
+     */
+    double[] doubles() {
+        return keys.values().stream().filter(Double.class::isInstance)
+                .mapToDouble((value) -> (Double) value).toArray();
+    }
+
+    /**
+     * Returns the content of the {@link Tags#GeoAsciiParams} tag.
+     * Each value is terminated by the {@code '|'} character.
+     *
+     * @return the values of keys stored as character strings, or an empty string if none.
+     */
+    String ascii() {
+        final StringBuilder buffer = new StringBuilder();
+        for (final Object value : keys.values()) {
+            if (value instanceof String) {
+                buffer.append(((String) value).replace('|', '/')).append('|');
+            }
+        }
+        return buffer.toString();
+    }
+}
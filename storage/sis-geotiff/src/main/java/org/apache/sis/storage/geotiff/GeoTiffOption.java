@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import org.apache.sis.storage.WritableGridCoverageResource;
+
+
+/**
+ * GeoTIFF-specific options for the {@linkplain WritableGridCoverageResource#write write operation}.
+ * Those options can be given in addition to the {@linkplain WritableGridCoverageResource.CommonOption
+ * common options}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public enum GeoTiffOption implements WritableGridCoverageResource.Option {
+    /**
+     * Compresses the tiles with the "Deflate" method (TIFF compression code 8).
+     * This is a lossless compression, readable by most GeoTIFF readers.
+     * If this option is not specified, tiles are written without compression.
+     */
+    DEFLATE
+}
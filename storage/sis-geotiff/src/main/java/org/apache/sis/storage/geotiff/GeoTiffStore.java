@@ -19,11 +19,19 @@ package org.apache.sis.storage.geotiff;
 import java.util.Locale;
 import java.util.List;
 import java.util.Optional;
+import java.util.Collections;
 import java.util.logging.LogRecord;
 import java.net.URI;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import org.opengis.util.NameSpace;
 import org.opengis.util.NameFactory;
@@ -33,6 +41,7 @@ import org.opengis.metadata.Metadata;
 import org.opengis.metadata.maintenance.ScopeCode;
 import org.opengis.parameter.ParameterValueGroup;
 import org.apache.sis.setup.OptionKey;
+import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.storage.Aggregate;
 import org.apache.sis.storage.GridCoverageResource;
 import org.apache.sis.storage.DataStore;
@@ -41,18 +50,23 @@ import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.UnsupportedStorageException;
 import org.apache.sis.storage.DataStoreClosedException;
+import org.apache.sis.storage.NoSuchDataException;
 import org.apache.sis.storage.IllegalNameException;
 import org.apache.sis.storage.event.StoreEvent;
 import org.apache.sis.storage.event.StoreListener;
 import org.apache.sis.storage.event.StoreListeners;
 import org.apache.sis.storage.event.WarningEvent;
+import org.apache.sis.internal.storage.io.ByteRangeChannel;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
 import org.apache.sis.internal.storage.io.IOUtilities;
 import org.apache.sis.internal.storage.MetadataBuilder;
 import org.apache.sis.internal.storage.StoreUtilities;
 import org.apache.sis.internal.storage.URIDataStore;
+import org.apache.sis.internal.system.DefaultFactories;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.internal.util.Numerics;
+import org.apache.sis.internal.geotiff.Resources;
 import org.apache.sis.internal.util.ListOfUnknownSize;
 import org.apache.sis.metadata.sql.MetadataStoreException;
 import org.apache.sis.util.collection.BackingStoreException;
@@ -65,11 +79,23 @@ import org.apache.sis.util.resources.Errors;
  * @author  Rémi Maréchal (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
  * @author  Thi Phuong Hao Nguyen (VNSC)
- * @version 1.0
+ * @version 1.1
  * @since   0.8
  * @module
  */
 public class GeoTiffStore extends DataStore implements Aggregate {
+    /**
+     * Number of bytes to read in a single operation at the beginning of the file when the storage is a
+     * {@link ByteRangeChannel}. In cloud-optimized GeoTIFF files, all image file directories are located
+     * at the beginning of the file, so this block usually contains the whole header.
+     */
+    static final int PREFETCH_SIZE = 0x10000;
+
+    /**
+     * Size of the buffer used for writing a GeoTIFF file, and for reading it back after the write operation.
+     */
+    private static final int WRITE_BUFFER_SIZE = 0x2000;
+
     /**
      * The encoding of strings in the metadata. The string specification said that is shall be US-ASCII,
      * but Apache SIS nevertheless let the user specifies an alternative encoding if needed.
@@ -81,6 +107,26 @@ public class GeoTiffStore extends DataStore implements Aggregate {
      */
     private Reader reader;
 
+    /**
+     * The channel where to write images if this data store has been opened in write mode,
+     * or {@code null} if this data store is read-only or has been closed.
+     *
+     * @see #write(GridCoverage, boolean, boolean, boolean)
+     */
+    private SeekableByteChannel output;
+
+    /**
+     * Path to the file opened in write mode, or {@code null} if the storage is not convertible to a path
+     * or if this data store is read-only. If non-null, new images are encoded in a temporary file in the
+     * same directory, which then replaces this file.
+     */
+    private final Path file;
+
+    /**
+     * A short identifier (typically a filename without path) used for formatting error messages.
+     */
+    private final String filename;
+
     /**
      * The {@link GeoTiffStoreProvider#LOCATION} parameter value, or {@code null} if none.
      * This is used for information purpose only, not for actual reading operations.
@@ -122,23 +168,52 @@ public class GeoTiffStore extends DataStore implements Aggregate {
         super(provider, connector);
         final Charset encoding = connector.getOption(OptionKey.ENCODING);
         this.encoding = (encoding != null) ? encoding : StandardCharsets.US_ASCII;
-        final ChannelDataInput input = connector.getStorageAs(ChannelDataInput.class);
+        ChannelDataInput input = connector.getStorageAs(ChannelDataInput.class);
         if (input == null) {
             throw new UnsupportedStorageException(super.getLocale(), Constants.GEOTIFF,
                     connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
         }
         location = connector.getStorageAs(URI.class);
+        final boolean writable = StoreUtilities.toStandardOptions(connector.getOption(OptionKey.OPEN_OPTIONS))
+                                               .contains(StandardOpenOption.WRITE);
+        file = writable ? connector.getStorageAs(Path.class) : null;
         connector.closeAllExcept(input);
+        filename = input.filename;
         try {
-            reader = new Reader(this, input);
+            if (writable) {
+                /*
+                 * Write mode: the header is rewritten after the image data, so the channel needs to be seekable.
+                 * The file may be empty, in which case there is nothing to read until an image is written.
+                 */
+                if (!(input.channel instanceof SeekableByteChannel)) {
+                    throw new DataStoreException(org.apache.sis.internal.storage.Resources.forLocale(getLocale())
+                            .getString(org.apache.sis.internal.storage.Resources.Keys.StreamIsNotWritable_1, filename));
+                }
+                output = (SeekableByteChannel) input.channel;
+                if (output.size() == 0) {
+                    input = null;
+                }
+            } else if (input.channel instanceof ByteRangeChannel) {
+                /*
+                 * Cloud-optimized GeoTIFF: replace the default buffer by a larger one for fetching
+                 * the header and the image file directories in a single read operation. Tiles will
+                 * be fetched later with merged byte ranges (see RangeFetcher).
+                 */
+                final ByteRangeChannel channel = (ByteRangeChannel) input.channel;
+                channel.position(Math.addExact(input.channelOffset, input.getStreamPosition()));
+                input = new ChannelDataInput(input.filename, channel, ByteBuffer.allocate(PREFETCH_SIZE), false);
+            }
+            if (input != null) {
+                reader = new Reader(this, input);
+            }
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
         if (location != null) {
-            final NameFactory f = reader.nameFactory;
-            String filename = IOUtilities.filenameWithoutExtension(input.filename);
-            if (Numerics.isUnsignedInteger(filename)) filename += ".tiff";
-            identifier = f.createNameSpace(f.createLocalName(null, filename), null);
+            final NameFactory f = DefaultFactories.forBuildin(NameFactory.class);
+            String name = IOUtilities.filenameWithoutExtension(filename);
+            if (Numerics.isUnsignedInteger(name)) name += ".tiff";
+            identifier = f.createNameSpace(f.createLocalName(null, name), null);
         } else {
             // Location not convertible to URI. The string representation is probably a class name, which is not useful.
             identifier = null;
@@ -192,8 +267,8 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     @Override
     public synchronized Metadata getMetadata() throws DataStoreException {
         if (metadata == null) {
-            final Reader reader = reader();
-            final MetadataBuilder builder = reader.metadata;
+            final Reader reader = (output != null) ? this.reader : reader();
+            final MetadataBuilder builder = (reader != null) ? reader.metadata : new MetadataBuilder();
             try {
                 builder.setFormat(Constants.GEOTIFF);
             } catch (MetadataStoreException e) {
@@ -204,7 +279,7 @@ public class GeoTiffStore extends DataStore implements Aggregate {
             builder.addResourceScope(ScopeCode.valueOf("COVERAGE"), null);
             final Locale locale = getLocale();
             int n = 0;
-            try {
+            if (reader != null) try {
                 ImageFileDirectory dir;
                 while ((dir = reader.getImageFileDirectory(n++)) != null) {
                     dir.completeMetadata(builder, locale);
@@ -212,7 +287,7 @@ public class GeoTiffStore extends DataStore implements Aggregate {
             } catch (IOException e) {
                 throw errorIO(e);
             } catch (FactoryException | ArithmeticException e) {
-                throw new DataStoreContentException(getLocale(), Constants.GEOTIFF, reader.input.filename, null).initCause(e);
+                throw new DataStoreContentException(getLocale(), Constants.GEOTIFF, filename, null).initCause(e);
             }
             /*
              * Add the filename as an identifier only if the input was something convertible to URI (URL, File or Path),
@@ -231,20 +306,128 @@ public class GeoTiffStore extends DataStore implements Aggregate {
      * Returns the exception to throw when an I/O error occurred.
      */
     private DataStoreException errorIO(final IOException e) {
-        return new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, reader.input.filename), e);
+        return new DataStoreException(errors().getString(Errors.Keys.CanNotRead_1, filename), e);
     }
 
     /**
      * Returns the reader if it is not closed, or thrown an exception otherwise.
+     * In write mode, the reader is absent until an image has been written.
      */
     private Reader reader() throws DataStoreException {
         final Reader r = reader;
         if (r == null) {
+            if (output != null) {
+                throw new NoSuchDataException(Resources.forLocale(getLocale()).getString(Resources.Keys.NoImageWritten_1, filename));
+            }
             throw new DataStoreClosedException(getLocale(), Constants.GEOTIFF, StandardOpenOption.READ);
         }
         return r;
     }
 
+    /**
+     * Returns the first image of the GeoTIFF file. This is used by {@link WritableResource},
+     * which represents the single image of a file opened in write mode.
+     *
+     * @param  required  whether to throw an exception instead of returning {@code null} if there is no image.
+     * @return the first image, or {@code null} if none and {@code required} is {@code false}.
+     * @throws DataStoreException if the store is closed, or if {@code required} is {@code true} and there is no image.
+     */
+    final synchronized ImageFileDirectory image(final boolean required) throws DataStoreException {
+        if (!required && reader == null && output != null) {
+            return null;
+        }
+        final ImageFileDirectory image;
+        try {
+            image = reader().getImageFileDirectory(0);
+        } catch (IOException e) {
+            throw errorIO(e);
+        }
+        if (image == null && required) {
+            throw new NoSuchDataException(Resources.forLocale(getLocale()).getString(Resources.Keys.NoImageWritten_1, filename));
+        }
+        return image;
+    }
+
+    /**
+     * Writes the given coverage as the single image of the GeoTIFF file, then reloads the file
+     * for making the new image available to read operations.
+     *
+     * <p>If the storage is convertible to a {@link Path}, the image is first encoded in a temporary file
+     * in the same directory, which then replaces the GeoTIFF file by an atomic move when the file system supports it.
+     * An error during encoding (for example an unsupported sample model or a failure to compute the tiles of the
+     * coverage) leaves the existing file unchanged. Otherwise (for example if the store has been opened on a channel)
+     * the image is written in place, and a failed write leaves the GeoTIFF file in a partially written state.</p>
+     *
+     * @param  coverage  the coverage to write.
+     * @param  truncate  whether to replace the existing image, if any.
+     * @param  update    whether the caller requested an update of the existing image, if any.
+     * @param  deflate   whether to compress tiles with the "Deflate" method.
+     * @throws DataStoreException if the store is closed, if an image already exists and {@code truncate}
+     *         is {@code false}, or if an error occurred while writing the image.
+     */
+    final synchronized void write(final GridCoverage coverage, final boolean truncate, final boolean update,
+                                  final boolean deflate) throws DataStoreException
+    {
+        SeekableByteChannel channel = output;
+        if (channel == null) {
+            throw new DataStoreClosedException(getLocale(), Constants.GEOTIFF, StandardOpenOption.WRITE);
+        }
+        try {
+            if (!truncate && (reader != null || channel.size() != 0)) {
+                if (update) {
+                    throw new DataStoreException(errors().getString(Errors.Keys.UnsupportedOperation_1, "UPDATE"));
+                }
+                throw new DataStoreException(org.apache.sis.internal.storage.Resources.forLocale(getLocale())
+                        .getString(org.apache.sis.internal.storage.Resources.Keys.ResourceAlreadyExists_1, filename));
+            }
+            if (file != null) {
+                final Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "sis-", ".tmp");
+                try {
+                    try (FileChannel encoded = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                        write(encoded, coverage, deflate);
+                    }
+                    /*
+                     * Encoding succeeded. Only now replace the GeoTIFF file. The channel needs
+                     * to be closed first because some platforms can not replace an open file.
+                     */
+                    reader   = null;            // Do not close, since the channel is shared.
+                    metadata = null;
+                    output   = null;
+                    channel.close();
+                    try {
+                        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                    } finally {
+                        output = channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    }
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } else {
+                reader   = null;                // Do not close, since the channel is shared.
+                metadata = null;
+                channel.truncate(0).position(0);
+                write(channel, coverage, deflate);
+            }
+            channel.position(0);
+            reader = new Reader(this, new ChannelDataInput(filename, channel, ByteBuffer.allocate(WRITE_BUFFER_SIZE), false));
+        } catch (IOException e) {
+            throw new DataStoreException(errors().getString(Errors.Keys.CanNotWriteFile_2, Constants.GEOTIFF, filename), e);
+        }
+    }
+
+    /**
+     * Encodes the given coverage in the given channel, starting at the current channel position.
+     */
+    private void write(final SeekableByteChannel channel, final GridCoverage coverage, final boolean deflate)
+            throws IOException, DataStoreException
+    {
+        try (Writer writer = new Writer(this, new ChannelDataOutput(filename, channel, ByteBuffer.allocate(WRITE_BUFFER_SIZE)))) {
+            writer.write(coverage, deflate);
+        }
+    }
+
     /**
      * Returns descriptions of all images in this GeoTIFF file.
      * Images are not immediately loaded.
@@ -261,7 +444,11 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public List<GridCoverageResource> components() throws DataStoreException {
         if (components == null) {
-            components = new Components();
+            if (output != null) {
+                components = Collections.singletonList(new WritableResource(this));
+            } else {
+                components = new Components();
+            }
         }
         return components;
     }
@@ -362,9 +549,15 @@ public class GeoTiffStore extends DataStore implements Aggregate {
     @Override
     public synchronized void close() throws DataStoreException {
         final Reader r = reader;
+        final SeekableByteChannel out = output;
         reader = null;
-        if (r != null) try {
-            r.close();
+        output = null;
+        try {
+            if (r != null) {
+                r.close();
+            } else if (out != null) {
+                out.close();
+            }
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
@@ -40,7 +40,7 @@ import org.apache.sis.internal.util.Constants;
  * the part of the caller. However the {@link GeoTiffStore} instances created by this factory are not thread-safe.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  *
  * @see GeoTiffStore
  *
@@ -49,7 +49,7 @@ import org.apache.sis.internal.util.Constants;
  */
 @StoreMetadata(formatName   = "GeoTIFF",
                fileSuffixes = {"tiff", "tif"},
-               capabilities = Capability.READ)
+               capabilities = {Capability.READ, Capability.WRITE})
 public class GeoTiffStoreProvider extends DataStoreProvider {
     /**
      * The MIME type for GeoTIFF files.
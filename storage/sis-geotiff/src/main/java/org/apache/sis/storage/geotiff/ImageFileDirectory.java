@@ -20,30 +20,44 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.nio.charset.Charset;
+import java.awt.image.DataBuffer;
 import javax.measure.Unit;
 import javax.measure.quantity.Length;
 import org.opengis.metadata.citation.DateType;
 import org.opengis.util.FactoryException;
 import org.opengis.util.GenericName;
 import org.opengis.util.InternationalString;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
 import org.apache.sis.internal.geotiff.Resources;
+import org.apache.sis.internal.geotiff.Decompressor;
+import org.apache.sis.internal.geotiff.Predictor;
 import org.apache.sis.internal.storage.MetadataBuilder;
 import org.apache.sis.internal.storage.AbstractGridResource;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreReferencingException;
+import org.apache.sis.storage.NoSuchDataException;
 import org.apache.sis.coverage.grid.GridCoverage;
 import org.apache.sis.coverage.grid.GridGeometry;
 import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridDerivation;
+import org.apache.sis.coverage.grid.GridRoundingMode;
+import org.apache.sis.coverage.grid.DisjointExtentException;
 import org.apache.sis.coverage.SampleDimension;
 import org.apache.sis.util.resources.Vocabulary;
+import org.apache.sis.util.resources.Errors;
 import org.apache.sis.math.Vector;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
 import org.apache.sis.measure.Units;
 
 
@@ -76,11 +90,21 @@ final class ImageFileDirectory extends AbstractGridResource {
      */
     private static final byte SIGNED = 1, UNSIGNED = 0, FLOAT = 3;
 
+    /**
+     * Bits in the {@link #subfileType} value.
+     * <ul>
+     *   <li>{@code REDUCED_RESOLUTION}: the image is a reduced-resolution version of another image in this TIFF file.</li>
+     *   <li>{@code SINGLE_PAGE}: the image is a single page of a multi-page image.</li>
+     *   <li>{@code TRANSPARENCY_MASK}: the image defines a transparency mask for another image in this TIFF file.</li>
+     * </ul>
+     */
+    private static final int REDUCED_RESOLUTION = 1, SINGLE_PAGE = 2, TRANSPARENCY_MASK = 4;
+
     /**
      * The GeoTIFF reader which contain this {@code ImageFileDirectory}.
      * Used for fetching information like the input channel and where to report warnings.
      */
-    private final Reader reader;
+    final Reader reader;
 
     /**
      * The identifier as a sequence number in the namespace of the {@link GeoTiffStore}.
@@ -90,6 +114,11 @@ final class ImageFileDirectory extends AbstractGridResource {
      */
     private final GenericName identifier;
 
+    /**
+     * The image index as a sequence number starting with 0 for the first image.
+     */
+    final int index;
+
     /**
      * {@code true} if this {@code ImageFileDirectory} has not yet read all deferred entries.
      * When this flag is {@code true}, the {@code ImageFileDirectory} is not yet ready for use.
@@ -103,7 +132,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * <p><b>Note:</b>
      * the {@link #imageHeight} attribute is named {@code ImageLength} in TIFF specification.</p>
      */
-    private long imageWidth = -1, imageHeight = -1;
+    long imageWidth = -1, imageHeight = -1;
 
     /**
      * The size of each tile, or -1 if the information has not be found.
@@ -133,7 +162,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * "tiles" and "strips" separately, Apache SIS handles strips as a special kind of tiles where
      * only {@code tileHeight} is specified and {@code tileWidth} defaults to {@link #imageWidth}.
      */
-    private int tileWidth = -1, tileHeight = -1;
+    int tileWidth = -1, tileHeight = -1;
 
     /**
      * For each tile, the byte offset of that tile, as compressed and stored on disk.
@@ -150,7 +179,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * of each strip. In Apache SIS implementation, strips are considered as a special kind of tiles
      * having a width equals to {@link #imageWidth}.
      */
-    private Vector tileOffsets;
+    Vector tileOffsets;
 
     /**
      * For each tile, the number of (compressed) bytes in that tile.
@@ -161,7 +190,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * of bytes in the strip after compression. In Apache SIS implementation, strips are
      * considered as a special kind of tiles having a width equals to {@link #imageWidth}.
      */
-    private Vector tileByteCounts;
+    Vector tileByteCounts;
 
     /**
      * Whether the tiling was specified using the {@code Tile*} family of TIFF tags or the {@code Strip*}
@@ -175,7 +204,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * The default is {@code false}, which stands for the "chunky" format
      * (for example RGB data stored as RGBRGBRGB).
      */
-    private boolean isPlanar;
+    boolean isPlanar;
 
     /**
      * How to interpret each data sample in a pixel.
@@ -195,7 +224,14 @@ final class ImageFileDirectory extends AbstractGridResource {
      *
      * Value 1 is mapped to {@code false} and 2 is mapped to {@code true}.
      */
-    private boolean reverseBitsOrder;
+    boolean reverseBitsOrder;
+
+    /**
+     * The mathematical operator applied on sample values before compression, as one of the
+     * {@link Predictor} constants. This is determined from the {@code Predictor} TIFF tag.
+     * Default value is {@link Predictor#NONE}.
+     */
+    int predictor = Predictor.NONE;
 
     /**
      * Number of bits per component.
@@ -203,7 +239,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * For example, RGB color data could use a different number of bits per component for each of the three color planes.
      * However, current Apache SIS implementation requires that all components have the same {@code BitsPerSample} value.
      */
-    private short bitsPerSample;
+    short bitsPerSample;
 
     /**
      * The number of components per pixel.
@@ -211,7 +247,7 @@ final class ImageFileDirectory extends AbstractGridResource {
      * and 3 for RGB images. If this value is higher, then the {@code ExtraSamples} TIFF tag should
      * give an indication of the meaning of the additional channels.
      */
-    private short samplesPerPixel;
+    short samplesPerPixel;
 
     /**
      * Specifies that each pixel has {@code extraSamples.size()} extra components whose interpretation is defined
@@ -322,7 +358,36 @@ final class ImageFileDirectory extends AbstractGridResource {
      * The compression method, or {@code null} if unknown. If the compression method is unknown
      * or unsupported we can not read the image, but we still can read the metadata.
      */
-    private Compression compression;
+    Compression compression;
+
+    /**
+     * A general indication of the kind of data contained in this subfile, as a combination of the
+     * {@link #REDUCED_RESOLUTION}, {@link #SINGLE_PAGE} and {@link #TRANSPARENCY_MASK} bits.
+     * This is determined from the {@code NewSubfileType} (or the deprecated {@code SubfileType}) TIFF tag.
+     */
+    private int subfileType;
+
+    /**
+     * The full-resolution image if this image is an overview (a reduced-resolution version of another image),
+     * or {@code null} if this image is a full-resolution image. This is set by the {@link Reader} when this
+     * image is loaded.
+     */
+    ImageFileDirectory fullResolution;
+
+    /**
+     * The reduced-resolution versions of this image, or {@code null} if not yet determined.
+     * Overviews are sorted in the order they appear in the TIFF file, which is usually
+     * from finest to coarsest resolution.
+     *
+     * @see #overviews()
+     */
+    private List<ImageFileDirectory> overviews;
+
+    /**
+     * The grid geometry of this image if it is an overview without its own georeferencing tags,
+     * or {@code null} if not yet computed or not applicable.
+     */
+    private GridGeometry overviewGeometry;
 
     /**
      * A helper class for building Coordinate Reference System and complete related metadata.
@@ -366,6 +431,7 @@ final class ImageFileDirectory extends AbstractGridResource {
     ImageFileDirectory(final Reader reader, final int index) {
         super(reader.owner.listeners());
         this.reader = reader;
+        this.index  = index;
         identifier = reader.nameFactory.createLocalName(reader.owner.identifier, String.valueOf(index + 1));
     }
 
@@ -550,6 +616,20 @@ final class ImageFileDirectory extends AbstractGridResource {
                 }
                 break;
             }
+            /*
+             * A mathematical operator applied to the image data before compression:
+             * 1 for no prediction, 2 for horizontal differencing or 3 for floating point predictor.
+             */
+            case Tags.Predictor: {
+                final int value = type.readInt(input(), count);
+                switch (value) {
+                    case Predictor.NONE:
+                    case Predictor.HORIZONTAL:
+                    case Predictor.FLOATING_POINT: predictor = value; break;
+                    default: return value;                  // Cause a warning to be reported by the caller.
+                }
+                break;
+            }
             /*
              * How to interpret each data sample in a pixel. The size of data samples is still
              * specified by the BitsPerSample field.
@@ -676,7 +756,7 @@ final class ImageFileDirectory extends AbstractGridResource {
              * Bit 4 indicates MRC imaging model as described in ITU-T recommendation T.44 [T.44] (See ImageLayer tag) - RFC 2301.
              */
             case Tags.NewSubfileType: {
-                // TODO
+                subfileType = (int) type.readLong(input(), count);
                 break;
             }
             /*
@@ -686,7 +766,13 @@ final class ImageFileDirectory extends AbstractGridResource {
              * 3 = a single page of a multi-page image (see PageNumber).
              */
             case Tags.SubfileType: {
-                // TODO
+                final int value = type.readInt(input(), count);
+                switch (value) {
+                    case 1:  break;
+                    case 2:  subfileType |= REDUCED_RESOLUTION; break;
+                    case 3:  subfileType |= SINGLE_PAGE; break;
+                    default: return value;                  // Cause a warning to be reported by the caller.
+                }
                 break;
             }
 
@@ -1253,11 +1339,128 @@ final class ImageFileDirectory extends AbstractGridResource {
                 throw new DataStoreContentException(reader.resources().getString(Resources.Keys.CanNotComputeGridGeometry_1, filename()), e);
             }
             return gridGeometry;
+        } else if (fullResolution != null) {
+            if (overviewGeometry == null) {
+                overviewGeometry = reducedResolution(fullResolution.getGridGeometry());
+            }
+            return overviewGeometry;
         } else {
             return new GridGeometry(new GridExtent(imageWidth, imageHeight), null);
         }
     }
 
+    /**
+     * Computes the grid geometry of this overview from the grid geometry of the full-resolution image.
+     * The "grid to CRS" transform is scaled by the ratio between the image sizes. That ratio may not be
+     * an integer if the size of the full-resolution image is not a multiple of the overview size.
+     *
+     * @param  full  grid geometry of the full-resolution image.
+     * @return grid geometry of this overview.
+     */
+    private GridGeometry reducedResolution(final GridGeometry full) {
+        final GridExtent extent = full.getExtent();
+        final long[] sizes = new long[extent.getDimension()];
+        final double[] factors = new double[sizes.length];
+        for (int i=0; i<sizes.length; i++) {
+            sizes[i]   = extent.getSize(i);
+            factors[i] = 1;
+        }
+        sizes[0] = imageWidth;
+        sizes[1] = imageHeight;
+        final GridExtent reduced = extent.resize(sizes);
+        if (!full.isDefined(GridGeometry.GRID_TO_CRS)) {
+            return new GridGeometry(reduced, null);
+        }
+        factors[0] = extent.getSize(0) / (double) imageWidth;
+        factors[1] = extent.getSize(1) / (double) imageHeight;
+        final MathTransform gridToCRS = MathTransforms.concatenate(MathTransforms.scale(factors),
+                                        full.getGridToCRS(PixelInCell.CELL_CORNER));
+        return new GridGeometry(reduced, PixelInCell.CELL_CORNER, gridToCRS,
+                full.isDefined(GridGeometry.CRS) ? full.getCoordinateReferenceSystem() : null);
+    }
+
+    /**
+     * Returns {@code true} if this image is a reduced-resolution version of another image.
+     * Transparency masks are excluded.
+     */
+    final boolean isOverview() {
+        return (subfileType & (REDUCED_RESOLUTION | TRANSPARENCY_MASK)) == REDUCED_RESOLUTION;
+    }
+
+    /**
+     * Returns {@code true} if this image is a full-resolution image (not an overview and not a mask).
+     */
+    final boolean isFullResolution() {
+        return (subfileType & (REDUCED_RESOLUTION | TRANSPARENCY_MASK)) == 0;
+    }
+
+    /**
+     * Returns {@code true} if the given overview can be read in replacement of this image.
+     * The overview must have the same sample model than this image.
+     */
+    final boolean isCompatible(final ImageFileDirectory overview) {
+        return overview.samplesPerPixel == samplesPerPixel
+            && overview.bitsPerSample   == bitsPerSample
+            && overview.sampleFormat    == sampleFormat;
+    }
+
+    /**
+     * Returns the reduced-resolution versions of this image, loading them when first needed.
+     * Overviews are the images following this image in the TIFF file which are flagged as
+     * reduced-resolution versions by the {@code NewSubfileType} TIFF tag.
+     *
+     * @return overviews of this image, or an empty list if none.
+     */
+    private List<ImageFileDirectory> overviews() throws DataStoreException {
+        synchronized (reader.owner) {
+            if (overviews == null) {
+                if (fullResolution != null) {
+                    overviews = Collections.emptyList();
+                } else try {
+                    overviews = reader.getOverviews(index);
+                } catch (IOException e) {
+                    throw new DataStoreException(canNotReadFile(), e);
+                }
+            }
+            return overviews;
+        }
+    }
+
+    /**
+     * Selects the overview to use for reading data in the given domain. The selected overview is the
+     * one having the coarsest resolution which is still equal or finer than the requested resolution.
+     *
+     * @param  gridGeometry  grid geometry of this image.
+     * @param  domain        the domain requested by the user.
+     * @return the overview to read, or {@code null} if this image should be read.
+     */
+    private ImageFileDirectory selectOverview(final GridGeometry gridGeometry, final GridGeometry domain)
+            throws DataStoreException
+    {
+        final int[] subsamplings;
+        try {
+            subsamplings = gridGeometry.derive().rounding(GridRoundingMode.ENCLOSING).subgrid(domain).getSubsamplings();
+        } catch (RuntimeException e) {
+            return null;                    // Let the caller report the error on the full-resolution image.
+        }
+        if (subsamplings[0] <= 1 && subsamplings[1] <= 1) {
+            return null;
+        }
+        ImageFileDirectory selected = null;
+        double scale = 1;
+        for (final ImageFileDirectory overview : overviews()) {
+            if (isCompatible(overview)) {
+                final double sx = imageWidth  / (double) overview.imageWidth;
+                final double sy = imageHeight / (double) overview.imageHeight;
+                if (sx <= subsamplings[0] && sy <= subsamplings[1] && sx * sy > scale) {
+                    scale = sx * sy;
+                    selected = overview;
+                }
+            }
+        }
+        return selected;
+    }
+
     /**
      * Returns the ranges of sample values together with the conversion from samples to real values.
      */
@@ -1288,8 +1491,96 @@ final class ImageFileDirectory extends AbstractGridResource {
      * @throws DataStoreException if an error occurred while reading the grid coverage data.
      */
     @Override
-    public GridCoverage read(final GridGeometry domain, final int... range) throws DataStoreException {
-        throw new DataStoreException("Not yet implemented.");   // TODO
+    public GridCoverage read(GridGeometry domain, final int... range) throws DataStoreException {
+        final GridGeometry gridGeometry = getGridGeometry();
+        if (domain != null && fullResolution == null) {
+            final ImageFileDirectory overview = selectOverview(gridGeometry, domain);
+            if (overview != null) {
+                return overview.read(domain, range);
+            }
+        }
+        final RangeArgument rangeIndices = validateRangeArgument(samplesPerPixel, range);
+        if (compression == null || (compression != Compression.NONE && Decompressor.create(compression.code) == null)) {
+            throw new DataStoreContentException(reader.resources().getString(Resources.Keys.UnsupportedCompression_2,
+                    filename(), (compression != null) ? compression.name().toLowerCase(Locale.US) : "?"));
+        }
+        final int dataType = getDataType();
+        if (predictor != Predictor.NONE && (predictor == Predictor.FLOATING_POINT) != (sampleFormat == FLOAT)) {
+            throw new DataStoreContentException(reader.resources().getString(
+                    Resources.Keys.UnsupportedPredictor_2, filename(), predictor));
+        }
+        final List<SampleDimension> sources = getSampleDimensions();
+        final SampleDimension[] targets = new SampleDimension[rangeIndices.getNumBands()];
+        final int[] bands = new int[targets.length];
+        for (int i=0; i<targets.length; i++) {
+            final int source = rangeIndices.getSourceIndex(i);
+            final int target = rangeIndices.getTargetIndex(i);
+            targets[target] = sources.get(source);
+            bands  [target] = source;
+        }
+        /*
+         * Computes the area to read in pixel coordinates of the TIFF image. No pixel is read at this stage;
+         * tiles will be read only when first requested, and only the TIFF tiles intersecting them.
+         */
+        try {
+            final GridDerivation targetGeometry = gridGeometry.derive().rounding(GridRoundingMode.ENCLOSING);
+            if (domain != null) {
+                targetGeometry.subgrid(domain);
+            }
+            final GridExtent areaOfInterest = targetGeometry.getIntersection();
+            final int[]      subsamplings   = targetGeometry.getSubsamplings();
+            domain = targetGeometry.build();
+            return new DataSubset(this, domain, UnmodifiableArrayList.wrap(targets), bands, areaOfInterest, subsamplings, dataType);
+        } catch (DisjointExtentException e) {
+            throw new NoSuchDataException(canNotReadFile(), e);
+        } catch (RuntimeException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof TransformException) {
+                throw new DataStoreReferencingException(canNotReadFile(), cause);
+            } else {
+                throw new DataStoreContentException(canNotReadFile(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the type of sample values as one of the {@link DataBuffer} constants.
+     *
+     * @throws DataStoreContentException if the combination of sample format and number of bits is not supported.
+     */
+    private int getDataType() throws DataStoreContentException {
+        switch (sampleFormat) {
+            case UNSIGNED: {
+                switch (bitsPerSample) {
+                    case Byte.SIZE:    return DataBuffer.TYPE_BYTE;
+                    case Short.SIZE:   return DataBuffer.TYPE_USHORT;
+                }
+                break;
+            }
+            case SIGNED: {
+                switch (bitsPerSample) {
+                    case Short.SIZE:   return DataBuffer.TYPE_SHORT;
+                    case Integer.SIZE: return DataBuffer.TYPE_INT;
+                }
+                break;
+            }
+            case FLOAT: {
+                switch (bitsPerSample) {
+                    case Float.SIZE:   return DataBuffer.TYPE_FLOAT;
+                    case Double.SIZE:  return DataBuffer.TYPE_DOUBLE;
+                }
+                break;
+            }
+        }
+        throw new DataStoreContentException(reader.resources().getString(Resources.Keys.UnsupportedSampleFormat_3,
+                filename(), bitsPerSample, (sampleFormat == FLOAT) ? "float" : (sampleFormat == SIGNED) ? "signed" : "unsigned"));
+    }
+
+    /**
+     * Returns the error message for a file that can not be read.
+     */
+    private String canNotReadFile() {
+        return Errors.getResources(reader.owner.getLocale()).getString(Errors.Keys.CanNotRead_1, filename());
     }
 
     /**
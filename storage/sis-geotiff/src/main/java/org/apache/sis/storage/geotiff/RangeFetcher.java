@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.sis.internal.storage.io.ByteRangeChannel;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.system.CommonExecutor;
+
+
+/**
+ * Collects ranges of bytes to read from a TIFF file, then reads them with as few operations as possible.
+ * Ranges which are adjacent or separated by small gaps are merged in a single read operation,
+ * so that storages where each read is a costly round-trip (e.g. cloud-optimized GeoTIFF on HTTP servers)
+ * do not pay that cost for each tile. Usage:
+ *
+ * <ol>
+ *   <li>Invoke {@link #add(long, long)} for each range of bytes to read, in any order.</li>
+ *   <li>Invoke {@link #fetch()} once for getting the bytes of all ranges.</li>
+ * </ol>
+ *
+ * If the channel is a {@link ByteRangeChannel}, then the merged ranges are read concurrently and without
+ * lock on the data store. Otherwise they are read sequentially with the {@link ChannelDataInput} of the
+ * reader, in increasing position order.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class RangeFetcher {
+    /**
+     * Maximal number of unused bytes between two ranges for merging them in a single read operation.
+     * Reading those bytes is assumed cheaper than the latency of an additional read operation.
+     */
+    static final int MAX_GAP = 0x4000;
+
+    /**
+     * Maximal length of a merged range. This is for avoiding excessive memory consumption
+     * when many tiles are requested together.
+     */
+    static final int MAX_LENGTH = 0x4000000;
+
+    /**
+     * The reader for which to fetch bytes.
+     */
+    private final Reader reader;
+
+    /**
+     * Positions (relative to {@link Reader#origin}) and lengths of the ranges added so far.
+     */
+    private long[] offsets, lengths;
+
+    /**
+     * Number of valid elements in {@link #offsets} and {@link #lengths} arrays.
+     */
+    private int count;
+
+    /**
+     * Creates a new fetcher for the given reader.
+     */
+    RangeFetcher(final Reader reader) {
+        this.reader  = reader;
+        this.offsets = new long[8];
+        this.lengths = new long[8];
+    }
+
+    /**
+     * Adds a range of bytes to read.
+     *
+     * @param  offset  position of the first byte relative to the beginning of the TIFF file.
+     * @param  length  number of bytes to read.
+     * @return index of the range in the array to be returned by {@link #fetch()}.
+     */
+    final int add(final long offset, final long length) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        offsets[count] = offset;
+        lengths[count] = length;
+        return count++;
+    }
+
+    /**
+     * Reads all ranges added so far. Element at index <var>i</var> in the returned array
+     * contains the bytes of the range for which {@link #add(long, long)} returned <var>i</var>.
+     *
+     * @return bytes of all ranges, in the order they were added.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    final byte[][] fetch() throws IOException {
+        /*
+         * Sort range indices by position in the file, then group them in runs of ranges
+         * to read in a single operation. Each run is stored as {start, end, first, last}
+         * where first and last (exclusive) are indices in the sorted array.
+         */
+        final Integer[] sorted = new Integer[count];
+        for (int i=0; i<count; i++) sorted[i] = i;
+        Arrays.sort(sorted, (i, j) -> Long.compare(offsets[i], offsets[j]));
+        final List<long[]> runs = new ArrayList<>();
+        long[] run = null;
+        for (int k=0; k<count; k++) {
+            final int  i     = sorted[k];
+            final long start = offsets[i];
+            final long end   = Math.addExact(start, lengths[i]);
+            if (run != null && start - run[1] <= MAX_GAP && Math.max(end, run[1]) - run[0] <= MAX_LENGTH) {
+                run[1] = Math.max(end, run[1]);
+                run[3] = k + 1;
+            } else {
+                runs.add(run = new long[] {start, end, k, k + 1});
+            }
+        }
+        /*
+         * Read each run, then copy the bytes of each range. If a run contains a single range,
+         * the array is used directly without copy.
+         */
+        final byte[][] buffers = read(runs);
+        final byte[][] result = new byte[count][];
+        for (int r=0; r<buffers.length; r++) {
+            run = runs.get(r);
+            final byte[] bytes = buffers[r];
+            for (int k = (int) run[2]; k < run[3]; k++) {
+                final int i = sorted[k];
+                final int lower = Math.toIntExact(offsets[i] - run[0]);
+                final int upper = Math.toIntExact(lower + lengths[i]);
+                result[i] = (lower == 0 && upper == bytes.length) ? bytes : Arrays.copyOfRange(bytes, lower, upper);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the bytes of all given runs. Each run is an array of length 4
+     * where the two first elements are the start and end positions of the bytes to read.
+     */
+    private byte[][] read(final List<long[]> runs) throws IOException {
+        final ChannelDataInput input = reader.input;
+        final byte[][] buffers = new byte[runs.size()][];
+        if (input.channel instanceof ByteRangeChannel) {
+            final ByteRangeChannel channel = (ByteRangeChannel) input.channel;
+            final long base = Math.addExact(input.channelOffset, reader.origin);
+            final List<Callable<byte[]>> tasks = new ArrayList<>(buffers.length);
+            for (final long[] run : runs) {
+                tasks.add(() -> {
+                    final byte[] bytes = new byte[Math.toIntExact(run[1] - run[0])];
+                    channel.readFully(Math.addExact(base, run[0]), ByteBuffer.wrap(bytes));
+                    return bytes;
+                });
+            }
+            try {
+                return CommonExecutor.invokeAll(tasks).toArray(buffers);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+        synchronized (reader.owner) {
+            for (int r=0; r<buffers.length; r++) {
+                final long[] run = runs.get(r);
+                final byte[] bytes = new byte[Math.toIntExact(run[1] - run[0])];
+                input.seek(Math.addExact(reader.origin, run[0]));
+                input.readFully(bytes);
+                buffers[r] = bytes;
+            }
+        }
+        return buffers;
+    }
+}
@@ -50,7 +50,7 @@ import org.apache.sis.util.resources.Errors;
  * @author  Alexis Manin (Geomatys)
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -63,7 +63,7 @@ final class Reader extends GeoTIFF {
     /**
      * Stream position of the first byte of the GeoTIFF file. This is usually zero.
      */
-    private final long origin;
+    final long origin;
 
     /**
      * A multiplication factor for the size of pointers, expressed as a power of 2.
@@ -303,6 +303,19 @@ final class Reader extends GeoTIFF {
                     deferredNeedsSort = true;
                 }
             }
+            if (dir.isOverview()) {
+                /*
+                 * Overviews follow the full-resolution image in the TIFF file (this is the layout
+                 * produced by GDAL and required by Cloud Optimized GeoTIFF). Search that image.
+                 */
+                for (int i = imageFileDirectories.size(); --i >= 0;) {
+                    final ImageFileDirectory candidate = imageFileDirectories.get(i);
+                    if (candidate.isFullResolution()) {
+                        dir.fullResolution = candidate;
+                        break;
+                    }
+                }
+            }
             imageFileDirectories.add(dir);
             readNextImageOffset();                          // Zero if the IFD that we just read was the last one.
         }
@@ -322,6 +335,29 @@ final class Reader extends GeoTIFF {
         return dir;
     }
 
+    /**
+     * Returns the reduced-resolution versions of the image at the given index. Overviews are the images
+     * following the full-resolution image in the TIFF file which are flagged as reduced-resolution by the
+     * {@code NewSubfileType} tag, until the next full-resolution image. This is the layout produced by
+     * GDAL and required by the Cloud Optimized GeoTIFF convention. Transparency masks are skipped.
+     *
+     * @param  index  index of the full-resolution image.
+     * @return overviews of the image at the given index, or an empty list if none.
+     */
+    final List<ImageFileDirectory> getOverviews(final int index) throws IOException, DataStoreException {
+        final ImageFileDirectory image = getImageFileDirectory(index);
+        final List<ImageFileDirectory> overviews = new ArrayList<>();
+        if (image != null && image.isFullResolution()) {
+            ImageFileDirectory dir;
+            for (int i = index; (dir = getImageFileDirectory(++i)) != null && !dir.isFullResolution();) {
+                if (dir.fullResolution == image) {
+                    overviews.add(dir);
+                }
+            }
+        }
+        return overviews;
+    }
+
     /**
      * Reads some of the entries that has been deferred. If the given {@code dir} argument is non-null,
      * then this method resolves all entries needed by this IFD no matter where the entry value is located.
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.Optional;
+import org.opengis.util.GenericName;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.storage.AbstractGridResource;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.WritableGridCoverageResource;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * The single image of a GeoTIFF file opened in write mode. Read operations are delegated to the
+ * first image file directory of the file, which is reloaded after each write operation.
+ * If no image has been written yet, read operations throw {@link org.apache.sis.storage.NoSuchDataException}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class WritableResource extends AbstractGridResource implements WritableGridCoverageResource {
+    /**
+     * The data store which contains this resource.
+     */
+    private final GeoTiffStore store;
+
+    /**
+     * Creates a new resource for the given data store.
+     */
+    WritableResource(final GeoTiffStore store) {
+        super(store.listeners());
+        this.store = store;
+    }
+
+    /**
+     * Returns the identifier of the image, or an empty value if no image has been written yet.
+     */
+    @Override
+    public Optional<GenericName> getIdentifier() throws DataStoreException {
+        final ImageFileDirectory image = store.image(false);
+        return (image != null) ? image.getIdentifier() : Optional.empty();
+    }
+
+    /**
+     * Returns the grid geometry of the image written in the GeoTIFF file.
+     */
+    @Override
+    public GridGeometry getGridGeometry() throws DataStoreException {
+        return store.image(true).getGridGeometry();
+    }
+
+    /**
+     * Returns the sample dimensions of the image written in the GeoTIFF file.
+     */
+    @Override
+    public List<SampleDimension> getSampleDimensions() throws DataStoreException {
+        return store.image(true).getSampleDimensions();
+    }
+
+    /**
+     * Reads the image written in the GeoTIFF file.
+     */
+    @Override
+    public GridCoverage read(final GridGeometry domain, final int... range) throws DataStoreException {
+        return store.image(true).read(domain, range);
+    }
+
+    /**
+     * Writes the given coverage in the GeoTIFF file, replacing the previous image if
+     * {@link CommonOption#TRUNCATE} is specified. {@link CommonOption#UPDATE} is accepted only
+     * if the file does not contain an image yet, since merging images is not supported.
+     * A failure while encoding the new image leaves the previous image unchanged.
+     *
+     * @param  coverage  the coverage to write.
+     * @param  options   {@link CommonOption#TRUNCATE}, {@link CommonOption#UPDATE} and/or {@link GeoTiffOption#DEFLATE}.
+     * @throws IllegalArgumentException if an option is not supported by the GeoTIFF store.
+     * @throws DataStoreException if an error occurred while writing the coverage.
+     */
+    @Override
+    public void write(final GridCoverage coverage, final Option... options) throws DataStoreException {
+        boolean truncate = false, update = false, deflate = false;
+        if (options != null) {
+            for (final Option option : options) {
+                if (option == CommonOption.TRUNCATE) {
+                    truncate = true;
+                } else if (option == CommonOption.UPDATE) {
+                    update = true;
+                } else if (option == GeoTiffOption.DEFLATE) {
+                    deflate = true;
+                } else if (option != null) {
+                    throw new IllegalArgumentException(Errors.getResources(store.getLocale())
+                            .getString(Errors.Keys.UnsupportedArgumentValue_1, option));
+                }
+            }
+        }
+        store.write(coverage, truncate, update, deflate);
+    }
+}
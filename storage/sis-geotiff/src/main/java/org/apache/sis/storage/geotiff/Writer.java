@@ -0,0 +1,567 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.zip.Deflater;
+import java.lang.reflect.Array;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import javax.measure.IncommensurableException;
+import org.opengis.util.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.MathTransform;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.geotiff.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataOutput;
+import org.apache.sis.referencing.crs.AbstractCRS;
+import org.apache.sis.referencing.cs.AxesConvention;
+import org.apache.sis.referencing.cs.CoordinateSystems;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreReferencingException;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * An image writer for GeoTIFF files. This writer produces a BigTIFF file with a single image,
+ * stored in tiles with interleaved samples and optionally compressed with the "Deflate" method.
+ * Tiles are requested from the source {@link RenderedImage} and written one at a time,
+ * so the image does not need to fit in memory.
+ *
+ * <p>The file layout is: the header, all tiles in left-to-right then top-to-bottom order,
+ * the values of TIFF tags which do not fit in an image file directory entry, then the
+ * image file directory. The header is updated last with the position of the directory,
+ * so the output channel must be seekable.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class Writer extends GeoTIFF {
+    /**
+     * Default size of tiles, used when the tile size of the image to write is not a multiple of
+     * {@value #TILE_SIZE_MULTIPLE}.
+     */
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    /**
+     * The TIFF specification requires tile width and height to be multiple of this value.
+     */
+    private static final int TILE_SIZE_MULTIPLE = 16;
+
+    /**
+     * Position in the file of the offset to the first image file directory.
+     */
+    private static final int FIRST_IFD_POINTER = 8;
+
+    /**
+     * Values of the {@link Tags#SampleFormat} tag.
+     */
+    private static final int UNSIGNED = 1, SIGNED = 2, FLOAT = 3;
+
+    /**
+     * Values of the {@link Tags#PhotometricInterpretation} tag.
+     */
+    private static final int BLACK_IS_ZERO = 1, RGB = 2;
+
+    /**
+     * The output where to write the TIFF file.
+     */
+    final ChannelDataOutput output;
+
+    /**
+     * Character encoding for the {@link Type#ASCII} values.
+     */
+    private final Charset encoding;
+
+    /**
+     * A TIFF tag with its values. Values which do not fit in the 8 bytes of an image file directory entry
+     * are written before the directory, in which case {@link #offset} is their position in the file.
+     */
+    private static final class Entry {
+        /** The TIFF tag. */
+        final short tag;
+
+        /** The type of values. */
+        final Type type;
+
+        /** The values as an array of primitive type. */
+        final Object values;
+
+        /** Number of values. */
+        final int count;
+
+        /** Position of the values in the file, or 0 if the values fit in the directory entry. */
+        long offset;
+
+        /** Creates a new entry for the given values. */
+        Entry(final short tag, final Type type, final Object values) {
+            this.tag    = tag;
+            this.type   = type;
+            this.values = values;
+            this.count  = Array.getLength(values);
+        }
+
+        /** Returns the number of bytes used by the values. */
+        final long size() {
+            return ((long) count) * type.size;
+        }
+    }
+
+    /**
+     * Converts the samples of a raster to the bytes of an uncompressed TIFF tile with interleaved samples.
+     * The same byte array is reused for all tiles. Tiles on the right and bottom borders are padded with zeros.
+     */
+    private static final class TileEncoder {
+        /** Size of TIFF tiles in pixels. */
+        private final int tileWidth, tileHeight;
+
+        /** Number of sample values per pixel. */
+        private final int numBands;
+
+        /** Number of bits per sample value. */
+        private final int bitsPerSample;
+
+        /** Whether sample values are stored as floating point numbers. */
+        private final boolean isFloat;
+
+        /** The bytes of the tile, wrapped in a buffer with the byte order of the TIFF file. */
+        private final ByteBuffer buffer;
+
+        /** Minimum and maximum sample values found in each band, ignoring NaN. */
+        final double[] minValues, maxValues;
+
+        /** Buffers where to get sample values of a row, created when first needed. */
+        private int[] ints;
+        private float[] floats;
+        private double[] doubles;
+
+        /** Creates a new encoder for tiles of the given size. */
+        TileEncoder(final int tileWidth, final int tileHeight, final int numBands, final int bitsPerSample,
+                    final boolean isFloat, final ByteOrder order)
+        {
+            this.tileWidth     = tileWidth;
+            this.tileHeight    = tileHeight;
+            this.numBands      = numBands;
+            this.bitsPerSample = bitsPerSample;
+            this.isFloat       = isFloat;
+            buffer = ByteBuffer.allocate(Math.multiplyExact(Math.multiplyExact(tileWidth, tileHeight),
+                                         numBands * (bitsPerSample / Byte.SIZE))).order(order);
+            minValues = new double[numBands];
+            maxValues = new double[numBands];
+            Arrays.fill(minValues, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxValues, Double.NEGATIVE_INFINITY);
+        }
+
+        /** Updates the minimum and maximum values with the given sample value. */
+        private void statistics(final int band, final double value) {
+            if (value < minValues[band]) minValues[band] = value;
+            if (value > maxValues[band]) maxValues[band] = value;
+        }
+
+        /**
+         * Encodes the given region of the given raster. The region size may be smaller than the tile size
+         * on the right and bottom image borders. The minimum and maximum values are updated as a side effect.
+         *
+         * @param  tile    the raster containing the pixels to encode.
+         * @param  region  the region to encode, in pixel coordinates of the given raster.
+         * @return the bytes of the TIFF tile. This array is overwritten by next call to this method.
+         */
+        byte[] encode(final Raster tile, final Rectangle region) {
+            final byte[] bytes = buffer.array();
+            if (region.width != tileWidth || region.height != tileHeight) {
+                Arrays.fill(bytes, (byte) 0);
+            }
+            final int length = region.width * numBands;
+            final int rowStride = tileWidth * numBands * (bitsPerSample / Byte.SIZE);
+            for (int y=0; y < region.height; y++) {
+                buffer.position(y * rowStride);
+                final int py = region.y + y;
+                if (isFloat) {
+                    if (bitsPerSample == Float.SIZE) {
+                        floats = tile.getPixels(region.x, py, region.width, 1, floats);
+                        for (int i=0; i<length; i++) {
+                            statistics(i % numBands, floats[i]);
+                            buffer.putFloat(floats[i]);
+                        }
+                    } else {
+                        doubles = tile.getPixels(region.x, py, region.width, 1, doubles);
+                        for (int i=0; i<length; i++) {
+                            statistics(i % numBands, doubles[i]);
+                            buffer.putDouble(doubles[i]);
+                        }
+                    }
+                } else {
+                    ints = tile.getPixels(region.x, py, region.width, 1, ints);
+                    for (int i=0; i<length; i++) {
+                        statistics(i % numBands, ints[i]);
+                    }
+                    switch (bitsPerSample) {
+                        case Byte.SIZE:  for (int i=0; i<length; i++) buffer.put((byte) ints[i]); break;
+                        case Short.SIZE: for (int i=0; i<length; i++) buffer.putShort((short) ints[i]); break;
+                        default:         for (int i=0; i<length; i++) buffer.putInt(ints[i]); break;
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Creates a new GeoTIFF writer and writes the header of a BigTIFF file.
+     * The byte order is determined by the output buffer.
+     *
+     * @param  owner   the {@code GeoTiffStore} for which this writer is created.
+     * @param  output  the output where to write the TIFF file.
+     * @throws IOException if an error occurred while writing the header.
+     */
+    Writer(final GeoTiffStore owner, final ChannelDataOutput output) throws IOException {
+        super(owner);
+        this.output   = output;
+        this.encoding = owner.encoding;
+        output.writeShort(output.buffer.order() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+        output.writeShort(BIG_TIFF);
+        output.writeShort(Long.BYTES);          // Byte size of offsets.
+        output.writeShort(0);                   // Reserved.
+        output.writeLong(0);                    // Offset of first IFD, set by write(…).
+    }
+
+    /**
+     * Writes the given coverage as the single image of the TIFF file.
+     *
+     * @param  coverage  the coverage to write.
+     * @param  deflate   whether to compress tiles with the "Deflate" method.
+     * @throws IOException if an error occurred while writing the file.
+     * @throws DataStoreException if the coverage can not be encoded in a TIFF file.
+     */
+    void write(final GridCoverage coverage, final boolean deflate) throws IOException, DataStoreException {
+        final RenderedImage image = coverage.render(null);
+        final SampleModel sm = image.getSampleModel();
+        final int numBands = sm.getNumBands();
+        final int bitsPerSample, sampleFormat;
+        switch (sm.getDataType()) {
+            case DataBuffer.TYPE_BYTE:   bitsPerSample = Byte.SIZE;    sampleFormat = UNSIGNED; break;
+            case DataBuffer.TYPE_USHORT: bitsPerSample = Short.SIZE;   sampleFormat = UNSIGNED; break;
+            case DataBuffer.TYPE_SHORT:  bitsPerSample = Short.SIZE;   sampleFormat = SIGNED;   break;
+            case DataBuffer.TYPE_FLOAT:  bitsPerSample = Float.SIZE;   sampleFormat = FLOAT;    break;
+            case DataBuffer.TYPE_DOUBLE: bitsPerSample = Double.SIZE;  sampleFormat = FLOAT;    break;
+            case DataBuffer.TYPE_INT: {
+                // Integer type may be used for packing small samples (e.g. RGB) in a single element.
+                int size = 0;
+                for (final int s : sm.getSampleSize()) size = Math.max(size, s);
+                if      (size <= Byte.SIZE)  {bitsPerSample = Byte.SIZE;    sampleFormat = UNSIGNED;}
+                else if (size <= Short.SIZE) {bitsPerSample = Short.SIZE;   sampleFormat = UNSIGNED;}
+                else                         {bitsPerSample = Integer.SIZE; sampleFormat = SIGNED;}
+                break;
+            }
+            default: throw new DataStoreException(errors().getString(Errors.Keys.UnsupportedType_1, sm.getClass()));
+        }
+        /*
+         * Tile size: reuse the image tile size if compatible with TIFF requirement,
+         * in which case each TIFF tile will be copied from exactly one image tile.
+         */
+        final int width  = image.getWidth();
+        final int height = image.getHeight();
+        int tileWidth  = image.getTileWidth();
+        int tileHeight = image.getTileHeight();
+        if (tileWidth % TILE_SIZE_MULTIPLE != 0 || tileHeight % TILE_SIZE_MULTIPLE != 0) {
+            tileWidth  = Math.min(DEFAULT_TILE_SIZE, roundUp(width));
+            tileHeight = Math.min(DEFAULT_TILE_SIZE, roundUp(height));
+        }
+        final boolean aligned = tileWidth == image.getTileWidth() && tileHeight == image.getTileHeight()
+                && image.getMinX() == image.getTileGridXOffset() + image.getMinTileX() * tileWidth
+                && image.getMinY() == image.getTileGridYOffset() + image.getMinTileY() * tileHeight;
+        final int tilesAcross = (width  + tileWidth  - 1) / tileWidth;
+        final int tilesDown   = (height + tileHeight - 1) / tileHeight;
+        final long[] tileOffsets    = new long[Math.multiplyExact(tilesAcross, tilesDown)];
+        final long[] tileByteCounts = new long[tileOffsets.length];
+        /*
+         * Write all tiles, one at a time. Only one tile of the source image (or a copy of the region
+         * covered by the TIFF tile if the tiles are not aligned) is requested at a time.
+         */
+        final TileEncoder encoder = new TileEncoder(tileWidth, tileHeight, numBands, bitsPerSample,
+                                                    sampleFormat == FLOAT, output.buffer.order());
+        final Deflater deflater = deflate ? new Deflater() : null;
+        try {
+            final Rectangle bounds = new Rectangle(image.getMinX(), image.getMinY(), width, height);
+            int index = 0;
+            for (int ty = 0; ty < tilesDown; ty++) {
+                for (int tx = 0; tx < tilesAcross; tx++) {
+                    final Rectangle region = new Rectangle(image.getMinX() + tx * tileWidth,
+                            image.getMinY() + ty * tileHeight, tileWidth, tileHeight).intersection(bounds);
+                    final Raster tile = aligned ? image.getTile(image.getMinTileX() + tx, image.getMinTileY() + ty)
+                                                : image.getData(region);
+                    final byte[] bytes = encoder.encode(tile, region);
+                    final long start = output.getStreamPosition();
+                    if (deflater != null) {
+                        deflate(deflater, bytes);
+                    } else {
+                        output.write(bytes);
+                    }
+                    tileOffsets[index] = start;
+                    tileByteCounts[index++] = output.getStreamPosition() - start;
+                }
+            }
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+        /*
+         * Build the list of TIFF tags to write in the image file directory.
+         */
+        final List<Entry> entries = new ArrayList<>();
+        final int photometric;
+        final ColorModel cm = image.getColorModel();
+        if (numBands >= 3 && bitsPerSample == Byte.SIZE && cm != null && cm.getColorSpace().getType() == ColorSpace.TYPE_RGB) {
+            photometric = RGB;
+        } else {
+            photometric = BLACK_IS_ZERO;
+        }
+        final int numExtras = numBands - (photometric == RGB ? 3 : 1);
+        entries.add(new Entry(Tags.ImageWidth,                Type.UINT,   new int[] {width}));
+        entries.add(new Entry(Tags.ImageLength,               Type.UINT,   new int[] {height}));
+        entries.add(new Entry(Tags.BitsPerSample,             Type.USHORT, fill(numBands, bitsPerSample)));
+        entries.add(new Entry(Tags.Compression,               Type.USHORT, new short[] {(short) (deflate ? Compression.DEFLATE : Compression.NONE).code}));
+        entries.add(new Entry(Tags.PhotometricInterpretation, Type.USHORT, new short[] {(short) photometric}));
+        entries.add(new Entry(Tags.SamplesPerPixel,           Type.USHORT, new short[] {(short) numBands}));
+        entries.add(new Entry(Tags.PlanarConfiguration,       Type.USHORT, new short[] {1}));      // Chunky.
+        entries.add(new Entry(Tags.TileWidth,                 Type.UINT,   new int[] {tileWidth}));
+        entries.add(new Entry(Tags.TileLength,                Type.UINT,   new int[] {tileHeight}));
+        entries.add(new Entry(Tags.TileOffsets,               Type.ULONG,  tileOffsets));
+        entries.add(new Entry(Tags.TileByteCounts,            Type.ULONG,  tileByteCounts));
+        if (numExtras > 0) {
+            entries.add(new Entry(Tags.ExtraSamples, Type.USHORT, new short[numExtras]));           // Unspecified data.
+        }
+        entries.add(new Entry(Tags.SampleFormat, Type.USHORT, fill(numBands, sampleFormat)));
+        if (encoder.minValues[0] <= encoder.maxValues[0]) {
+            entries.add(extremum(Tags.SMinSampleValue, encoder.minValues, bitsPerSample, sampleFormat));
+            entries.add(extremum(Tags.SMaxSampleValue, encoder.maxValues, bitsPerSample, sampleFormat));
+        }
+        addReferencing(coverage.getGridGeometry(), image, entries);
+        writeDirectory(entries);
+    }
+
+    /**
+     * Rounds the given size to the next multiple of {@value #TILE_SIZE_MULTIPLE}.
+     */
+    private static int roundUp(final int size) {
+        return Math.max(TILE_SIZE_MULTIPLE, (size + (TILE_SIZE_MULTIPLE - 1)) & ~(TILE_SIZE_MULTIPLE - 1));
+    }
+
+    /**
+     * Returns an array of the given length filled with the given value.
+     */
+    private static short[] fill(final int length, final int value) {
+        final short[] array = new short[length];
+        Arrays.fill(array, (short) value);
+        return array;
+    }
+
+    /**
+     * Creates the entry for the {@code SMinSampleValue} or {@code SMaxSampleValue} tag.
+     * The TIFF type of the values is the type of sample values.
+     */
+    private static Entry extremum(final short tag, final double[] values, final int bitsPerSample, final int sampleFormat) {
+        if (sampleFormat == FLOAT) {
+            return new Entry(tag, Type.DOUBLE, values);
+        }
+        final int n = values.length;
+        switch (bitsPerSample) {
+            case Byte.SIZE: {
+                final byte[] array = new byte[n];
+                for (int i=0; i<n; i++) array[i] = (byte) values[i];
+                return new Entry(tag, Type.UBYTE, array);
+            }
+            case Short.SIZE: {
+                final short[] array = new short[n];
+                for (int i=0; i<n; i++) array[i] = (short) values[i];
+                return new Entry(tag, (sampleFormat == SIGNED) ? Type.SHORT : Type.USHORT, array);
+            }
+            default: {
+                final int[] array = new int[n];
+                for (int i=0; i<n; i++) array[i] = (int) values[i];
+                return new Entry(tag, Type.INT, array);
+            }
+        }
+    }
+
+    /**
+     * Compresses the given bytes with the "Deflate" method and writes the result.
+     */
+    private void deflate(final Deflater deflater, final byte[] bytes) throws IOException {
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        final byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            output.write(chunk, 0, deflater.deflate(chunk));
+        }
+    }
+
+    /**
+     * Adds the {@code ModelPixelScale}, {@code ModelTiePoints} or {@code ModelTransformation} tags
+     * and the GeoTIFF keys for the given grid geometry. The "grid to CRS" transform is adjusted for
+     * the image origin and for the GeoTIFF axis order, which is (<var>longitude</var>, <var>latitude</var>)
+     * or (<var>easting</var>, <var>northing</var>).
+     */
+    private void addReferencing(final GridGeometry grid, final RenderedImage image, final List<Entry> entries)
+            throws DataStoreException
+    {
+        if (!grid.isDefined(GridGeometry.GRID_TO_CRS)) {
+            return;
+        }
+        MathTransform gridToCRS = grid.getGridToCRS(PixelInCell.CELL_CORNER);
+        if (gridToCRS.getSourceDimensions() != 2 || gridToCRS.getTargetDimensions() != 2) {
+            throw new DataStoreReferencingException(errors().getString(Errors.Keys.MismatchedDimension_3,
+                    "gridToCRS", 2, gridToCRS.getTargetDimensions()));
+        }
+        final GridExtent extent = grid.getExtent();
+        gridToCRS = MathTransforms.concatenate(MathTransforms.translation(
+                extent.getLow(0) + image.getMinX(), extent.getLow(1) + image.getMinY()), gridToCRS);
+        final GeoEncoder keys;
+        if (grid.isDefined(GridGeometry.CRS)) {
+            final CoordinateReferenceSystem crs = grid.getCoordinateReferenceSystem();
+            keys = new GeoEncoder();
+            try {
+                final AbstractCRS normalized = AbstractCRS.castOrCopy(crs).forConvention(AxesConvention.RIGHT_HANDED);
+                gridToCRS = MathTransforms.concatenate(gridToCRS, MathTransforms.linear(
+                        CoordinateSystems.swapAndScaleAxes(crs.getCoordinateSystem(), normalized.getCoordinateSystem())));
+                if (!keys.write(crs)) {
+                    throw new DataStoreReferencingException(resources().getString(
+                            Resources.Keys.CanNotEncodeCRS_2, output.filename, crs.getName()));
+                }
+            } catch (FactoryException | IllegalArgumentException | IncommensurableException e) {
+                throw new DataStoreReferencingException(resources().getString(
+                        Resources.Keys.CanNotEncodeCRS_2, output.filename, crs.getName()), e);
+            }
+        } else {
+            keys = null;
+        }
+        final Matrix m = MathTransforms.getMatrix(gridToCRS);
+        if (m == null) {
+            throw new DataStoreReferencingException(resources().getString(Resources.Keys.NonAffineGridToCRS_1, output.filename));
+        }
+        if (m.getElement(0, 1) == 0 && m.getElement(1, 0) == 0) {
+            entries.add(new Entry(Tags.ModelPixelScaleTag, Type.DOUBLE, new double[] {
+                    m.getElement(0, 0), -m.getElement(1, 1), 0}));
+            entries.add(new Entry(Tags.ModelTiePoints, Type.DOUBLE, new double[] {
+                    0, 0, 0, m.getElement(0, 2), m.getElement(1, 2), 0}));
+        } else {
+            entries.add(new Entry(Tags.ModelTransformation, Type.DOUBLE, new double[] {
+                    m.getElement(0, 0), m.getElement(0, 1), 0, m.getElement(0, 2),
+                    m.getElement(1, 0), m.getElement(1, 1), 0, m.getElement(1, 2),
+                    0, 0, 0, 0,
+                    0, 0, 0, 1}));
+        }
+        if (keys != null) {
+            entries.add(new Entry(Tags.GeoKeyDirectory, Type.USHORT, keys.directory()));
+            final double[] doubles = keys.doubles();
+            if (doubles.length != 0) {
+                entries.add(new Entry(Tags.GeoDoubleParams, Type.DOUBLE, doubles));
+            }
+            final String ascii = keys.ascii();
+            if (!ascii.isEmpty()) {
+                final byte[] bytes = ascii.getBytes(encoding);
+                entries.add(new Entry(Tags.GeoAsciiParams, Type.ASCII, Arrays.copyOf(bytes, bytes.length + 1)));
+            }
+        }
+    }
+
+    /**
+     * Writes the values which do not fit in directory entries, then the image file directory.
+     * Finally updates the file header with the position of the directory.
+     */
+    private void writeDirectory(final List<Entry> entries) throws IOException {
+        entries.sort((e1, e2) -> Integer.compare(Short.toUnsignedInt(e1.tag), Short.toUnsignedInt(e2.tag)));
+        for (final Entry entry : entries) {
+            if (entry.size() > Long.BYTES) {
+                alignOnWord();
+                entry.offset = output.getStreamPosition();
+                writeValues(entry);
+            }
+        }
+        alignOnWord();
+        final long directory = output.getStreamPosition();
+        output.writeLong(entries.size());
+        for (final Entry entry : entries) {
+            output.writeShort(entry.tag);
+            output.writeShort(entry.type.code);
+            output.writeLong(entry.count);
+            final long size = entry.size();
+            if (size > Long.BYTES) {
+                output.writeLong(entry.offset);
+            } else {
+                writeValues(entry);
+                for (long i=size; i<Long.BYTES; i++) {
+                    output.writeByte(0);
+                }
+            }
+        }
+        output.writeLong(0);                                // No next image file directory.
+        output.seek(FIRST_IFD_POINTER);
+        output.writeLong(directory);
+        output.flush();
+    }
+
+    /**
+     * Writes a padding byte if needed for making the stream position even.
+     */
+    private void alignOnWord() throws IOException {
+        if ((output.getStreamPosition() & 1) != 0) {
+            output.writeByte(0);
+        }
+    }
+
+    /**
+     * Writes the values of the given entry at the current stream position.
+     */
+    private void writeValues(final Entry entry) throws IOException {
+        final Object values = entry.values;
+        if (values instanceof short[])  output.writeShorts ((short[])  values); else
+        if (values instanceof int[])    output.writeInts   ((int[])    values); else
+        if (values instanceof long[])   output.writeLongs  ((long[])   values); else
+        if (values instanceof double[]) output.writeDoubles((double[]) values); else
+                                        output.write       ((byte[])   values);
+    }
+
+    /**
+     * Flushes the buffer content to the channel. This method does not close the channel,
+     * which is owned by the data store.
+     *
+     * @throws IOException if an error occurred while flushing the buffer.
+     */
+    @Override
+    public void close() throws IOException {
+        output.flush();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import org.apache.sis.test.TestCase;
+import org.apache.sis.test.TestUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Decompressor} implementations and their discovery through {@link DecompressorProvider}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class DecompressorTest extends TestCase {
+    /**
+     * Creates random data made of a small set of values, for allowing compression to be effective.
+     */
+    private static byte[] createData(final int length) {
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        final byte[] data = new byte[length];
+        for (int i=0; i<length; i++) {
+            data[i] = (byte) (random.nextInt(6) * 40);
+        }
+        return data;
+    }
+
+    /**
+     * Tests {@link PackBits} with the example given in TIFF 6.0 specification.
+     *
+     * @throws IOException if an error occurred while uncompressing the data.
+     */
+    @Test
+    public void testPackBits() throws IOException {
+        final byte[] input = {
+            (byte) 0xFE, (byte) 0xAA, 0x02, (byte) 0x80, 0x00, 0x2A, (byte) 0xFD, (byte) 0xAA,
+            0x03, (byte) 0x80, 0x00, 0x2A, 0x22, (byte) 0xF7, (byte) 0xAA
+        };
+        final byte[] expected = {
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0x80, 0x00, 0x2A, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0x80, 0x00, 0x2A, 0x22, (byte) 0xAA, (byte) 0xAA,
+            (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA, (byte) 0xAA
+        };
+        final byte[] output = new byte[expected.length];
+        assertEquals(expected.length, Decompressor.create(32773).uncompress(input, input.length, output));
+        assertArrayEquals(expected, output);
+    }
+
+    /**
+     * Tests {@link Deflate} with data compressed by {@link Deflater}.
+     *
+     * @throws IOException if an error occurred while uncompressing the data.
+     */
+    @Test
+    public void testDeflate() throws IOException {
+        final byte[] expected = createData(20000);
+        final Deflater deflater = new Deflater();
+        deflater.setInput(expected);
+        deflater.finish();
+        final byte[] input = new byte[expected.length];
+        final int length = deflater.deflate(input);
+        deflater.end();
+        final byte[] output = new byte[expected.length];
+        assertEquals(expected.length, Decompressor.create(8).uncompress(input, length, output));
+        assertArrayEquals(expected, output);
+    }
+
+    /**
+     * Tests {@link LZW} with data compressed by a simple encoder. The data are large enough
+     * for testing all code sizes from 9 to 12 bits, and at least one table reset.
+     *
+     * @throws IOException if an error occurred while uncompressing the data.
+     */
+    @Test
+    public void testLZW() throws IOException {
+        final byte[] expected = createData(40000);
+        final byte[] input = encodeLZW(expected);
+        final byte[] output = new byte[expected.length];
+        assertEquals(expected.length, Decompressor.create(5).uncompress(input, input.length, output));
+        assertArrayEquals(expected, output);
+        /*
+         * Output array smaller than the uncompressed data: remaining data shall be ignored.
+         */
+        final byte[] truncated = new byte[1000];
+        assertEquals(truncated.length, Decompressor.create(5).uncompress(input, input.length, truncated));
+        assertArrayEquals(Arrays.copyOf(expected, truncated.length), truncated);
+    }
+
+    /**
+     * Encodes the given data with the LZW algorithm as specified by TIFF 6.0.
+     */
+    private static byte[] encodeLZW(final byte[] data) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Map<Integer,Integer> table = new HashMap<>();
+        final int[] state = new int[2];                     // Bit buffer and number of bits in the buffer.
+        int codeSize = 9, nextCode = 258;
+        writeCode(out, state, 256, codeSize);
+        int w = data[0] & 0xFF;
+        for (int i=1; i<data.length; i++) {
+            final int c = data[i] & 0xFF;
+            final Integer code = table.get((w << 8) | c);
+            if (code != null) {
+                w = code;
+                continue;
+            }
+            writeCode(out, state, w, codeSize);
+            table.put((w << 8) | c, nextCode++);
+            if (nextCode == 4094) {
+                writeCode(out, state, 256, codeSize);
+                table.clear();
+                nextCode = 258;
+                codeSize = 9;
+            } else if (nextCode > (1 << codeSize) - 1) {
+                codeSize++;
+            }
+            w = c;
+        }
+        writeCode(out, state, w, codeSize);
+        if (++nextCode > (1 << codeSize) - 1) {
+            codeSize++;
+        }
+        writeCode(out, state, 257, codeSize);
+        if (state[1] != 0) {
+            out.write(state[0] << (Byte.SIZE - state[1]));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a code in most significant bit first order.
+     */
+    private static void writeCode(final ByteArrayOutputStream out, final int[] state, final int code, final int codeSize) {
+        state[0] = (state[0] << codeSize) | code;
+        state[1] += codeSize;
+        while (state[1] >= Byte.SIZE) {
+            state[1] -= Byte.SIZE;
+            out.write(state[0] >>> state[1]);
+            state[0] &= (1 << state[1]) - 1;
+        }
+    }
+
+    /**
+     * A provider declared in the test {@code META-INF/services} file for verifying that
+     * third-party decompressors are discovered. Uses a compression code in the private range.
+     */
+    public static final class Provider extends DecompressorProvider {
+        /** The compression code handled by this provider. */
+        static final int COMPRESSION = 65000;
+
+        /** Invoked by {@link java.util.ServiceLoader}. */
+        public Provider() {
+        }
+
+        /** Returns the compression code handled by this provider. */
+        @Override public int[] getCompressions() {
+            return new int[] {COMPRESSION};
+        }
+
+        /** Returns a decompressor copying the input without change. */
+        @Override public Decompressor create(final int compression) {
+            return new Decompressor() {
+                @Override public int uncompress(final byte[] input, final int length, final byte[] output) {
+                    final int n = Math.min(length, output.length);
+                    System.arraycopy(input, 0, output, 0, n);
+                    return n;
+                }
+            };
+        }
+    }
+
+    /**
+     * Tests the discovery of decompressors by the value of the {@code Compression} TIFF tag.
+     *
+     * @throws IOException if an error occurred while uncompressing the data.
+     */
+    @Test
+    public void testRegistry() throws IOException {
+        assertTrue("LZW",      Decompressor.create(5)     instanceof LZW);
+        assertTrue("Deflate",  Decompressor.create(8)     instanceof Deflate);
+        assertTrue("Deflate",  Decompressor.create(32946) instanceof Deflate);
+        assertTrue("PackBits", Decompressor.create(32773) instanceof PackBits);
+        assertNull("JPEG", Decompressor.create(7));
+        final byte[] output = new byte[3];
+        assertEquals(2, Decompressor.create(Provider.COMPRESSION).uncompress(new byte[] {4, 7, 9}, 2, output));
+        assertArrayEquals(new byte[] {4, 7, 0}, output);
+    }
+}
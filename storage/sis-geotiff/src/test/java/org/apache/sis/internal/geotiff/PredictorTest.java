@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.geotiff;
+
+import java.nio.ByteBuffer;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Predictor}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class PredictorTest extends TestCase {
+    /**
+     * Tests {@link Predictor#horizontal(short[], int, int)} with two samples per pixel.
+     */
+    @Test
+    public void testHorizontal() {
+        final short[] expected = {10, 200, 12, 210, 11, 220,    -5, 3, 0, 6, 7, 9};
+        final short[] data     = {10, 200,  2,  10, -1,  10,    -5, 3, 5, 3, 7, 3};
+        Predictor.horizontal(data, 6, 2);
+        assertArrayEquals(expected, data);
+    }
+
+    /**
+     * Tests {@link Predictor#floatingPoint(byte[], int, int, int)} with two rows of 3 values.
+     */
+    @Test
+    public void testFloatingPoint() {
+        final int rowLength = 3;
+        final float[] expected = {1.5f, -2.25f, 1000, 0.125f, Float.NaN, 3};
+        final ByteBuffer buffer = ByteBuffer.allocate(expected.length * Float.BYTES);
+        buffer.asFloatBuffer().put(expected);
+        final byte[] bytes = buffer.array();
+        /*
+         * Encode: reorder bytes by significance, then apply horizontal differencing on bytes.
+         */
+        final int rowBytes = rowLength * Float.BYTES;
+        final byte[] data = new byte[bytes.length];
+        for (int start = 0; start < bytes.length; start += rowBytes) {
+            for (int i=0; i<rowLength; i++) {
+                for (int b=0; b<Float.BYTES; b++) {
+                    data[start + b*rowLength + i] = bytes[start + i*Float.BYTES + b];
+                }
+            }
+            for (int i = start + rowBytes; --i > start;) {
+                data[i] -= data[i - 1];
+            }
+        }
+        Predictor.floatingPoint(data, rowLength, 1, Float.BYTES);
+        final float[] actual = new float[expected.length];
+        ByteBuffer.wrap(data).asFloatBuffer().get(actual);
+        assertArrayEquals(expected, actual, 0);
+    }
+}
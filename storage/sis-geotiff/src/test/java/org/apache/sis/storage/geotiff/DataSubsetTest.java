@@ -0,0 +1,439 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.Map;
+import java.util.Arrays;
+import java.util.TreeMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.opengis.referencing.datum.PixelInCell;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.internal.storage.io.FileRangeChannel;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the reading of tiled and striped TIFF images through {@link DataSubset}.
+ * Test files are created on the fly with sample values computed by {@link #expected(int, int, int)}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class DataSubsetTest extends TestCase {
+    /**
+     * Size of the test image, in pixels.
+     */
+    private static final int WIDTH = 50, HEIGHT = 38;
+
+    /**
+     * Number of bands in the test image.
+     */
+    private static final int NUM_BANDS = 2;
+
+    /**
+     * Returns the sample value expected at the given location in the test image.
+     */
+    private static int expected(final int band, final int x, final int y) {
+        return band * 10000 + y * 100 + x;
+    }
+
+    /**
+     * Returns the sample value to write in an image at the given scale. For the full-resolution image
+     * ({@code scale} = 1), this is the {@linkplain #expected(int, int, int) expected} value. For overviews,
+     * this is the expected value of the corresponding pixel in the full-resolution image plus one, for
+     * allowing tests to detect which image has been read.
+     */
+    private static int sample(final int band, final int x, final int y, final int scale) {
+        final int value = expected(band, x * scale, y * scale);
+        return (scale == 1) ? value : value + 1;
+    }
+
+    /**
+     * Creates a little-endian TIFF file with unsigned 16 bits integer samples.
+     * If {@code tiled} is {@code false}, then the image is stored in strips of
+     * {@code tileHeight} rows and the last strip is truncated to the image height.
+     *
+     * @param  tileWidth   width of TIFF tiles. Ignored if {@code tiled} is {@code false}.
+     * @param  tileHeight  height of TIFF tiles, or number of rows per strip.
+     * @param  tiled       {@code true} for tiles, or {@code false} for strips.
+     * @param  planar      {@code true} for storing each band in a separated plane.
+     * @param  deflate     {@code true} for compressing tiles with "Deflate" and horizontal predictor.
+     * @param  overview    {@code true} for adding an overview at half resolution after the main image.
+     * @return the temporary file. Caller should delete it after usage.
+     */
+    private static Path createFile(final int tileWidth, final int tileHeight, final boolean tiled, final boolean planar,
+            final boolean deflate, final boolean overview) throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(0x20000).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(0);     // IFD offset set later.
+        int pointer = writeImage(buffer, 4, 1, tileWidth, tileHeight, tiled, planar, deflate);
+        if (overview) {
+            writeImage(buffer, pointer, 2, tileWidth, tileHeight, tiled, planar, deflate);
+        }
+        final Path file = Files.createTempFile("DataSubsetTest", ".tiff");
+        try {
+            Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+        } catch (IOException e) {
+            Files.delete(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Writes the tiles of an image followed by its Image File Directory (IFD).
+     *
+     * @param  buffer      the buffer where to write the image.
+     * @param  pointer     position in the buffer where to write the offset of the IFD.
+     * @param  scale       1 for the full-resolution image, or the scale factor of an overview.
+     * @param  tileWidth   width of TIFF tiles. Ignored if {@code tiled} is {@code false}.
+     * @param  tileHeight  height of TIFF tiles, or number of rows per strip.
+     * @param  tiled       {@code true} for tiles, or {@code false} for strips.
+     * @param  planar      {@code true} for storing each band in a separated plane.
+     * @param  deflate     {@code true} for compressing tiles with "Deflate" and horizontal predictor.
+     * @return position in the buffer where to write the offset of the next IFD.
+     */
+    private static int writeImage(final ByteBuffer buffer, final int pointer, final int scale, int tileWidth,
+            final int tileHeight, final boolean tiled, final boolean planar, final boolean deflate)
+    {
+        final int width  = (WIDTH  + scale - 1) / scale;
+        final int height = (HEIGHT + scale - 1) / scale;
+        if (!tiled) tileWidth = width;
+        final int tilesAcross = (width  + tileWidth  - 1) / tileWidth;
+        final int tilesDown   = (height + tileHeight - 1) / tileHeight;
+        final int numPlanes   = planar ? NUM_BANDS : 1;
+        final int numSamples  = planar ? 1 : NUM_BANDS;
+        final long[] offsets  = new long[tilesAcross * tilesDown * numPlanes];
+        final long[] counts   = new long[offsets.length];
+        int tileIndex = 0;
+        for (int plane=0; plane < numPlanes; plane++) {
+            for (int row=0; row < tilesDown; row++) {
+                final int rowCount = tiled ? tileHeight : Math.min(tileHeight, height - row*tileHeight);
+                for (int column=0; column < tilesAcross; column++) {
+                    final ByteBuffer tile = ByteBuffer.allocate(rowCount * tileWidth * numSamples * Short.BYTES)
+                                                      .order(ByteOrder.LITTLE_ENDIAN);
+                    for (int y=0; y < rowCount; y++) {
+                        for (int x=0; x < tileWidth; x++) {
+                            for (int s=0; s < numSamples; s++) {
+                                final int px = column*tileWidth  + x;
+                                final int py = row   *tileHeight + y;
+                                int value = 0, previous = 0;
+                                if (px < width && py < height) {
+                                    value = sample(plane + s, px, py, scale);
+                                }
+                                if (deflate && x != 0 && px <= width && py < height) {
+                                    previous = sample(plane + s, px - 1, py, scale);
+                                }
+                                tile.putShort((short) (value - previous));      // Horizontal differencing.
+                            }
+                        }
+                    }
+                    byte[] bytes = tile.array();
+                    if (deflate) {
+                        final Deflater deflater = new Deflater();
+                        deflater.setInput(bytes);
+                        deflater.finish();
+                        final byte[] compressed = new byte[bytes.length + 64];
+                        bytes = Arrays.copyOf(compressed, deflater.deflate(compressed));
+                        deflater.end();
+                    }
+                    offsets[tileIndex] = buffer.position();
+                    counts [tileIndex] = bytes.length;
+                    buffer.put(bytes);
+                    tileIndex++;
+                }
+            }
+        }
+        final Map<Integer,Object> entries = new TreeMap<>();
+        if (scale != 1) {
+            entries.put((int) Tags.NewSubfileType,        new long[] {1});      // Reduced resolution.
+        }
+        entries.put((int) Tags.ImageWidth,                new long[] {width});
+        entries.put((int) Tags.ImageLength,               new long[] {height});
+        entries.put((int) Tags.BitsPerSample,             new long[] {Short.SIZE, Short.SIZE});
+        entries.put((int) Tags.Compression,               new long[] {deflate ? 8 : 1});
+        entries.put((int) Tags.Predictor,                 new long[] {deflate ? 2 : 1});
+        entries.put((int) Tags.PhotometricInterpretation, new long[] {1});
+        entries.put((int) Tags.SamplesPerPixel,           new long[] {NUM_BANDS});
+        entries.put((int) Tags.PlanarConfiguration,       new long[] {planar ? 2 : 1});
+        entries.put((int) Tags.SampleFormat,              new long[] {1, 1});
+        if (tiled) {
+            entries.put((int) Tags.TileWidth,             new long[] {tileWidth});
+            entries.put((int) Tags.TileLength,            new long[] {tileHeight});
+            entries.put((int) Tags.TileOffsets,           offsets);
+            entries.put((int) Tags.TileByteCounts,        counts);
+        } else {
+            entries.put((int) Tags.RowsPerStrip,          new long[] {tileHeight});
+            entries.put((int) Tags.StripOffsets,          offsets);
+            entries.put((int) Tags.StripByteCounts,       counts);
+        }
+        if (scale == 1) {
+            // Overviews usually have no georeferencing tags; they are inferred from the full-resolution image.
+            entries.put(Short.toUnsignedInt(Tags.ModelPixelScaleTag), new double[] {0.5, 0.25, 0});
+            entries.put(Short.toUnsignedInt(Tags.ModelTiePoints),     new double[] {0, 0, 0, 100, 200, 0});
+        }
+        /*
+         * Write the Image File Directory. Values that do not fit in 4 bytes
+         * are written after the directory.
+         */
+        final int ifdOffset = buffer.position();
+        buffer.putInt(pointer, ifdOffset);
+        buffer.putShort((short) entries.size());
+        int extra = ifdOffset + Short.BYTES + entries.size() * 12 + Integer.BYTES;
+        for (final Map.Entry<Integer,Object> entry : entries.entrySet()) {
+            final Object values = entry.getValue();
+            final int count, size;
+            final short type;
+            if (values instanceof double[]) {
+                type  = 12;                                 // DOUBLE
+                count = ((double[]) values).length;
+                size  = Double.BYTES;
+            } else {
+                type  = 4;                                  // LONG (unsigned 32 bits)
+                count = ((long[]) values).length;
+                size  = Integer.BYTES;
+            }
+            buffer.putShort(entry.getKey().shortValue()).putShort(type).putInt(count);
+            int position = buffer.position();
+            if (count * size > Integer.BYTES) {
+                buffer.putInt(extra);
+                position = extra;
+                extra += count * size;
+            } else {
+                buffer.putInt(0);
+            }
+            for (int i=0; i<count; i++) {
+                if (values instanceof double[]) {
+                    buffer.putDouble(position, ((double[]) values)[i]);
+                } else {
+                    buffer.putInt(position, (int) ((long[]) values)[i]);
+                }
+                position += size;
+            }
+        }
+        final int next = buffer.position();
+        buffer.putInt(0);                                   // No next IFD (may be updated later).
+        buffer.position(extra);
+        return next;
+    }
+
+    /**
+     * Reads the given file with the given domain and range, then verifies the sample values.
+     *
+     * @param  file          the file to read.
+     * @param  domain        the domain to request, or {@code null} for the full image.
+     * @param  xmin          expected column index in the TIFF image of the first pixel.
+     * @param  ymin          expected row index in the TIFF image of the first pixel.
+     * @param  xSubsampling  expected subsampling along the <var>x</var> axis.
+     * @param  ySubsampling  expected subsampling along the <var>y</var> axis.
+     * @param  width         expected image width.
+     * @param  height        expected image height.
+     * @param  delta         value to add to expected values: 0 for full resolution image or 1 for an overview.
+     * @param  range         bands to read, or an empty array for all bands.
+     */
+    private static void verify(final Path file, final Domain domain, final int xmin, final int ymin,
+            final int xSubsampling, final int ySubsampling, final int width, final int height,
+            final int delta, final int... range) throws DataStoreException
+    {
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            final GridCoverageResource resource = store.components().get(0);
+            final GridCoverage coverage = resource.read(domain != null ? domain.create(resource.getGridGeometry()) : null, range);
+            final RenderedImage image = coverage.render(null);
+            assertEquals("width",  width,  image.getWidth());
+            assertEquals("height", height, image.getHeight());
+            final Raster data = image.getData();
+            final int numBands = (range.length != 0) ? range.length : NUM_BANDS;
+            assertEquals("numBands", numBands, data.getNumBands());
+            for (int b=0; b<numBands; b++) {
+                final int band = (range.length != 0) ? range[b] : b;
+                for (int y=0; y<height; y++) {
+                    for (int x=0; x<width; x++) {
+                        assertEquals(expected(band, xmin + x*xSubsampling, ymin + y*ySubsampling) + delta,
+                                     data.getSample(image.getMinX() + x, image.getMinY() + y, b));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the domain to request from the full grid geometry of the resource.
+     */
+    @FunctionalInterface
+    private interface Domain {
+        GridGeometry create(GridGeometry full);
+    }
+
+    /**
+     * Returns a domain for a sub-region of the image with subsampling of 3 and 2 pixels along x and y axes.
+     * The resulting coverage starts at TIFF pixel (7,9) and has a size of 12×11 pixels.
+     * The width is expanded by one column because of {@code ENCLOSING} rounding mode.
+     */
+    private static GridGeometry subsampled(final GridGeometry full) {
+        final GridGeometry region = new GridGeometry(new GridExtent(null, new long[] {7, 9}, new long[] {40, 30}, true),
+                PixelInCell.CELL_CORNER, full.getGridToCRS(PixelInCell.CELL_CORNER), null);
+        return region.derive().subsample(3, 2).build();
+    }
+
+    /**
+     * Runs the tests on the given file, then delete the file.
+     */
+    private static void verifyAll(final Path file) throws IOException, DataStoreException {
+        try {
+            verify(file, null, 0, 0, 1, 1, WIDTH, HEIGHT, 0);
+            verify(file, null, 0, 0, 1, 1, WIDTH, HEIGHT, 0, 1);
+            verify(file, null, 0, 0, 1, 1, WIDTH, HEIGHT, 0, 1, 0);
+            verify(file, DataSubsetTest::subsampled, 7, 9, 3, 2, 12, 11, 0);
+            verify(file, DataSubsetTest::subsampled, 7, 9, 3, 2, 12, 11, 0, 1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests reading a tiled image with interleaved samples.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testTiled() throws IOException, DataStoreException {
+        verifyAll(createFile(16, 16, true, false, false, false));
+    }
+
+    /**
+     * Tests reading a tiled image compressed with "Deflate" method and horizontal predictor.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testDeflate() throws IOException, DataStoreException {
+        verifyAll(createFile(16, 16, true, false, true, false));
+    }
+
+    /**
+     * Tests reading a tiled image with each band in a separated plane.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testTiledPlanar() throws IOException, DataStoreException {
+        verifyAll(createFile(16, 16, true, true, false, false));
+    }
+
+    /**
+     * Tests reading a striped image where the last strip is truncated to the image height.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testStriped() throws IOException, DataStoreException {
+        verifyAll(createFile(0, 5, false, false, false, false));
+    }
+
+    /**
+     * Tests the selection of an overview when reading at a lower resolution.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testOverview() throws IOException, DataStoreException {
+        final Path file = createFile(16, 16, true, false, false, true);
+        try {
+            verify(file, null, 0, 0, 1, 1, WIDTH, HEIGHT, 0);
+            verify(file, (full) -> full.derive().subsample(2, 2).build(), 0, 0, 2, 2, 25, 19, 1);
+            verify(file, (full) -> full.derive().subsample(4, 4).build(), 0, 0, 4, 4, 13, 10, 1);
+            verify(file, (full) -> full.derive().subsample(2, 1).build(), 0, 0, 2, 1, 25, HEIGHT, 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A channel counting the number of read operations, for verifying that byte ranges are merged.
+     */
+    private static final class CountingChannel extends FileRangeChannel {
+        /** Number of read operations performed so far. */
+        final AtomicInteger count = new AtomicInteger();
+
+        /** Opens a channel for the given file. */
+        CountingChannel(final Path file) throws IOException {
+            super(file);
+        }
+
+        /** Counts the read operation, then delegates to the file channel. */
+        @Override public int read(final long start, final ByteBuffer target) throws IOException {
+            count.incrementAndGet();
+            return super.read(start, target);
+        }
+    }
+
+    /**
+     * Tests reading through a {@link FileRangeChannel}, as a stand-in for a cloud-optimized GeoTIFF
+     * on a remote server. The header and the image file directories shall be fetched in a single block,
+     * and all tiles (which are adjacent in the file) shall be fetched in a single read operation.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while reading the temporary file.
+     */
+    @Test
+    public void testByteRangeChannel() throws IOException, DataStoreException {
+        final Path file = createFile(16, 16, true, false, true, false);
+        try (CountingChannel channel = new CountingChannel(file);
+             GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(channel)))
+        {
+            final GridCoverageResource resource = store.components().get(0);
+            final RenderedImage image = resource.read(null).render(null);
+            // One read for the initial buffer of StorageConnector, then one for the prefetched header.
+            assertEquals("Number of read operations for the header.", 2, channel.count.get());
+            channel.count.set(0);
+            final Raster data = image.getData();
+            assertEquals("Number of read operations for all tiles.", 1, channel.count.get());
+            for (int b=0; b<NUM_BANDS; b++) {
+                for (int y=0; y<HEIGHT; y++) {
+                    for (int x=0; x<WIDTH; x++) {
+                        assertEquals(expected(b, x, y), data.getSample(x, y, b));
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.geotiff;
+
+import java.util.Arrays;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.datum.PixelInCell;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.coverage.BufferedGridCoverage;
+import org.apache.sis.referencing.CommonCRS;
+import org.apache.sis.referencing.operation.matrix.Matrix3;
+import org.apache.sis.referencing.operation.transform.MathTransforms;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.GridCoverageResource;
+import org.apache.sis.storage.NoSuchDataException;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.WritableGridCoverageResource;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Writer} class by writing coverages in temporary files and reading them back.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@DependsOn(DataSubsetTest.class)
+public final strictfp class WriterTest extends TestCase {
+    /**
+     * Size of the test image, in pixels. The width is chosen for requiring two tiles
+     * of {@value Writer#DEFAULT_TILE_SIZE} pixels, with the last tile partially filled.
+     */
+    private static final int WIDTH = 300, HEIGHT = 40;
+
+    /**
+     * Number of bands in the test image.
+     */
+    private static final int NUM_BANDS = 2;
+
+    /**
+     * Returns the sample value expected at the given location in the test image.
+     */
+    private static int expected(final int band, final int x, final int y) {
+        return band * 20000 + y * 300 + x - 10000;
+    }
+
+    /**
+     * Creates a coverage of signed 16 bits integers in a geographic CRS with (<var>latitude</var>,
+     * <var>longitude</var>) axis order. The writer will need to swap axes for GeoTIFF encoding.
+     */
+    private static GridCoverage createCoverage() {
+        final short[][] banks = new short[NUM_BANDS][WIDTH * HEIGHT];
+        for (int b=0; b<NUM_BANDS; b++) {
+            for (int y=0; y<HEIGHT; y++) {
+                for (int x=0; x<WIDTH; x++) {
+                    banks[b][y*WIDTH + x] = (short) expected(b, x, y);
+                }
+            }
+        }
+        final Matrix3 gridToCRS = new Matrix3(
+                0,  -0.5,  60,                  // Latitude decreasing with rows.
+                0.5,   0, -20,                  // Longitude increasing with columns.
+                0,     0,   1);
+        final GridGeometry grid = new GridGeometry(new GridExtent(WIDTH, HEIGHT), PixelInCell.CELL_CORNER,
+                MathTransforms.linear(gridToCRS), CommonCRS.WGS84.geographic());
+        final SampleDimension[] bands = new SampleDimension[NUM_BANDS];
+        for (int b=0; b<NUM_BANDS; b++) {
+            bands[b] = new SampleDimension.Builder().setName(b).build();
+        }
+        return new BufferedGridCoverage(grid, Arrays.asList(bands), new DataBufferShort(banks, WIDTH * HEIGHT));
+    }
+
+    /**
+     * Opens a GeoTIFF store on the given file in write mode.
+     */
+    private static GeoTiffStore open(final Path file) throws DataStoreException {
+        final StorageConnector connector = new StorageConnector(file);
+        connector.setOption(OptionKey.OPEN_OPTIONS, new OpenOption[] {StandardOpenOption.WRITE});
+        return new GeoTiffStore(null, connector);
+    }
+
+    /**
+     * Verifies the image and the georeferencing of the given resource.
+     */
+    private static void verify(final GridCoverageResource resource) throws DataStoreException {
+        final Envelope envelope = resource.getGridGeometry().getEnvelope();
+        assertEquals("xmin", -20, envelope.getMinimum(0), STRICT);
+        assertEquals("xmax", 130, envelope.getMaximum(0), STRICT);
+        assertEquals("ymin",  40, envelope.getMinimum(1), STRICT);
+        assertEquals("ymax",  60, envelope.getMaximum(1), STRICT);
+        final Raster raster = resource.read(null).render(null).getData();
+        assertEquals(DataBuffer.TYPE_SHORT, raster.getDataBuffer().getDataType());
+        assertEquals(NUM_BANDS, raster.getNumBands());
+        assertEquals(WIDTH,  raster.getWidth());
+        assertEquals(HEIGHT, raster.getHeight());
+        for (int b=0; b<NUM_BANDS; b++) {
+            for (int y=0; y<HEIGHT; y++) {
+                for (int x=0; x<WIDTH; x++) {
+                    assertEquals(expected(b, x, y), raster.getSample(x, y, b));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a coverage with the given options, then reads it back with the same data store
+     * and with a new read-only data store.
+     */
+    private static void writeAndRead(final WritableGridCoverageResource.Option... options) throws Exception {
+        final Path file = Files.createTempFile("WriterTest", ".tiff");
+        try {
+            try (GeoTiffStore store = open(file)) {
+                final WritableGridCoverageResource resource = (WritableGridCoverageResource) store.components().get(0);
+                try {
+                    resource.getGridGeometry();
+                    fail("No image should exist yet.");
+                } catch (NoSuchDataException e) {
+                    assertNotNull(e.getMessage());
+                }
+                resource.write(createCoverage(), options);
+                verify(resource);
+            }
+            try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+                verify(store.components().get(0));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests writing an uncompressed image.
+     *
+     * @throws Exception if an error occurred while writing or reading the test file.
+     */
+    @Test
+    public void testUncompressed() throws Exception {
+        writeAndRead();
+    }
+
+    /**
+     * Tests writing an image compressed with the "Deflate" method.
+     *
+     * @throws Exception if an error occurred while writing or reading the test file.
+     */
+    @Test
+    public void testDeflate() throws Exception {
+        writeAndRead(GeoTiffOption.DEFLATE);
+    }
+
+    /**
+     * Verifies that an existing image is not replaced unless {@link WritableGridCoverageResource.CommonOption#TRUNCATE}
+     * is specified.
+     *
+     * @throws Exception if an error occurred while writing or reading the test file.
+     */
+    @Test
+    public void testTruncate() throws Exception {
+        final Path file = Files.createTempFile("WriterTest", ".tiff");
+        try (GeoTiffStore store = open(file)) {
+            final WritableGridCoverageResource resource = (WritableGridCoverageResource) store.components().get(0);
+            resource.write(createCoverage());
+            try {
+                resource.write(createCoverage());
+                fail("Existing image should not be replaced.");
+            } catch (DataStoreException e) {
+                assertNotNull(e.getMessage());
+            }
+            try {
+                resource.write(createCoverage(), WritableGridCoverageResource.CommonOption.UPDATE);
+                fail("Update of existing image is not supported.");
+            } catch (DataStoreException e) {
+                assertNotNull(e.getMessage());
+            }
+            resource.write(createCoverage(), WritableGridCoverageResource.CommonOption.TRUNCATE);
+            verify(resource);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Verifies that a failure while encoding the new image leaves the existing image unchanged,
+     * and that unsupported options are rejected.
+     *
+     * @throws Exception if an error occurred while writing or reading the test file.
+     */
+    @Test
+    public void testFailedWrite() throws Exception {
+        final Path file = Files.createTempFile("WriterTest", ".tiff");
+        try (GeoTiffStore store = open(file)) {
+            final WritableGridCoverageResource resource = (WritableGridCoverageResource) store.components().get(0);
+            resource.write(createCoverage());
+            final GridCoverage valid = createCoverage();
+            final GridCoverage failing = new GridCoverage(valid.getGridGeometry(), valid.getSampleDimensions()) {
+                @Override public GridCoverage  forConvertedValues(boolean converted) {return this;}
+                @Override public RenderedImage render(GridExtent sliceExtent) {
+                    throw new IllegalStateException("Simulated failure.");
+                }
+            };
+            try {
+                resource.write(failing, WritableGridCoverageResource.CommonOption.TRUNCATE);
+                fail("Expected a simulated failure.");
+            } catch (IllegalStateException e) {
+                assertEquals("Simulated failure.", e.getMessage());
+            }
+            verify(resource);
+            try {
+                resource.write(valid, WritableGridCoverageResource.CommonOption.TRUNCATE,
+                        new WritableGridCoverageResource.Option() {});
+                fail("Unknown option should be rejected.");
+            } catch (IllegalArgumentException e) {
+                assertNotNull(e.getMessage());
+            }
+        }
+        try (GeoTiffStore store = new GeoTiffStore(null, new StorageConnector(file))) {
+            verify(store.components().get(0));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
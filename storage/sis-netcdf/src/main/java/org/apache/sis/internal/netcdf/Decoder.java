@@ -57,7 +57,7 @@ import org.apache.sis.util.iso.DefaultNameFactory;
  * Synchronizations are caller's responsibility.</p>
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.3
  * @module
  */
@@ -223,6 +223,22 @@ public abstract class Decoder extends ReferencingFactoryContainer implements Clo
      */
     public abstract String[] getSearchPath();
 
+    /**
+     * Returns whether variables can be read concurrently by many threads without synchronization.
+     * If {@code true}, then {@code Variable.readConcurrently(…)} may return non-null values for at
+     * least some variables. This is typically possible when the underlying channel supports positional
+     * reads, in which case each read operation can use its own channel position and buffer.
+     *
+     * <p>The default implementation returns {@code false}.</p>
+     *
+     * @return whether {@code Variable.readConcurrently(…)} may be supported.
+     *
+     * @see Variable#readConcurrently(org.apache.sis.coverage.grid.GridExtent, int[])
+     */
+    public boolean supportsConcurrentReads() {
+        return false;
+    }
+
     /**
      * Returns the names of all global attributes found in the file.
      *
@@ -18,9 +18,11 @@ package org.apache.sis.internal.netcdf;
 
 import java.util.Map;
 import java.util.List;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.Buffer;
@@ -33,6 +35,7 @@ import org.apache.sis.internal.storage.AbstractGridResource;
 import org.apache.sis.internal.storage.ResourceOnFileSystem;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.internal.util.Strings;
+import org.apache.sis.internal.system.CommonExecutor;
 import org.apache.sis.internal.coverage.RasterFactory;
 import org.apache.sis.coverage.SampleDimension;
 import org.apache.sis.coverage.grid.GridExtent;
@@ -163,6 +166,15 @@ public final class RasterResource extends AbstractGridResource implements Resour
      */
     private final Object lock;
 
+    /**
+     * Whether the variables may be read in parallel without holding the {@linkplain #lock}.
+     * This is {@code true} if the decoder has been opened on a channel supporting positional reads.
+     *
+     * @see Decoder#supportsConcurrentReads()
+     * @see Variable#readConcurrently(GridExtent, int[])
+     */
+    private final boolean concurrentReads;
+
     /**
      * Creates a new resource. All variables in the {@code data} list shall have the same domain and the same grid geometry.
      *
@@ -185,6 +197,7 @@ public final class RasterResource extends AbstractGridResource implements Resour
         gridGeometry  = grid;
         bandDimension = bandDim;
         this.lock     = lock;
+        concurrentReads = decoder.supportsConcurrentReads();
         assert data.length == (bandDimension >= 0 ? 1 : ranges.length);
     }
 
@@ -569,13 +582,16 @@ public final class RasterResource extends AbstractGridResource implements Resour
         final DataType dataType = first.getDataType();
         if (bandDimension < 0) {
             for (int i=0; i<rangeIndices.getNumBands(); i++) {
-                final Variable variable = data[rangeIndices.getSourceIndex(i)];
+                final Variable variable = getVariable(rangeIndices.getSourceIndex(i));
                 if (!dataType.equals(variable.getDataType())) {
                     throw new DataStoreContentException(Resources.forLocale(getLocale()).getString(
                             Resources.Keys.MismatchedVariableType_3, getFilename(), first.getName(), variable.getName()));
                 }
             }
         }
+        if (dataType.rasterDataType == DataBuffer.TYPE_UNDEFINED) {
+            throw new DataStoreContentException(Errors.getResources(getLocale()).getString(Errors.Keys.UnsupportedType_1, dataType.name()));
+        }
         /*
          * At this point the arguments and the state of this resource have been validated.
          * There is three ways to read the data, determined by `bandDimension` value:
@@ -584,7 +600,6 @@ public final class RasterResource extends AbstractGridResource implements Resour
          *   • (bandDimension = 0): one variable containing all bands, with bands in the first dimension.
          *   • (bandDimension > 0): one variable containing all bands, with bands in the last dimension.
          */
-        final DataBuffer imageBuffer;
         final SampleDimension[] bands = new SampleDimension[rangeIndices.getNumBands()];
         int[] bandOffsets = null;                                                   // By default, all bands start at index 0.
         try {
@@ -593,68 +608,39 @@ public final class RasterResource extends AbstractGridResource implements Resour
                     .subgrid(domain);
             GridExtent areaOfInterest = targetGeometry.getIntersection();           // Pixel indices of data to read.
             int[]      subsamplings   = targetGeometry.getSubsamplings();           // Slice to read or subsampling to apply.
-            int        numBuffers     = bands.length;                               // By default, one variable per band.
             domain = targetGeometry.build();                                        // Adjust user-specified domain to data geometry.
             if (bandDimension >= 0) {
                 areaOfInterest = rangeIndices.insertBandDimension(areaOfInterest, bandDimension);
                 subsamplings   = rangeIndices.insertSubsampling  (subsamplings,   bandDimension);
                 if (bandDimension == 0) {
-                    bandOffsets = new int[numBuffers];          // Will be set to non-zero values later.
+                    bandOffsets = new int[bands.length];        // Pixels interleaved in one bank.
+                    for (int i=0; i<bands.length; i++) {
+                        bandOffsets[rangeIndices.getTargetIndex(i)] = rangeIndices.getSubsampledIndex(i);
+                    }
                 }
-                numBuffers = 1;                                 // One variable for all bands.
             }
-            /*
-             * Iterate over netCDF variables in the order they appear in the file, not in the order requested
-             * by the 'range' argument.  The intent is to perform sequential I/O as much as possible, without
-             * seeking backward. In the (uncommon) case where bands are one of the variable dimension instead
-             * than different variables, the reading of the whole variable occurs during the first iteration.
-             */
-            Buffer[] sampleValues = new Buffer[numBuffers];
             synchronized (lock) {
                 for (int i=0; i<bands.length; i++) {
-                    int indexInResource = rangeIndices.getSourceIndex(i);     // In strictly increasing order.
-                    int indexInRaster   = rangeIndices.getTargetIndex(i);
-                    Variable variable   = getVariable(indexInResource);
-                    SampleDimension b   = ranges[indexInResource];
+                    final int indexInResource = rangeIndices.getSourceIndex(i);
+                    SampleDimension b = ranges[indexInResource];
                     if (b == null) {
-                        ranges[indexInResource] = b = createSampleDimension(rangeIndices.builder(), variable, i);
-                    }
-                    bands[indexInRaster] = b;
-                    if (bandOffsets != null) {
-                        bandOffsets[indexInRaster] = i;
-                        indexInRaster = 0;                  // Pixels interleaved in one bank: sampleValues.length = 1.
-                    }
-                    if (i < numBuffers) try {
-                        // Optional.orElseThrow() below should never fail since Variable.read(…) wraps primitive array.
-                        sampleValues[indexInRaster] = variable.read(areaOfInterest, subsamplings).buffer().get();
-                    } catch (ArithmeticException e) {
-                        throw variable.canNotComputePosition(e);
+                        ranges[indexInResource] = b = createSampleDimension(rangeIndices.builder(), getVariable(indexInResource), i);
                     }
+                    bands[rangeIndices.getTargetIndex(i)] = b;
                 }
             }
             /*
-             * The following block is executed only if all bands are in a single variable, and the bands dimension is
-             * the last one (in "natural" order). In such case, the sample model to construct is a BandedSampleModel.
-             * Contrarily to PixelInterleavedSampleModel (the case when the band dimension is first), banded sample
-             * model force us to split the buffer in a buffer for each band.
+             * If the domain is a two-dimensional slice, defer the reading of sample values until tiles
+             * are requested. Otherwise read all sample values now, since we can not tile a cube.
              */
-            if (bandDimension > 0) {                // Really > 0, not >= 0.
-                final int stride = Math.toIntExact(data[0].getBandStride());
-                Buffer values = sampleValues[0].limit(stride);
-                sampleValues = new Buffer[bands.length];
-                for (int i=0; i<sampleValues.length; i++) {
-                    if (i != 0) {
-                        values = JDK9.duplicate(values);
-                        final int p = values.limit();
-                        values.position(p).limit(Math.addExact(p, stride));
-                    }
-                    sampleValues[i] = values;
-                }
+            final List<SampleDimension> sampleDimensions = UnmodifiableArrayList.wrap(bands);
+            if (TiledRaster.isSupported(domain.getExtent())) {
+                final int[] s = subsamplings;
+                return new TiledRaster(domain, sampleDimensions, (area) -> read(area, s, rangeIndices, dataType),
+                        areaOfInterest, subsamplings, bandDimension, rangeIndices.getPixelStride(), bandOffsets, dataType);
             }
-            /*
-             * Convert NIO Buffer into Java2D DataBuffer. May throw various RuntimeException.
-             */
-            imageBuffer = RasterFactory.wrap(dataType.rasterDataType, sampleValues);
+            final DataBuffer imageBuffer = read(areaOfInterest, subsamplings, rangeIndices, dataType);
+            return new Raster(domain, sampleDimensions, imageBuffer, rangeIndices.getPixelStride(), bandOffsets, String.valueOf(identifier));
         } catch (IOException e) {
             throw new DataStoreException(canNotReadFile(), e);
         } catch (DisjointExtentException e) {
@@ -667,11 +653,127 @@ public final class RasterResource extends AbstractGridResource implements Resour
                 throw new DataStoreContentException(canNotReadFile(), e);
             }
         }
+    }
+
+    /**
+     * Reads the sample values of all requested bands in the given area of interest.
+     * This method is invoked by {@link #read(GridGeometry, int...)} for reading the whole area at once,
+     * or by {@link TiledRaster} for reading one tile. This method may be invoked from any thread.
+     * Note that {@code rangeIndices} shall not be modified after this method has been invoked.
+     *
+     * @param  areaOfInterest  pixel indices of data to read, including the band dimension if any.
+     * @param  subsamplings    subsampling to apply in each dimension of {@code areaOfInterest}.
+     * @param  rangeIndices    indices of bands to read.
+     * @param  dataType        the type of sample values, which shall have a raster data type.
+     * @return the sample values, with one bank per band unless pixels are interleaved.
+     * @throws IOException if an error occurred while reading the netCDF file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    private DataBuffer read(final GridExtent areaOfInterest, final int[] subsamplings,
+                          final RangeArgument rangeIndices, final DataType dataType)
+            throws IOException, DataStoreException
+    {
+        /*
+         * Iterate over netCDF variables in the order they appear in the file, not in the order requested
+         * by the 'range' argument.  The intent is to perform sequential I/O as much as possible, without
+         * seeking backward. In the (uncommon) case where bands are one of the variable dimension instead
+         * than different variables, the reading of the whole variable occurs in a single iteration.
+         */
+        Buffer[] sampleValues = new Buffer[bandDimension >= 0 ? 1 : rangeIndices.getNumBands()];
+        /*
+         * If the requested values are contiguous in a local uncompressed file, use read-only views over the
+         * memory-mapped file instead of copying the values in Java arrays. This is done only if all bands can
+         * be viewed that way, because a Java2D buffer can not mix Java arrays and NIO buffers.
+         */
+        boolean mapped = concurrentReads;
+        if (mapped) {
+            for (int i=0; i<sampleValues.length; i++) {
+                final Variable variable = getVariable(rangeIndices.getSourceIndex(i));
+                final int indexInRaster = (bandDimension >= 0) ? 0 : rangeIndices.getTargetIndex(i);
+                final Buffer values;
+                try {
+                    values = variable.readMapped(areaOfInterest, subsamplings);
+                } catch (ArithmeticException e) {
+                    throw variable.canNotComputePosition(e);
+                }
+                if (values == null) {
+                    Arrays.fill(sampleValues, null);
+                    mapped = false;
+                    break;
+                }
+                sampleValues[indexInRaster] = values;
+            }
+        }
+        /*
+         * If the netCDF file has been opened on a channel supporting positional reads (e.g. a FileChannel),
+         * variables can be read in parallel with independent channel positions, without holding the lock.
+         * This allows many bands, or concurrent requests on the same file, to be read in parallel.
+         * Variables that can not be read that way are read in the synchronized block after this one.
+         */
+        if (concurrentReads && !mapped) {
+            final List<Callable<Void>> tasks = new ArrayList<>(sampleValues.length);
+            for (int i=0; i<sampleValues.length; i++) {
+                final Variable variable = getVariable(rangeIndices.getSourceIndex(i));
+                final int indexInRaster = (bandDimension >= 0) ? 0 : rangeIndices.getTargetIndex(i);
+                final Buffer[] target = sampleValues;
+                tasks.add(() -> {
+                    try {
+                        final Vector values = variable.readConcurrently(areaOfInterest, subsamplings);
+                        if (values != null) {
+                            target[indexInRaster] = values.buffer().get();
+                        }
+                    } catch (ArithmeticException e) {
+                        throw variable.canNotComputePosition(e);
+                    }
+                    return null;
+                });
+            }
+            try {
+                CommonExecutor.invokeAll(tasks);
+            } catch (IOException | DataStoreException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DataStoreException(canNotReadFile(), e);
+            }
+        }
+        synchronized (lock) {
+            for (int i=0; i<sampleValues.length; i++) {
+                final int indexInRaster = (bandDimension >= 0) ? 0 : rangeIndices.getTargetIndex(i);
+                if (sampleValues[indexInRaster] != null) {
+                    continue;                               // Already read concurrently.
+                }
+                final Variable variable = getVariable(rangeIndices.getSourceIndex(i));
+                try {
+                    // Optional.orElseThrow() below should never fail since Variable.read(…) wraps primitive array.
+                    sampleValues[indexInRaster] = variable.read(areaOfInterest, subsamplings).buffer().get();
+                } catch (ArithmeticException e) {
+                    throw variable.canNotComputePosition(e);
+                }
+            }
+        }
+        /*
+         * The following block is executed only if all bands are in a single variable, and the bands dimension is
+         * the last one (in "natural" order). In such case, the sample model to construct is a BandedSampleModel.
+         * Contrarily to PixelInterleavedSampleModel (the case when the band dimension is first), banded sample
+         * model force us to split the buffer in a buffer for each band.
+         */
+        if (bandDimension > 0) {                // Really > 0, not >= 0.
+            final Buffer values = sampleValues[0];
+            final int stride = values.remaining() / rangeIndices.getPixelStride();
+            sampleValues = new Buffer[rangeIndices.getNumBands()];
+            for (int i=0; i<sampleValues.length; i++) {
+                final int start = values.position() + rangeIndices.getSubsampledIndex(i) * stride;
+                sampleValues[rangeIndices.getTargetIndex(i)] = JDK9.duplicate(values).position(start).limit(start + stride);
+            }
+        }
+        /*
+         * Convert NIO Buffer into Java2D DataBuffer. May throw various RuntimeException.
+         */
+        final DataBuffer imageBuffer = RasterFactory.wrap(dataType.rasterDataType, sampleValues);
         if (imageBuffer == null) {
             throw new DataStoreContentException(Errors.getResources(getLocale()).getString(Errors.Keys.UnsupportedType_1, dataType.name()));
         }
-        return new Raster(domain, UnmodifiableArrayList.wrap(bands), imageBuffer,
-                rangeIndices.getPixelStride(), bandOffsets, String.valueOf(identifier));
+        return imageBuffer;
     }
 
     /**
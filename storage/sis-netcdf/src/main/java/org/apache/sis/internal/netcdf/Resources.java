@@ -171,6 +171,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short UnsupportedDataType_3 = 5;
 
+        /**
+         * NetCDF-4 file “{0}” uses an unsupported HDF5 feature: {1}.
+         */
+        public static final short UnsupportedHDF5Feature_2 = 23;
+
         /**
          * Variable “{1}” is not found in the “{0}” file.
          */
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf;
+
+import java.util.List;
+import java.io.IOException;
+import java.awt.Point;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import org.opengis.metadata.spatial.DimensionNameType;
+import org.apache.sis.coverage.SampleDimension;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.coverage.ColorModelFactory;
+import org.apache.sis.internal.coverage.RasterFactory;
+import org.apache.sis.internal.coverage.TiledGridCoverage;
+import org.apache.sis.internal.util.CollectionsExt;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.ArraysExt;
+
+
+/**
+ * Data loaded from a {@link RasterResource} one tile at a time, only when a tile is requested.
+ * This is used instead of {@link Raster} when the requested domain is a two-dimensional slice,
+ * which is the usual case for viewers panning over large multi-dimensional model outputs.
+ * Tiles are read by {@link RasterResource} with the area of interest restricted to the tile,
+ * then cached by the parent class.
+ *
+ * <p>Since netCDF variables are stored with rows contiguous in the file, tiles span the full
+ * coverage width when it does not exceed {@value #MAX_TILE_WIDTH} pixels. The tile height is
+ * chosen for having approximately {@value #TILE_AREA} pixels per tile.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class TiledRaster extends TiledGridCoverage {
+    /**
+     * Maximal tile width in pixels.
+     */
+    static final int MAX_TILE_WIDTH = 1024;
+
+    /**
+     * Desired number of pixels in a tile.
+     */
+    static final int TILE_AREA = 0x40000;
+
+    /**
+     * The function reading sample values in an area of interest.
+     * This is implemented by {@link RasterResource}.
+     */
+    @FunctionalInterface
+    interface Reader {
+        /**
+         * Reads the sample values of all bands in the given area of interest.
+         * This method may be invoked from any thread.
+         *
+         * @param  area  pixel indices of data to read, including the band dimension if any.
+         * @return the sample values, with one bank per band unless pixels are interleaved.
+         * @throws IOException if an error occurred while reading the netCDF file.
+         * @throws DataStoreException if a logical error occurred.
+         */
+        DataBuffer read(GridExtent area) throws IOException, DataStoreException;
+    }
+
+    /**
+     * The function to use for reading tiles.
+     */
+    private final Reader reader;
+
+    /**
+     * Pixel indices in the netCDF variable of the region to read, including the band dimension if any.
+     */
+    private final GridExtent areaOfInterest;
+
+    /**
+     * Subsampling to apply in each dimension of {@link #areaOfInterest}.
+     */
+    private final int[] subsamplings;
+
+    /**
+     * Dimensions of {@link #areaOfInterest} which are the <var>x</var> and <var>y</var> axes of tiles.
+     */
+    private final int xDimension, yDimension;
+
+    /**
+     * Number of pixels along <var>x</var> and <var>y</var> axes in this coverage.
+     */
+    private final long width, height;
+
+    /**
+     * Creates a new coverage for the given area of interest.
+     *
+     * @param  domain          the grid geometry of the coverage to create.
+     * @param  range           sample dimensions of the coverage to create, in user-specified order.
+     * @param  reader          the function to use for reading tiles.
+     * @param  areaOfInterest  pixel indices in the netCDF variable of the region to read, including band dimension if any.
+     * @param  subsamplings    subsampling to apply in each dimension of {@code areaOfInterest}.
+     * @param  bandDimension   index in {@code areaOfInterest} of the dimension for bands, or -1 if none.
+     * @param  pixelStride     number of sample values per pixel when pixels are interleaved in a single bank.
+     * @param  bandOffsets     offsets of each band when pixels are interleaved in a single bank, or {@code null}.
+     * @param  dataType        the type of sample values in the netCDF variables.
+     */
+    TiledRaster(final GridGeometry domain, final List<SampleDimension> range, final Reader reader,
+                final GridExtent areaOfInterest, final int[] subsamplings, final int bandDimension,
+                final int pixelStride, final int[] bandOffsets, final DataType dataType)
+    {
+        super(domain, range, createSampleModel(domain.getExtent(), range.size(), pixelStride, bandOffsets, dataType),
+              ColorModelFactory.createColorModel(CollectionsExt.toArray(range, SampleDimension.class),
+                                                 0, dataType.rasterDataType, ColorModelFactory.GRAYSCALE));
+        final GridExtent extent = domain.getExtent();
+        final int[] dimensions = extent.getSubspaceDimensions(2);
+        this.reader         = reader;
+        this.areaOfInterest = areaOfInterest;
+        this.subsamplings   = subsamplings;
+        this.width          = extent.getSize(dimensions[0]);
+        this.height         = extent.getSize(dimensions[1]);
+        /*
+         * The band dimension, if any, has been inserted in `areaOfInterest`.
+         * Dimensions after the inserted one need to be shifted by one.
+         */
+        int xd = dimensions[0], yd = dimensions[1];
+        if (bandDimension >= 0) {
+            if (xd >= bandDimension) xd++;
+            if (yd >= bandDimension) yd++;
+        }
+        xDimension = xd;
+        yDimension = yd;
+    }
+
+    /**
+     * Returns whether the given extent can be handled by this class. This is true if at most two
+     * dimensions have a size greater than one, i.e. if the extent is a two-dimensional slice.
+     */
+    static boolean isSupported(final GridExtent extent) {
+        final int dimension = extent.getDimension();
+        if (dimension < 2) {
+            return false;
+        }
+        int count = 0;
+        for (int i=0; i<dimension; i++) {
+            if (extent.getSize(i) > 1 && ++count > 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the sample model for the tiles of the coverage. If the bands are a dimension of the netCDF
+     * variable stored before the <var>x</var> and <var>y</var> dimensions (in netCDF order), then pixels
+     * are interleaved in a single bank. Otherwise each band is stored in a separated bank.
+     */
+    private static SampleModel createSampleModel(final GridExtent extent, final int numBands,
+            final int pixelStride, final int[] bandOffsets, final DataType dataType)
+    {
+        final int[] dimensions = extent.getSubspaceDimensions(2);
+        final long width  = extent.getSize(dimensions[0]);
+        final long height = extent.getSize(dimensions[1]);
+        final int tileWidth  = (int) Math.min(width, MAX_TILE_WIDTH);
+        final int tileHeight = (int) Math.min(height, Math.max(1, TILE_AREA / tileWidth));
+        return createSampleModel(tileWidth, tileHeight, numBands, pixelStride, bandOffsets, dataType.rasterDataType);
+    }
+
+    /**
+     * Creates a sample model of the given size. This is used for the tile sample model,
+     * and for wrapping the sample values of tiles which are truncated by the coverage border.
+     */
+    private static SampleModel createSampleModel(final int width, final int height, final int numBands,
+            final int pixelStride, final int[] bandOffsets, final int dataType)
+    {
+        if (bandOffsets != null) {
+            return new PixelInterleavedSampleModel(dataType, width, height, pixelStride, width * pixelStride, bandOffsets);
+        } else {
+            return new BandedSampleModel(dataType, width, height, width, ArraysExt.range(0, numBands), new int[numBands]);
+        }
+    }
+
+    /**
+     * Reads the tile at the given index. The area of interest is restricted to the tile region,
+     * then sample values are read from the netCDF variables and wrapped in a raster.
+     * If the tile is truncated by the coverage border, sample values are copied in a raster
+     * of the full tile size.
+     *
+     * @param  tileX  column index of the tile to read.
+     * @param  tileY  row index of the tile to read.
+     * @return the tile at the given index.
+     * @throws Exception if an error occurred while reading the netCDF file.
+     */
+    @Override
+    protected java.awt.image.Raster readTile(final int tileX, final int tileY) throws Exception {
+        final int tileWidth  = sampleModel.getWidth();
+        final int tileHeight = sampleModel.getHeight();
+        final int x = tileX * tileWidth;
+        final int y = tileY * tileHeight;
+        final int w = (int) Math.min(tileWidth,  width  - x);
+        final int h = (int) Math.min(tileHeight, height - y);
+        final int dimension = areaOfInterest.getDimension();
+        final DimensionNameType[] axisTypes = new DimensionNameType[dimension];
+        final long[] low  = new long[dimension];
+        final long[] high = new long[dimension];
+        for (int i=0; i<dimension; i++) {
+            axisTypes[i] = areaOfInterest.getAxisType(i).orElse(null);
+            low [i] = areaOfInterest.getLow (i);
+            high[i] = areaOfInterest.getHigh(i);
+        }
+        low [xDimension] += x * (long) subsamplings[xDimension];
+        low [yDimension] += y * (long) subsamplings[yDimension];
+        high[xDimension]  = low[xDimension] + (w - 1) * (long) subsamplings[xDimension];
+        high[yDimension]  = low[yDimension] + (h - 1) * (long) subsamplings[yDimension];
+        final GridExtent area = new GridExtent(axisTypes, low, high, true);
+        final DataBuffer buffer = reader.read(area);
+        final Point location = new Point(x, y);
+        if (w == tileWidth && h == tileHeight) {
+            return RasterFactory.createRaster(sampleModel, buffer, location);
+        }
+        final SampleModel sm;
+        if (sampleModel instanceof PixelInterleavedSampleModel) {
+            final PixelInterleavedSampleModel pm = (PixelInterleavedSampleModel) sampleModel;
+            sm = createSampleModel(w, h, pm.getNumBands(), pm.getPixelStride(), pm.getBandOffsets(), pm.getDataType());
+        } else {
+            sm = createSampleModel(w, h, sampleModel.getNumBands(), 1, null, sampleModel.getDataType());
+        }
+        final WritableRaster tile = WritableRaster.createWritableRaster(sampleModel, location);
+        tile.setRect(RasterFactory.createRaster(sm, buffer, location));
+        return tile;
+    }
+}
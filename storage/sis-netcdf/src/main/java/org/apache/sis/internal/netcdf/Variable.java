@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Locale;
 import java.util.regex.Pattern;
 import java.io.IOException;
+import java.nio.Buffer;
 import java.time.Instant;
 import javax.measure.Unit;
 import org.opengis.referencing.operation.Matrix;
@@ -944,6 +945,53 @@ public abstract class Variable extends Node {
      */
     public abstract Vector read(GridExtent area, int[] subsampling) throws IOException, DataStoreException;
 
+    /**
+     * Reads a subsampled sub-area of the variable without synchronization on the lock of the data store,
+     * or returns {@code null} if this variable can not be read concurrently. This method behaves like
+     * {@link #read(GridExtent, int[])} except that it can be invoked from many threads in parallel,
+     * for example when the channel supports positional reads (independent channel positions).
+     * Callers should fallback on {@link #read(GridExtent, int[])} in a synchronized block if this
+     * method returns {@code null}.
+     *
+     * <p>Caller shall have invoked {@link #getNodataValues()} at least once in a synchronized block before to invoke
+     * this method, for making sure that the cached values used by {@link #replaceNaN(Object)} are initialized.</p>
+     *
+     * <p>The default implementation returns {@code null}.</p>
+     *
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     * @return the data as an array of a Java primitive type, or {@code null} if concurrent reads are not supported.
+     * @throws IOException if an error occurred while reading the data.
+     * @throws DataStoreException if a logical error occurred.
+     * @throws ArithmeticException if the size of the region to read exceeds {@link Integer#MAX_VALUE}, or other overflow occurs.
+     */
+    public Vector readConcurrently(GridExtent area, int[] subsampling) throws IOException, DataStoreException {
+        return null;
+    }
+
+    /**
+     * Returns a read-only view over the sample values of a sub-area without copying them in a Java array,
+     * or returns {@code null} if this variable can not be viewed that way. This is possible only for
+     * uncompressed variables stored in a local file, when the requested values are contiguous in the file
+     * (no subsampling, and all dimensions except the slowest varying one fully read) and when no fill value
+     * needs to be replaced by NaN. The returned buffer is typically a view over a memory-mapped file.
+     *
+     * <p>Caller shall have invoked {@link #getNodataValues()} at least once in a synchronized block before to invoke
+     * this method. This method can be invoked from any thread.</p>
+     *
+     * <p>The default implementation returns {@code null}.</p>
+     *
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     * @return a read-only view over the data, or {@code null} if not available.
+     * @throws IOException if an error occurred while mapping the data.
+     * @throws DataStoreException if a logical error occurred.
+     * @throws ArithmeticException if the position of the region overflows.
+     */
+    public Buffer readMapped(GridExtent area, int[] subsampling) throws IOException, DataStoreException {
+        return null;
+    }
+
     /**
      * Wraps the given data in a {@link Vector} with the assumption that accuracy in base 10 matters.
      * This method is suitable for coordinate axis variables, but should not be used for the main data.
@@ -982,6 +1030,16 @@ public abstract class Variable extends Node {
         }
     }
 
+    /**
+     * Returns whether {@link #replaceNaN(Object)} may modify the sample values read from this variable.
+     * If {@code false}, then the sample values can be used as stored in the file without modification.
+     *
+     * @return whether some fill values or missing values will be replaced by NaN.
+     */
+    protected final boolean hasNaNReplacements() {
+        return hasRealValues() && !getNodataValues().isEmpty();
+    }
+
     /**
      * Returns a coordinate for this two-dimensional grid coordinate axis. This is (indirectly) a callback method
      * for {@link Grid#getAxes(Decoder)}. The (<var>i</var>, <var>j</var>) indices are grid indices <em>before</em>
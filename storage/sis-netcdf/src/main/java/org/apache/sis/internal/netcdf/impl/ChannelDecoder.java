@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import javax.measure.UnitConverter;
 import javax.measure.IncommensurableException;
@@ -51,6 +52,7 @@ import org.apache.sis.internal.netcdf.NamedElement;
 import org.apache.sis.internal.netcdf.DiscreteSampling;
 import org.apache.sis.internal.netcdf.Resources;
 import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.ByteRangeChannel;
 import org.apache.sis.internal.util.Constants;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.internal.util.StandardDateFormat;
@@ -70,12 +72,15 @@ import ucar.nc2.constants.CF;
  * Provides netCDF decoding services as a standalone library.
  * The javadoc in this class uses the "file" word for the source of data, but
  * this implementation actually works with arbitrary {@link ReadableByteChannel}.
+ * The netCDF classic and 64-bit offset formats are parsed by this class, while the
+ * netCDF-4 format (a subset of HDF5) is parsed by {@link HDF5Reader}.
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  *
  * @see <a href="http://portal.opengeospatial.org/files/?artifact_id=43734">NetCDF Classic and 64-bit Offset Format (1.0)</a>
+ * @see HDF5Reader
  *
  * @since 0.3
  * @module
@@ -97,6 +102,12 @@ public final class ChannelDecoder extends Decoder {
      */
     public static final int MAX_VERSION = 2;
 
+    /**
+     * The first integer of HDF5 files, which is the format used by netCDF-4.
+     * NetCDF-4 files do not have a version number after this signature.
+     */
+    public static final int HDF5_SIGNATURE = HDF5Reader.SIGNATURE;
+
     /**
      * The encoding of dimension, variable and attribute names. This is fixed to UTF-8 by the netCDF specification.
      * Note however that the encoding of attribute values may be different.
@@ -199,6 +210,30 @@ public final class ChannelDecoder extends Decoder {
      */
     private Map<String,DimensionInfo> dimensionMap;
 
+    /**
+     * The attributes of netCDF-4 groups, with group paths as keys. Paths are relative to the root group
+     * and use {@code '/'} as separator. This map is empty for netCDF 3 files, which have no groups.
+     *
+     * @see #setSearchPath(String...)
+     */
+    private final Map<String,Map<String,Object>> groupAttributes;
+
+    /**
+     * The attribute maps where to search for attributes, in preference order.
+     * The default value contains only {@link #attributeMap}.
+     *
+     * @see #setSearchPath(String...)
+     * @see #findAttribute(String)
+     */
+    private List<Map<String,Object>> searchPath;
+
+    /**
+     * Names of the groups in {@link #searchPath}, with {@code null} for the global attributes.
+     *
+     * @see #getSearchPath()
+     */
+    private String[] searchPathNames;
+
     /**
      * The grid geometries, created when first needed.
      *
@@ -236,46 +271,67 @@ public final class ChannelDecoder extends Decoder {
         /*
          * Check the magic number, which is expected to be exactly 3 bytes forming the "CDF" string.
          * The 4th byte is the version number, which we opportunistically use after the magic number check.
+         * The only exception is the HDF5 signature, which is used by netCDF-4 files.
          */
         int version = input.readInt();
-        if ((version & 0xFFFFFF00) != MAGIC_NUMBER) {
-            throw new DataStoreContentException(errors().getString(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, getFilename()));
-        }
-        /*
-         * Check the version number.
-         */
-        version &= 0xFF;
-        switch (version) {
-            case 1:  is64bits = false; break;
-            case 2:  is64bits = true;  break;
-            default: throw new DataStoreContentException(errors().getString(Errors.Keys.UnsupportedFormatVersion_2, FORMAT_NAME, version));
-            // If more cases are added, remember to increment the MAX_VERSION constant.
-        }
-        numrecs = input.readInt();
-        /*
-         * Read the dimension, attribute and variable declarations. We expect exactly 3 lists,
-         * where any of them can be flagged as absent by a long (64 bits) 0.
-         */
         DimensionInfo[]    dimensions = null;
         VariableInfo[]     variables  = null;
         Map<String,Object> attributes = Collections.emptyMap();
-        for (int i=0; i<3; i++) {
-            final long tn = input.readLong();                   // Combination of tag and nelems
-            if (tn != 0) {
-                final int tag = (int) (tn >>> Integer.SIZE);
-                final int nelems = (int) tn;
-                ensureNonNegative(nelems, tag);
-                try {
-                    switch (tag) {
-                        case DIMENSION: dimensions = readDimensions(nelems); break;
-                        case VARIABLE:  variables  = readVariables (nelems, dimensions); break;
-                        case ATTRIBUTE: attributes = readAttributes(nelems); break;
-                        default:        throw malformedHeader();
+        if (version == HDF5Reader.SIGNATURE) {
+            /*
+             * NetCDF-4 format, which is a subset of HDF5. All the parsing is done by HDF5Reader.
+             * Unsupported HDF5 features cause a DataStoreContentException to be thrown, in which
+             * case the caller may fallback on the UCAR library.
+             */
+            is64bits = true;
+            numrecs  = 0;
+            final HDF5Reader reader = new HDF5Reader(this, input, this.encoding);
+            variables       = reader.variables;
+            attributes      = reader.attributes;
+            groupAttributes = reader.groupAttributes;
+            try {
+                dimensionMap = toCaseInsensitiveNameMap(reader.dimensions);
+            } catch (InvalidParameterCardinalityException e) {
+                throw malformedHeader().initCause(e);
+            }
+        } else {
+            if ((version & 0xFFFFFF00) != MAGIC_NUMBER) {
+                throw new DataStoreContentException(errors().getString(Errors.Keys.UnexpectedFileFormat_2, FORMAT_NAME, getFilename()));
+            }
+            /*
+             * Check the version number.
+             */
+            version &= 0xFF;
+            switch (version) {
+                case 1:  is64bits = false; break;
+                case 2:  is64bits = true;  break;
+                default: throw new DataStoreContentException(errors().getString(Errors.Keys.UnsupportedFormatVersion_2, FORMAT_NAME, version));
+                // If more cases are added, remember to increment the MAX_VERSION constant.
+            }
+            numrecs = input.readInt();
+            /*
+             * Read the dimension, attribute and variable declarations. We expect exactly 3 lists,
+             * where any of them can be flagged as absent by a long (64 bits) 0.
+             */
+            for (int i=0; i<3; i++) {
+                final long tn = input.readLong();                   // Combination of tag and nelems
+                if (tn != 0) {
+                    final int tag = (int) (tn >>> Integer.SIZE);
+                    final int nelems = (int) tn;
+                    ensureNonNegative(nelems, tag);
+                    try {
+                        switch (tag) {
+                            case DIMENSION: dimensions = readDimensions(nelems); break;
+                            case VARIABLE:  variables  = readVariables (nelems, dimensions); break;
+                            case ATTRIBUTE: attributes = readAttributes(nelems); break;
+                            default:        throw malformedHeader();
+                        }
+                    } catch (InvalidParameterCardinalityException e) {
+                        throw malformedHeader().initCause(e);
                     }
-                } catch (InvalidParameterCardinalityException e) {
-                    throw malformedHeader().initCause(e);
                 }
             }
+            groupAttributes = Collections.emptyMap();
         }
         this.attributeMap = attributes;
         if (variables != null) {
@@ -285,6 +341,8 @@ public final class ChannelDecoder extends Decoder {
             this.variables   = new VariableInfo[0];
             this.variableMap = Collections.emptyMap();
         }
+        searchPath      = Collections.singletonList(attributeMap);
+        searchPathNames = new String[1];
         initialize();
     }
 
@@ -683,13 +741,22 @@ public final class ChannelDecoder extends Decoder {
     /**
      * Defines the groups where to search for named attributes, in preference order.
      * The {@code null} group name stands for the global attributes.
-     *
-     * <p>Current implementation does nothing, since the netCDF binary files that {@code ChannelDecoder}
-     * can read do not have groups anyway. Future SIS implementations may honor the given group names if
-     * groups support is added.</p>
+     * Groups that do not exist in the file are ignored.
+     * Only netCDF-4 files can have groups; netCDF 3 files have only the global attributes.
      */
     @Override
     public void setSearchPath(final String... groupNames) {
+        final List<Map<String,Object>> maps  = new ArrayList<>(groupNames.length);
+        final List<String>             names = new ArrayList<>(groupNames.length);
+        for (final String name : groupNames) {
+            final Map<String,Object> group = (name != null) ? groupAttributes.get(name) : attributeMap;
+            if (group != null) {
+                maps .add(group);
+                names.add(name);
+            }
+        }
+        searchPath      = maps;
+        searchPathNames = names.toArray(new String[names.size()]);
     }
 
     /**
@@ -701,7 +768,19 @@ public final class ChannelDecoder extends Decoder {
      */
     @Override
     public String[] getSearchPath() {
-        return new String[1];
+        return searchPathNames.clone();
+    }
+
+    /**
+     * Returns whether variables can be read concurrently by many threads without synchronization.
+     * This is possible if the channel supports positional reads, i.e. is a {@link FileChannel} or a
+     * {@link ByteRangeChannel}. In such case, each concurrent read uses its own channel view and buffer.
+     *
+     * @return whether the channel supports concurrent positional reads.
+     */
+    @Override
+    public boolean supportsConcurrentReads() {
+        return (input.channel instanceof FileChannel) || (input.channel instanceof ByteRangeChannel);
     }
 
     /**
@@ -765,6 +844,22 @@ public final class ChannelDecoder extends Decoder {
      * @see #getAttributeNames()
      */
     private Object findAttribute(final String name) {
+        for (final Map<String,Object> attributes : searchPath) {
+            final Object value = findAttribute(attributes, name);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the attribute of the given name in the given map, or {@code null} if none.
+     * This method tries alternative names as documented in the body.
+     *
+     * @param  attributeMap  the global or group attributes where to search.
+     * @param  name          the name of the attribute to search, or {@code null}.
+     * @return the attribute value, or {@code null} if none.
+     */
+    private Object findAttribute(final Map<String,Object> attributeMap, final String name) {
         Object value = attributeMap.get(name);
         if (value == null && name != null) {
             /*
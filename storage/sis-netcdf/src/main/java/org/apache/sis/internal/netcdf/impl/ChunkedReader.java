@@ -0,0 +1,488 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.FloatBuffer;
+import java.nio.DoubleBuffer;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.storage.io.ByteRangeChannel;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.Numbers;
+
+
+/**
+ * Reader of HDF5 datasets stored in chunks, optionally compressed. This class plays the same role than
+ * {@link org.apache.sis.internal.storage.io.HyperRectangleReader} for the chunked layout of netCDF-4 files.
+ * Only the chunks intersecting the region to read are loaded and decompressed. Chunks are read in the order
+ * they appear in the file for reducing the amount of seeks.
+ *
+ * <p>The chunk index (a version 1 B-tree in most netCDF-4 files) is loaded when first needed.
+ * If the channel supports positional reads (see {@link ByteRangeChannel#view ByteRangeChannel.view(…)}),
+ * then chunks are read without the shared buffer and this reader can be used by many threads after the
+ * chunk index has been loaded.
+ * Supported filters are <cite>deflate</cite>, <cite>shuffle</cite> and <cite>Fletcher32</cite> (checksum
+ * ignored). Other filters cause a {@link DataStoreContentException} to be thrown at reading time.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class ChunkedReader {
+    /**
+     * Identifiers of the filters supported by this reader.
+     */
+    static final int DEFLATE = 1, SHUFFLE = 2, FLETCHER32 = 3;
+
+    /**
+     * The reader of the HDF5 file, used for accessing the channel and for decoding addresses.
+     */
+    private final HDF5Reader file;
+
+    /**
+     * Address of the chunk index, or of the data for some index types.
+     */
+    private final long indexAddress;
+
+    /**
+     * How the chunks are indexed, as one of the {@link HDF5Reader} constants.
+     */
+    private final int indexType;
+
+    /**
+     * Size and filter mask of the unique chunk, used only with {@link HDF5Reader#SINGLE_CHUNK} index.
+     */
+    private final long singleChunkSize;
+    private final int  singleChunkMask;
+
+    /**
+     * Dataset size and chunk size in "natural" order (first dimension varies fastest).
+     */
+    private final long[] shape;
+    private final int[]  chunkShape;
+
+    /**
+     * Number of bytes in a single chunk, before compression.
+     */
+    private final int chunkLength;
+
+    /**
+     * The filters to apply in reverse order for decoding chunks, or an empty array if none.
+     */
+    private final int[] filters;
+
+    /**
+     * The netCDF type of data and the byte order of values.
+     */
+    private final DataType dataType;
+    private final ByteOrder order;
+
+    /**
+     * The value of elements not written in any chunk, or {@code null} for zero.
+     */
+    private final byte[] fillValue;
+
+    /**
+     * A view of the channel supporting concurrent positional reads, or {@code null} if the channel
+     * does not support that feature. If non-null, chunks are read without the shared buffer of
+     * {@link HDF5Reader#input}, which allows reading chunks from different threads.
+     */
+    private final ByteRangeChannel positional;
+
+    /**
+     * All chunks of the dataset, loaded when first needed.
+     */
+    private volatile Chunk[] chunks;
+
+    /**
+     * Location of a chunk in the dataset and in the file.
+     */
+    private static final class Chunk {
+        /** Index of the first element of the chunk, in "natural" order. */
+        final long[] origin;
+
+        /** Position of the chunk in the file. */
+        final long address;
+
+        /** Number of bytes stored in the file, after filtering. */
+        final long size;
+
+        /** Bit mask of the filters that have <em>not</em> been applied on this chunk. */
+        final int mask;
+
+        /** Creates a new chunk description. */
+        Chunk(final long[] origin, final long address, final long size, final int mask) {
+            this.origin  = origin;
+            this.address = address;
+            this.size    = size;
+            this.mask    = mask;
+        }
+    }
+
+    /**
+     * Creates a new reader for the given dataset.
+     *
+     * @param  file      the reader of the HDF5 file.
+     * @param  dataset   the dataset for which to read values.
+     * @param  dataType  the netCDF type of data.
+     */
+    ChunkedReader(final HDF5Reader file, final HDF5Reader.DataObject dataset, final DataType dataType) {
+        this.file        = file;
+        this.dataType    = dataType;
+        this.order       = dataset.type.order();
+        this.fillValue   = dataset.fillValue;
+        this.filters     = (dataset.filters != null) ? dataset.filters : new int[0];
+        indexAddress     = dataset.dataAddress;
+        singleChunkSize  = dataset.singleChunkSize;
+        singleChunkMask  = dataset.singleChunkMask;
+        final int rank   = Math.max(dataset.shape.length, 1);
+        shape            = new long[rank];
+        chunkShape       = new int [rank];
+        long length      = dataType.size();
+        for (int i=0; i<rank; i++) {
+            final int j = dataset.shape.length - 1 - i;
+            shape[i] = (j >= 0) ? dataset.shape[j] : 1;
+            if (dataset.chunkShape != null && j >= 0) {
+                chunkShape[i] = dataset.chunkShape[j];
+            } else {
+                chunkShape[i] = Math.toIntExact(shape[i]);     // Contiguous dataset without data.
+            }
+            length = Math.multiplyExact(length, chunkShape[i]);
+        }
+        chunkLength = Math.toIntExact(length);
+        if (dataset.layout != HDF5Reader.CHUNKED) {
+            indexType = -1;
+        } else {
+            indexType = dataset.chunkIndex;
+        }
+        positional = ByteRangeChannel.view(file.input.channel, file.input.filename);
+    }
+
+    /**
+     * Returns whether {@link #read(long[], long[], int[])} can be invoked concurrently by many threads
+     * without synchronization. This is possible only if the channel supports positional reads and
+     * the chunk index has already been loaded (index loading uses the shared buffer).
+     */
+    final boolean isConcurrent() {
+        return positional != null && chunks != null;
+    }
+
+    /**
+     * Position of the first value of this variable in the file.
+     * This is used for sorting variables in file order.
+     */
+    final long origin() {
+        return indexAddress;
+    }
+
+    /**
+     * Returns the name of the file.
+     */
+    final String filename() {
+        return file.input.filename;
+    }
+
+    /**
+     * Returns the chunk index, loading it if needed.
+     */
+    private synchronized Chunk[] chunks() throws IOException, DataStoreException {
+        if (chunks == null) {
+            final List<Chunk> list = new ArrayList<>();
+            if (indexAddress != HDF5Reader.UNDEFINED) {
+                switch (indexType) {
+                    case HDF5Reader.BTREE_V1: {
+                        readIndexNode(indexAddress, list);
+                        break;
+                    }
+                    case HDF5Reader.SINGLE_CHUNK: {
+                        list.add(new Chunk(new long[shape.length], indexAddress,
+                                filters.length != 0 ? singleChunkSize : chunkLength, singleChunkMask));
+                        break;
+                    }
+                    case HDF5Reader.IMPLICIT: {
+                        final long[] origin = new long[shape.length];
+                        long address = indexAddress;
+                        do {
+                            list.add(new Chunk(origin.clone(), address, chunkLength, 0));
+                            address += chunkLength;
+                        } while (next(origin));
+                        break;
+                    }
+                    default: {
+                        throw file.unsupported("chunk index type " + indexType);
+                    }
+                }
+            }
+            list.sort((a, b) -> Long.compare(a.address, b.address));
+            chunks = list.toArray(new Chunk[list.size()]);
+        }
+        return chunks;
+    }
+
+    /**
+     * Moves the given chunk origin to the next chunk, in the order chunks are stored by implicit index.
+     *
+     * @return {@code false} if there is no more chunk.
+     */
+    private boolean next(final long[] origin) {
+        for (int i=0; i<origin.length; i++) {
+            origin[i] += chunkShape[i];
+            if (origin[i] < shape[i]) return true;
+            origin[i] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a node of the version 1 B-tree indexing raw data chunks, then its children recursively.
+     */
+    private void readIndexNode(final long address, final List<Chunk> list) throws IOException, DataStoreException {
+        final int rank = shape.length;
+        final int keySize = 2*Integer.BYTES + (rank + 1) * Long.BYTES;
+        ByteBuffer b = file.read(address, 8);
+        for (int i=0; i<4; i++) {
+            if (b.get() != "TREE".charAt(i)) throw file.malformed();
+        }
+        if (b.get() != 1) throw file.malformed();                       // Node type shall be "raw data chunks".
+        final int level = b.get();
+        final int count = b.getShort() & 0xFFFF;
+        final int sizeOfOffsets = file.offsetSize();
+        b = file.read(address + 8 + 2*sizeOfOffsets, count * (long) (keySize + sizeOfOffsets));
+        for (int i=0; i<count; i++) {
+            final long size = b.getInt() & 0xFFFFFFFFL;
+            final int  mask = b.getInt();
+            final long[] origin = new long[rank];
+            for (int j=rank; --j >= 0;) {
+                origin[j] = b.getLong();                                // Reverse order: HDF5 to natural.
+            }
+            b.getLong();                                                // Offset in the element size dimension.
+            final long child = file.offset(b);
+            if (level != 0) {
+                readIndexNode(child, list);
+            } else {
+                list.add(new Chunk(origin, child, size, mask));
+            }
+        }
+    }
+
+    /**
+     * Reads a subsampled sub-area of the dataset. All arrays are in "natural" order
+     * (first dimension varies fastest), as in {@link org.apache.sis.internal.storage.io.Region}.
+     *
+     * @param  lower        index of the first value to read along each dimension, inclusive.
+     * @param  upper        index after the last value to read along each dimension, exclusive.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     * @return the values in an array of a Java primitive type.
+     * @throws IOException if an error occurred while reading the file.
+     * @throws DataStoreException if a chunk can not be decoded.
+     * @throws ArithmeticException if the size of the region to read exceeds {@link Integer#MAX_VALUE}.
+     */
+    Object read(long[] lower, long[] upper, int[] subsampling) throws IOException, DataStoreException {
+        final int rank = shape.length;
+        if (lower.length == 0) {                            // Scalar.
+            lower = new long[1];
+            upper = new long[] {1};
+            subsampling = new int[] {1};
+        }
+        final int elementSize = dataType.size();
+        final long[] count  = new long[rank];
+        final long[] stride = new long[rank];                       // Output stride in number of elements.
+        long total = 1;
+        for (int i=0; i<rank; i++) {
+            count[i]  = Math.max(0, (upper[i] - lower[i] + subsampling[i] - 1) / subsampling[i]);
+            stride[i] = total;
+            total = Math.multiplyExact(total, count[i]);
+        }
+        final byte[] output = new byte[Math.toIntExact(Math.multiplyExact(total, elementSize))];
+        if (fillValue != null && fillValue.length == elementSize) {
+            for (int p=0; p<output.length; p += elementSize) {
+                System.arraycopy(fillValue, 0, output, p, elementSize);
+            }
+        }
+        /*
+         * For each chunk intersecting the region to read, compute the range of indices to copy
+         * in the chunk and in the output array, then copy the values using an "odometer" loop.
+         */
+        final long[] first = new long[rank];                        // Index in chunk of first value to copy.
+        final long[] n     = new long[rank];                        // Number of values to copy.
+        final long[] skip  = new long[rank];                        // Output index of first value to copy.
+        final long[] k     = new long[rank];                        // Odometer.
+        if (total != 0) {
+next:       for (final Chunk chunk : chunks()) {
+                for (int i=0; i<rank; i++) {
+                    final long o = chunk.origin[i];
+                    final long s = subsampling[i];
+                    long start = Math.max(lower[i], o);
+                    start += Math.floorMod(lower[i] - start, s);       // Align on subsampling grid.
+                    final long end = Math.min(upper[i], o + chunkShape[i]);
+                    if (start >= end) continue next;
+                    first[i] = start - o;
+                    n[i]     = (end - start + s - 1) / s;
+                    skip[i]  = (start - lower[i]) / s;
+                }
+                final byte[] data = decode(chunk);
+                Arrays.fill(k, 0);
+                do {
+                    long src = 0, dst = 0, cs = 1;
+                    for (int i=0; i<rank; i++) {
+                        src += (first[i] + k[i] * subsampling[i]) * cs;
+                        dst += (skip[i] + k[i]) * stride[i];
+                        cs  *= chunkShape[i];
+                    }
+                    int srcByte = Math.toIntExact(src * elementSize);
+                    int dstByte = Math.toIntExact(dst * elementSize);
+                    if (subsampling[0] == 1) {
+                        System.arraycopy(data, srcByte, output, dstByte, (int) n[0] * elementSize);
+                    } else {
+                        final int step = subsampling[0] * elementSize;
+                        for (long j=n[0]; --j >= 0;) {
+                            System.arraycopy(data, srcByte, output, dstByte, elementSize);
+                            srcByte += step;
+                            dstByte += elementSize;
+                        }
+                    }
+                } while (increment(k, n));
+            }
+        }
+        return toArray(ByteBuffer.wrap(output).order(order), dataType, Math.toIntExact(total));
+    }
+
+    /**
+     * Increments the odometer for all dimensions except the first one, which is handled by the inner loop.
+     *
+     * @return {@code false} if the iteration is finished.
+     */
+    private static boolean increment(final long[] k, final long[] n) {
+        for (int i=1; i<k.length; i++) {
+            if (++k[i] < n[i]) return true;
+            k[i] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the given chunk and applies the filters in reverse order.
+     *
+     * @return the uncompressed chunk, of length {@link #chunkLength}.
+     */
+    private byte[] decode(final Chunk chunk) throws IOException, DataStoreException {
+        byte[] data;
+        if (positional != null) {
+            data = new byte[Math.toIntExact(chunk.size)];
+            positional.readFully(Math.addExact(file.input.channelOffset, file.position(chunk.address)), ByteBuffer.wrap(data));
+        } else {
+            data = file.read(chunk.address, chunk.size).array();
+        }
+        boolean filtered = false;
+        for (int i=filters.length; --i >= 0;) {
+            if ((chunk.mask & (1 << i)) != 0) {
+                continue;                               // Filter skipped for this chunk.
+            }
+            filtered = true;
+            switch (filters[i]) {
+                case DEFLATE: {
+                    final Inflater inflater = new Inflater();
+                    try {
+                        inflater.setInput(data);
+                        final byte[] result = new byte[chunkLength];
+                        int length = 0;
+                        while (length < result.length && !inflater.finished()) {
+                            final int n = inflater.inflate(result, length, result.length - length);
+                            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                            length += n;
+                        }
+                        if (length != chunkLength || !inflater.finished()) {
+                            throw file.malformed();             // Truncated or corrupted deflate stream.
+                        }
+                        data = result;
+                    } catch (DataFormatException e) {
+                        throw new DataStoreContentException(e.getLocalizedMessage(), e);
+                    } finally {
+                        inflater.end();
+                    }
+                    break;
+                }
+                case SHUFFLE: {
+                    final int size = dataType.size();
+                    if (size > 1) {
+                        final byte[] result = new byte[data.length];
+                        final int count = data.length / size;
+                        int p = 0;
+                        for (int b=0; b<size; b++) {
+                            for (int e=0; e<count; e++) {
+                                result[e*size + b] = data[p++];
+                            }
+                        }
+                        System.arraycopy(data, p, result, p, data.length - p);
+                        data = result;
+                    }
+                    break;
+                }
+                case FLETCHER32: {
+                    data = Arrays.copyOf(data, data.length - Integer.BYTES);
+                    break;
+                }
+                default: {
+                    throw file.unsupported("filter " + filters[i]);
+                }
+            }
+        }
+        if (data.length != chunkLength) {
+            if (filtered) {
+                throw file.malformed();
+            }
+            if (data.length < chunkLength) {
+                data = Arrays.copyOf(data, chunkLength);        // Unfiltered chunk stored with less bytes.
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Copies the values of the given buffer in an array of the Java primitive type for the given data type.
+     * The buffer byte order shall be the byte order of the values.
+     *
+     * @param  data      the buffer from which to read values, starting at current position.
+     * @param  dataType  the type of values to read. Shall not be {@link DataType#UNKNOWN} or {@link DataType#STRING}.
+     * @param  length    number of values to read.
+     * @return the values in an array of a Java primitive type.
+     */
+    static Object toArray(final ByteBuffer data, final DataType dataType, final int length) {
+        final Buffer view = HDF5Reader.view(data, dataType);
+        switch (dataType.number) {
+            case Numbers.BYTE:    {final byte[]   a = new byte  [length]; ((ByteBuffer)   view).get(a); return a;}
+            case Numbers.SHORT:   {final short[]  a = new short [length]; ((ShortBuffer)  view).get(a); return a;}
+            case Numbers.INTEGER: {final int[]    a = new int   [length]; ((IntBuffer)    view).get(a); return a;}
+            case Numbers.LONG:    {final long[]   a = new long  [length]; ((LongBuffer)   view).get(a); return a;}
+            case Numbers.FLOAT:   {final float[]  a = new float [length]; ((FloatBuffer)  view).get(a); return a;}
+            default:              {final double[] a = new double[length]; ((DoubleBuffer) view).get(a); return a;}
+        }
+    }
+}
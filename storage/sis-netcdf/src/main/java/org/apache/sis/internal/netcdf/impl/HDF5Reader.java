@@ -0,0 +1,1444 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.Resources;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.internal.storage.io.HyperRectangleReader;
+import org.apache.sis.internal.util.CollectionsExt;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.math.Vector;
+
+
+/**
+ * Parser of the HDF5 structures used by netCDF-4 files. This class reads the superblock, walks the group hierarchy
+ * and creates the {@link DimensionInfo} and {@link VariableInfo} instances needed by {@link ChannelDecoder}.
+ * Only the subset of HDF5 written by the netCDF-4 library is supported:
+ *
+ * <ul>
+ *   <li>Superblock versions 0 to 3, object header versions 1 and 2.</li>
+ *   <li>Groups stored as symbol tables (version 1 B-tree and local heap) or as links,
+ *       either compact or dense (fractal heap indexed by a version 2 B-tree).</li>
+ *   <li>Attributes stored in object headers or in dense storage. Variable-length values are read from global heaps.</li>
+ *   <li>Compact, contiguous and chunked layouts. Chunked data are read by {@link ChunkedReader}.</li>
+ *   <li>Dimensions represented by dimension scales and {@code DIMENSION_LIST} attributes.</li>
+ * </ul>
+ *
+ * All HDF5 metadata are little-endian, regardless the byte order of variable data.
+ * Addresses and lengths are stored on a number of bytes specified in the superblock.
+ *
+ * @author  agent
+ * @version 1.1
+ *
+ * @see <a href="https://support.hdfgroup.org/HDF5/doc/H5.format.html">HDF5 File Format Specification</a>
+ * @see <a href="https://www.unidata.ucar.edu/software/netcdf/docs/file_format_specifications.html">NetCDF-4 format</a>
+ *
+ * @since 1.1
+ * @module
+ */
+final class HDF5Reader {
+    /**
+     * The first four bytes of the HDF5 format signature, read as a big-endian integer.
+     * The complete signature is {@code \211HDF\r\n\032\n}.
+     */
+    static final int SIGNATURE = 0x89484446;
+
+    /**
+     * The last four bytes of the HDF5 format signature, read as a big-endian integer.
+     */
+    private static final int SIGNATURE_END = 0x0D0A1A0A;
+
+    /**
+     * Value of addresses when undefined, and value of dimension maximal sizes when unlimited.
+     * This is the value of a field having all its bits set, after conversion to {@code long}.
+     */
+    static final long UNDEFINED = -1;
+
+    /**
+     * Type of header messages in object headers.
+     */
+    private static final int DATASPACE = 0x01, LINK_INFO = 0x02, DATATYPE = 0x03, FILL_VALUE_OLD = 0x04,
+            FILL_VALUE = 0x05, LINK = 0x06, LAYOUT = 0x08, FILTERS = 0x0B, ATTRIBUTE = 0x0C,
+            CONTINUATION = 0x10, SYMBOL_TABLE = 0x11, ATTRIBUTE_INFO = 0x15;
+
+    /**
+     * Classes of data types supported by this reader.
+     */
+    private static final int FIXED_POINT = 0, FLOATING_POINT = 1, STRING = 3, REFERENCE = 7, VARIABLE_LENGTH = 9;
+
+    /**
+     * Data storage layouts, as encoded in the data layout message.
+     */
+    static final int COMPACT = 0, CONTIGUOUS = 1, CHUNKED = 2;
+
+    /**
+     * Chunk indexing types. Version 3 of layout messages always use a version 1 B-tree;
+     * version 4 of layout messages can use other indexes, only some of which are supported.
+     */
+    static final int BTREE_V1 = 0, SINGLE_CHUNK = 1, IMPLICIT = 2;
+
+    /**
+     * The attributes used by the netCDF-4 library for encoding dimensions. They are not exposed to users.
+     */
+    private static final Set<String> HIDDEN_ATTRIBUTES = new HashSet<>(Arrays.asList("CLASS", "NAME",
+            "REFERENCE_LIST", "DIMENSION_LIST", "_Netcdf4Dimid", "_Netcdf4Coordinates", "_nc3_strict", "_NCProperties"));
+
+    /**
+     * Prefix of the {@code NAME} attribute value of dimension scales which are not netCDF variables.
+     */
+    private static final String PURE_DIMENSION = "This is a netCDF dimension but not a netCDF variable";
+
+    /**
+     * The decoder for which this reader is parsing the file.
+     */
+    final ChannelDecoder decoder;
+
+    /**
+     * The channel together with a buffer for reading the file.
+     */
+    final ChannelDataInput input;
+
+    /**
+     * The character encoding of ASCII strings. Strings declared as UTF-8 are always decoded in UTF-8.
+     */
+    private final Charset encoding;
+
+    /**
+     * Absolute position of the file address 0. All addresses in the file are relative to this base.
+     */
+    private final long base;
+
+    /**
+     * Number of bytes used for encoding addresses and lengths. Specified in the superblock.
+     */
+    private final int sizeOfOffsets, sizeOfLengths;
+
+    /**
+     * The global heap collections read so far, for fetching variable-length values.
+     */
+    private final Map<Long,ByteBuffer> globalHeaps;
+
+    /**
+     * Addresses of all objects visited so far, for avoiding infinite loops in cyclic groups.
+     */
+    private final Set<Long> visited;
+
+    /**
+     * All datasets found in all groups, in the order they have been encountered.
+     */
+    private final List<DataObject> datasets;
+
+    /**
+     * The attributes of the root group.
+     */
+    final Map<String,Object> attributes;
+
+    /**
+     * The attributes of sub-groups, with group paths (without leading {@code '/'}) as keys.
+     */
+    final Map<String,Map<String,Object>> groupAttributes;
+
+    /**
+     * All dimensions found in the file.
+     */
+    final DimensionInfo[] dimensions;
+
+    /**
+     * All variables found in the file.
+     */
+    final VariableInfo[] variables;
+
+    /**
+     * Parses the HDF5 file. Caller shall have read the first four bytes (the {@link #SIGNATURE}) already.
+     *
+     * @param  decoder  the decoder for which to parse the file.
+     * @param  input    the channel positioned after the first four bytes of the file.
+     * @param  encoding the character encoding of ASCII strings.
+     * @throws IOException if an error occurred while reading the channel.
+     * @throws DataStoreException if the file is not a valid HDF5 file or uses unsupported features.
+     * @throws ArithmeticException if a dimension is too large.
+     */
+    HDF5Reader(final ChannelDecoder decoder, final ChannelDataInput input, final Charset encoding) throws IOException, DataStoreException {
+        this.decoder    = decoder;
+        this.input      = input;
+        this.encoding   = encoding;
+        globalHeaps     = new HashMap<>();
+        visited         = new HashSet<>();
+        datasets        = new ArrayList<>();
+        groupAttributes = new LinkedHashMap<>();
+        if (!(input.channel instanceof SeekableByteChannel)) {
+            throw unsupported("forward-only stream");
+        }
+        final long start = input.getStreamPosition() - Integer.BYTES;
+        if (input.readInt() != SIGNATURE_END) {
+            throw malformed();
+        }
+        /*
+         * Superblock versions 0 and 1 have a different layout than versions 2 and 3,
+         * but all of them specify the size of offsets and lengths before the addresses.
+         */
+        ByteBuffer b = readAt(start + 8, 16);
+        final int version = b.get(0);
+        final long root;
+        switch (version) {
+            case 0:
+            case 1: {
+                sizeOfOffsets = b.get(5);
+                sizeOfLengths = b.get(6);
+                validateSizes();
+                b = readAt(start + (version == 0 ? 24 : 28), 6*sizeOfOffsets);
+                base = offset(b);
+                b.position(b.position() + 4*sizeOfOffsets);       // Free-space, EOF, driver, link name.
+                root = offset(b);
+                break;
+            }
+            case 2:
+            case 3: {
+                sizeOfOffsets = b.get(1);
+                sizeOfLengths = b.get(2);
+                validateSizes();
+                b = readAt(start + 12, 4*sizeOfOffsets);
+                base = offset(b);
+                b.position(b.position() + 2*sizeOfOffsets);       // Superblock extension, EOF.
+                root = offset(b);
+                break;
+            }
+            default: {
+                throw new DataStoreContentException(decoder.errors().getString(
+                        Errors.Keys.UnsupportedFormatVersion_2, "HDF5", version));
+            }
+        }
+        final DataObject group = readObject("", root);
+        if (!group.isGroup) {
+            throw malformed();
+        }
+        attributes = visit(group);
+        /*
+         * Dimensions are datasets flagged as "dimension scales". Other datasets reference them
+         * by their addresses in their DIMENSION_LIST attribute. NetCDF-4 also stores dimension
+         * identifiers in the "_Netcdf4Dimid" attribute, which we use as a fallback.
+         */
+        final List<DimensionInfo>      allDimensions = new ArrayList<>();
+        final Map<Long,DimensionInfo>  scales        = new HashMap<>();
+        final Map<Long,DimensionInfo>  dimensionIds  = new HashMap<>();
+        final Map<Long,DimensionInfo>  anonymous     = new HashMap<>();
+        for (final DataObject dataset : datasets) {
+            if ("DIMENSION_SCALE".equals(dataset.attributes.get("CLASS")) && dataset.shape.length != 0) {
+                final DimensionInfo dim = dimension(dataset.name, dataset, 0);
+                allDimensions.add(dim);
+                scales.put(dataset.address, dim);
+                final Object id = dataset.attributes.get("_Netcdf4Dimid");
+                if (id instanceof Number) {
+                    dimensionIds.put(((Number) id).longValue(), dim);
+                }
+            }
+        }
+        final List<VariableInfo> allVariables = new ArrayList<>(datasets.size());
+        for (final DataObject dataset : datasets) {
+            final Object name = dataset.attributes.get("NAME");
+            if (name instanceof String && ((String) name).startsWith(PURE_DIMENSION)) {
+                continue;
+            }
+            final int rank = dataset.shape.length;
+            final DimensionInfo[] varDims = new DimensionInfo[rank];
+            if (dataset.dimensionList != null && dataset.dimensionList.length == rank) {
+                for (int i=0; i<rank; i++) {
+                    varDims[i] = scales.get(dataset.dimensionList[i]);
+                }
+            } else if (rank == 1 && scales.containsKey(dataset.address)) {
+                varDims[0] = scales.get(dataset.address);
+            } else {
+                final Object ids = dataset.attributes.get("_Netcdf4Coordinates");
+                if (ids instanceof Vector && ((Vector) ids).size() == rank) {
+                    for (int i=0; i<rank; i++) {
+                        varDims[i] = dimensionIds.get(((Vector) ids).longValue(i));
+                    }
+                } else if (ids instanceof Number && rank == 1) {
+                    varDims[0] = dimensionIds.get(((Number) ids).longValue());
+                }
+            }
+            /*
+             * Plain HDF5 datasets (not written by the netCDF library) have no dimension scales.
+             * Create anonymous dimensions in the same way than the netCDF-4 library does.
+             */
+            for (int i=0; i<rank; i++) {
+                if (varDims[i] == null) {
+                    final long length = dataset.shape[i];
+                    DimensionInfo dim = anonymous.get(length);
+                    if (dim == null) {
+                        dim = dimension("phony_dim_" + anonymous.size(), dataset, i);
+                        anonymous.put(length, dim);
+                        allDimensions.add(dim);
+                    }
+                    varDims[i] = dim;
+                }
+            }
+            dataset.attributes.keySet().removeAll(HIDDEN_ATTRIBUTES);
+            final DataType dataType = dataset.type.toDataType();
+            HyperRectangleReader reader = null;
+            ChunkedReader chunks = null;
+            if (dataType.size() != 0) {
+                switch (dataset.layout) {
+                    case COMPACT: {
+                        final ByteBuffer data = ByteBuffer.wrap(dataset.compactData).order(dataset.type.order());
+                        reader = new HyperRectangleReader(decoder.getFilename(), view(data, dataType));
+                        break;
+                    }
+                    case CONTIGUOUS: {
+                        if (dataset.dataAddress != UNDEFINED) {
+                            final ByteOrder order = input.buffer.order();
+                            input.buffer.order(dataset.type.order());
+                            try {
+                                reader = new HyperRectangleReader(dataType.number, input, base + dataset.dataAddress);
+                            } finally {
+                                input.buffer.order(order);
+                            }
+                        } else {
+                            // Data never written: ChunkedReader will return the fill value.
+                            chunks = new ChunkedReader(this, dataset, dataType);
+                        }
+                        break;
+                    }
+                    default: {
+                        chunks = new ChunkedReader(this, dataset, dataType);
+                        break;
+                    }
+                }
+            }
+            allVariables.add(new VariableInfo(decoder, dataset.name, varDims,
+                    CollectionsExt.toCaseInsensitiveNameMap(dataset.attributes.entrySet(), ChannelDecoder.NAME_LOCALE),
+                    dataType, reader, chunks));
+        }
+        dimensions = allDimensions.toArray(new DimensionInfo[allDimensions.size()]);
+        variables  = allVariables .toArray(new VariableInfo [allVariables .size()]);
+        VariableInfo.markCoordinateVariables(variables);
+    }
+
+    /**
+     * Verifies that the sizes of offsets and lengths are supported.
+     */
+    private void validateSizes() throws DataStoreContentException {
+        for (final int size : new int[] {sizeOfOffsets, sizeOfLengths}) {
+            if (size != Short.BYTES && size != Integer.BYTES && size != Long.BYTES) {
+                throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Creates a dimension for the given dimension index of the given dataset.
+     */
+    private static DimensionInfo dimension(final String name, final DataObject dataset, final int i) {
+        final long length = dataset.shape[i];
+        if ((length & ~0xFFFFFFFFL) != 0) {
+            throw new ArithmeticException(Errors.format(Errors.Keys.IntegerOverflow_1, Integer.SIZE));
+        }
+        final boolean isUnlimited = (dataset.maxShape != null) && dataset.maxShape[i] == UNDEFINED;
+        return new DimensionInfo(name, (int) length, isUnlimited);
+    }
+
+    /**
+     * Returns a view of the given buffer as a buffer of the type used for storing values of the given type.
+     */
+    static java.nio.Buffer view(final ByteBuffer data, final DataType type) {
+        switch (type.size()) {
+            case Short.BYTES:   return data.asShortBuffer();
+            case Integer.BYTES: return type.isInteger ? data.asIntBuffer()  : data.asFloatBuffer();
+            case Long.BYTES:    return type.isInteger ? data.asLongBuffer() : data.asDoubleBuffer();
+            default:            return data;
+        }
+    }
+
+    /**
+     * Returns the exception to throw when the file does not comply with the HDF5 format.
+     */
+    final DataStoreContentException malformed() {
+        return new DataStoreContentException(decoder.listeners.getLocale(), Decoder.FORMAT_NAME, decoder.getFilename(), null);
+    }
+
+    /**
+     * Returns the exception to throw when the file uses a HDF5 feature not supported by this reader.
+     *
+     * @param  feature  description of the unsupported feature.
+     */
+    final DataStoreContentException unsupported(final String feature) {
+        return new DataStoreContentException(decoder.resources().getString(
+                Resources.Keys.UnsupportedHDF5Feature_2, decoder.getFilename(), feature));
+    }
+
+    /**
+     * Reads the given amount of bytes at the given absolute position in the channel.
+     * The returned buffer uses little-endian byte order, as all HDF5 metadata.
+     */
+    private ByteBuffer readAt(final long position, final int length) throws IOException {
+        input.seek(position);
+        return ByteBuffer.wrap(input.readBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads the given amount of bytes at the given HDF5 address.
+     * The returned buffer uses little-endian byte order, as all HDF5 metadata.
+     *
+     * @param  address  the address relative to the base address.
+     * @param  length   number of bytes to read.
+     * @return the bytes in a little-endian buffer.
+     * @throws IOException if an error occurred while reading the channel.
+     */
+    final ByteBuffer read(final long address, final long length) throws IOException, DataStoreContentException {
+        if (address == UNDEFINED || length < 0 || length > Integer.MAX_VALUE) {
+            throw malformed();
+        }
+        return readAt(position(address), (int) length);
+    }
+
+    /**
+     * Converts the given HDF5 address to a stream position.
+     *
+     * @param  address  the address relative to the base address.
+     * @return the position in the {@linkplain #input} stream.
+     */
+    final long position(final long address) {
+        return Math.addExact(base, address);
+    }
+
+    /**
+     * Verifies that the next four bytes in the given buffer are the given signature.
+     */
+    private void expect(final ByteBuffer b, final String signature) throws DataStoreContentException {
+        for (int i=0; i<4; i++) {
+            if (b.get() != signature.charAt(i)) {
+                throw malformed();
+            }
+        }
+    }
+
+    /**
+     * Reads an unsigned integer encoded on the given number of bytes in little-endian order.
+     */
+    static long uint(final ByteBuffer b, final int size) {
+        long value = 0;
+        for (int i=0; i<size; i++) {
+            value |= (b.get() & 0xFFL) << (i * Byte.SIZE);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned integer encoded on the given number of bytes, or {@link #UNDEFINED} if all bits are set.
+     */
+    private static long uintOrUndefined(final ByteBuffer b, final int size) {
+        final long value = uint(b, size);
+        return (size < Long.BYTES && value == (1L << (size * Byte.SIZE)) - 1) ? UNDEFINED : value;
+    }
+
+    /**
+     * Returns the number of bytes used for encoding addresses.
+     */
+    final int offsetSize() {
+        return sizeOfOffsets;
+    }
+
+    /**
+     * Reads an address, or {@link #UNDEFINED} if the address is undefined.
+     */
+    final long offset(final ByteBuffer b) {
+        return uintOrUndefined(b, sizeOfOffsets);
+    }
+
+    /**
+     * Reads a length.
+     */
+    final long length(final ByteBuffer b) {
+        return uint(b, sizeOfLengths);
+    }
+
+    /**
+     * Returns the number of bytes needed for encoding the given value. This is the formula
+     * used by the HDF5 library for the size of fields depending on a maximal value.
+     */
+    private static int encodedSize(final long value) {
+        return (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) / Byte.SIZE + 1;
+    }
+
+    /**
+     * Returns the base 2 logarithm of the given value, which is assumed a power of 2.
+     */
+    private static int log2(final long value) {
+        return Long.numberOfTrailingZeros(value);
+    }
+
+    /**
+     * Returns the given value rounded to the next multiple of 8.
+     */
+    private static int pad8(final int n) {
+        return (n + 7) & ~7;
+    }
+
+    /**
+     * Reads a null-terminated string in the given buffer at the given position.
+     */
+    private static String cstring(final ByteBuffer b, final int position) {
+        int end = position;
+        while (end < b.limit() && b.get(end) != 0) end++;
+        return new String(b.array(), b.arrayOffset() + position, end - position, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Information about a group or a dataset, as read from its object header.
+     * Fields are left to their default values when the corresponding message is absent.
+     */
+    static final class DataObject {
+        /** Name of the object, including the path of the parent groups. */
+        final String name;
+
+        /** Address of the object header. Used for resolving dimension references. */
+        final long address;
+
+        /** Whether this object is a group. */
+        boolean isGroup;
+
+        /** Links to the members of this group, with link names as keys. */
+        final Map<String,Long> links = new LinkedHashMap<>();
+
+        /** Attributes of this object, with attribute names as keys. */
+        final Map<String,Object> attributes = new LinkedHashMap<>();
+
+        /** Addresses of the dimension scales referenced by the {@code DIMENSION_LIST} attribute. */
+        long[] dimensionList;
+
+        /** Dataset size and maximal size in netCDF order (last dimension varies fastest). */
+        long[] shape, maxShape;
+
+        /** Type of dataset elements. */
+        Type type;
+
+        /** The data layout as one of {@link #COMPACT}, {@link #CONTIGUOUS} or {@link #CHUNKED} constants. */
+        int layout = -1;
+
+        /** The data address if contiguous, or the chunk index address if chunked. */
+        long dataAddress = UNDEFINED;
+
+        /** The data if the layout is compact. */
+        byte[] compactData;
+
+        /** The chunk size in netCDF order, excluding the element size. */
+        int[] chunkShape;
+
+        /** How the chunks are indexed, as one of {@link #BTREE_V1}, {@link #SINGLE_CHUNK} or {@link #IMPLICIT}. */
+        int chunkIndex;
+
+        /** Size and filter mask of the chunk when {@link #chunkIndex} is {@link #SINGLE_CHUNK}. */
+        long singleChunkSize;
+        int  singleChunkMask;
+
+        /** Identifiers of the filters to apply on chunks, in the order they were applied when writing. */
+        int[] filters;
+
+        /** The fill value encoded in the dataset byte order, or {@code null} if none. */
+        byte[] fillValue;
+
+        /** Addresses of the fractal heap and B-tree of attributes in dense storage. */
+        long attributeHeap = UNDEFINED, attributeTree = UNDEFINED;
+
+        /** Addresses of the fractal heap and B-tree of links in dense storage. */
+        long linkHeap = UNDEFINED, linkTree = UNDEFINED;
+
+        /** Creates an initially empty object. */
+        DataObject(final String name, final long address) {
+            this.name    = name;
+            this.address = address;
+        }
+    }
+
+    /**
+     * Description of a HDF5 data type.
+     */
+    static final class Type {
+        /** The type class, for example {@link #FIXED_POINT} or {@link #STRING}. */
+        final int typeClass;
+
+        /** Bit fields specific to the type class. */
+        final int bits;
+
+        /** Size of elements in bytes. */
+        final int size;
+
+        /** Base type of variable-length types, or {@code null} if none. */
+        final Type base;
+
+        /** Creates a new type description. */
+        Type(final int typeClass, final int bits, final int size, final Type base) {
+            this.typeClass = typeClass;
+            this.bits      = bits;
+            this.size      = size;
+            this.base      = base;
+        }
+
+        /** Returns the byte order of fixed-point or floating-point values. */
+        ByteOrder order() {
+            return (bits & 1) != 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        }
+
+        /** Returns the netCDF data type, or {@link DataType#UNKNOWN} if none. */
+        DataType toDataType() {
+            switch (typeClass) {
+                case FIXED_POINT: {
+                    final boolean signed = (bits & 8) != 0;
+                    switch (size) {
+                        case Byte.BYTES:    return signed ? DataType.BYTE  : DataType.UBYTE;
+                        case Short.BYTES:   return signed ? DataType.SHORT : DataType.USHORT;
+                        case Integer.BYTES: return signed ? DataType.INT   : DataType.UINT;
+                        case Long.BYTES:    return signed ? DataType.INT64 : DataType.UINT64;
+                    }
+                    break;
+                }
+                case FLOATING_POINT: {
+                    switch (size) {
+                        case Float.BYTES:  return DataType.FLOAT;
+                        case Double.BYTES: return DataType.DOUBLE;
+                    }
+                    break;
+                }
+                case STRING: {
+                    if (size == 1) return DataType.CHAR;
+                    break;
+                }
+                case VARIABLE_LENGTH: {
+                    if ((bits & 0x0F) == 1) return DataType.STRING;
+                    break;
+                }
+            }
+            return DataType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Visits all members of the given group, recursively. Datasets are added to {@link #datasets}
+     * and attributes of sub-groups are added to {@link #groupAttributes}.
+     *
+     * @return the attributes of the given group.
+     */
+    private Map<String,Object> visit(final DataObject group) throws IOException, DataStoreException {
+        for (final Map.Entry<String,Long> link : group.links.entrySet()) {
+            final long address = link.getValue();
+            if (visited.add(address)) {
+                String name = link.getKey();
+                if (!group.name.isEmpty()) {
+                    name = group.name + '/' + name;
+                }
+                final DataObject member = readObject(name, address);
+                if (member.isGroup) {
+                    groupAttributes.put(name, visit(member));
+                } else if (member.type != null && member.shape != null && member.layout >= 0) {
+                    datasets.add(member);
+                }
+            }
+        }
+        group.attributes.keySet().removeAll(HIDDEN_ATTRIBUTES);
+        return CollectionsExt.toCaseInsensitiveNameMap(group.attributes.entrySet(), ChannelDecoder.NAME_LOCALE);
+    }
+
+    /**
+     * Reads the object header at the given address. This method parses all messages
+     * of interest for netCDF, including messages in continuation blocks.
+     *
+     * @param  name     name of the object, including the path of parent groups.
+     * @param  address  address of the object header.
+     * @return the object read from the given address.
+     */
+    private DataObject readObject(final String name, final long address) throws IOException, DataStoreException {
+        final DataObject object = new DataObject(name, address);
+        final ArrayDeque<long[]> continuations = new ArrayDeque<>();
+        ByteBuffer b = read(address, 6);
+        final boolean v2 = (b.get(0) == 'O');
+        final boolean creationOrder;
+        if (v2) {
+            expect(b, "OHDR");
+            if (b.get() != 2) throw malformed();
+            final int flags = b.get();
+            creationOrder = (flags & 0x04) != 0;
+            final int sizeOfChunk = 1 << (flags & 3);
+            int skip = 0;
+            if ((flags & 0x20) != 0) skip += 4 * Integer.BYTES;         // Access, modification, change, birth times.
+            if ((flags & 0x10) != 0) skip += 2 * Short.BYTES;           // Attribute phase change values.
+            final long length = uint(read(address + 6 + skip, sizeOfChunk), sizeOfChunk);
+            b = read(address + 6 + skip + sizeOfChunk, length);
+        } else {
+            if (b.get(0) != 1) throw malformed();
+            creationOrder = false;
+            b = read(address + 8, Integer.BYTES);
+            b = read(address + 16, b.getInt(0) & 0xFFFFFFFFL);
+        }
+        while (true) {
+            parseMessages(object, b, v2, creationOrder, continuations);
+            final long[] next = continuations.poll();
+            if (next == null) break;
+            b = read(next[0], next[1]);
+            if (v2) {
+                expect(b, "OCHK");
+                b.limit(b.limit() - Integer.BYTES);         // Exclude checksum.
+            }
+        }
+        /*
+         * Attributes and links in dense storage are stored in fractal heaps.
+         * Each object in the heap is a message encoded as in object headers.
+         */
+        if (object.attributeHeap != UNDEFINED) {
+            for (final ByteBuffer message : readDenseStorage(object.attributeHeap, object.attributeTree, 0)) {
+                parseAttribute(object, message);
+            }
+        }
+        if (object.linkHeap != UNDEFINED) {
+            for (final ByteBuffer message : readDenseStorage(object.linkHeap, object.linkTree, Integer.BYTES)) {
+                parseLink(object, message);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Parses all messages in the given block of an object header.
+     *
+     * @param  object         where to store the information read from the messages.
+     * @param  b              the block of messages to parse.
+     * @param  v2             whether the object header is version 2 (otherwise version 1).
+     * @param  creationOrder  whether version 2 messages contain a creation order field.
+     * @param  continuations  where to add the address and length of continuation blocks.
+     */
+    private void parseMessages(final DataObject object, final ByteBuffer b, final boolean v2, final boolean creationOrder,
+            final ArrayDeque<long[]> continuations) throws IOException, DataStoreException
+    {
+        final int headerSize = v2 ? (creationOrder ? 6 : 4) : 8;
+        final int limit = b.limit();
+        while (b.remaining() >= headerSize) {
+            final int type, flags, size;
+            if (v2) {
+                type  = b.get() & 0xFF;
+                size  = b.getShort() & 0xFFFF;
+                flags = b.get();
+                if (creationOrder) b.getShort();
+            } else {
+                type  = b.getShort() & 0xFFFF;
+                size  = b.getShort() & 0xFFFF;
+                flags = b.get();
+                b.position(b.position() + 3);
+            }
+            final int end = b.position() + size;
+            if (end > limit) {
+                throw malformed();
+            }
+            if ((flags & 0x02) != 0 && type != ATTRIBUTE) {
+                if (type == DATATYPE || type == DATASPACE || type == FILL_VALUE || type == FILTERS) {
+                    throw unsupported("shared message");
+                }
+            } else {
+                b.limit(end);
+                parseMessage(object, type, b, continuations);
+                b.limit(limit);
+            }
+            b.position(end);
+        }
+    }
+
+    /**
+     * Parses the message of the given type. The buffer position is at the beginning of message data
+     * and the limit is at the end of the message.
+     */
+    private void parseMessage(final DataObject object, final int type, final ByteBuffer b,
+            final ArrayDeque<long[]> continuations) throws IOException, DataStoreException
+    {
+        switch (type) {
+            case DATASPACE: {
+                final long[][] space = parseDataspace(b);
+                object.shape    = space[0];
+                object.maxShape = space[1];
+                break;
+            }
+            case DATATYPE: {
+                object.type = parseType(b);
+                break;
+            }
+            case FILL_VALUE: {
+                final int version = b.get();
+                final boolean defined;
+                if (version >= 3) {
+                    defined = (b.get() & 0x20) != 0;
+                } else {
+                    b.getShort();                                       // Allocation time and write time.
+                    defined = (version == 1) || b.get() != 0;
+                    if (version == 1) b.get();
+                }
+                if (defined) {
+                    final byte[] value = new byte[b.getInt()];
+                    b.get(value);
+                    object.fillValue = (value.length != 0) ? value : null;
+                }
+                break;
+            }
+            case FILL_VALUE_OLD: {
+                if (object.fillValue == null) {
+                    final byte[] value = new byte[b.getInt()];
+                    b.get(value);
+                    object.fillValue = (value.length != 0) ? value : null;
+                }
+                break;
+            }
+            case LAYOUT: {
+                parseLayout(object, b);
+                break;
+            }
+            case FILTERS: {
+                final int version = b.get();
+                final int[] filters = new int[b.get()];
+                if (version == 1) b.position(b.position() + 6);
+                for (int i=0; i<filters.length; i++) {
+                    final int id = b.getShort() & 0xFFFF;
+                    final int nameLength = (version == 1 || id >= 256) ? b.getShort() & 0xFFFF : 0;
+                    b.getShort();                                       // Flags.
+                    final int numValues = b.getShort() & 0xFFFF;
+                    b.position(b.position() + (version == 1 ? pad8(nameLength) : nameLength)
+                             + Integer.BYTES * (numValues + (version == 1 ? (numValues & 1) : 0)));
+                    switch (id) {
+                        case ChunkedReader.DEFLATE:
+                        case ChunkedReader.SHUFFLE:
+                        case ChunkedReader.FLETCHER32: break;
+                        default: throw unsupported("filter " + id);
+                    }
+                    filters[i] = id;
+                }
+                object.filters = filters;
+                break;
+            }
+            case ATTRIBUTE: {
+                parseAttribute(object, b);
+                break;
+            }
+            case ATTRIBUTE_INFO: {
+                b.get();                                                // Version.
+                final int flags = b.get();
+                if ((flags & 1) != 0) b.getShort();                     // Maximum creation index.
+                object.attributeHeap = offset(b);
+                object.attributeTree = offset(b);
+                break;
+            }
+            case LINK_INFO: {
+                b.get();                                                // Version.
+                final int flags = b.get();
+                if ((flags & 1) != 0) b.getLong();                      // Maximum creation index.
+                object.linkHeap = offset(b);
+                object.linkTree = offset(b);
+                object.isGroup  = true;
+                break;
+            }
+            case LINK: {
+                parseLink(object, b);
+                object.isGroup = true;
+                break;
+            }
+            case SYMBOL_TABLE: {
+                final long tree = offset(b);
+                final long heap = offset(b);
+                readSymbolTable(object, tree, heap);
+                object.isGroup = true;
+                break;
+            }
+            case CONTINUATION: {
+                final long address = offset(b);
+                final long length  = length(b);
+                continuations.add(new long[] {address, length});
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parses a dataspace message.
+     *
+     * @return the current dimension sizes and the maximal dimension sizes (may be null),
+     *         or an array of null elements if the dataspace is null.
+     */
+    private long[][] parseDataspace(final ByteBuffer b) throws DataStoreContentException {
+        final int version = b.get();
+        final int rank    = b.get();
+        final int flags   = b.get();
+        if (version == 1) {
+            b.position(b.position() + 5);
+        } else if (version == 2) {
+            if (b.get() == 2) {
+                return new long[2][];                                   // Null dataspace.
+            }
+        } else {
+            throw malformed();
+        }
+        final long[] shape = new long[rank];
+        for (int i=0; i<rank; i++) {
+            shape[i] = length(b);
+        }
+        long[] maxShape = null;
+        if ((flags & 1) != 0) {
+            maxShape = new long[rank];
+            for (int i=0; i<rank; i++) {
+                maxShape[i] = uintOrUndefined(b, sizeOfLengths);
+            }
+        }
+        return new long[][] {shape, maxShape};
+    }
+
+    /**
+     * Parses a datatype message. This method consumes all properties of supported types,
+     * but not necessarily the properties of unsupported types. Callers that need to continue
+     * parsing after the datatype shall set the buffer position themselves.
+     */
+    private static Type parseType(final ByteBuffer b) {
+        final int typeClass = b.get() & 0x0F;
+        final int bits = (b.get() & 0xFF) | (b.get() & 0xFF) << 8 | (b.get() & 0xFF) << 16;
+        final int size = b.getInt();
+        Type base = null;
+        switch (typeClass) {
+            case FIXED_POINT:     b.position(b.position() + 4); break;      // Bit offset and precision.
+            case FLOATING_POINT:  b.position(b.position() + 12); break;     // Bit offset, precision, exponent, mantissa.
+            case VARIABLE_LENGTH: base = parseType(b); break;
+        }
+        return new Type(typeClass, bits, size, base);
+    }
+
+    /**
+     * Parses a data layout message.
+     */
+    private void parseLayout(final DataObject object, final ByteBuffer b) throws DataStoreContentException {
+        final int version = b.get();
+        if (version < 3) {
+            final int rank = b.get();
+            object.layout = b.get();
+            b.position(b.position() + 5);
+            if (object.layout != COMPACT) {
+                object.dataAddress = offset(b);
+            }
+            final int[] dims = new int[rank];
+            for (int i=0; i<rank; i++) {
+                dims[i] = b.getInt();
+            }
+            switch (object.layout) {
+                case CHUNKED: object.chunkShape = Arrays.copyOf(dims, rank - 1); break;
+                case COMPACT: object.compactData = new byte[b.getInt()]; b.get(object.compactData); break;
+            }
+            return;
+        }
+        object.layout = b.get();
+        switch (object.layout) {
+            case COMPACT: {
+                object.compactData = new byte[b.getShort() & 0xFFFF];
+                b.get(object.compactData);
+                break;
+            }
+            case CONTIGUOUS: {
+                object.dataAddress = offset(b);
+                break;
+            }
+            case CHUNKED: {
+                if (version == 3) {
+                    final int rank = b.get() - 1;                       // Ignore the element size dimension.
+                    object.dataAddress = offset(b);
+                    object.chunkShape = new int[rank];
+                    for (int i=0; i<rank; i++) {
+                        object.chunkShape[i] = b.getInt();
+                    }
+                    object.chunkIndex = BTREE_V1;
+                } else {
+                    final int flags = b.get();
+                    final int rank  = b.get() - 1;
+                    final int size  = b.get();
+                    object.chunkShape = new int[rank];
+                    for (int i=0; i<rank; i++) {
+                        object.chunkShape[i] = Math.toIntExact(uint(b, size));
+                    }
+                    uint(b, size);                                      // Element size.
+                    object.chunkIndex = b.get();
+                    switch (object.chunkIndex) {
+                        case SINGLE_CHUNK: {
+                            if ((flags & 2) != 0) {
+                                object.singleChunkSize = length(b);
+                                object.singleChunkMask = b.getInt();
+                            }
+                            break;
+                        }
+                        case IMPLICIT: break;
+                        default: {
+                            // Fixed array, extensible array or version 2 B-tree.
+                            throw unsupported("chunk index type " + object.chunkIndex);
+                        }
+                    }
+                    object.dataAddress = offset(b);
+                }
+                break;
+            }
+            default: {
+                throw unsupported("virtual dataset");
+            }
+        }
+    }
+
+    /**
+     * Parses an attribute message and adds the attribute to the given object.
+     * Attributes of unsupported types are silently ignored.
+     */
+    private void parseAttribute(final DataObject object, final ByteBuffer b) throws IOException, DataStoreException {
+        final int version    = b.get();
+        final int flags      = b.get();
+        final int nameSize   = b.getShort() & 0xFFFF;
+        final int typeSize   = b.getShort() & 0xFFFF;
+        final int spaceSize  = b.getShort() & 0xFFFF;
+        if (version >= 3) b.get();                                      // Name character set.
+        int p = b.position();
+        final String name = cstring(b, p);
+        p += (version == 1) ? pad8(nameSize) : nameSize;
+        if ((flags & 3) != 0) {
+            return;                                                     // Shared datatype or dataspace.
+        }
+        b.position(p);
+        final Type type = parseType(b);
+        p += (version == 1) ? pad8(typeSize) : typeSize;
+        b.position(p);
+        final long[] shape = parseDataspace(b)[0];
+        p += (version == 1) ? pad8(spaceSize) : spaceSize;
+        b.position(p);
+        long count = 0;
+        if (shape != null) {
+            count = 1;
+            for (final long n : shape) count = Math.multiplyExact(count, n);
+        }
+        if (count <= 0 || count > Integer.MAX_VALUE || Math.multiplyExact(count, type.size) > b.remaining()) {
+            return;
+        }
+        final Object value = decodeValue(type, (int) count, b);
+        if (value instanceof long[]) {
+            if (name.equals("DIMENSION_LIST")) {
+                object.dimensionList = (long[]) value;
+            }
+        } else if (value != null) {
+            object.attributes.put(name, value);
+        }
+    }
+
+    /**
+     * Decodes the values of an attribute. If the value is a {@code String}, then leading and trailing spaces
+     * have been trimmed. If the value has more than one numerical element, then the values are stored in a
+     * {@link Vector}. Object references are returned as an array of {@code long} values.
+     *
+     * @return the value, or {@code null} if the type is not supported or the value is empty.
+     */
+    private Object decodeValue(final Type type, final int count, final ByteBuffer b) throws IOException, DataStoreException {
+        switch (type.typeClass) {
+            case STRING: {
+                final String[] values = new String[count];
+                for (int i=0; i<count; i++) {
+                    final byte[] bytes = new byte[type.size];
+                    b.get(bytes);
+                    values[i] = toString(bytes, type.bits >>> 4);
+                }
+                return join(values);
+            }
+            case REFERENCE: {
+                final long[] values = new long[count];
+                for (int i=0; i<count; i++) {
+                    values[i] = offset(b);
+                }
+                return values;
+            }
+            case VARIABLE_LENGTH: {
+                final boolean isString = (type.bits & 0x0F) == 1;
+                if (!isString && (type.base == null || type.base.typeClass != REFERENCE)) {
+                    return null;
+                }
+                final String[] strings = isString ? new String[count] : null;
+                final long[] references = isString ? null : new long[count];
+                for (int i=0; i<count; i++) {
+                    final int  length     = b.getInt();
+                    final long collection = offset(b);
+                    final int  index      = b.getInt();
+                    if (length == 0 || collection == UNDEFINED) {
+                        if (references != null) references[i] = UNDEFINED;
+                        continue;
+                    }
+                    final ByteBuffer data = globalHeapObject(collection, index);
+                    if (isString) {
+                        final byte[] bytes = new byte[Math.min(length, data.remaining())];
+                        data.get(bytes);
+                        strings[i] = toString(bytes, type.bits >>> 8);
+                    } else {
+                        references[i] = offset(data);
+                    }
+                }
+                return isString ? join(strings) : references;
+            }
+            case FIXED_POINT:
+            case FLOATING_POINT: {
+                final DataType dataType = type.toDataType();
+                if (dataType == DataType.UNKNOWN) {
+                    return null;
+                }
+                final ByteBuffer values = b.slice().order(type.order());
+                b.position(b.position() + count * type.size);
+                return toValue(ChunkedReader.toArray(values, dataType, count), dataType);
+            }
+            default: {
+                return null;        // Compound, enumeration, opaque, array, etc.
+            }
+        }
+    }
+
+    /**
+     * Converts an array of numbers to the object to store as an attribute value.
+     * This method applies the same rules than {@code ChannelDecoder.readValues(…)}.
+     */
+    private static Object toValue(final Object array, final DataType type) {
+        if (java.lang.reflect.Array.getLength(array) == 1) {
+            switch (type) {
+                case BYTE:   return ((byte[])   array)[0];
+                case UBYTE:  return (short) Byte.toUnsignedInt(((byte[]) array)[0]);
+                case SHORT:  return ((short[])  array)[0];
+                case USHORT: return Short.toUnsignedInt(((short[]) array)[0]);
+                case INT:    return ((int[])    array)[0];
+                case UINT:   return Integer.toUnsignedLong(((int[]) array)[0]);
+                case INT64:  return ((long[])   array)[0];
+                case FLOAT:  return ((float[])  array)[0];
+                case DOUBLE: return ((double[]) array)[0];
+            }
+        }
+        switch (type) {
+            case FLOAT: return Vector.createForDecimal((float[]) array);
+            case DOUBLE: {
+                final float[] asFloats = ArraysExt.copyAsFloatsIfLossless((double[]) array);
+                if (asFloats != null) return Vector.createForDecimal(asFloats);
+                break;
+            }
+        }
+        return Vector.create(array, type.isUnsigned);
+    }
+
+    /**
+     * Converts the given bytes to a string, ignoring trailing null characters.
+     *
+     * @param  bytes    the bytes to convert.
+     * @param  charset  the HDF5 character set code: 0 for ASCII or 1 for UTF-8.
+     */
+    private String toString(final byte[] bytes, final int charset) {
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] == 0) length--;
+        final Charset encoding = ((charset & 0x0F) == 1) ? StandardCharsets.UTF_8 : this.encoding;
+        return new String(bytes, 0, length, encoding).trim();
+    }
+
+    /**
+     * Joins the given strings in a single string separated by spaces.
+     * Returns {@code null} if the result would be empty.
+     */
+    private static String join(final String[] values) {
+        final StringBuilder buffer = new StringBuilder();
+        for (final String value : values) {
+            if (value != null && !value.isEmpty()) {
+                if (buffer.length() != 0) buffer.append(' ');
+                buffer.append(value);
+            }
+        }
+        return (buffer.length() != 0) ? buffer.toString() : null;
+    }
+
+    /**
+     * Returns the object of the given index in the global heap collection at the given address.
+     */
+    private ByteBuffer globalHeapObject(final long collection, final int index) throws IOException, DataStoreContentException {
+        ByteBuffer heap = globalHeaps.get(collection);
+        if (heap == null) {
+            final ByteBuffer header = read(collection, 8 + sizeOfLengths);
+            expect(header, "GCOL");
+            header.position(8);
+            heap = read(collection, length(header));
+            globalHeaps.put(collection, heap);
+        }
+        int p = 8 + sizeOfLengths;
+        while (p + 8 + sizeOfLengths <= heap.limit()) {
+            final int id = heap.getShort(p) & 0xFFFF;
+            if (id == 0) break;                                         // Free space.
+            heap.position(p + 8);
+            final int size  = Math.toIntExact(length(heap));
+            final int start = heap.position();
+            if (id == index) {
+                if (start + size > heap.limit()) break;
+                return ByteBuffer.wrap(heap.array(), start, size).slice().order(ByteOrder.LITTLE_ENDIAN);
+            }
+            p = start + pad8(size);
+        }
+        throw malformed();
+    }
+
+    /**
+     * Parses a link message and adds hard links to the members of the given group.
+     * Soft and external links are ignored.
+     */
+    private void parseLink(final DataObject group, final ByteBuffer b) {
+        b.get();                                                        // Version.
+        final int flags = b.get();
+        final int linkType = ((flags & 0x08) != 0) ? b.get() : 0;
+        if ((flags & 0x04) != 0) b.getLong();                           // Creation order.
+        if ((flags & 0x10) != 0) b.get();                               // Link name character set.
+        final int length = (int) uint(b, 1 << (flags & 3));
+        final byte[] name = new byte[length];
+        b.get(name);
+        if (linkType == 0) {
+            group.links.put(new String(name, StandardCharsets.UTF_8), offset(b));
+        }
+    }
+
+    /**
+     * Reads the members of a group stored as a symbol table, which is the format used by old HDF5 files.
+     * The symbol table is a version 1 B-tree of symbol table nodes, with names stored in a local heap.
+     */
+    private void readSymbolTable(final DataObject group, final long tree, final long heap)
+            throws IOException, DataStoreContentException
+    {
+        ByteBuffer b = read(heap, 8 + 2*sizeOfLengths + sizeOfOffsets);
+        expect(b, "HEAP");
+        b.position(8);
+        final long size = length(b);
+        length(b);                                                      // Offset to head of free list.
+        final ByteBuffer names = read(offset(b), size);
+        readGroupNode(group, tree, names);
+    }
+
+    /**
+     * Reads a node of the version 1 B-tree of a symbol table, then its children recursively.
+     */
+    private void readGroupNode(final DataObject group, final long address, final ByteBuffer names)
+            throws IOException, DataStoreContentException
+    {
+        final int header = 8 + 2*sizeOfOffsets;
+        ByteBuffer b = read(address, header);
+        expect(b, "TREE");
+        if (b.get() != 0) throw malformed();                            // Node type shall be "group".
+        final int level = b.get();
+        final int count = b.getShort() & 0xFFFF;
+        b = read(address + header, (count + 1) * (long) sizeOfLengths + count * (long) sizeOfOffsets);
+        for (int i=0; i<count; i++) {
+            length(b);                                                  // Key.
+            final long child = offset(b);
+            if (level != 0) {
+                readGroupNode(group, child, names);
+            } else {
+                final ByteBuffer node = read(child, 8);
+                expect(node, "SNOD");
+                node.position(6);
+                final int n = node.getShort() & 0xFFFF;
+                final ByteBuffer entries = read(child + 8, n * (2L*sizeOfOffsets + 24));
+                for (int j=0; j<n; j++) {
+                    final int  name   = Math.toIntExact(offset(entries));
+                    final long object = offset(entries);
+                    entries.position(entries.position() + 24);         // Cache type and scratch-pad.
+                    group.links.put(cstring(names, name), object);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads all messages in dense storage. The messages are stored in a fractal heap and
+     * indexed by a version 2 B-tree. This method reads the B-tree records in any order.
+     *
+     * @param  heap      address of the fractal heap.
+     * @param  tree      address of the version 2 B-tree indexing the heap objects by name.
+     * @param  idOffset  position of the heap identifier in the B-tree records.
+     * @return all messages found in the fractal heap.
+     */
+    private List<ByteBuffer> readDenseStorage(final long heap, final long tree, final int idOffset)
+            throws IOException, DataStoreException
+    {
+        final FractalHeap objects = new FractalHeap(heap);
+        final ByteBuffer b = read(tree, 16 + sizeOfOffsets + 2 + sizeOfLengths);
+        expect(b, "BTHD");
+        b.get();                                                        // Version.
+        b.get();                                                        // Type.
+        final int nodeSize   = b.getInt();
+        final int recordSize = b.getShort() & 0xFFFF;
+        final int depth      = b.getShort() & 0xFFFF;
+        b.getShort();                                                   // Split and merge percents.
+        final long root      = offset(b);
+        final int  rootCount = b.getShort() & 0xFFFF;
+        /*
+         * Compute the size of the fields in internal nodes. Those sizes depend on the maximal number of records
+         * that a node can contain, which depends on the node size and the depth. This is the same computation
+         * than the one done by the HDF5 library when initializing a B-tree.
+         */
+        final long[] cumulatedMaxRecords = new long[depth + 1];
+        final int[]  cumulatedSize       = new int [depth + 1];
+        cumulatedMaxRecords[0] = (nodeSize - 10) / recordSize;
+        final int countSize = encodedSize(cumulatedMaxRecords[0]);
+        for (int d=1; d<=depth; d++) {
+            final int pointerSize = sizeOfOffsets + countSize + (d > 1 ? cumulatedSize[d-1] : 0);
+            final long max = (nodeSize - (10 + pointerSize)) / (recordSize + pointerSize);
+            cumulatedMaxRecords[d] = (max + 1) * cumulatedMaxRecords[d-1] + max;
+            cumulatedSize[d] = encodedSize(cumulatedMaxRecords[d]);
+        }
+        final List<ByteBuffer> messages = new ArrayList<>();
+        final ArrayDeque<long[]> nodes = new ArrayDeque<>();
+        if (root != UNDEFINED && rootCount != 0) {
+            nodes.add(new long[] {root, depth, rootCount});
+        }
+        long[] node;
+        while ((node = nodes.poll()) != null) {
+            final int d = (int) node[1];
+            final int n = (int) node[2];
+            final int pointerSize = (d == 0) ? 0 : sizeOfOffsets + countSize + (d > 1 ? cumulatedSize[d-1] : 0);
+            final ByteBuffer r = read(node[0], 6 + n * (long) recordSize + (d == 0 ? 0 : (n + 1) * (long) pointerSize));
+            expect(r, d == 0 ? "BTLF" : "BTIN");
+            for (int i=0; i<n; i++) {
+                r.position(6 + i*recordSize + idOffset);
+                messages.add(objects.get(r));
+            }
+            if (d != 0) {
+                r.position(6 + n*recordSize);
+                for (int i=0; i<=n; i++) {
+                    final long child = offset(r);
+                    final long count = uint(r, countSize);
+                    if (d > 1) uint(r, cumulatedSize[d-1]);             // Total number of records in sub-tree.
+                    nodes.add(new long[] {child, d - 1, count});
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * A fractal heap, used for storing attributes and links in dense storage. This class supports only the
+     * "managed" objects, which are stored in direct blocks. Huge and tiny objects are not used by netCDF.
+     */
+    private final class FractalHeap {
+        /** Number of bytes for encoding offsets and lengths of objects in heap identifiers. */
+        private final int offsetSize, lengthSize;
+
+        /** Number of blocks in each row of the doubling table. */
+        private final int width;
+
+        /** Size of blocks in the first row, and maximal size of direct blocks. */
+        private final long startBlockSize, maxDirectBlockSize;
+
+        /** Address of the root block, and number of rows in the root indirect block (0 if direct). */
+        private final long rootAddress;
+        private final int  rootRows;
+
+        /** Whether blocks contain filter information, which changes the size of indirect block entries. */
+        private final boolean filtered;
+
+        /** Reads the header of the fractal heap at the given address. */
+        FractalHeap(final long address) throws IOException, DataStoreContentException {
+            final ByteBuffer b = read(address, 22 + 12*sizeOfLengths + 3*sizeOfOffsets);
+            expect(b, "FRHP");
+            b.get();                                                    // Version.
+            b.getShort();                                               // Heap identifier length.
+            filtered = b.getShort() != 0;
+            b.get();                                                    // Flags.
+            final long maxManagedSize = b.getInt() & 0xFFFFFFFFL;
+            b.position(b.position() + 10*sizeOfLengths + 2*sizeOfOffsets);
+            width              = b.getShort() & 0xFFFF;
+            startBlockSize     = length(b);
+            maxDirectBlockSize = length(b);
+            final int maxHeapSize = b.getShort() & 0xFFFF;
+            b.getShort();                                               // Starting number of rows.
+            rootAddress = offset(b);
+            rootRows    = b.getShort() & 0xFFFF;
+            offsetSize  = (maxHeapSize + 7) / Byte.SIZE;
+            lengthSize  = Math.min((log2(maxDirectBlockSize) + 7) / Byte.SIZE, encodedSize(maxManagedSize));
+        }
+
+        /** Returns the size of blocks in the given row of the doubling table. */
+        private long rowSize(final int row) {
+            return (row == 0) ? startBlockSize : startBlockSize << (row - 1);
+        }
+
+        /**
+         * Returns the object identified by the heap identifier at the current position of the given buffer.
+         */
+        ByteBuffer get(final ByteBuffer id) throws IOException, DataStoreException {
+            if ((id.get() & 0x30) != 0) {
+                throw unsupported("huge or tiny objects in fractal heap");
+            }
+            final long offset = uint(id, offsetSize);
+            final long length = uint(id, lengthSize);
+            final long address;
+            if (rootRows == 0) {
+                address = rootAddress + offset;                         // Root block is a direct block.
+            } else {
+                address = locate(rootAddress, rootRows, 0, offset);
+            }
+            return read(address, length);
+        }
+
+        /**
+         * Returns the address of the object at the given heap offset, searching in the given indirect block.
+         *
+         * @param  block        address of the indirect block.
+         * @param  rows         number of rows in the indirect block.
+         * @param  blockOffset  heap offset of the first byte managed by the indirect block.
+         * @param  offset       heap offset of the object to locate.
+         */
+        private long locate(final long block, final int rows, long blockOffset, final long offset)
+                throws IOException, DataStoreContentException
+        {
+            final int maxDirectRows = log2(maxDirectBlockSize) - log2(startBlockSize) + 2;
+            final int directRows    = Math.min(rows, maxDirectRows);
+            final int directSize    = sizeOfOffsets + (filtered ? sizeOfLengths + Integer.BYTES : 0);
+            final int header        = 5 + sizeOfOffsets + offsetSize;
+            final ByteBuffer b = read(block, header + (directRows * directSize + (rows - directRows) * sizeOfOffsets) * (long) width);
+            expect(b, "FHIB");
+            for (int row=0; row<rows; row++) {
+                final long size = rowSize(row);
+                for (int column=0; column<width; column++) {
+                    if (offset < blockOffset + size) {
+                        if (row < directRows) {
+                            b.position(header + (row * width + column) * directSize);
+                            return offset(b) + (offset - blockOffset);
+                        }
+                        b.position(header + directRows * width * directSize + ((row - directRows) * width + column) * sizeOfOffsets);
+                        final int childRows = log2(size) - log2(startBlockSize * width) + 1;
+                        return locate(offset(b), childRows, blockOffset, offset);
+                    }
+                    blockOffset += size;
+                }
+            }
+            throw malformed();
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.regex.Matcher;
 import java.io.IOException;
+import java.nio.Buffer;
 import javax.measure.Unit;
 import ucar.nc2.constants.CF;
 import ucar.nc2.constants.CDM;
@@ -40,6 +41,7 @@ import org.apache.sis.internal.storage.io.ChannelDataInput;
 import org.apache.sis.internal.storage.io.HyperRectangleReader;
 import org.apache.sis.internal.storage.io.Region;
 import org.apache.sis.internal.util.StandardDateFormat;
+import org.apache.sis.internal.util.Numerics;
 import org.apache.sis.internal.util.UnmodifiableArrayList;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
@@ -59,11 +61,19 @@ import org.apache.sis.math.Vector;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.3
  * @module
  */
 final class VariableInfo extends Variable implements Comparable<VariableInfo> {
+    /**
+     * Minimal number of bytes to read for using a memory-mapped view instead of copying values in a Java array.
+     * Memory mapping has a setup cost which is not worth for small regions.
+     *
+     * @see #readMapped(GridExtent, int[])
+     */
+    private static final int MAPPING_THRESHOLD = 0x10000;
+
     /**
      * The names of attributes where to look for the description to be returned by {@link #getDescription()}.
      * We use the same attributes than the one documented in the {@link ucar.nc2.Variable#getDescription()} javadoc.
@@ -81,6 +91,12 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     private final HyperRectangleReader reader;
 
+    /**
+     * Helper class for reading a sub-area of a variable stored in chunks (netCDF-4 format),
+     * or {@code null} if the variable is not chunked. If non-null, then {@link #reader} is null.
+     */
+    private final ChunkedReader chunks;
+
     /**
      * The variable name.
      *
@@ -201,11 +217,8 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         this.name       = name;
         this.dimensions = dimensions;
         this.attributes = attributes;
-        final Object isUnsigned = getAttributeValue(CDM.UNSIGNED, "_unsigned");
-        if (isUnsigned instanceof String) {
-            dataType = dataType.unsigned(Boolean.valueOf((String) isUnsigned));
-        }
-        this.dataType = dataType;
+        this.dataType   = dataType = unsigned(dataType);
+        this.chunks     = null;
         /*
          * The 'size' value is provided in the netCDF files, but doesn't need to be stored since it
          * is redundant with the dimension lengths and is not large enough for big variables anyway.
@@ -243,6 +256,58 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                 }
             }
         }
+        meanings = initialize();
+    }
+
+    /**
+     * Creates a new variable read from a netCDF-4 file. The data are read either by a {@link HyperRectangleReader}
+     * (for compact or contiguous layouts) or by a {@link ChunkedReader}. At most one of those readers is non-null.
+     *
+     * @param  decoder     the netCDF file where this variable is stored.
+     * @param  name        the variable name, including the path of parent groups if any.
+     * @param  dimensions  the dimensions of this variable.
+     * @param  attributes  the attributes associates to the variable, or an empty map if none.
+     * @param  dataType    the netCDF type of data, or {@code null} if unknown.
+     * @param  reader      the reader of compact or contiguous data, or {@code null}.
+     * @param  chunks      the reader of chunked data, or {@code null}.
+     */
+    VariableInfo(final Decoder              decoder,
+                 final String               name,
+                 final DimensionInfo[]      dimensions,
+                 final Map<String,Object>   attributes,
+                 final DataType             dataType,
+                 final HyperRectangleReader reader,
+                 final ChunkedReader        chunks)
+    {
+        super(decoder);
+        this.name       = name;
+        this.dimensions = dimensions;
+        this.attributes = attributes;
+        this.dataType   = unsigned(dataType);
+        this.reader     = reader;
+        this.chunks     = chunks;
+        meanings = initialize();
+    }
+
+    /**
+     * Returns the given data type with the signedness specified by the {@code "_Unsigned"} attribute, if present.
+     * This method is invoked at construction time.
+     */
+    private DataType unsigned(DataType type) {
+        final Object isUnsigned = getAttributeValue(CDM.UNSIGNED, "_unsigned");
+        if (isUnsigned instanceof String) {
+            type = type.unsigned(Boolean.valueOf((String) isUnsigned));
+        }
+        return type;
+    }
+
+    /**
+     * Initialization shared by all constructors. Determines if this variable is a coordinate system axis,
+     * then returns the enumeration values if any. This method is invoked at construction time.
+     *
+     * @return value to assign to {@link #meanings}.
+     */
+    private String[] initialize() {
         /*
          * If the "_CoordinateAliasForDimension" attribute is defined, then its value will be used
          * instead of the variable name when determining if the variable is a coordinate system axis.
@@ -265,11 +330,10 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         if (!attributes.isEmpty()) {    // For avoiding UnsupportedOperationException if unmodifiable map.
             final Object flags = attributes.remove(AttributeNames.FLAG_MEANINGS);
             if (flags != null) {
-                meanings = (String[]) CharSequences.split(flags.toString(), ' ');
-                return;
+                return (String[]) CharSequences.split(flags.toString(), ' ');
             }
         }
-        meanings = null;
+        return null;
     }
 
     /**
@@ -318,6 +382,26 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         } else for (int i=0; i<count; i++) {
             unlimited[i].offsetToNextRecord = Math.subtractExact(recordStride, unlimited[i].offsetToNextRecord);
         }
+        markCoordinateVariables(variables, referencedAsAxis);
+    }
+
+    /**
+     * Marks as coordinate system axes the variables listed in the {@code "coordinates"} attribute of other variables.
+     * This method is invoked directly for netCDF-4 files, which have no record stride to compute.
+     */
+    static void markCoordinateVariables(final VariableInfo[] variables) {
+        final Set<CharSequence> referencedAsAxis = new HashSet<>();
+        for (final VariableInfo variable : variables) {
+            referencedAsAxis.addAll(Arrays.asList(variable.getCoordinateVariables()));
+        }
+        markCoordinateVariables(variables, referencedAsAxis);
+    }
+
+    /**
+     * Marks as coordinate system axes the variables having a name in the given set.
+     * The given set is modified by this method.
+     */
+    private static void markCoordinateVariables(final VariableInfo[] variables, final Set<CharSequence> referencedAsAxis) {
         /*
          * If some variables have a "coordinates" attribute listing names of variables used as axes,
          * mark those variables as axes. We perform this check as a complement for the check done in
@@ -352,10 +436,15 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public String getFilename() {
+        final String filename;
         if (reader != null) {
-            final String filename = reader.filename();
-            if (filename != null) return filename;
+            filename = reader.filename();
+        } else if (chunks != null) {
+            filename = chunks.filename();
+        } else {
+            filename = null;
         }
+        if (filename != null) return filename;
         return super.getFilename();
     }
 
@@ -589,7 +678,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
     @SuppressWarnings("ReturnOfCollectionOrArrayField")
     public Vector read() throws IOException, DataStoreContentException {
         if (values == null) {
-            if (reader == null) {
+            if (reader == null && chunks == null) {
                 throw new DataStoreContentException(unknownType());
             }
             final int    dimension   = dimensions.length;
@@ -600,9 +689,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
                 upper[i] = dimensions[(dimension - 1) - i].length();
                 subsampling[i] = 1;
             }
-            final Region region = new Region(upper, lower, upper, subsampling);
-            applyUnlimitedDimensionStride(region);
-            Object array = reader.read(region);
+            Object array = readArray(reader, upper, lower, upper, subsampling);
             replaceNaN(array);
             /*
              * If we can convert a double[] array to a float[] array, we should do that before
@@ -621,6 +708,28 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         return values;
     }
 
+    /**
+     * Reads the given region using the reader appropriate for the layout of this variable.
+     * Callers shall verify that at least one of {@code reader} or {@link #chunks} is non-null.
+     * All arrays are in "natural" order, as documented in {@link Region} constructor.
+     *
+     * @param  reader  {@link #reader} or a concurrent view of it, or {@code null} if the variable is chunked.
+     */
+    private Object readArray(final HyperRectangleReader reader, final long[] size, final long[] lower, final long[] upper, final int[] subsampling)
+            throws IOException, DataStoreContentException
+    {
+        if (chunks != null) try {
+            return chunks.read(lower, upper, subsampling);
+        } catch (DataStoreContentException e) {
+            throw e;
+        } catch (DataStoreException e) {
+            throw new DataStoreContentException(e.getLocalizedMessage(), e);
+        }
+        final Region region = new Region(size, lower, upper, subsampling);
+        applyUnlimitedDimensionStride(region);
+        return reader.read(region);
+    }
+
     /**
      * If this variable uses the unlimited dimension, we have to skip the records of all other unlimited variables
      * before to reach the next record of this variable.  Current implementation can do that only if the number of
@@ -649,12 +758,86 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
      */
     @Override
     public Vector read(final GridExtent area, final int[] subsampling) throws IOException, DataStoreException {
-        if (reader == null) {
+        if (reader == null && chunks == null) {
             throw new DataStoreContentException(unknownType());
         }
         if (values != null) {
             throw new DataStoreException();     // TODO: create a view.
         }
+        return read(reader, area, subsampling);
+    }
+
+    /**
+     * Reads a subsampled sub-area of the variable using an independent channel position, or returns {@code null}
+     * if not possible. This is possible if the netCDF file has been opened from a {@link java.nio.channels.FileChannel}
+     * or a {@link org.apache.sis.internal.storage.io.ByteRangeChannel}, since those channels support positional reads.
+     * For chunked variables, this is possible only after the chunk index has been loaded by a previous read.
+     *
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     * @return the data as an array of a Java primitive type, or {@code null} if concurrent reads are not supported.
+     */
+    @Override
+    public Vector readConcurrently(final GridExtent area, final int[] subsampling) throws IOException, DataStoreException {
+        if (values == null) {
+            if (chunks != null) {
+                if (chunks.isConcurrent()) {
+                    return read(null, area, subsampling);
+                }
+            } else if (reader != null) {
+                final HyperRectangleReader view = reader.concurrentView();
+                if (view != null) {
+                    return read(view, area, subsampling);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a read-only view over the values of a sub-area, or {@code null} if not possible. This method maps
+     * the netCDF file in memory if the file is opened from a {@link java.nio.channels.FileChannel}, the variable
+     * is not compressed, the values to read are contiguous in the file, the region is at least 64 kilobytes
+     * and no fill value needs to be replaced by NaN.
+     *
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     * @return a read-only view over the data, or {@code null} if not available.
+     */
+    @Override
+    public Buffer readMapped(final GridExtent area, final int[] subsampling) throws IOException, DataStoreException {
+        if (values != null || reader == null || hasNaNReplacements()) {
+            return null;
+        }
+        final int dimension = dimensions.length;
+        final long[] size  = new long[dimension];
+        final long[] lower = new long[dimension];
+        final long[] upper = new long[dimension];
+        long length = reader.sampleSize();
+        for (int i=0; i<dimension; i++) {
+            lower[i] = area.getLow(i);
+            upper[i] = Math.incrementExact(area.getHigh(i));
+            size [i] = dimensions[(dimension - 1) - i].length();
+            length   = Math.multiplyExact(length, Numerics.ceilDiv(upper[i] - lower[i], subsampling[i]));
+        }
+        if (length < MAPPING_THRESHOLD) {
+            return null;
+        }
+        final Region region = new Region(size, lower, upper, subsampling);
+        applyUnlimitedDimensionStride(region);
+        return reader.map(region);
+    }
+
+    /**
+     * Implementation of {@link #read(GridExtent, int[])} and {@link #readConcurrently(GridExtent, int[])}.
+     *
+     * @param  reader       the reader to use, or {@code null} if the variable is chunked.
+     * @param  area         indices of cell values to read along each dimension, in "natural" order.
+     * @param  subsampling  subsampling along each dimension. 1 means no subsampling.
+     */
+    private Vector read(final HyperRectangleReader reader, final GridExtent area, final int[] subsampling)
+            throws IOException, DataStoreException
+    {
         /*
          * NetCDF sorts datas in reverse dimension order. Example:
          *
@@ -683,9 +866,7 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
             upper[i] = Math.incrementExact(area.getHigh(i));
             size [i] = dimensions[(dimension - 1) - i].length();
         }
-        final Region region = new Region(size, lower, upper, subsampling);
-        applyUnlimitedDimensionStride(region);
-        final Object array = reader.read(region);
+        final Object array = readArray(reader, size, lower, upper, subsampling);
         replaceNaN(array);
         return Vector.create(array, dataType.isUnsigned);
     }
@@ -723,13 +904,22 @@ final class VariableInfo extends Variable implements Comparable<VariableInfo> {
         return resources().getString(Resources.Keys.UnsupportedDataType_3, getFilename(), name, dataType);
     }
 
+    /**
+     * Returns the position of the first value of this variable in the file, or 0 if unknown.
+     */
+    private long origin() {
+        if (reader != null) return reader.origin;
+        if (chunks != null) return chunks.origin();
+        return 0;
+    }
+
     /**
      * Returns -1 if this variable is located before the other variable in the stream of bytes that make
      * the netCDF file, or +1 if it is located after.
      */
     @Override
     public int compareTo(final VariableInfo other) {
-        int c = Long.compare(reader.origin, other.reader.origin);
+        int c = Long.compare(origin(), other.origin());
         if (c == 0) c = name.compareTo(other.name);                 // Should not happen, but we are paranoiac.
         return c;
     }
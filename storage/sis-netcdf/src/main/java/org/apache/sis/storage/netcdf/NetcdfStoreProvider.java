@@ -61,7 +61,7 @@ import org.apache.sis.util.Version;
  * the part of the caller. However the {@link NetcdfStore} instances created by this factory are not thread-safe.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  *
  * @see NetcdfStore
  *
@@ -182,6 +182,10 @@ public class NetcdfStoreProvider extends DataStoreProvider {
                 hasVersion  = true;
                 version     = header & 0xFF;
                 isSupported = (version >= 1 && version <= ChannelDecoder.MAX_VERSION);
+            } else if (header == ChannelDecoder.HDF5_SIGNATURE) {
+                hasVersion  = true;
+                version     = 4;                        // NetCDF-4 is the only HDF5 profile recognized.
+                isSupported = true;
             }
         }
         /*
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf;
+
+import java.util.List;
+import java.io.IOException;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import org.opengis.referencing.datum.PixelInCell;
+import org.apache.sis.coverage.grid.GridCoverage;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.coverage.grid.GridGeometry;
+import org.apache.sis.internal.netcdf.impl.ChannelDecoderTest;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.Resource;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOn;
+import org.junit.Test;
+
+import static org.opengis.test.Assert.*;
+
+
+/**
+ * Tests {@link RasterResource} and the lazy loading of tiles by {@link TiledRaster}.
+ * Sample values are compared with the values read by {@link Variable#read()}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@DependsOn(org.apache.sis.internal.netcdf.impl.VariableInfoTest.class)
+public final strictfp class RasterResourceTest extends TestCase {
+    /**
+     * Creates a new decoder for the specified dataset using the Apache SIS implementation.
+     *
+     * @return the decoder for the specified dataset.
+     * @throws IOException if an I/O error occurred while opening the file.
+     * @throws DataStoreException if a logical error occurred.
+     */
+    @Override
+    protected Decoder createDecoder(final TestData file) throws IOException, DataStoreException {
+        return ChannelDecoderTest.createChannelDecoder(file);
+    }
+
+    /**
+     * Returns the single raster resource of the two-dimensional test file.
+     */
+    private RasterResource resource() throws IOException, DataStoreException {
+        final Decoder decoder = selectDataset(TestData.NETCDF_2D_GEOGRAPHIC);
+        final List<Resource> resources = RasterResource.create(decoder, decoder);
+        assertEquals("resources.size()", 1, resources.size());
+        return (RasterResource) resources.get(0);
+    }
+
+    /**
+     * Verifies the sample values of the given coverage against the values of the "SST" variable.
+     *
+     * @param  coverage  the coverage to verify.
+     * @param  xmin      column in the variable of the first column of the coverage.
+     * @param  ymin      row in the variable of the first row of the coverage.
+     */
+    private void verify(final GridCoverage coverage, final int xmin, final int ymin) throws IOException, DataStoreException {
+        final Variable variable = selectDataset(TestData.NETCDF_2D_GEOGRAPHIC).getVariables()[0];
+        assertEquals("SST", variable.getName());
+        final Vector expected = variable.read();
+        final int width = Math.toIntExact(variable.getGridGeometry().getExtent().getSize(0));
+        assertInstanceOf("coverage", TiledRaster.class, coverage);
+        final RenderedImage image = coverage.render(null);
+        final Raster raster = image.getData();
+        for (int y=0; y<image.getHeight(); y++) {
+            for (int x=0; x<image.getWidth(); x++) {
+                assertEquals(expected.doubleValue((y + ymin) * width + (x + xmin)),
+                             raster.getSampleDouble(x + image.getMinX(), y + image.getMinY(), 0), STRICT);
+            }
+        }
+    }
+
+    /**
+     * Tests reading the whole two-dimensional domain. The result shall be a coverage
+     * where tiles are loaded only when first requested.
+     *
+     * @throws IOException if an I/O error occurred while opening the file.
+     * @throws DataStoreException if an error occurred while reading the coverage.
+     */
+    @Test
+    public void testReadFullExtent() throws IOException, DataStoreException {
+        final RasterResource resource = resource();
+        final GridCoverage coverage = resource.read(null);
+        final GridExtent extent = coverage.getGridGeometry().getExtent();
+        assertEquals(resource.getGridGeometry().getExtent(), extent);
+        verify(coverage, 0, 0);
+    }
+
+    /**
+     * Tests reading a sub-region of the two-dimensional domain.
+     *
+     * @throws IOException if an I/O error occurred while opening the file.
+     * @throws DataStoreException if an error occurred while reading the coverage.
+     */
+    @Test
+    public void testReadSubRegion() throws IOException, DataStoreException {
+        final RasterResource resource = resource();
+        final GridGeometry grid = resource.getGridGeometry();
+        final GridExtent subExtent = new GridExtent(null, new long[] {10, 20}, new long[] {40, 35}, true);
+        final GridGeometry domain = new GridGeometry(subExtent, PixelInCell.CELL_CENTER,
+                grid.getGridToCRS(PixelInCell.CELL_CENTER), grid.getCoordinateReferenceSystem());
+        final GridCoverage coverage = resource.read(domain);
+        assertEquals(subExtent, coverage.getGridGeometry().getExtent());
+        verify(coverage, 10, 20);
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.netcdf.impl;
+
+import java.util.List;
+import java.util.Arrays;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.DataType;
+import org.apache.sis.internal.netcdf.Dimension;
+import org.apache.sis.internal.netcdf.Variable;
+import org.apache.sis.internal.storage.AbstractResource;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.coverage.grid.GridExtent;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
+import org.apache.sis.test.DependsOn;
+import org.apache.sis.test.DependsOnMethod;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link HDF5Reader} and {@link ChunkedReader} classes, used by {@link ChannelDecoder} for netCDF-4 files.
+ * The test file contains a group stored as a symbol table, dimension scales referenced by a {@code DIMENSION_LIST}
+ * attribute, a chunked variable compressed with the <cite>shuffle</cite> and <cite>deflate</cite> filters
+ * (with one chunk never written), a chunked variable along an unlimited dimension, and a compact variable
+ * in a sub-group described by a version 2 object header. The test file is generated by the {@code NetCDF4.py}
+ * script in the same directory.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@DependsOn(ChannelDecoderTest.class)
+public final strictfp class HDF5ReaderTest extends TestCase {
+    /**
+     * The fill value of the {@code "temperature"} variable.
+     */
+    private static final int FILL_VALUE = -999;
+
+    /**
+     * Opens the test file.
+     */
+    private static ChannelDecoder open() throws IOException, DataStoreException, URISyntaxException {
+        return open(Paths.get(HDF5ReaderTest.class.getResource("NetCDF4.nc").toURI()));
+    }
+
+    /**
+     * Opens the given file.
+     */
+    private static ChannelDecoder open(final Path file) throws IOException, DataStoreException {
+        final ChannelDataInput input = new ChannelDataInput(file.getFileName().toString(),
+                Files.newByteChannel(file), ByteBuffer.allocate(1024), false);
+        return new ChannelDecoder(input, null, GeometryLibrary.JAVA2D, new AbstractResource(null));
+    }
+
+    /**
+     * Returns the variable of the given name.
+     */
+    private static Variable variable(final Decoder decoder, final String name) {
+        for (final Variable variable : decoder.getVariables()) {
+            if (name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+        fail("Variable not found: " + name);
+        return null;
+    }
+
+    /**
+     * Returns the names of the dimensions of the given variable.
+     */
+    private static String[] dimensions(final Variable variable) {
+        final List<Dimension> dimensions = variable.getGridDimensions();
+        final String[] names = new String[dimensions.size()];
+        for (int i=0; i<names.length; i++) {
+            names[i] = dimensions.get(i).getName();
+        }
+        return names;
+    }
+
+    /**
+     * Verifies the values of the given vector.
+     */
+    private static void assertValuesEqual(final int[] expected, final Vector actual) {
+        assertEquals("size", expected.length, actual.size());
+        for (int i=0; i<expected.length; i++) {
+            assertEquals(expected[i], actual.intValue(i));
+        }
+    }
+
+    /**
+     * Tests reading global attributes and group attributes.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    public void testAttributes() throws Exception {
+        try (ChannelDecoder decoder = open()) {
+            assertEquals("title",       "HDF5 test file",               decoder.stringValue("title"));
+            assertEquals("history",     "Created for Apache SIS tests", decoder.stringValue("history"));
+            assertEquals("Conventions", "CF-1.6",                       decoder.stringValue("Conventions"));
+            assertNull  ("summary",                                     decoder.stringValue("summary"));
+            decoder.setSearchPath("grp", "missing", null);
+            assertArrayEquals(new String[] {"grp", null}, decoder.getSearchPath());
+            assertEquals("summary", "Group attribute", decoder.stringValue("summary"));
+            assertEquals("title",   "HDF5 test file",  decoder.stringValue("title"));
+        }
+    }
+
+    /**
+     * Tests the variable and dimension declarations.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    public void testVariables() throws Exception {
+        try (ChannelDecoder decoder = open()) {
+            final Variable temperature = variable(decoder, "temperature");
+            assertEquals(DataType.SHORT, temperature.getDataType());
+            assertArrayEquals(new String[] {"lat", "lon"}, dimensions(temperature));
+            assertEquals("units", "K", temperature.getAttributeAsString("units"));
+            assertEquals("_FillValue", FILL_VALUE, temperature.getAttributeAsNumber("_FillValue"), STRICT);
+            assertValuesEqual(new int[] {0, 100}, temperature.getAttributeAsVector("valid_range"));
+            assertFalse("DIMENSION_LIST", temperature.getAttributeNames().contains("DIMENSION_LIST"));
+
+            final Variable lat = variable(decoder, "lat");
+            assertEquals(DataType.FLOAT, lat.getDataType());
+            assertArrayEquals(new String[] {"lat"}, dimensions(lat));
+            assertEquals("units", "degrees_north", lat.getAttributeAsString("units"));
+            assertFalse("CLASS", lat.getAttributeNames().contains("CLASS"));
+
+            final Variable time = variable(decoder, "time");
+            assertEquals(DataType.DOUBLE, time.getDataType());
+            assertArrayEquals(new String[] {"time"}, dimensions(time));
+            assertTrue("isUnlimited", ((DimensionInfo) time.getGridDimensions().get(0)).isUnlimited);
+
+            final Variable count = variable(decoder, "grp/count");
+            assertEquals(DataType.INT, count.getDataType());
+            assertArrayEquals(new String[] {"phony_dim_0"}, dimensions(count));
+        }
+    }
+
+    /**
+     * Tests reading all values of contiguous, compact and chunked variables.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testVariables")
+    public void testRead() throws Exception {
+        try (ChannelDecoder decoder = open()) {
+            final Vector lon = variable(decoder, "lon").read();
+            assertEquals(4, lon.size());
+            for (int i=0; i<4; i++) {
+                assertEquals(100 + 10*i, lon.doubleValue(i), STRICT);
+            }
+            assertValuesEqual(new int[] {0, 6, 12}, variable(decoder, "time").read());
+            assertValuesEqual(new int[] {7, 8}, variable(decoder, "grp/count").read());
+            assertValuesEqual(new int[] {
+                 0,  1,  2,  3,
+                10, 11, 12, 13,
+                20, 21, FILL_VALUE, FILL_VALUE
+            }, variable(decoder, "temperature").read());
+        }
+    }
+
+    /**
+     * Tests reading a sub-region of a chunked variable with subsampling.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testRead")
+    public void testReadSubRegion() throws Exception {
+        try (ChannelDecoder decoder = open()) {
+            final Variable temperature = variable(decoder, "temperature");
+            final GridExtent area = new GridExtent(null, new long[] {1, 0}, new long[] {3, 2}, true);
+            assertValuesEqual(new int[] {
+                 1,  3,
+                11, 13,
+                21, FILL_VALUE
+            }, temperature.read(area, new int[] {2, 1}));
+            final GridExtent single = new GridExtent(null, new long[] {2, 1}, new long[] {3, 2}, true);
+            assertValuesEqual(new int[] {12, 13, FILL_VALUE, FILL_VALUE}, temperature.read(single, new int[] {1, 1}));
+        }
+    }
+
+    /**
+     * Tests reading variables through independent channel views, as done by concurrent band reads.
+     * The chunked variable can be read concurrently only after its chunk index has been loaded.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    @DependsOnMethod("testReadSubRegion")
+    public void testReadConcurrently() throws Exception {
+        try (ChannelDecoder decoder = open()) {
+            assertTrue(decoder.supportsConcurrentReads());
+            final GridExtent area = new GridExtent(null, new long[] {1, 0}, new long[] {3, 2}, true);
+            final int[] subsampling = {2, 1};
+            final Variable temperature = variable(decoder, "temperature");
+            assertNull("Chunk index not yet loaded.", temperature.readConcurrently(area, subsampling));
+            final Vector expected = temperature.read(area, subsampling);
+            assertValuesEqual(new int[] {1, 3, 11, 13, 21, FILL_VALUE}, expected);
+            assertEquals(expected, temperature.readConcurrently(area, subsampling));
+
+            final GridExtent line = new GridExtent(null, new long[] {0}, new long[] {3}, true);
+            final Vector lon = variable(decoder, "lon").readConcurrently(line, new int[] {1});
+            assertNotNull("Contiguous variables can always be read concurrently.", lon);
+            for (int i=0; i<4; i++) {
+                assertEquals(100 + 10*i, lon.doubleValue(i), STRICT);
+            }
+        }
+    }
+
+    /**
+     * Tests that a filter not supported by {@link ChunkedReader} is reported when the file is opened,
+     * not when the data are read. This is required for allowing {@code NetcdfStoreProvider} to fallback
+     * on the UCAR library. The test replaces the <cite>shuffle</cite> filter identifier by 32001 (Blosc).
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    public void testUnsupportedFilter() throws Exception {
+        final byte[] data = Files.readAllBytes(Paths.get(HDF5ReaderTest.class.getResource("NetCDF4.nc").toURI()));
+        final byte[] name = "shuffle".getBytes(StandardCharsets.US_ASCII);
+        int p = 0;
+        while (!Arrays.equals(name, Arrays.copyOfRange(data, p, p + name.length))) p++;
+        p -= 4 * Short.BYTES;                               // Filter identifier before name length, flags and count.
+        assertEquals(2, data[p]);
+        data[p]   = (byte) 32001;
+        data[p+1] = (byte) (32001 >>> 8);
+        final Path file = Files.createTempFile("NetCDF4", ".nc");
+        try {
+            Files.write(file, data);
+            try {
+                open(file).close();
+                fail("Should not accept an unsupported filter.");
+            } catch (DataStoreContentException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("32001"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
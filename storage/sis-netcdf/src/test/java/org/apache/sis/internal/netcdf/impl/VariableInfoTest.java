@@ -16,12 +16,29 @@
  */
 package org.apache.sis.internal.netcdf.impl;
 
+import java.util.List;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.awt.image.Raster;
 import org.apache.sis.internal.netcdf.Decoder;
+import org.apache.sis.internal.netcdf.RasterResource;
+import org.apache.sis.internal.netcdf.Variable;
 import org.apache.sis.internal.netcdf.VariableTest;
 import org.apache.sis.internal.netcdf.TestData;
+import org.apache.sis.internal.storage.AbstractResource;
+import org.apache.sis.internal.storage.io.ChannelDataInput;
+import org.apache.sis.coverage.grid.GridExtent;
 import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.Resource;
+import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.math.Vector;
 import org.apache.sis.test.DependsOn;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
 
 
 /**
@@ -30,7 +47,7 @@ import org.apache.sis.test.DependsOn;
  * passed.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.3
  * @module
  */
@@ -54,4 +71,57 @@ public final strictfp class VariableInfoTest extends VariableTest {
     protected Decoder createDecoder(final TestData file) throws IOException, DataStoreException {
         return ChannelDecoderTest.createChannelDecoder(file);
     }
+
+    /**
+     * Tests {@link VariableInfo#readMapped(GridExtent, int[])} on a netCDF classic file opened from a file channel.
+     * The {@code "values"} variable in the test file is a 256×128 grid of {@code short} values computed by
+     * <var>y</var>×128 + <var>x</var> − 16384. This method also verifies that {@link RasterResource} uses the
+     * memory-mapped values.
+     *
+     * @throws Exception if an I/O error or a logical error occurred.
+     */
+    @Test
+    public void testReadMapped() throws Exception {
+        final ChannelDataInput input = new ChannelDataInput("Classic.nc",
+                FileChannel.open(Paths.get(VariableInfoTest.class.getResource("Classic.nc").toURI())),
+                ByteBuffer.allocate(1024), false);
+        try (ChannelDecoder decoder = new ChannelDecoder(input, null, GeometryLibrary.JAVA2D, new AbstractResource(null))) {
+            assertTrue(decoder.supportsConcurrentReads());
+            Variable variable = null;
+            for (final Variable candidate : decoder.getVariables()) {
+                if (candidate.getName().equals("values")) {
+                    variable = candidate;
+                }
+            }
+            assertNotNull(variable);
+            final GridExtent full = new GridExtent(null, new long[2], new long[] {128, 256}, false);
+            final ShortBuffer mapped = (ShortBuffer) variable.readMapped(full, new int[] {1, 1});
+            assertNotNull("Contiguous region shall be mapped.", mapped);
+            assertFalse(mapped.hasArray());
+            assertEquals(128 * 256, mapped.remaining());
+            final Vector expected = variable.read(full, new int[] {1, 1});
+            for (int i=0; i<expected.size(); i++) {
+                assertEquals(i - 16384, mapped.get(i));
+                assertEquals(i - 16384, expected.intValue(i));
+            }
+            assertNull("Subsampled region can not be mapped.", variable.readMapped(full, new int[] {2, 1}));
+            final GridExtent columns = new GridExtent(null, new long[2], new long[] {64, 256}, false);
+            assertNull("Non-contiguous region can not be mapped.", variable.readMapped(columns, new int[] {1, 1}));
+            final GridExtent rows = new GridExtent(null, new long[] {0, 10}, new long[] {128, 12}, false);
+            assertNull("Small region shall be read in a Java array.", variable.readMapped(rows, new int[] {1, 1}));
+            /*
+             * Verify that the values are read correctly when wrapped in a raster using the memory-mapped view.
+             */
+            final List<Resource> resources = RasterResource.create(decoder, decoder);
+            assertEquals(1, resources.size());
+            final Raster raster = ((RasterResource) resources.get(0)).read(null).render(null).getData();
+            assertEquals(128, raster.getWidth());
+            assertEquals(256, raster.getHeight());
+            for (int y=0; y<256; y += 17) {
+                for (int x=0; x<128; x += 5) {
+                    assertEquals(y*128 + x - 16384, raster.getSample(x + raster.getMinX(), y + raster.getMinY(), 0));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,291 @@
+#!/usr/bin/env python3
+#
+# Licensed to the Apache Software Foundation (ASF) under one or more
+# contributor license agreements.  See the NOTICE file distributed with
+# this work for additional information regarding copyright ownership.
+# The ASF licenses this file to You under the Apache License, Version 2.0
+# (the "License"); you may not use this file except in compliance with
+# the License.  You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+# Generates the "NetCDF4.nc" file used by HDF5ReaderTest. Usage:
+#
+#     python3 NetCDF4.py NetCDF4.nc
+#
+# This script writes the HDF5 structures directly with only the Python standard library,
+# so the file can be regenerated without libnetcdf or h5py. It is not a file written by
+# libnetcdf: it has no "_NCProperties" or "_Netcdf4Dimid" attributes. The file contains:
+#
+#   - dimension scales "lat" and "lon" (contiguous) and "time" (unlimited, chunked),
+#   - "temperature(lat, lon)" chunked with the shuffle and deflate filters, one chunk never written,
+#   - a "grp" group with a compact "count" variable described by a version 2 object header.
+#
+import struct, zlib, sys
+
+O = 8; L = 8
+UNDEF = 0xFFFFFFFFFFFFFFFF
+
+def rot(x, k): return ((x << k) | (x >> (32 - k))) & 0xFFFFFFFF
+
+def lookup3(data, initval=0):
+    length = len(data)
+    a = b = c = (0xdeadbeef + length + initval) & 0xFFFFFFFF
+    i = 0
+    while length > 12:
+        a = (a + data[i] + (data[i+1] << 8) + (data[i+2] << 16) + (data[i+3] << 24)) & 0xFFFFFFFF
+        b = (b + data[i+4] + (data[i+5] << 8) + (data[i+6] << 16) + (data[i+7] << 24)) & 0xFFFFFFFF
+        c = (c + data[i+8] + (data[i+9] << 8) + (data[i+10] << 16) + (data[i+11] << 24)) & 0xFFFFFFFF
+        a = (a - c) & 0xFFFFFFFF; a ^= rot(c, 4);  c = (c + b) & 0xFFFFFFFF
+        b = (b - a) & 0xFFFFFFFF; b ^= rot(a, 6);  a = (a + c) & 0xFFFFFFFF
+        c = (c - b) & 0xFFFFFFFF; c ^= rot(b, 8);  b = (b + a) & 0xFFFFFFFF
+        a = (a - c) & 0xFFFFFFFF; a ^= rot(c, 16); c = (c + b) & 0xFFFFFFFF
+        b = (b - a) & 0xFFFFFFFF; b ^= rot(a, 19); a = (a + c) & 0xFFFFFFFF
+        c = (c - b) & 0xFFFFFFFF; c ^= rot(b, 4);  b = (b + a) & 0xFFFFFFFF
+        length -= 12; i += 12
+    if length == 0: return c
+    tail = data[i:] + bytes(12 - length)
+    a = (a + struct.unpack_from('<I', tail, 0)[0]) & 0xFFFFFFFF
+    b = (b + struct.unpack_from('<I', tail, 4)[0]) & 0xFFFFFFFF
+    c = (c + struct.unpack_from('<I', tail, 8)[0]) & 0xFFFFFFFF
+    c ^= b; c = (c - rot(b, 14)) & 0xFFFFFFFF
+    a ^= c; a = (a - rot(c, 11)) & 0xFFFFFFFF
+    b ^= a; b = (b - rot(a, 25)) & 0xFFFFFFFF
+    c ^= b; c = (c - rot(b, 16)) & 0xFFFFFFFF
+    a ^= c; a = (a - rot(c, 4)) & 0xFFFFFFFF
+    b ^= a; b = (b - rot(a, 14)) & 0xFFFFFFFF
+    c ^= b; c = (c - rot(b, 24)) & 0xFFFFFFFF
+    return c
+
+class File:
+    def __init__(self):
+        self.buf = bytearray(96)            # Reserved for superblock.
+    def alloc(self, data):
+        while len(self.buf) % 8: self.buf.append(0)
+        addr = len(self.buf)
+        self.buf += data
+        return addr
+
+def pad8(b):
+    return b + bytes((-len(b)) % 8)
+
+# ---- Datatypes ---------------------------------------------------------------
+def fixed(size, signed, big=False):
+    bits = (1 if big else 0) | (8 if signed else 0)
+    return struct.pack('<B3sI', 0x10 | 0, bits.to_bytes(3, 'little'), size) + struct.pack('<HH', 0, size * 8)
+
+def flt(size):
+    if size == 4: props = struct.pack('<HHBBBBI', 0, 32, 23, 8, 0, 23, 127)
+    else:         props = struct.pack('<HHBBBBI', 0, 64, 52, 11, 0, 52, 1023)
+    return struct.pack('<B3sI', 0x11, bytes([0x20, 0x1F, 0]), size) + props
+
+def fstring(size):
+    return struct.pack('<B3sI', 0x13, bytes([0, 0, 0]), size)       # Null-terminated, ASCII.
+
+def vlen_string():
+    return struct.pack('<B3sI', 0x19, bytes([1, 0, 0]), 4 + O + 4) + fstring(1)
+
+def vlen_refs():
+    ref = struct.pack('<B3sI', 0x17, bytes([0, 0, 0]), O)
+    return struct.pack('<B3sI', 0x19, bytes([0, 0, 0]), 4 + O + 4) + ref
+
+# ---- Dataspaces --------------------------------------------------------------
+def space_v1(dims, maxdims=None):
+    b = struct.pack('<BBB5x', 1, len(dims), 1 if maxdims else 0)
+    for d in dims: b += struct.pack('<Q', d)
+    if maxdims:
+        for d in maxdims: b += struct.pack('<Q', d)
+    return b
+
+def space_v2(dims):
+    b = struct.pack('<BBBB', 2, len(dims), 0, 1 if dims else 0)
+    for d in dims: b += struct.pack('<Q', d)
+    return b
+
+# ---- Messages ----------------------------------------------------------------
+def attribute(name, dtype, space, data):
+    n = name.encode() + b'\0'
+    return struct.pack('<BBHHH', 1, 0, len(n), len(dtype), len(space)) + pad8(n) + pad8(dtype) + pad8(space) + data
+
+def str_attr(name, value):
+    v = value.encode() + b'\0'
+    return attribute(name, fstring(len(v)), space_v1([]), v)
+
+def header_v1(f, messages):
+    body = b''
+    for mtype, data in messages:
+        data = pad8(data)
+        body += struct.pack('<HHB3x', mtype, len(data), 0) + data
+    return f.alloc(struct.pack('<BBHII4x', 1, 0, len(messages), 1, len(body)) + body)
+
+def header_v2(f, messages):
+    body = b''
+    for mtype, data in messages:
+        body += struct.pack('<BHB', mtype, len(data), 0) + data
+    assert len(body) < 256
+    block = b'OHDR' + struct.pack('<BBB', 2, 0, len(body)) + body
+    return f.alloc(block + struct.pack('<I', lookup3(block)))
+
+# ---- Global heap -------------------------------------------------------------
+class GlobalHeap:
+    def __init__(self):
+        self.objects = []
+    def add(self, data):
+        self.objects.append(data)
+        return len(self.objects)
+    def write(self, f):
+        body = b''
+        for i, data in enumerate(self.objects):
+            body += struct.pack('<HHIQ', i + 1, 1, 0, len(data)) + pad8(data)
+        size = max(4096, 16 + len(body) + 16)
+        free = size - 16 - len(body)
+        body += struct.pack('<HHIQ', 0, 0, 0, free)
+        body += bytes(size - 16 - len(body))
+        self.address = f.alloc(b'GCOL' + struct.pack('<B3xQ', 1, size) + body)
+
+# ---- Groups as symbol tables -------------------------------------------------
+def symbol_table(f, entries):
+    """entries: list of (name, object header address), sorted by name."""
+    heap = b'\0' * 8
+    offsets = []
+    for name, _ in entries:
+        offsets.append(len(heap))
+        heap += pad8(name.encode() + b'\0')
+    data = f.alloc(heap)
+    lheap = f.alloc(b'HEAP' + struct.pack('<B3xQQQ', 0, len(heap), UNDEF, data))
+    snod = b'SNOD' + struct.pack('<BBH', 1, 0, len(entries))
+    for off, (_, addr) in zip(offsets, entries):
+        snod += struct.pack('<QQII16x', off, addr, 0, 0)
+    snod_addr = f.alloc(snod)
+    tree = b'TREE' + struct.pack('<BBHQQ', 0, 0, 1, UNDEF, UNDEF)
+    tree += struct.pack('<QQQ', 0, snod_addr, offsets[-1])
+    tree_addr = f.alloc(tree)
+    return struct.pack('<QQ', tree_addr, lheap)
+
+# ---- Build the file ----------------------------------------------------------
+f = File()
+gheap = GlobalHeap()
+
+lat = [10.0, 20.0, 30.0]
+lon = [100.0, 110.0, 120.0, 130.0]
+lat_data = f.alloc(struct.pack('<3f', *lat))
+lon_data = f.alloc(struct.pack('<4f', *lon))
+
+def scale(name, data_addr, n):
+    return header_v1(f, [
+        (0x01, space_v1([n], [n])),
+        (0x03, flt(4)),
+        (0x05, struct.pack('<BBBB', 2, 2, 2, 0)),
+        (0x08, struct.pack('<BBQQ', 3, 1, data_addr, 4 * n)),
+        (0x0C, str_attr('CLASS', 'DIMENSION_SCALE')),
+        (0x0C, str_attr('NAME', name)),
+        (0x0C, str_attr('units', 'degrees_north' if name == 'lat' else 'degrees_east')),
+    ])
+
+lat_addr = scale('lat', lat_data, 3)
+lon_addr = scale('lon', lon_data, 4)
+
+# time(time) as an unlimited dimension. HDF5 requires chunked storage for unlimited dimensions.
+# The chunks contain 2 values and are not filtered. The last chunk is only partially used.
+time_chunks = []
+for c, values in ((0, (0.0, 6.0)), (2, (12.0, 0.0))):
+    time_chunks.append((c, f.alloc(struct.pack('<2d', *values))))
+tree = b'TREE' + struct.pack('<BBHQQ', 1, 0, len(time_chunks), UNDEF, UNDEF)
+for c, addr in time_chunks:
+    tree += struct.pack('<II2Q', 16, 0, c, 0) + struct.pack('<Q', addr)
+tree += struct.pack('<II2Q', 0, 0, 4, 0)
+time_index = f.alloc(tree)
+time_addr = header_v1(f, [
+    (0x01, space_v1([3], [UNDEF])),
+    (0x03, flt(8)),
+    (0x05, struct.pack('<BBBB', 2, 2, 2, 0)),
+    (0x08, struct.pack('<BBBQ', 3, 2, 2, time_index) + struct.pack('<2I', 2, 8)),
+    (0x0C, str_attr('CLASS', 'DIMENSION_SCALE')),
+    (0x0C, str_attr('NAME', 'time')),
+    (0x0C, str_attr('units', 'hours since 2020-01-01')),
+])
+
+# temperature(lat, lon) as big-endian shorts, chunks of 2×2, shuffle + deflate.
+# The chunk at (2,2) is never written, so it shall be read as the fill value.
+FILL = -999
+temperature = [[10 * i + j for j in range(4)] for i in range(3)]
+chunk_entries = []
+for ci in (0, 2):
+    for cj in (0, 2):
+        if (ci, cj) == (2, 2): continue
+        values = []
+        for i in range(ci, ci + 2):
+            for j in range(cj, cj + 2):
+                values.append(temperature[i][j] if i < 3 else FILL)
+        raw = struct.pack('>4h', *values)
+        shuffled = bytes(raw[k * 2 + b] for b in range(2) for k in range(4))
+        packed = zlib.compress(shuffled, 6)
+        chunk_entries.append(((ci, cj), f.alloc(packed), len(packed)))
+
+tree = b'TREE' + struct.pack('<BBHQQ', 1, 0, len(chunk_entries), UNDEF, UNDEF)
+for (ci, cj), addr, size in chunk_entries:
+    tree += struct.pack('<II3Q', size, 0, ci, cj, 0) + struct.pack('<Q', addr)
+tree += struct.pack('<II3Q', 0, 0, 3, 4, 0)
+chunk_index = f.alloc(tree)
+
+refs = [gheap.add(struct.pack('<Q', lat_addr)), gheap.add(struct.pack('<Q', lon_addr))]
+history = 'Created for Apache SIS tests'
+history_id = gheap.add(history.encode())
+gheap.write(f)
+
+def filter_desc(fid, name, values):
+    n = name.encode() + b'\0'
+    b = struct.pack('<HHHH', fid, len(n), 1, len(values)) + pad8(n)
+    for v in values: b += struct.pack('<I', v)
+    if len(values) % 2: b += bytes(4)
+    return b
+
+dimlist = b''
+for r in refs:
+    dimlist += struct.pack('<IQI', 1, gheap.address, r)
+
+temp_addr = header_v1(f, [
+    (0x01, space_v1([3, 4], [3, 4])),
+    (0x03, fixed(2, True, big=True)),
+    (0x05, struct.pack('<BBBBI', 2, 2, 2, 1, 2) + struct.pack('>h', FILL)),
+    (0x08, struct.pack('<BBBQ', 3, 2, 3, chunk_index) + struct.pack('<3I', 2, 2, 2)),
+    (0x0B, struct.pack('<BB6x', 1, 2) + filter_desc(2, 'shuffle', [2]) + filter_desc(1, 'deflate', [6])),
+    (0x0C, attribute('DIMENSION_LIST', vlen_refs(), space_v1([2]), dimlist)),
+    (0x0C, str_attr('units', 'K')),
+    (0x0C, attribute('valid_range', fixed(2, True), space_v1([2]), struct.pack('<2h', 0, 100))),
+    (0x0C, attribute('_FillValue', fixed(2, True, big=True), space_v1([]), struct.pack('>h', FILL))),
+])
+
+# Sub-group with a compact dataset described by a version 2 object header.
+count_addr = header_v2(f, [
+    (0x01, space_v2([2])),
+    (0x03, fixed(4, True)),
+    (0x08, struct.pack('<BBH', 3, 0, 8) + struct.pack('<2i', 7, 8)),
+])
+grp_addr = header_v1(f, [
+    (0x11, symbol_table(f, [('count', count_addr)])),
+    (0x0C, str_attr('summary', 'Group attribute')),
+])
+
+root_addr = header_v1(f, [
+    (0x11, symbol_table(f, [('grp', grp_addr), ('lat', lat_addr), ('lon', lon_addr), ('temperature', temp_addr), ('time', time_addr)])),
+    (0x0C, str_attr('title', 'HDF5 test file')),
+    (0x0C, attribute('history', vlen_string(), space_v1([]), struct.pack('<IQI', len(history), gheap.address, history_id))),
+    (0x0C, attribute('Conventions', fstring(7), space_v1([]), b'CF-1.6\0')),
+])
+
+eof = len(f.buf)
+sb = b'\x89HDF\r\n\x1a\n' + struct.pack('<BBBBBBBB', 0, 0, 0, 0, 0, O, L, 0)
+sb += struct.pack('<HHI', 4, 16, 0)
+sb += struct.pack('<QQQQ', 0, UNDEF, eof, UNDEF)
+sb += struct.pack('<QQII16x', 0, root_addr, 0, 0)
+assert len(sb) == 96
+f.buf[0:96] = sb
+open(sys.argv[1], 'wb').write(f.buf)
+print(len(f.buf), 'bytes')
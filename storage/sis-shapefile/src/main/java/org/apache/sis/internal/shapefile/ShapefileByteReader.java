@@ -17,6 +17,7 @@
 package org.apache.sis.internal.shapefile;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
@@ -39,13 +40,13 @@ import com.esri.core.geometry.*;
  * Reader of a Shapefile Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.1
  * @since   0.5
  * @module
  */
 public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormatException, SQLShapefileNotFoundException> {
     /** Name of the Geometry field. */
-    private static final String GEOMETRY_NAME = "geometry";
+    public static final String GEOMETRY_NAME = "geometry";
 
     /** Shapefile descriptor. */
     private ShapefileDescriptor shapefileDescriptor;
@@ -59,11 +60,15 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
     /** Shapefile index. */
     private File shapeFileIndex;
 
-    /** Shapefile indexes (loaded from .SHX file, if any found). */
-    private ArrayList<Integer> indexes;
+    /**
+     * Shapefile index (mapped from .SHX file, if any found). Each entry is 8 bytes long, starting after the 100 bytes
+     * of the header, and contains the record offset and length in the main shapefile, both expressed in words (16 bits).
+     * This buffer is never moved: the entries are fetched with absolute getters, which makes it shareable between readers.
+     */
+    private ByteBuffer indexes;
 
-    /** Shapefile records lengths (loaded from .SHX file, if any found). */
-    private ArrayList<Integer> recordsLengths;
+    /** Number of records declared by the shapefile index, or 0 if there is no index. */
+    private int indexedRecordCount;
 
     /**
      * Construct a shapefile byte reader.
@@ -89,6 +94,38 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         this.featuresType = getFeatureType(shapefile.getName());
     }
 
+    /**
+     * Creates a reader with its own position on the same mapped shapefile and index than the given reader.
+     * This constructor does not open any new file handle; the returned reader can be used for reading
+     * a different range of records concurrently with the given one.
+     * @param other Reader to copy.
+     */
+    public ShapefileByteReader(ShapefileByteReader other) {
+        super(other);
+        this.shapefileDescriptor = other.shapefileDescriptor;
+        this.databaseFieldsDescriptors = other.databaseFieldsDescriptors;
+        this.featuresType = other.featuresType;
+        this.shapeFileIndex = other.shapeFileIndex;
+        this.indexes = other.indexes;
+        this.indexedRecordCount = other.indexedRecordCount;
+    }
+
+    /**
+     * Returns {@code true} if this reader has an index allowing direct access to the records.
+     * @return true if {@link #setRowNum(int)} can be used.
+     */
+    public boolean hasIndex() {
+        return this.indexes != null;
+    }
+
+    /**
+     * Returns the number of records declared by the shapefile index.
+     * @return Number of records, or 0 if this shapefile has no index.
+     */
+    public int getIndexedRecordCount() {
+        return this.indexedRecordCount;
+    }
+
     /**
      * Returns the DBase 3 fields descriptors.
      * @return Fields descriptors.
@@ -162,18 +199,12 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
                 int fsize = (int)fc.size();
                 MappedByteBuffer indexesByteBuffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, fsize);
 
-                // Indexes entries follow.
-                this.indexes = new ArrayList<>();
-                this.recordsLengths = new ArrayList<>();
-                indexesByteBuffer.position(100);
+                // Indexes entries follow. They are not copied: the mapping stay valid after the channel is closed.
                 indexesByteBuffer.order(ByteOrder.BIG_ENDIAN);
+                this.indexes = indexesByteBuffer;
+                this.indexedRecordCount = Math.max(0, (fsize - 100) / 8);
 
-                while(indexesByteBuffer.hasRemaining()) {
-                    this.indexes.add(indexesByteBuffer.getInt());        // Data offset : the position of the record in the main shapefile, expressed in words (16 bits).
-                    this.recordsLengths.add(indexesByteBuffer.getInt()); // Length of this shapefile record.
-                }
-
-                log(Level.INFO, "log.index_has_been_read", this.shapeFileIndex.getAbsolutePath(), this.indexes.size(), this.getFile().getAbsolutePath());
+                log(Level.INFO, "log.index_has_been_read", this.shapeFileIndex.getAbsolutePath(), this.indexedRecordCount, this.getFile().getAbsolutePath());
                 return true;
             }
             catch(IOException e) {
@@ -232,15 +263,14 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         }
 
         // Check that the shapefile allows direct access : it won't if it has no index.
-        if (this.shapeFileIndex == null) {
+        if (this.indexes == null) {
             String message = format(Level.SEVERE, "excp.no_direct_access", getFile().getAbsolutePath());
             throw new SQLNoDirectAccessAvailableException(message);
         }
 
-        int position = this.indexes.get(recordNumber - 1) * 2; // Indexes unit are words (16 bits).
-
         // Check that the asked record number is not after the last.
-        if (position >= this.getByteBuffer().capacity()) {
+        int position = (recordNumber <= this.indexedRecordCount) ? this.indexes.getInt(100 + 8 * (recordNumber - 1)) * 2 : Integer.MAX_VALUE; // Indexes unit are words (16 bits).
+        if (position < 0 || position >= this.getByteBuffer().capacity()) {
             String message = format(Level.SEVERE, "excp.wrong_direct_access_after_last", recordNumber, getFile().getAbsolutePath());
             throw new SQLInvalidRecordNumberForDirectAccessException(recordNumber, message);
         }
@@ -254,6 +284,58 @@ public class ShapefileByteReader extends CommonByteReader<InvalidShapefileFormat
         }
     }
 
+    /**
+     * Reads the bounding box of the record at the current position, without decoding its coordinates
+     * and without moving the position. The bounding box is stored in the header of each polyline and
+     * polygon record; for points, the bounding box is the point itself.
+     * @param bounds Array of length 4 where to store the (xmin, ymin, xmax, ymax) values.
+     * @return false if the record is a null shape or an unsupported shape type, in which case the array is unmodified.
+     */
+    public boolean readRecordBounds(double[] bounds) {
+        final ByteBuffer buffer = getByteBuffer();
+        final int p = buffer.position();
+        final ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            ShapeTypeEnum type = ShapeTypeEnum.get(buffer.getInt(p + 8));  // After the record number and length.
+
+            if (type == null) {
+                return false;
+            }
+
+            switch (type) {
+                case Point:
+                case PointM:
+                case PointZ:
+                    bounds[0] = bounds[2] = buffer.getDouble(p + 12);
+                    bounds[1] = bounds[3] = buffer.getDouble(p + 20);
+                    return true;
+
+                case NullShape:
+                    return false;
+
+                default:
+                    for (int i=0; i<4; i++) {
+                        bounds[i] = buffer.getDouble(p + 12 + i * Double.BYTES);
+                    }
+                    return true;
+            }
+        }
+        finally {
+            buffer.order(order);
+        }
+    }
+
+    /**
+     * Moves the position after the record at the current position, without decoding it.
+     */
+    public void skipRecord() {
+        final ByteBuffer buffer = getByteBuffer();
+        final int p = buffer.position();
+        buffer.position(p + 8 + buffer.getInt(p + 4) * 2);     // Record header, then content length in words (16 bits).
+    }
+
     /**
      * Complete a feature with shapefile content.
      * @param feature Feature to complete.
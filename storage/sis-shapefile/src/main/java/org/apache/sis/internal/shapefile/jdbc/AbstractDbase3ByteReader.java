@@ -28,7 +28,7 @@ import java.util.logging.Level;
 /**
  * The Abstract Byte Reader.
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.1
  * @since   0.5
  * @module
  */
@@ -96,6 +96,22 @@ abstract class AbstractDbase3ByteReader extends CommonByteReader<SQLInvalidDbase
         super(file, SQLInvalidDbaseFileFormatException.class, SQLDbaseFileNotFoundException.class);
     }
 
+    /**
+     * Creates a reader with its own position on the same mapped database than the given reader.
+     * The header values already read by the given reader are shared.
+     * @param other Reader to copy.
+     */
+    protected AbstractDbase3ByteReader(AbstractDbase3ByteReader other) {
+        super(other);
+        this.firstRecordPosition = other.firstRecordPosition;
+        this.recordLength = other.recordLength;
+        this.codePage = other.codePage;
+        this.dbaseVersion = other.dbaseVersion;
+        this.rowCount = other.rowCount;
+        this.charset = other.charset;
+        this.dbaseLastUpdate = other.dbaseLastUpdate;
+    }
+
     /**
      * Returns the charset.
      * @return Charset.
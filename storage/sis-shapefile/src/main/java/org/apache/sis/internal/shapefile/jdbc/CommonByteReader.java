@@ -27,7 +27,7 @@ import org.apache.sis.internal.shapefile.AutoChecker;
 /**
  * Common byte reader.
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.1
  * @param <InvalidFormatException> Invalid format Exception to throw in case of trouble.
  * @param <FNFException> File not found Exception to throw in case of missing file.
  * @since   0.5
@@ -91,6 +91,21 @@ public abstract class CommonByteReader<InvalidFormatException extends Exception,
         }
    }
 
+    /**
+     * Creates a reader on the same mapped content than the given reader, but with its own position,
+     * limit and byte order. The new reader shares the memory mapping of the given one and does not
+     * own any file channel: closing it does not close the file, which stay open until the reader
+     * given in argument is closed.
+     * @param other Reader to copy.
+     */
+    protected CommonByteReader(CommonByteReader<InvalidFormatException, FNFException> other) {
+        this.file = other.file;
+        this.classInvalidFormatException = other.classInvalidFormatException;
+        this.classFNFException = other.classFNFException;
+        this.byteBuffer = (MappedByteBuffer) other.byteBuffer.duplicate();
+        this.byteBuffer.order(other.byteBuffer.order());
+    }
+
     /**
      * Close the MappedByteReader.
      * @throws IOException if the close operation fails.
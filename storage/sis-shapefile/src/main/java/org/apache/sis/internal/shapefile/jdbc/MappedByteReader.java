@@ -33,7 +33,7 @@ import org.apache.sis.feature.AbstractFeature;
  * Reader of a Database Binary content by the way of a {@link java.nio.MappedByteBuffer}
  *
  * @author  Marc Le Bihan
- * @version 0.5
+ * @version 1.1
  * @since   0.5
  * @module
  */
@@ -69,6 +69,18 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
         loadDescriptor();
     }
 
+    /**
+     * Creates a reader with its own position on the same mapped database than the given reader.
+     * This constructor does not open any new file handle; the returned reader can be used
+     * for reading a different range of records concurrently with the given one.
+     * @param other Reader to copy.
+     */
+    public MappedByteReader(MappedByteReader other) {
+        super(other);
+        this.fieldsDescriptors = other.fieldsDescriptors;
+        this.info = other.info;
+    }
+
     /**
      * Load a row into a feature.
      * @param feature Feature to fill.
@@ -120,6 +132,19 @@ public class MappedByteReader extends AbstractDbase3ByteReader implements AutoCl
         }
     }
 
+    /**
+     * Moves to the given record. Because all DBase records have the same length,
+     * this operation does not need any index.
+     * @param recordNumber Record number, starting at 1.
+     * @throws IllegalArgumentException if the record number is before the first record or after the last one.
+     */
+    public void setRowNum(int recordNumber) {
+        if (recordNumber < 1 || recordNumber > this.rowCount + 1) {
+            throw new IllegalArgumentException(format(Level.SEVERE, "excp.wrong_direct_access", recordNumber, getFile().getAbsolutePath()));
+        }
+        getByteBuffer().position(Short.toUnsignedInt(this.firstRecordPosition) + (recordNumber - 1) * Short.toUnsignedInt(this.recordLength));
+    }
+
     /**
      * Returns the record number of the last record red.
      * @return The record number.
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.util.Arrays;
+import java.util.ResourceBundle;
+import java.text.MessageFormat;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.sis.storage.DataStoreContentException;
+
+
+/**
+ * Reader and writer of quadtree spatial index files ({@code *.qix}), in the format defined by MapServer
+ * and also used by GDAL and GeoTools. The file starts with a header of 16 bytes:
+ *
+ * <ol>
+ *   <li>The {@code "SQT"} signature on 3 bytes.</li>
+ *   <li>The byte order on 1 byte: 1 for little-endian or 2 for big-endian.</li>
+ *   <li>The format version on 1 byte (currently 1), followed by 3 reserved bytes.</li>
+ *   <li>The number of shapes and the maximal depth of the tree as two integers.</li>
+ * </ol>
+ *
+ * Nodes follow in depth-first order. Each node contains the number of bytes used by all its children,
+ * the bounding box of the node as 4 doubles, the number of shapes followed by their record indices
+ * (starting at 0), then the number of children. The byte count allows to skip a whole subtree when
+ * its bounding box does not intersect the area of interest.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class QuadTree {
+    /**
+     * The extension of quadtree index files.
+     */
+    static final String EXTENSION = "qix";
+
+    /**
+     * Length of the file header in bytes.
+     */
+    private static final int HEADER_LENGTH = 16;
+
+    /**
+     * Length of a node in bytes, ignoring the record indices and the children.
+     */
+    private static final int NODE_LENGTH = 3 * Integer.BYTES + 4 * Double.BYTES;
+
+    /**
+     * The only format version supported by this class.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Maximal depth of the trees created by this class. This is a safety against excessive file size.
+     */
+    private static final int MAX_DEPTH = 12;
+
+    /**
+     * The bounding box of this node, as (xmin, ymin, xmax, ymax) values.
+     * Initially the nominal quadrant; replaced by the actual content bounds before writing.
+     */
+    private final double[] bounds;
+
+    /**
+     * Union of the bounding boxes of the records stored in this node (ignoring children).
+     */
+    private final double[] content;
+
+    /**
+     * Indices of the records stored in this node. Only the {@link #count} first elements are valid.
+     */
+    private int[] records;
+
+    /**
+     * Number of valid elements in the {@link #records} array.
+     */
+    private int count;
+
+    /**
+     * The four quadrants of this node, or {@code null} if none. Elements may be null.
+     */
+    private QuadTree[] children;
+
+    /**
+     * Number of bytes used by all children of this node. Computed by {@link #shrink()}.
+     */
+    private int childrenLength;
+
+    /**
+     * Creates a new node for the given bounding box.
+     */
+    private QuadTree(final double[] bounds) {
+        this.bounds  = bounds;
+        this.records = new int[4];
+        this.content = new double[] {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                                     Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    /**
+     * Returns the indices of all records in the given index file having a node intersecting the given bounding box.
+     * Those records are only candidates: the index does not guarantee that the record bounds really intersect.
+     *
+     * @param  index  the content of the {@code *.qix} file.
+     * @param  name   name of the {@code *.qix} file, used only for error messages.
+     * @param  bbox   the area of interest as (xmin, ymin, xmax, ymax) values.
+     * @return indices (starting at 0) of candidate records, in increasing order.
+     * @throws DataStoreContentException if the index file is not in a supported format.
+     */
+    static int[] query(ByteBuffer index, final String name, final double[] bbox) throws DataStoreContentException {
+        index = index.duplicate();
+        if (index.limit() < HEADER_LENGTH || index.get(0) != 'S' || index.get(1) != 'Q' || index.get(2) != 'T') {
+            throw new DataStoreContentException(format("excp.not_a_quadtree_index", name));
+        }
+        switch (index.get(3)) {
+            case 1:  index.order(ByteOrder.LITTLE_ENDIAN); break;
+            case 2:  index.order(ByteOrder.BIG_ENDIAN);    break;
+            default: index.order(ByteOrder.nativeOrder()); break;
+        }
+        if (index.get(4) != VERSION) {
+            throw new DataStoreContentException(format("excp.unsupported_quadtree_version", name, index.get(4)));
+        }
+        int[] found = new int[Math.max(16, Math.min(index.getInt(8), 1024))];
+        final int[] size = new int[1];
+        index.position(HEADER_LENGTH);
+        try {
+            found = query(index, bbox, found, size);
+        } catch (RuntimeException e) {         // BufferUnderflowException or IllegalArgumentException.
+            throw new DataStoreContentException(format("excp.corrupted_quadtree_index", name), e);
+        }
+        found = Arrays.copyOf(found, size[0]);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Formats the message of the given key from the {@code QuadTree} resource bundle.
+     *
+     * @param  key   the key of the message in the resource bundle.
+     * @param  args  the values to substitute in the message.
+     * @return the formatted message.
+     */
+    private static String format(final String key, final Object... args) {
+        return MessageFormat.format(ResourceBundle.getBundle(QuadTree.class.getName()).getString(key), args);
+    }
+
+    /**
+     * Adds the records of the node at the current buffer position and of its children,
+     * or skips the node if it does not intersect the given bounding box.
+     *
+     * @param  index  the buffer positioned on the node to read.
+     * @param  bbox   the area of interest.
+     * @param  found  where to add the record indices.
+     * @param  size   a single-element array containing the number of valid elements in {@code found}.
+     * @return {@code found}, or a larger array if it was necessary to grow it.
+     */
+    private static int[] query(final ByteBuffer index, final double[] bbox, int[] found, final int[] size) {
+        final int start  = index.position();
+        final int length = index.getInt();
+        final double xmin = index.getDouble();
+        final double ymin = index.getDouble();
+        final double xmax = index.getDouble();
+        final double ymax = index.getDouble();
+        final int n = index.getInt();
+        if (xmin > bbox[2] || xmax < bbox[0] || ymin > bbox[3] || ymax < bbox[1]) {
+            index.position(start + NODE_LENGTH + n * Integer.BYTES + length);
+            return found;
+        }
+        if (size[0] + n > found.length) {
+            found = Arrays.copyOf(found, Math.max(size[0] + n, found.length * 2));
+        }
+        for (int i=0; i<n; i++) {
+            found[size[0]++] = index.getInt();
+        }
+        for (int i = index.getInt(); --i >= 0;) {
+            found = query(index, bbox, found, size);
+        }
+        return found;
+    }
+
+    /**
+     * Creates a quadtree index for the given record bounds and writes it in the given file.
+     *
+     * @param  file    the {@code *.qix} file to write.
+     * @param  bounds  the (xmin, ymin, xmax, ymax) values of each record, or {@code null} for null shapes.
+     * @param  extent  the (xmin, ymin, xmax, ymax) values of the whole shapefile.
+     * @throws IOException if an error occurred while writing the file.
+     */
+    static void write(final Path file, final double[][] bounds, final double[] extent) throws IOException {
+        int depth = 0;
+        for (long n = 1; n * 4 < bounds.length && depth < MAX_DEPTH; n *= 2) {
+            depth++;
+        }
+        final QuadTree root = new QuadTree(extent.clone());
+        for (int i=0; i<bounds.length; i++) {
+            if (bounds[i] != null) {
+                root.insert(i, bounds[i], depth);
+            }
+        }
+        root.shrink();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + root.length()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'S').put((byte) 'Q').put((byte) 'T').put((byte) 1).put(VERSION).put(new byte[3]);
+        buffer.putInt(bounds.length).putInt(depth);
+        root.write(buffer);
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Adds the given record in the deepest node which fully contains its bounding box.
+     */
+    private void insert(final int record, final double[] box, final int depth) {
+        if (depth > 0) {
+            final double xmid = (bounds[0] + bounds[2]) / 2;
+            final double ymid = (bounds[1] + bounds[3]) / 2;
+            final int quadrant;
+            if      (box[2] <= xmid) quadrant = 0;
+            else if (box[0] >= xmid) quadrant = 1;
+            else quadrant = -1;
+            if (quadrant >= 0) {
+                final int q;
+                if      (box[3] <= ymid) q = quadrant;
+                else if (box[1] >= ymid) q = quadrant + 2;
+                else q = -1;
+                if (q >= 0) {
+                    if (children == null) {
+                        children = new QuadTree[4];
+                    }
+                    QuadTree child = children[q];
+                    if (child == null) {
+                        final boolean east  = (q & 1) != 0;
+                        final boolean north = (q & 2) != 0;
+                        children[q] = child = new QuadTree(new double[] {
+                            east  ? xmid : bounds[0],
+                            north ? ymid : bounds[1],
+                            east  ? bounds[2] : xmid,
+                            north ? bounds[3] : ymid
+                        });
+                    }
+                    child.insert(record, box, depth - 1);
+                    return;
+                }
+            }
+        }
+        if (count == records.length) {
+            records = Arrays.copyOf(records, count * 2);
+        }
+        records[count++] = record;
+        union(box);
+    }
+
+    /**
+     * Expands the content of this node for containing the given box.
+     * The box may extend outside the nominal bounds of this node.
+     */
+    private void union(final double[] box) {
+        if (box[0] < content[0]) content[0] = box[0];
+        if (box[1] < content[1]) content[1] = box[1];
+        if (box[2] > content[2]) content[2] = box[2];
+        if (box[3] > content[3]) content[3] = box[3];
+    }
+
+    /**
+     * Replaces the bounding box of this node and its children by the union of their content,
+     * then computes {@link #childrenLength}. Empty children have been omitted by construction.
+     * The nominal bounds are kept only if the tree is empty.
+     */
+    private void shrink() {
+        childrenLength = 0;
+        if (children != null) {
+            for (final QuadTree child : children) {
+                if (child != null) {
+                    child.shrink();
+                    childrenLength += child.length();
+                    union(child.bounds);
+                }
+            }
+        }
+        if (content[0] <= content[2] && content[1] <= content[3]) {
+            System.arraycopy(content, 0, bounds, 0, 4);
+        }
+    }
+
+    /**
+     * Returns the number of bytes used by this node and all its children.
+     */
+    private int length() {
+        return NODE_LENGTH + count * Integer.BYTES + childrenLength;
+    }
+
+    /**
+     * Writes this node and its children in the given buffer.
+     */
+    private void write(final ByteBuffer buffer) {
+        buffer.putInt(childrenLength);
+        for (final double v : bounds) {
+            buffer.putDouble(v);
+        }
+        buffer.putInt(count);
+        for (int i=0; i<count; i++) {
+            buffer.putInt(records[i]);
+        }
+        int n = 0;
+        if (children != null) {
+            for (final QuadTree child : children) {
+                if (child != null) n++;
+            }
+        }
+        buffer.putInt(n);
+        if (n != 0) {
+            for (final QuadTree child : children) {
+                if (child != null) child.write(buffer);
+            }
+        }
+    }
+}
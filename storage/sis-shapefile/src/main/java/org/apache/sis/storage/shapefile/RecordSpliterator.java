@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
+import org.apache.sis.internal.shapefile.SQLInvalidRecordNumberForDirectAccessException;
+import org.apache.sis.internal.shapefile.SQLNoDirectAccessAvailableException;
+import org.apache.sis.internal.shapefile.jdbc.MappedByteReader;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.util.collection.BackingStoreException;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * Iterator over a range of records in a shapefile. Each instance has its own view over the memory-mapped
+ * {@code *.shp} and {@code *.dbf} files. Records in the {@code *.dbf} file have a fixed length, so they can
+ * be reached directly from the record number. Records in the {@code *.shp} file have variable lengths and
+ * can be reached directly only if a {@code *.shx} index is available; if there is no index, this iterator
+ * can not be split and records are read sequentially from the first one.
+ *
+ * <p>If a bounding box is specified, then the bounds stored in the header of each record are compared
+ * with the area of interest before to decode the record. Records outside the area of interest are skipped
+ * without creating their geometry. The records to examine can optionally be restricted to a list of
+ * candidates computed from a spatial index.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class RecordSpliterator implements Spliterator<AbstractFeature> {
+    /**
+     * Position of the first record in the {@code *.shp} file, immediately after the header.
+     */
+    private static final int FIRST_RECORD_POSITION = 100;
+
+    /**
+     * The type of features to create.
+     */
+    private final DefaultFeatureType type;
+
+    /**
+     * The reader of geometries, with a position independent of other iterators.
+     */
+    private final ShapefileByteReader shapefileReader;
+
+    /**
+     * The reader of attributes, with a position independent of other iterators.
+     */
+    private final MappedByteReader databaseReader;
+
+    /**
+     * The area of interest as (xmin, ymin, xmax, ymax) values, or {@code null} for reading all records.
+     */
+    private final double[] bbox;
+
+    /**
+     * Indices (starting at 0) of the records to examine in increasing order,
+     * or {@code null} for examining all records.
+     */
+    private final int[] candidates;
+
+    /**
+     * Index of the next record to examine, either directly or as an index in the {@link #candidates} array.
+     */
+    private int lower;
+
+    /**
+     * Index after the last record to examine, either directly or as an index in the {@link #candidates} array.
+     */
+    private final int upper;
+
+    /**
+     * Index (starting at 0) of the record on which the readers are positioned, or -1 if unknown.
+     */
+    private int positioned;
+
+    /**
+     * Bounds of the current record, used only if a bounding box has been specified.
+     */
+    private final double[] recordBounds;
+
+    /**
+     * Creates a new iterator over the records of the given readers.
+     * The given readers are not modified; this iterator will work on copies of them.
+     *
+     * @param shp         reader of the {@code *.shp} file.
+     * @param dbf         reader of the {@code *.dbf} file.
+     * @param bbox        the area of interest as (xmin, ymin, xmax, ymax) values, or {@code null} if none.
+     * @param candidates  indices of the records to examine in increasing order, or {@code null} for all records.
+     *                    Can be non-null only if the shapefile has an index.
+     */
+    RecordSpliterator(final ShapefileByteReader shp, final MappedByteReader dbf, final double[] bbox, final int[] candidates) {
+        type            = shp.getFeaturesType();
+        shapefileReader = new ShapefileByteReader(shp);
+        databaseReader  = new MappedByteReader(dbf);
+        this.bbox       = bbox;
+        this.candidates = candidates;
+        recordBounds    = (bbox != null) ? new double[4] : null;
+        positioned      = -1;
+        if (candidates != null) {
+            upper = candidates.length;
+        } else {
+            int count = dbf.getRowCount();
+            if (shp.hasIndex()) {
+                count = Math.min(count, shp.getIndexedRecordCount());
+            }
+            upper = count;
+        }
+    }
+
+    /**
+     * Creates a new iterator over the given range of records.
+     */
+    private RecordSpliterator(final RecordSpliterator other, final int lower, final int upper) {
+        type            = other.type;
+        shapefileReader = new ShapefileByteReader(other.shapefileReader);
+        databaseReader  = new MappedByteReader(other.databaseReader);
+        bbox            = other.bbox;
+        candidates      = other.candidates;
+        recordBounds    = (bbox != null) ? new double[4] : null;
+        positioned      = -1;
+        this.lower      = lower;
+        this.upper      = upper;
+    }
+
+    /**
+     * Moves the readers on the record at the given index. If there is no index,
+     * then this method is invoked only at the beginning of the file.
+     */
+    private void position(final int record) throws SQLNoDirectAccessAvailableException, SQLInvalidRecordNumberForDirectAccessException {
+        if (record == 0) {
+            shapefileReader.getByteBuffer().position(FIRST_RECORD_POSITION);
+        } else {
+            shapefileReader.setRowNum(record + 1);
+        }
+        databaseReader.setRowNum(record + 1);
+        positioned = record;
+    }
+
+    /**
+     * Returns {@code true} if the bounds of the record at the current position intersect the area of interest.
+     */
+    private boolean intersects() {
+        final double[] b = recordBounds;
+        return shapefileReader.readRecordBounds(b) && b[0] <= bbox[2] && b[2] >= bbox[0] && b[1] <= bbox[3] && b[3] >= bbox[1];
+    }
+
+    /**
+     * Reads the next feature and gives it to the given consumer.
+     *
+     * @param  action  the action to execute on the next feature.
+     * @return {@code false} if there is no more feature to read.
+     * @throws BackingStoreException if an error occurred while reading the feature.
+     */
+    @Override
+    public boolean tryAdvance(final Consumer<? super AbstractFeature> action) {
+        while (lower < upper) {
+            final int record = (candidates != null) ? candidates[lower] : lower;
+            lower++;
+            try {
+                if (record != positioned) {
+                    position(record);
+                }
+                positioned = record + 1;
+                if (bbox != null && !intersects()) {
+                    shapefileReader.skipRecord();
+                    databaseReader.setRowNum(record + 2);
+                    continue;
+                }
+                final AbstractFeature feature = type.newInstance();
+                databaseReader.loadRowIntoFeature(feature);
+                shapefileReader.completeFeature(feature);
+                action.accept(feature);
+                return true;
+            } catch (DataStoreException | SQLException e) {
+                throw new BackingStoreException(e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an iterator over the first half of the remaining records, and reduces this iterator to the second half.
+     * This is possible only if the shapefile has an index.
+     *
+     * @return an iterator over the first half of remaining records, or {@code null} if this iterator can not be split.
+     */
+    @Override
+    public Spliterator<AbstractFeature> trySplit() {
+        if (!shapefileReader.hasIndex() || upper - lower < 2) {
+            return null;
+        }
+        final int start = lower;
+        lower = (lower + upper) >>> 1;
+        return new RecordSpliterator(this, start, lower);
+    }
+
+    /**
+     * Returns the number of remaining records. This is the exact number of features if there is no bounding box,
+     * or an upper bound otherwise.
+     *
+     * @return number of remaining records to examine.
+     */
+    @Override
+    public long estimateSize() {
+        return upper - lower;
+    }
+
+    /**
+     * Returns the characteristics of this iterator: ordered, non-null and sized if there is no bounding box.
+     *
+     * @return the characteristics of this iterator.
+     */
+    @Override
+    public int characteristics() {
+        return (bbox != null) ? ORDERED | NONNULL | IMMUTABLE : ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.opengis.util.FactoryException;
+import org.opengis.util.GenericName;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.maintenance.ScopeCode;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.geometry.Envelope;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.apache.sis.geometry.Envelopes;
+import org.apache.sis.geometry.ImmutableEnvelope;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.setup.OptionKey;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreClosedException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.DataStoreReferencingException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.Query;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.UnsupportedQueryException;
+import org.apache.sis.storage.UnsupportedStorageException;
+import org.apache.sis.internal.shapefile.ShapefileByteReader;
+import org.apache.sis.internal.shapefile.ShapefileDescriptor;
+import org.apache.sis.internal.shapefile.SQLShapefileNotFoundException;
+import org.apache.sis.internal.shapefile.jdbc.MappedByteReader;
+import org.apache.sis.internal.shapefile.jdbc.SQLDbaseFileNotFoundException;
+import org.apache.sis.internal.shapefile.jdbc.SQLInvalidDbaseFileFormatException;
+import org.apache.sis.internal.storage.MetadataBuilder;
+import org.apache.sis.internal.storage.URIDataStore;
+import org.apache.sis.internal.storage.io.IOUtilities;
+import org.apache.sis.internal.storage.query.Comparison;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.util.iso.Names;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * A data store for reading the features of an ESRI Shapefile. The main {@code *.shp} file and the {@code *.dbf}
+ * database are memory-mapped and read on demand: features are created one at a time while the stream returned
+ * by {@link #features(boolean)} is consumed. If a {@code *.shx} index is present, then the stream can be split
+ * in ranges of records for parallel reading, and each range is positioned directly on its first record.
+ * If a {@code *.prj} file is present, then it is used for the coordinate reference system of the envelope.
+ *
+ * <p>Queries with a bounding box are executed by comparing the bounds stored in the header of each record
+ * with the area of interest before to decode the geometries. If a {@code *.qix} quadtree index is present
+ * together with the {@code *.shx} index, then only the records in the quadtree nodes intersecting the area
+ * of interest are examined. Such index can be created by {@link #createSpatialIndex()}.</p>
+ *
+ * <div class="warning">This is an experimental class,
+ * not yet target for any Apache SIS release at this time.</div>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public class ShapefileStore extends DataStore implements FeatureSet {
+    /**
+     * The {@link ShapefileStoreProvider#LOCATION} parameter value, or {@code null} if none.
+     * This is used for information purpose only, not for actual reading operations.
+     */
+    private final URI location;
+
+    /**
+     * The name of the main shapefile, used for the identifier and error messages.
+     */
+    private final String filename;
+
+    /**
+     * The main {@code *.shp} file, used for locating the {@code *.qix} spatial index.
+     */
+    private final File shapefile;
+
+    /**
+     * Content of the {@code *.qix} spatial index, or {@code null} if none or not yet loaded.
+     *
+     * @see #spatialIndex()
+     */
+    private ByteBuffer spatialIndex;
+
+    /**
+     * Whether {@link #spatialIndex} has been loaded (successfully or not).
+     */
+    private boolean spatialIndexLoaded;
+
+    /**
+     * Reader of the geometries in the {@code *.shp} file, or {@code null} if this store has been closed.
+     * This reader is never used directly for reading features; only copies of it are used, in order to
+     * give an independent position to each stream.
+     */
+    private ShapefileByteReader shapefileReader;
+
+    /**
+     * Reader of the attributes in the {@code *.dbf} file, or {@code null} if this store has been closed.
+     * Like {@link #shapefileReader}, only copies of this reader are used for reading features.
+     */
+    private MappedByteReader databaseReader;
+
+    /**
+     * The coordinate reference system read from the {@code *.prj} file, or {@code null} if none.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * The metadata, or {@code null} if not yet created.
+     *
+     * @see #getMetadata()
+     */
+    private Metadata metadata;
+
+    /**
+     * Creates a new shapefile store from the given file, URL or path.
+     * Only the main {@code *.shp} file needs to be specified; the other files are found by changing the extension.
+     *
+     * @param  provider   the factory that created this {@code DataStore} instance, or {@code null} if unspecified.
+     * @param  connector  information about the storage (URL, path, <i>etc</i>).
+     * @throws DataStoreException if an error occurred while opening the shapefile.
+     */
+    public ShapefileStore(final ShapefileStoreProvider provider, final StorageConnector connector) throws DataStoreException {
+        super(provider, connector);
+        final Path path = connector.getStorageAs(Path.class);
+        if (path == null) {
+            throw new UnsupportedStorageException(super.getLocale(), ShapefileStoreProvider.NAME,
+                    connector.getStorage(), connector.getOption(OptionKey.OPEN_OPTIONS));
+        }
+        location = connector.getStorageAs(URI.class);
+        connector.closeAllExcept(null);
+        filename = path.getFileName().toString();
+        final File shp;
+        try {
+            shp = path.toFile();
+        } catch (UnsupportedOperationException e) {
+            throw new UnsupportedStorageException(e.getMessage(), e);
+        }
+        shapefile = shp;
+        final File dbf = sibling(shp, "dbf");
+        File shx = sibling(shp, "shx");
+        if (!shx.isFile()) shx = null;
+        try {
+            shapefileReader = new ShapefileByteReader(shp, dbf, shx);
+            databaseReader  = new MappedByteReader(dbf, null);
+        } catch (SQLInvalidDbaseFileFormatException e) {
+            throw new InvalidDbaseFileFormatException(e.getMessage(), e);
+        } catch (SQLDbaseFileNotFoundException e) {
+            throw new DbaseFileNotFoundException(e.getMessage(), e);
+        } catch (SQLShapefileNotFoundException e) {
+            throw new ShapefileNotFoundException(e.getMessage(), e);
+        }
+        CoordinateReferenceSystem crs = null;
+        final File prj = sibling(shp, "prj");
+        if (prj.isFile()) try {
+            crs = CRS.fromWKT(new String(Files.readAllBytes(prj.toPath()), StandardCharsets.ISO_8859_1));
+        } catch (IOException | FactoryException e) {
+            listeners.warning(e);
+        }
+        this.crs = crs;
+    }
+
+    /**
+     * Returns the file having the same name than the given shapefile but a different extension.
+     * The case of the new extension is the same than the case of the shapefile extension,
+     * for example {@code "foo.SHP"} gives {@code "foo.DBF"}.
+     */
+    private static File sibling(final File shp, String extension) {
+        String name = shp.getName();
+        final int s = name.lastIndexOf('.');
+        if (s >= 0) {
+            final String current = name.substring(s + 1);
+            if (!current.isEmpty() && Character.isUpperCase(current.charAt(0))) {
+                extension = current.equals(current.toUpperCase()) ? extension.toUpperCase()
+                          : Character.toUpperCase(extension.charAt(0)) + extension.substring(1);
+            }
+            name = name.substring(0, s);
+        }
+        return new File(shp.getParentFile(), name + '.' + extension);
+    }
+
+    /**
+     * Returns the parameters used to open this shapefile data store.
+     *
+     * @return parameters used for opening this data store.
+     */
+    @Override
+    public Optional<ParameterValueGroup> getOpenParameters() {
+        return Optional.ofNullable(URIDataStore.parameters(provider, location));
+    }
+
+    /**
+     * Returns an identifier constructed from the name of the shapefile, without extension.
+     *
+     * @return the identifier derived from the filename.
+     */
+    @Override
+    public Optional<GenericName> getIdentifier() {
+        return Optional.of(Names.createLocalName(null, null, IOUtilities.filenameWithoutExtension(filename)));
+    }
+
+    /**
+     * Returns the readers if this store is not closed, or throws an exception otherwise.
+     */
+    private ShapefileByteReader reader() throws DataStoreException {
+        final ShapefileByteReader r = shapefileReader;
+        if (r == null) {
+            throw new DataStoreClosedException(getLocale(), ShapefileStoreProvider.NAME, StandardOpenOption.READ);
+        }
+        return r;
+    }
+
+    /**
+     * Returns the type of all features in this shapefile.
+     *
+     * @return description of features in this shapefile.
+     * @throws DataStoreException if this store has been closed.
+     */
+    @Override
+    public synchronized DefaultFeatureType getType() throws DataStoreException {
+        return reader().getFeaturesType();
+    }
+
+    /**
+     * Returns the bounding box declared in the shapefile header.
+     *
+     * @return the spatial extent of all features.
+     * @throws DataStoreException if this store has been closed.
+     */
+    @Override
+    public synchronized Optional<Envelope> getEnvelope() throws DataStoreException {
+        final ShapefileDescriptor d = reader().getShapefileDescriptor();
+        return Optional.of(new ImmutableEnvelope(new double[] {d.getXmin(), d.getYmin()},
+                                                 new double[] {d.getXmax(), d.getYmax()}, crs));
+    }
+
+    /**
+     * Returns information about the shapefile as a whole: format, feature type with the number of
+     * records, and the extent declared in the header if the coordinate reference system is known.
+     *
+     * @return information about the dataset.
+     * @throws DataStoreException if an error occurred while reading the data.
+     */
+    @Override
+    public synchronized Metadata getMetadata() throws DataStoreException {
+        if (metadata == null) {
+            final MetadataBuilder builder = new MetadataBuilder();
+            builder.addFormatName(ShapefileStoreProvider.NAME);
+            builder.addResourceScope(ScopeCode.DATASET, null);
+            builder.addFeatureType(getType(), databaseReader.getRowCount());
+            if (crs != null) try {
+                builder.addExtent(getEnvelope().get());
+            } catch (TransformException e) {
+                listeners.warning(e);
+            }
+            getIdentifier().ifPresent((id) -> builder.addTitleOrIdentifier(id.toString(), MetadataBuilder.Scope.ALL));
+            builder.setISOStandards(false);
+            metadata = builder.build(true);
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns the stream of features. Each stream has its own view over the memory-mapped files,
+     * so many streams can be consumed concurrently. If the shapefile has a {@code *.shx} index,
+     * then the stream can be efficiently split for parallel execution.
+     *
+     * @param  parallel  {@code true} for a parallel stream, or {@code false} for a sequential stream.
+     * @return all features contained in this shapefile.
+     * @throws DataStoreException if this store has been closed.
+     */
+    @Override
+    public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        return features(null, parallel);
+    }
+
+    /**
+     * Returns the stream of features having a geometry whose bounds intersect the given area of interest.
+     *
+     * @param  bbox      the area of interest as (xmin, ymin, xmax, ymax) values, or {@code null} if none.
+     * @param  parallel  {@code true} for a parallel stream, or {@code false} for a sequential stream.
+     * @return features intersecting the area of interest.
+     * @throws DataStoreException if this store has been closed.
+     */
+    final synchronized Stream<AbstractFeature> features(final double[] bbox, final boolean parallel) throws DataStoreException {
+        final ShapefileByteReader shp = reader();
+        int[] candidates = null;
+        if (bbox != null && shp.hasIndex()) {
+            final ByteBuffer index = spatialIndex();
+            if (index != null) try {
+                candidates = QuadTree.query(index, sibling(shapefile, QuadTree.EXTENSION).getName(), bbox);
+            } catch (DataStoreContentException e) {
+                listeners.warning(e);
+                spatialIndex = null;
+            }
+        }
+        return StreamSupport.stream(new RecordSpliterator(shp, databaseReader, bbox, candidates), parallel);
+    }
+
+    /**
+     * Returns the content of the {@code *.qix} spatial index, or {@code null} if none.
+     * The file is memory-mapped on the first invocation of this method.
+     */
+    private ByteBuffer spatialIndex() {
+        if (!spatialIndexLoaded) {
+            spatialIndexLoaded = true;
+            final File file = sibling(shapefile, QuadTree.EXTENSION);
+            if (file.isFile()) {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    spatialIndex = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } catch (IOException e) {
+                    listeners.warning(e);
+                }
+            }
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * Creates a {@code *.qix} quadtree index for this shapefile, replacing any existing index.
+     * The index is built from the bounds stored in the header of each record, without decoding the geometries.
+     * It is used by queries having a bounding box, provided that the shapefile has also a {@code *.shx} index.
+     *
+     * @throws DataStoreException if an error occurred while reading the shapefile or writing the index.
+     */
+    public synchronized void createSpatialIndex() throws DataStoreException {
+        final ShapefileByteReader shp = new ShapefileByteReader(reader());
+        final ByteBuffer buffer = shp.getByteBuffer();
+        final double[][] bounds = new double[databaseReader.getRowCount()][];
+        buffer.position(100);                               // Skip the file header.
+        for (int i=0; i < bounds.length && buffer.hasRemaining(); i++) {
+            final double[] b = new double[4];
+            if (shp.readRecordBounds(b)) {
+                bounds[i] = b;
+            }
+            shp.skipRecord();
+        }
+        final ShapefileDescriptor d = shp.getShapefileDescriptor();
+        final double[] extent = {d.getXmin(), d.getYmin(), d.getXmax(), d.getYmax()};
+        spatialIndex = null;
+        spatialIndexLoaded = false;
+        try {
+            QuadTree.write(sibling(shapefile, QuadTree.EXTENSION).toPath(), bounds, extent);
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+    }
+
+    /**
+     * Requests a subset of features. If the query contains a bounding box on the geometry property,
+     * then the bounding box is compared to the bounds stored in each record before to decode them.
+     * Other conditions, property selection and paging are applied on the resulting stream.
+     *
+     * @param  query  definition of feature and feature properties filtering applied at reading time.
+     * @return resulting subset of features.
+     * @throws UnsupportedQueryException if this {@code FeatureSet} can not execute the given query.
+     * @throws DataStoreException if another error occurred while processing the query.
+     */
+    @Override
+    public FeatureSet subset(final Query query) throws UnsupportedQueryException, DataStoreException {
+        if (query instanceof SimpleQuery) {
+            final SimpleQuery q = (SimpleQuery) query;
+            final String property = q.getGeometryProperty();
+            Envelope area = q.getBoundingBox();
+            if (area != null && (ShapefileByteReader.GEOMETRY_NAME.equals(property) || AttributeConvention.GEOMETRY.equals(property))) {
+                if (crs != null && area.getCoordinateReferenceSystem() != null) try {
+                    area = Envelopes.transform(area, crs);
+                } catch (TransformException e) {
+                    throw new DataStoreReferencingException(e);
+                }
+                final FeatureSet subset = new SpatialSubset(this, listeners, new double[] {
+                        area.getMinimum(0), area.getMinimum(1), area.getMaximum(0), area.getMaximum(1)});
+                if (q.getConditions().isEmpty() && q.getPropertyNames() == null && q.getOffset() == 0 && q.getLimit() < 0) {
+                    return subset;
+                }
+                final SimpleQuery residual = new SimpleQuery();
+                residual.setPropertyNames(q.getPropertyNames());
+                residual.setConditions(q.getConditions().toArray(new Comparison[0]));
+                residual.setOffset(q.getOffset());
+                residual.setLimit(q.getLimit());
+                return residual.execute(subset);
+            }
+        }
+        return FeatureSet.super.subset(query);
+    }
+
+    /**
+     * Closes this shapefile store and releases any underlying resources.
+     *
+     * @throws DataStoreException if an error occurred while closing the files.
+     */
+    @Override
+    public synchronized void close() throws DataStoreException {
+        final ShapefileByteReader shp = shapefileReader;
+        final MappedByteReader dbf = databaseReader;
+        shapefileReader = null;
+        databaseReader  = null;
+        try {
+            if (shp != null) shp.close();
+            if (dbf != null) dbf.close();
+        } catch (IOException e) {
+            throw new DataStoreException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.opengis.parameter.ParameterDescriptorGroup;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreProvider;
+import org.apache.sis.storage.ProbeResult;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.internal.storage.StoreMetadata;
+import org.apache.sis.internal.storage.Capability;
+import org.apache.sis.internal.storage.URIDataStore;
+
+
+/**
+ * The provider of {@link ShapefileStore} instances. Given a {@link StorageConnector} input,
+ * this class tries to instantiate a {@code ShapefileStore} for the main {@code *.shp} file.
+ * The {@code *.dbf} file must be located in the same directory and have the same name.
+ * The {@code *.shx} and {@code *.prj} files are optional.
+ *
+ * <div class="warning">This is an experimental class,
+ * not yet target for any Apache SIS release at this time.</div>
+ *
+ * <h2>Thread safety</h2>
+ * The same {@code ShapefileStoreProvider} instance can be safely used by many threads without synchronization on
+ * the part of the caller. However the {@link ShapefileStore} instances created by this factory are not thread-safe.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+@StoreMetadata(formatName   = ShapefileStoreProvider.NAME,
+               fileSuffixes = "shp",
+               capabilities = Capability.READ)
+public class ShapefileStoreProvider extends DataStoreProvider {
+    /**
+     * The format name.
+     */
+    static final String NAME = "ESRI Shapefile";
+
+    /**
+     * The MIME type for Shapefiles.
+     */
+    private static final String MIME_TYPE = "application/x-shapefile";
+
+    /**
+     * The value of the first integer (in big-endian byte order) of all {@code *.shp} and {@code *.shx} files.
+     */
+    static final int FILE_CODE = 9994;
+
+    /**
+     * The value of the integer at offset 28 (in little-endian byte order) of all {@code *.shp} and {@code *.shx} files.
+     */
+    static final int VERSION = 1000;
+
+    /**
+     * The parameter descriptor to be returned by {@link #getOpenParameters()}.
+     */
+    private static final ParameterDescriptorGroup OPEN_DESCRIPTOR = URIDataStore.Provider.descriptor(NAME);
+
+    /**
+     * Creates a new provider.
+     */
+    public ShapefileStoreProvider() {
+    }
+
+    /**
+     * Returns a generic name for this data store, used mostly in warnings or error messages.
+     *
+     * @return a short name or abbreviation for the data format.
+     */
+    @Override
+    public String getShortName() {
+        return NAME;
+    }
+
+    /**
+     * Returns a description of all parameters accepted by this provider for opening a Shapefile.
+     *
+     * @return description of available parameters for opening a Shapefile.
+     */
+    @Override
+    public ParameterDescriptorGroup getOpenParameters() {
+        return OPEN_DESCRIPTOR;
+    }
+
+    /**
+     * Returns {@link ProbeResult#SUPPORTED} if the given storage appears to be the main file of a Shapefile.
+     * This method checks the file code and version in the header. Since {@code *.shx} index files have the
+     * same header than {@code *.shp} files, index files are rejected on the basis of their extension.
+     *
+     * @param  connector  information about the storage (URL, stream, <i>etc</i>).
+     * @return {@code SUPPORTED} if the given storage seems to be usable by {@code ShapefileStore} instances.
+     * @throws DataStoreException if an I/O error occurred.
+     */
+    @Override
+    public ProbeResult probeContent(final StorageConnector connector) throws DataStoreException {
+        if ("shx".equalsIgnoreCase(connector.getFileExtension())) {
+            return ProbeResult.UNSUPPORTED_STORAGE;
+        }
+        final ByteBuffer buffer = connector.getStorageAs(ByteBuffer.class);
+        if (buffer != null) {
+            if (buffer.remaining() < 8 * Integer.BYTES) {
+                return ProbeResult.INSUFFICIENT_BYTES;
+            }
+            final int p = buffer.position();
+            final ByteOrder old = buffer.order();
+            try {
+                if (buffer.order(ByteOrder.BIG_ENDIAN).getInt(p) == FILE_CODE &&
+                    buffer.order(ByteOrder.LITTLE_ENDIAN).getInt(p + 7 * Integer.BYTES) == VERSION)
+                {
+                    return new ProbeResult(true, MIME_TYPE, null);
+                }
+            } finally {
+                buffer.order(old);
+            }
+        }
+        return ProbeResult.UNSUPPORTED_STORAGE;
+    }
+
+    /**
+     * Returns a {@link ShapefileStore} implementation associated with this provider.
+     *
+     * @param  connector  information about the storage (URL, stream, <i>etc</i>).
+     * @return a data store implementation associated with this provider for the given storage.
+     * @throws DataStoreException if an error occurred while creating the data store instance.
+     */
+    @Override
+    public DataStore open(final StorageConnector connector) throws DataStoreException {
+        return new ShapefileStore(this, connector);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.util.stream.Stream;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.event.StoreListeners;
+import org.apache.sis.internal.storage.AbstractFeatureSet;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * The features of a shapefile having a geometry whose bounds intersect an area of interest.
+ * The bounds stored in each record are compared to the area of interest before to decode the record,
+ * and the records to examine may be restricted by a spatial index.
+ * Features are read again on each call to {@link #features(boolean)}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class SpatialSubset extends AbstractFeatureSet {
+    /**
+     * The store from which to read features.
+     */
+    private final ShapefileStore store;
+
+    /**
+     * The area of interest as (xmin, ymin, xmax, ymax) values
+     * in the coordinate reference system of the shapefile.
+     */
+    private final double[] bbox;
+
+    /**
+     * Creates a new subset of the given shapefile.
+     *
+     * @param store      the store from which to read features.
+     * @param listeners  the store listeners.
+     * @param bbox       the area of interest as (xmin, ymin, xmax, ymax) values.
+     */
+    SpatialSubset(final ShapefileStore store, final StoreListeners listeners, final double[] bbox) {
+        super(listeners);
+        this.store = store;
+        this.bbox  = bbox;
+    }
+
+    /**
+     * Returns the type of features in this subset, which is the type of all features in the shapefile.
+     *
+     * @return type of features in this subset.
+     * @throws DataStoreException if the store has been closed.
+     */
+    @Override
+    public DefaultFeatureType getType() throws DataStoreException {
+        return store.getType();
+    }
+
+    /**
+     * Returns the features intersecting the area of interest.
+     *
+     * @param  parallel  {@code true} for a parallel stream, or {@code false} for a sequential stream.
+     * @return the features intersecting the area of interest.
+     * @throws DataStoreException if the store has been closed.
+     */
+    @Override
+    public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        return store.features(bbox, parallel);
+    }
+}
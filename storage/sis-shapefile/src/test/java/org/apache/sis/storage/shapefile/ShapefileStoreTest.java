@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.storage.shapefile;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.opengis.geometry.Envelope;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStore;
+import org.apache.sis.storage.DataStores;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.DataStoreContentException;
+import org.apache.sis.storage.ProbeResult;
+import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.test.TestCase;
+import org.junit.Test;
+import com.esri.core.geometry.Envelope2D;
+import com.esri.core.geometry.Geometry;
+
+import static org.apache.sis.test.Assert.*;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * Tests {@link ShapefileStore}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class ShapefileStoreTest extends TestCase {
+    /**
+     * Returns the path to a test file.
+     */
+    private static Path path(final String name) throws URISyntaxException {
+        return Paths.get(ShapefileStoreTest.class.getResource(name).toURI());
+    }
+
+    /**
+     * Returns the values of all properties of the given feature, in the order declared by the feature type.
+     */
+    private static List<Object> values(final AbstractFeature feature) {
+        final List<Object> values = new ArrayList<>();
+        feature.getType().getProperties(true).forEach((p) -> values.add(feature.getPropertyValue(p.getName().toString())));
+        return values;
+    }
+
+    /**
+     * Tests the provider: the main file should be recognized but not the index file.
+     *
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws DataStoreException if an error occurred while probing the files.
+     */
+    @Test
+    public void testProbeContent() throws URISyntaxException, DataStoreException {
+        final ShapefileStoreProvider provider = new ShapefileStoreProvider();
+        StorageConnector connector = new StorageConnector(path("SignedBikeRoute_4326_clipped.shp"));
+        assertTrue(provider.probeContent(connector).isSupported());
+        connector.closeAllExcept(null);
+        connector = new StorageConnector(path("SignedBikeRoute_4326_clipped.shx"));
+        assertEquals(ProbeResult.UNSUPPORTED_STORAGE, provider.probeContent(connector));
+        connector.closeAllExcept(null);
+    }
+
+    /**
+     * Tests opening a shapefile with {@link DataStores#open(Object)} and reading its header.
+     *
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws DataStoreException if an error occurred while reading the shapefile.
+     */
+    @Test
+    public void testOpen() throws URISyntaxException, DataStoreException {
+        try (DataStore store = DataStores.open(path("ABRALicenseePt_4326_clipped.shp"))) {
+            assertInstanceOf("store", ShapefileStore.class, store);
+            final ShapefileStore shp = (ShapefileStore) store;
+            assertEquals("ABRALicenseePt_4326_clipped", shp.getIdentifier().get().toString());
+            final Envelope envelope = shp.getEnvelope().get();
+            assertNotNull("crs", envelope.getCoordinateReferenceSystem());
+            assertTrue(envelope.getSpan(0) >= 0);
+            final List<AbstractFeature> features = shp.features(false).collect(Collectors.toList());
+            assertEquals(3, features.size());
+            for (final AbstractFeature feature : features) {
+                assertInstanceOf("geometry", com.esri.core.geometry.Point.class, feature.getPropertyValue("geometry"));
+            }
+        }
+    }
+
+    /**
+     * Verifies that a parallel stream and split iterators return the same features than a sequential stream.
+     *
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws DataStoreException if an error occurred while reading the shapefile.
+     */
+    @Test
+    public void testParallel() throws URISyntaxException, DataStoreException {
+        try (ShapefileStore store = new ShapefileStore(new ShapefileStoreProvider(),
+                new StorageConnector(path("SignedBikeRoute_4326_clipped.shp"))))
+        {
+            final List<List<Object>> expected = store.features(false).map(ShapefileStoreTest::values).collect(Collectors.toList());
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, store.features(true).map(ShapefileStoreTest::values).collect(Collectors.toList()));
+            /*
+             * Split the iterator explicitly and read the second half before the first half.
+             */
+            final Spliterator<AbstractFeature> second = store.features(false).spliterator();
+            assertEquals(expected.size(), second.estimateSize());
+            final Spliterator<AbstractFeature> first = second.trySplit();
+            assertNotNull("trySplit", first);
+            final int mid = (int) first.estimateSize();
+            assertEquals(expected.size(), mid + second.estimateSize());
+            final List<List<Object>> actual = new ArrayList<>();
+            second.forEachRemaining((f) -> actual.add(values(f)));
+            first .forEachRemaining((f) -> actual.add(values(f)));
+            assertEquals(expected.subList(mid, expected.size()), actual.subList(0, expected.size() - mid));
+            assertEquals(expected.subList(0, mid), actual.subList(expected.size() - mid, actual.size()));
+        }
+    }
+
+    /**
+     * Tests a query with a bounding box, first without spatial index, then with a spatial index created by the store.
+     * The result is compared with the features selected by testing the geometry envelopes.
+     *
+     * @throws URISyntaxException if the resource name is incorrect.
+     * @throws IOException if an error occurred while copying the test files.
+     * @throws DataStoreException if an error occurred while reading the shapefile.
+     */
+    @Test
+    public void testBoundingBox() throws URISyntaxException, IOException, DataStoreException {
+        final Path directory = Files.createTempDirectory("sis-shapefile");
+        final String name = "SignedBikeRoute_4326_clipped";
+        final Path qix = directory.resolve(name + ".qix");
+        try {
+            for (final String extension : new String[] {"shp", "shx", "dbf", "prj"}) {
+                Files.copy(path(name + '.' + extension), directory.resolve(name + '.' + extension));
+            }
+            try (ShapefileStore store = new ShapefileStore(new ShapefileStoreProvider(),
+                    new StorageConnector(directory.resolve(name + ".shp"))))
+            {
+                final Envelope extent = store.getEnvelope().get();
+                final GeneralEnvelope area = new GeneralEnvelope(2);
+                area.setRange(0, extent.getMinimum(0), extent.getMedian(0));
+                area.setRange(1, extent.getMinimum(1), extent.getMedian(1));
+                final List<List<Object>> expected = store.features(false).filter((feature) -> {
+                    final Envelope2D e = new Envelope2D();
+                    ((Geometry) feature.getPropertyValue("geometry")).queryEnvelope2D(e);
+                    return e.xmin <= area.getMaximum(0) && e.xmax >= area.getMinimum(0)
+                        && e.ymin <= area.getMaximum(1) && e.ymax >= area.getMinimum(1);
+                }).map(ShapefileStoreTest::values).collect(Collectors.toList());
+                assertFalse(expected.isEmpty());
+                assertTrue(expected.size() < store.features(false).count());
+
+                final SimpleQuery query = new SimpleQuery();
+                query.setBoundingBox("geometry", area);
+                assertEquals(expected, store.subset(query).features(false).map(ShapefileStoreTest::values).collect(Collectors.toList()));
+                /*
+                 * Create the spatial index and verify that the query gives the same result.
+                 */
+                assertFalse(Files.exists(qix));
+                store.createSpatialIndex();
+                assertTrue(Files.exists(qix));
+                assertEquals(expected, store.subset(query).features(false).map(ShapefileStoreTest::values).collect(Collectors.toList()));
+                assertEquals(expected, store.subset(query).features(true) .map(ShapefileStoreTest::values).collect(Collectors.toList()));
+                /*
+                 * The index applied on the full extent should return all records.
+                 */
+                final int[] all = QuadTree.query(ByteBuffer.wrap(Files.readAllBytes(qix)), qix.getFileName().toString(),
+                        new double[] {extent.getMinimum(0), extent.getMinimum(1), extent.getMaximum(0), extent.getMaximum(1)});
+                assertEquals(store.features(false).count(), all.length);
+                try {
+                    QuadTree.query(ByteBuffer.allocate(16), "dummy.qix", new double[4]);
+                    fail("Should not accept a file without the quadtree signature.");
+                } catch (DataStoreContentException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("dummy.qix"));
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
@@ -51,7 +51,7 @@ import org.apache.sis.util.resources.ResourceInternationalString;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -74,6 +74,16 @@ final class Analyzer {
      */
     final SpatialFunctions functions;
 
+    /**
+     * Number of rows to fetch in each round trip to the database, or 0 for the driver default.
+     */
+    final int fetchSize;
+
+    /**
+     * Number of rows to send to the database in each batch of insertions, updates or deletions.
+     */
+    final int batchSize;
+
     /**
      * The factory for creating {@code FeatureType} names.
      */
@@ -138,14 +148,18 @@ final class Analyzer {
      *
      * @param  source     the data source, usually given by user at {@code SQLStore} creation time.
      * @param  metadata   Value of {@code source.getConnection().getMetaData()}.
+     * @param  fetchSize  number of rows to fetch in each round trip, or 0 for the driver default.
+     * @param  batchSize  number of rows to send to the database in each batch of writes.
      * @param  listeners  Value of {@code SQLStore.listeners}.
      * @param  locale     Value of {@code SQLStore.getLocale()}.
      */
-    Analyzer(final DataSource source, final DatabaseMetaData metadata, final StoreListeners listeners,
-             final Locale locale) throws SQLException
+    Analyzer(final DataSource source, final DatabaseMetaData metadata, final int fetchSize,
+             final int batchSize, final StoreListeners listeners, final Locale locale) throws SQLException
     {
         this.source      = source;
         this.metadata    = metadata;
+        this.fetchSize   = fetchSize;
+        this.batchSize   = batchSize;
         this.listeners   = listeners;
         this.locale      = locale;
         this.strings     = new HashMap<>();
@@ -49,7 +49,7 @@ import org.apache.sis.util.Debug;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -103,15 +103,18 @@ public final class Database {
      * @param  connection   connection to the database. Sometime the caller already has a connection at hand.
      * @param  source       provider of (pooled) connections to the database. Specified by users at construction time.
      * @param  tableNames   qualified name of the tables. Specified by users at construction time.
+     * @param  fetchSize    number of rows to fetch in each round trip to the database, or 0 for the driver default.
+     * @param  batchSize    number of rows to send to the database in each batch of writes.
      * @param  listeners    where to send the warnings. This is the value of {@code store.listeners}.
      * @throws SQLException if a database error occurred while reading metadata.
      * @throws DataStoreException if a logical error occurred while analyzing the database structure.
      */
     public Database(final SQLStore store, final Connection connection, final DataSource source,
-            final GenericName[] tableNames, final StoreListeners listeners)
+            final GenericName[] tableNames, final int fetchSize, final int batchSize,
+            final StoreListeners listeners)
             throws SQLException, DataStoreException
     {
-        final Analyzer analyzer = new Analyzer(source, connection.getMetaData(), listeners, store.getLocale());
+        final Analyzer analyzer = new Analyzer(source, connection.getMetaData(), fetchSize, batchSize, listeners, store.getLocale());
         final String[] tableTypes = getTableTypes(analyzer.metadata);
         final Set<TableReference> declared = new LinkedHashSet<>();
         for (final GenericName tableName : tableNames) {
@@ -29,8 +29,11 @@ import java.sql.Statement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLDataException;
 import java.lang.reflect.Array;
 import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.internal.feature.WKBReader;
 import org.apache.sis.storage.InternalDataStoreException;
 import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.util.collection.WeakValueHashMap;
@@ -39,13 +42,15 @@ import org.apache.sis.util.ArraysExt;
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
 import org.apache.sis.feature.DefaultFeatureType;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.AbstractIdentifiedType;
 
 
 /**
  * Iterator over feature instances.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -67,6 +72,18 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private final String[] attributeNames;
 
+    /**
+     * Whether the attribute at the same index in {@link #attributeNames} is a geometry encoded in
+     * Well-Known Binary (WKB) format, or {@code null} if this iterator does not read any geometry.
+     */
+    private final boolean[] isGeometry;
+
+    /**
+     * The reader to use for decoding geometries, or {@code null} if this iterator does not read any geometry.
+     * The same reader is used for all rows of the cursor in order to reuse its coordinate buffer.
+     */
+    private final WKBReader geometryReader;
+
     /**
      * Name of the properties where are stored associations in feature instances.
      * The length of this array shall be equal to the {@link #dependencies} array length.
@@ -115,6 +132,47 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     private ResultSet result;
 
+    /**
+     * The connection used by this iterator and its dependencies, or {@code null} if this iterator is itself
+     * a dependency or has been closed. Each iterator created by {@link #trySplit()} has its own connection.
+     */
+    private Connection connection;
+
+    /**
+     * Whether auto-commit has been disabled on {@link #connection} for allowing the driver to stream the rows.
+     * If {@code true}, auto-commit needs to be restored before the (pooled) connection is closed.
+     */
+    private boolean restoreAutoCommit;
+
+    /**
+     * The {@code SELECT … FROM} part of the query to execute when the first feature is requested, or {@code null}
+     * if the query has already been executed or if this iterator is a dependency. The execution is deferred for
+     * allowing {@link #trySplit()} to restrict the range of rows before the cursor is created.
+     */
+    private SQLBuilder query;
+
+    /**
+     * The table on which this iterator is created. Used for creating new iterators when splitting.
+     */
+    private final Table table;
+
+    /**
+     * The query executed on the table, or {@code null} for all rows.
+     */
+    private final TableSubset subset;
+
+    /**
+     * The range of rows to fetch, or {@code null} if this iterator can not be split.
+     */
+    private Partition partition;
+
+    /**
+     * All iterators created by splitting the main iterator, or {@code null} if this iterator is a dependency.
+     * This list is shared by the main iterator and all its splits, and is used for closing all connections
+     * when the stream is closed.
+     */
+    private List<Features> splits;
+
     /**
      * Feature instances already created, or {@code null} if the features created by this iterator are not cached.
      * This map is used when requesting a feature by identifier, not when iterating over all features (note: we
@@ -137,7 +195,7 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     /**
      * Estimated number of rows, or {@literal <= 0} if unknown.
      */
-    private final long estimatedSize;
+    private long estimatedSize;
 
     /**
      * Creates a new iterator over the feature instances.
@@ -150,15 +208,40 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      * @param exportedKeys      value of {@link Table#exportedKeys}:     foreigner keys of other tables.
      * @param following         the relations that we are following. Used for avoiding never ending loop.
      * @param noFollow          relation to not follow, or {@code null} if none.
+     * @param subset            the query filtering the rows to fetch, or {@code null} for all rows.
      */
     Features(final Table table, final Connection connection, final String[] attributeNames, final String[] attributeColumns,
-             final Relation[] importedKeys, final Relation[] exportedKeys, final List<Relation> following, final Relation noFollow)
-             throws SQLException, InternalDataStoreException
+             final Relation[] importedKeys, final Relation[] exportedKeys, final List<Relation> following, final Relation noFollow,
+             final TableSubset subset) throws SQLException, InternalDataStoreException
     {
-        this.featureType = table.featureType;
+        this.featureType = (subset != null) ? subset.featureType : table.featureType;
         this.attributeNames = attributeNames;
+        /*
+         * Identify the attributes that contain geometries. The database returns them as
+         * byte arrays or hexadecimal strings, which need to be decoded before storage.
+         */
+        boolean[] isGeometry = null;
+        for (int i=0; i < attributeNames.length; i++) {
+            final AbstractIdentifiedType property = featureType.getProperty(attributeNames[i]);
+            if (property instanceof DefaultAttributeType<?> &&
+                    Geometries.isKnownType(((DefaultAttributeType<?>) property).getValueClass()))
+            {
+                if (isGeometry == null) {
+                    isGeometry = new boolean[attributeNames.length];
+                }
+                isGeometry[i] = true;
+            }
+        }
+        this.isGeometry = isGeometry;
+        geometryReader = (isGeometry != null) ? new WKBReader(Geometries.implementation(table.functions.library)) : null;
+        this.table  = table;
+        this.subset = subset;
         final DatabaseMetaData metadata = connection.getMetaData();
-        estimatedSize = following.isEmpty() ? table.countRows(metadata, true) : 0;
+        long estimatedSize = following.isEmpty() ? table.countRows(metadata, true) : 0;
+        if (subset != null && subset.limit >= 0 && (estimatedSize <= 0 || estimatedSize > subset.limit)) {
+            estimatedSize = subset.limit;
+        }
+        this.estimatedSize = estimatedSize;
         final SQLBuilder sql = new SQLBuilder(metadata, true).append("SELECT");
         final Map<String,Integer> columnIndices = new HashMap<>();
         /*
@@ -232,16 +315,19 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
         }
         this.importCount = importCount;
         /*
-         * Create a Statement if we don't need any condition, or a PreparedStatement if we need to add
-         * a "WHERE" clause. In the later case, we will cache the features already created if there is
-         * a possibility that many rows reference the same feature instance.
+         * Defer the execution of the statement if we don't need any condition, or create a PreparedStatement
+         * if we need to add a "WHERE" clause for following a relation. In the later case, we will cache the
+         * features already created if there is a possibility that many rows reference the same feature instance.
          */
         sql.append(" FROM ").appendIdentifier(table.name.catalog, table.name.schema, table.name.table);
         if (following.isEmpty()) {
             statement = null;
             instances = null;       // A future SIS version could use the map opportunistically if it exists.
             keyComponentClass = null;
-            result = connection.createStatement().executeQuery(sql.toString());
+            query      = sql;
+            partition  = Partition.create(table, subset);
+            splits     = new ArrayList<>();
+            this.connection = connection;
         } else {
             final Relation componentOf = following.get(following.size() - 1);
             String separator = " WHERE ";
@@ -319,13 +405,96 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     }
 
     /**
-     * Current version does not support split.
+     * If the rows have not yet been fetched, splits the range of rows in two parts. This iterator is reduced to the
+     * first part and the returned iterator reads the second part using its own connection to the database.
+     * Splitting is possible only on tables having a primary key made of a single integer column, or on
+     * databases providing the physical location of rows.
      *
-     * @return always {@code null}.
+     * @return an iterator over the second part of the rows, or {@code null} if this iterator can not be split.
      */
     @Override
     public Spliterator<AbstractFeature> trySplit() {
-        return null;
+        if (query == null || partition == null) {
+            return null;
+        }
+        final Features split;
+        try {
+            if (!partition.computeBounds(connection, query, table, subset)) {
+                partition = null;
+                return null;
+            }
+            final Partition part = partition.split();
+            if (part == null) {
+                return null;
+            }
+            final Connection c = table.source.getConnection();
+            try {
+                split = table.features(c, subset);
+            } catch (SQLException | InternalDataStoreException e) {
+                c.close();
+                throw e;
+            }
+            split.partition = part;
+            split.splits = splits;
+            synchronized (splits) {
+                splits.add(split);
+            }
+        } catch (SQLException | InternalDataStoreException e) {
+            throw new BackingStoreException(e);
+        }
+        estimatedSize = split.estimatedSize = estimatedSize >>> 1;
+        return split;
+    }
+
+    /**
+     * Executes the query deferred by the constructor. This method shall be invoked
+     * only if {@link #query} is non-null, i.e. only once for the main iterator and its splits.
+     */
+    private void execute() throws SQLException {
+        final SQLBuilder sql = query;
+        query = null;
+        String separator = " WHERE ";
+        if (subset != null) {
+            separator = subset.appendWhere(sql);
+        }
+        final boolean restricted = (partition != null) && partition.isRestricted();
+        if (restricted) {
+            partition.appendConditions(sql, separator);
+        }
+        if (subset != null) {
+            subset.appendPaging(sql);
+        }
+        /*
+         * Use a forward-only and read-only cursor fetching a limited amount of rows at a time,
+         * so the memory retained by this iterator does not grow with the table size. Some drivers
+         * (e.g. PostgreSQL) ignore the fetch size unless the statement is executed in a transaction.
+         */
+        final int fetchSize = table.fetchSize;
+        if (fetchSize > 0 && table.functions.cursorRequiresTransaction() && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            restoreAutoCommit = true;
+        }
+        if (subset == null && !restricted) {
+            final Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(fetchSize);
+            result = stmt.executeQuery(sql.toString());
+        } else {
+            /*
+             * The WHERE, OFFSET and FETCH clauses of the query are executed by the database.
+             * The prepared statement will be closed together with the result set.
+             */
+            final PreparedStatement filter = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            filter.setFetchSize(fetchSize);
+            int index = 1;
+            if (subset != null) {
+                index = subset.setParameters(filter);
+            }
+            if (restricted) {
+                partition.setParameters(filter, index);
+            }
+            result = filter.executeQuery();
+        }
     }
 
     /**
@@ -334,7 +503,12 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     @Override
     public boolean tryAdvance(final Consumer<? super AbstractFeature> action) {
         try {
-            return fetch(action, false);
+            if (query != null) execute();
+            if (fetch(action, false)) {
+                return true;
+            }
+            close();            // Release the connection as soon as possible.
+            return false;
         } catch (SQLException e) {
             throw new BackingStoreException(e);
         }
@@ -346,7 +520,9 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
     @Override
     public void forEachRemaining(final Consumer<? super AbstractFeature> action) {
         try {
+            if (query != null) execute();
             fetch(action, true);
+            close();            // Release the connection as soon as possible.
         } catch (SQLException e) {
             throw new BackingStoreException(e);
         }
@@ -364,8 +540,11 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
         while (result.next()) {
             final AbstractFeature feature = featureType.newInstance();
             for (int i=0; i < attributeNames.length; i++) {
-                final Object value = result.getObject(i+1);
+                Object value = result.getObject(i+1);
                 if (!result.wasNull()) {
+                    if (isGeometry != null && isGeometry[i]) {
+                        value = toGeometry(value);
+                    }
                     feature.setPropertyValue(attributeNames[i], value);
                 }
             }
@@ -414,6 +593,22 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
         return false;
     }
 
+    /**
+     * Decodes a geometry from the value of a column. The value is either an array of bytes in Well-Known Binary
+     * format, or an object (for example {@code org.postgresql.util.PGobject}) formatting its value as the
+     * hexadecimal string of an extended WKB.
+     */
+    private Object toGeometry(final Object value) throws SQLException {
+        try {
+            if (value instanceof byte[]) {
+                return geometryReader.read((byte[]) value);
+            }
+            return geometryReader.readHex(value.toString());
+        } catch (IllegalArgumentException | UnsupportedOperationException | ClassCastException | ArrayStoreException e) {
+            throw new SQLDataException(e.getLocalizedMessage(), e);
+        }
+    }
+
     /**
      * Executes the current {@link #statement} and stores all features in a list.
      * Returns {@code null} if there is no feature, or returns the feature instance
@@ -460,26 +655,38 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
 
     /**
      * Closes the (pooled) connection, including the statements of all dependencies.
+     * This method does nothing if this iterator has already been closed.
      */
     private void close() throws SQLException {
         /*
-         * Only one of 'statement' and 'result' should be non-null. The connection should be closed
-         * by the 'Features' instance having a non-null 'result' because it is the main one created
-         * by 'Table.features(boolean)' method. The other 'Features' instances are dependencies.
+         * Only one of 'statement' and 'connection' should be non-null. The connection should be closed
+         * by the 'Features' instance having a non-null 'connection' because it is the main one created
+         * by 'Table.features(boolean)' method or a split of it. The other instances are dependencies.
          */
         if (statement != null) {
             statement.close();
         }
-        final ResultSet r = result;
-        if (r != null) {
-            result = null;
-            final Statement s = r.getStatement();
-            try (Connection c = s.getConnection()) {
-                r.close();      // Implied by s.close() according JDBC javadoc, but we are paranoiac.
-                s.close();
+        final Connection c = connection;
+        if (c != null) {
+            connection = null;
+            query = null;
+            try {
+                final ResultSet r = result;
+                if (r != null) {
+                    result = null;
+                    final Statement s = r.getStatement();
+                    r.close();      // Implied by s.close() according JDBC javadoc, but we are paranoiac.
+                    s.close();
+                }
                 for (final Features dependency : dependencies) {
                     dependency.close();
                 }
+                if (restoreAutoCommit) {
+                    restoreAutoCommit = false;
+                    c.setAutoCommit(true);          // Terminates the read-only transaction.
+                }
+            } finally {
+                c.close();
             }
         }
     }
@@ -490,10 +697,22 @@ final class Features implements Spliterator<AbstractFeature>, Runnable {
      */
     @Override
     public void run() {
-        try {
-            close();
-        } catch (SQLException e) {
-            throw new BackingStoreException(e);
+        SQLException error = null;
+        final Features[] all;
+        synchronized (splits) {
+            all = splits.toArray(new Features[splits.size() + 1]);
+        }
+        all[all.length - 1] = this;
+        for (final Features iter : all) {
+            try {
+                iter.close();
+            } catch (SQLException e) {
+                if (error == null) error = e;
+                else error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            throw new BackingStoreException(error);
         }
     }
 }
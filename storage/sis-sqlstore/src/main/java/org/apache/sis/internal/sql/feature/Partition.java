@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.util.Numbers;
+
+
+/**
+ * A range of rows in a table, used for splitting a feature stream into parts that can be read concurrently.
+ * The range is defined either on a primary key made of a single integer column, or on the physical location
+ * of rows in PostgreSQL tables (the {@code ctid} pseudo-column, which we partition by blocks). Each partition
+ * is read by its own {@link Features} iterator using its own connection to the database.
+ *
+ * <p>The bounds are determined when the stream is first split. They are approximate: the table may be modified
+ * after the bounds have been computed. For that reason the first partition has no lower bound and the last
+ * partition has no upper bound, so that the union of all partitions always covers the whole table.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class Partition {
+    /**
+     * Minimal number of primary key values in a partition. Partitions smaller than twice this value are not split.
+     */
+    private static final long MINIMAL_KEY_RANGE = 1000;
+
+    /**
+     * Minimal number of {@code ctid} blocks in a partition. A PostgreSQL block is typically 8 kilobytes,
+     * which contains many rows.
+     */
+    private static final long MINIMAL_BLOCK_RANGE = 16;
+
+    /**
+     * Name of the primary key column, or {@code null} if partitioning on the PostgreSQL {@code ctid} pseudo-column.
+     */
+    private final String column;
+
+    /**
+     * The inclusive range of primary key values or block numbers in this partition.
+     * Those values are valid only if {@link #hasBounds} is {@code true}.
+     */
+    private long lower, upper;
+
+    /**
+     * Whether {@link #lower} and {@link #upper} are open (no condition in the {@code WHERE} clause).
+     * This is the case of the first and last partitions respectively.
+     */
+    private boolean openLower, openUpper;
+
+    /**
+     * Whether {@link #lower} and {@link #upper} have been computed.
+     */
+    private boolean hasBounds;
+
+    /**
+     * Creates a new partition for the given column, with bounds to be computed later.
+     */
+    private Partition(final String column) {
+        this.column = column;
+        openLower   = true;
+        openUpper   = true;
+    }
+
+    /**
+     * Creates a new partition for the upper part of the given partition.
+     */
+    private Partition(final Partition other, final long lower) {
+        column    = other.column;
+        upper     = other.upper;
+        openUpper = other.openUpper;
+        hasBounds = true;
+        this.lower = lower;
+    }
+
+    /**
+     * Returns a partition covering the whole table or subset, or {@code null} if the table can not be partitioned.
+     *
+     * @param  table   the table to partition.
+     * @param  subset  the query executed on the table, or {@code null} if none.
+     * @return a partition for the whole table, or {@code null} if none.
+     */
+    static Partition create(final Table table, final TableSubset subset) {
+        if (subset != null && subset.hasPaging()) {
+            return null;        // Paging requires a single cursor.
+        }
+        final Class<?> type = table.primaryKeyClass;
+        if (table.primaryKeys != null && table.primaryKeys.length == 1 && Numbers.isInteger(type) && type != BigInteger.class) {
+            return new Partition(table.primaryKeys[0]);
+        }
+        if (table.functions.hasRowLocation()) {
+            return new Partition(null);
+        }
+        return null;
+    }
+
+    /**
+     * Computes the bounds of this partition if not already done.
+     *
+     * @param  connection  connection to the database.
+     * @param  sql         a builder initialized with the database metadata (the content is ignored).
+     * @param  table       the table to partition.
+     * @param  subset      the query executed on the table, or {@code null} if none.
+     * @return whether the partition contains at least one row or block.
+     * @throws SQLException if an error occurred while querying the database.
+     */
+    final boolean computeBounds(final Connection connection, SQLBuilder sql, final Table table, final TableSubset subset)
+            throws SQLException
+    {
+        if (!hasBounds) {
+            sql = new SQLBuilder(sql);
+            final TableReference name = table.name;
+            if (column != null) {
+                sql.append("SELECT MIN(").appendIdentifier(column).append("), MAX(").appendIdentifier(column)
+                   .append(") FROM ").appendIdentifier(name.catalog, name.schema, name.table);
+                if (subset != null) {
+                    subset.appendWhere(sql);
+                }
+            } else {
+                sql.append("SELECT pg_relation_size(CAST(? AS regclass)) / CAST(current_setting('block_size') AS INTEGER), 0");
+            }
+            try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+                if (column != null) {
+                    if (subset != null) {
+                        subset.setParameters(stmt);
+                    }
+                } else {
+                    stmt.setString(1, sql.clear().appendIdentifier(name.catalog, name.schema, name.table).toString());
+                }
+                try (ResultSet r = stmt.executeQuery()) {
+                    while (r.next()) {
+                        if (column != null) {
+                            lower = r.getLong(1);
+                            upper = r.getLong(2);
+                            hasBounds = !r.wasNull();
+                        } else {
+                            upper = r.getLong(1) - 1;       // Number of blocks converted to last block number.
+                            hasBounds = upper >= 0;
+                        }
+                    }
+                }
+            }
+        }
+        return hasBounds;
+    }
+
+    /**
+     * Splits this partition in two parts of approximately equal ranges. This partition is reduced to the lower
+     * part and the upper part is returned. If this partition is too small for being split, returns {@code null}.
+     * This method can be invoked only after {@link #computeBounds computeBounds(…)} returned {@code true}.
+     *
+     * @return the upper part of this partition, or {@code null} if this partition has not been split.
+     */
+    final Partition split() {
+        final long minimum = (column != null) ? MINIMAL_KEY_RANGE : MINIMAL_BLOCK_RANGE;
+        final long size = upper - lower;           // Number of values minus one, may overflow.
+        if (size < 0 || size < 2*minimum - 1) {
+            return null;
+        }
+        final long middle = lower + (size >>> 1);
+        final Partition part = new Partition(this, middle + 1);
+        upper     = middle;
+        openUpper = false;
+        return part;
+    }
+
+    /**
+     * Appends the conditions selecting the rows of this partition.
+     *
+     * @param  sql        the SQL statement where to append the conditions.
+     * @param  separator  {@code " WHERE "} if the statement does not yet have a {@code WHERE} clause,
+     *                    or {@code " AND "} otherwise.
+     */
+    final void appendConditions(final SQLBuilder sql, String separator) {
+        if (!openLower) {
+            appendColumn(sql.append(separator)).append(" >= ");
+            appendParameter(sql);
+            separator = " AND ";
+        }
+        if (!openUpper) {
+            appendColumn(sql.append(separator)).append(column != null ? " <= " : " < ");
+            appendParameter(sql);
+        }
+    }
+
+    /**
+     * Appends the name of the column on which partitioning is done.
+     */
+    private SQLBuilder appendColumn(final SQLBuilder sql) {
+        return (column != null) ? sql.appendIdentifier(column) : sql.append("ctid");
+    }
+
+    /**
+     * Appends a parameter for a bound value.
+     */
+    private void appendParameter(final SQLBuilder sql) {
+        sql.append(column != null ? "?" : "CAST(? AS tid)");
+    }
+
+    /**
+     * Sets the values of the parameters declared by {@link #appendConditions appendConditions(…)}.
+     *
+     * @param  statement  the statement where to set the parameters.
+     * @param  index      index of the first parameter to set.
+     * @throws SQLException if an error occurred while setting a parameter.
+     */
+    final void setParameters(final PreparedStatement statement, int index) throws SQLException {
+        if (!openLower) {
+            setParameter(statement, index++, lower);
+        }
+        if (!openUpper) {
+            // For ctid, the upper bound is exclusive: the first tuple of the next block.
+            setParameter(statement, index, (column != null) ? upper : upper + 1);
+        }
+    }
+
+    /**
+     * Sets the value of a bound parameter.
+     */
+    private void setParameter(final PreparedStatement statement, final int index, final long value) throws SQLException {
+        if (column != null) {
+            statement.setLong(index, value);
+        } else {
+            statement.setString(index, "(" + value + ",0)");
+        }
+    }
+
+    /**
+     * Returns whether this partition contains at least one condition in the {@code WHERE} clause.
+     */
+    final boolean isRestricted() {
+        return !(openLower & openUpper);
+    }
+}
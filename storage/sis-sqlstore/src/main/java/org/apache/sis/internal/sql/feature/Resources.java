@@ -60,6 +60,16 @@ public final class Resources extends IndexedResourceBundle {
         private Keys() {
         }
 
+        /**
+         * Number of rows to send to the database in each batch of insertions, updates or deletions.
+         */
+        public static final short BatchSize = 9;
+
+        /**
+         * The structure of the “{0}” table can not be changed.
+         */
+        public static final short CanNotChangeTableStructure_1 = 10;
+
         /**
          * Provider of connections to the database.
          */
@@ -70,11 +80,21 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short DuplicatedColumn_1 = 5;
 
+        /**
+         * Number of rows to fetch from the database in each round trip, or 0 for the driver default.
+         */
+        public static final short FetchSize = 8;
+
         /**
          * “{0}” is not a valid qualified name for a table.
          */
         public static final short IllegalQualifiedName_1 = 3;
 
+        /**
+         * Features of type “{1}” can not be stored in the “{0}” table.
+         */
+        public static final short IncompatibleFeatureType_2 = 11;
+
         /**
          * Unexpected error while analyzing the database schema.
          */
@@ -85,6 +105,11 @@ public final class Resources extends IndexedResourceBundle {
          */
         public static final short MalformedForeignerKey_2 = 7;
 
+        /**
+         * The “{0}” table has no primary key for identifying the rows to update or remove.
+         */
+        public static final short NoPrimaryKey_1 = 12;
+
         /**
          * Table names, optionally with their schemas and catalogs.
          */
@@ -16,6 +16,9 @@
  */
 package org.apache.sis.internal.sql.feature;
 
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Locale;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -23,12 +26,23 @@ import java.time.LocalDateTime;
 import java.time.OffsetTime;
 import java.time.OffsetDateTime;
 import java.sql.Types;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.DatabaseMetaData;
+import org.opengis.geometry.Envelope;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.util.FactoryException;
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.internal.system.Loggers;
+import org.apache.sis.internal.metadata.sql.Dialect;
 import org.apache.sis.internal.metadata.sql.Reflection;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
 import org.apache.sis.setup.GeometryLibrary;
+import org.apache.sis.util.logging.Logging;
 
 
 /**
@@ -39,11 +53,16 @@ import org.apache.sis.setup.GeometryLibrary;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
 class SpatialFunctions {
+    /**
+     * The database product, used for choosing the syntax of spatial functions.
+     */
+    private final Dialect dialect;
+
     /**
      * Whether {@link Types#TINYINT} is an unsigned integer. Both conventions (-128 … 127 range and
      * 0 … 255 range) are found on the web. If unspecified, we conservatively assume unsigned bytes.
@@ -56,6 +75,13 @@ class SpatialFunctions {
      */
     final GeometryLibrary library;
 
+    /**
+     * Coordinate Reference Systems created for spatial reference identifiers (SRID), or {@code null} values
+     * for SRID that can not be resolved. This cache is shared by all tables, since many tables use the same
+     * few SRID. It is populated only during the analysis of database structure, which is single-threaded.
+     */
+    private final Map<Integer,CoordinateReferenceSystem> crsForSRID;
+
     /**
      * Creates a new accessor to geospatial functions for the database described by given metadata.
      */
@@ -75,11 +101,13 @@ class SpatialFunctions {
             }
         }
         isByteUnsigned = unsigned;
+        dialect = Dialect.guess(metadata);
         /*
          * The library to use depends on the database implementation.
          * For now use the default library.
          */
         library = null;
+        crsForSRID = new HashMap<>();
     }
 
     /**
@@ -88,8 +116,10 @@ class SpatialFunctions {
      * It may return array of primitive types however.
      * If no match is found, then this method returns {@code null}.
      *
-     * <p>The default implementation handles the types declared in {@link Types} class.
-     * Subclasses should handle the geometry types declared by spatial extensions.</p>
+     * <p>The default implementation handles the types declared in {@link Types} class, together with the
+     * {@code geometry} and {@code geography} types of PostGIS. The later are mapped to the root class of
+     * the {@linkplain #library geometry library}; their values will be decoded from Well-Known Binary.
+     * Subclasses should handle the geometry types declared by other spatial extensions.</p>
      *
      * @param  sqlType      SQL type code as one of {@link java.sql.Types} constants.
      * @param  sqlTypeName  data source dependent type name. For User Defined Type (UDT) the name is fully qualified.
@@ -97,6 +127,9 @@ class SpatialFunctions {
      */
     @SuppressWarnings("fallthrough")
     protected Class<?> toJavaType(final int sqlType, final String sqlTypeName) {
+        if (isGeometryType(sqlTypeName)) {
+            return Geometries.implementation(library).rootClass;
+        }
         switch (sqlType) {
             case Types.BIT:
             case Types.BOOLEAN:                 return Boolean.class;
@@ -127,18 +160,224 @@ class SpatialFunctions {
         }
     }
 
+    /**
+     * Returns whether the given SQL type name is the name of a PostGIS geometric type.
+     * Those types are reported as {@link Types#OTHER} or as a binary type, depending on the driver.
+     */
+    private static boolean isGeometryType(final String sqlTypeName) {
+        return "geometry".equalsIgnoreCase(sqlTypeName) || "geography".equalsIgnoreCase(sqlTypeName);
+    }
+
     /**
      * Creates the Coordinate Reference System associated to the the geometry SRID of a given column.
      * The {@code reflect} argument is the result of a call to {@link DatabaseMetaData#getColumns
      * DatabaseMetaData.getColumns(…)} with the cursor positioned on the row describing the column.
      *
-     * <p>The default implementation returns {@code null}. Subclasses may override.</p>
+     * <p>The default implementation searches the SRID in the PostGIS {@code geometry_columns} or
+     * {@code geography_columns} views, then the authority code in the {@code spatial_ref_sys} table.
+     * The CRS is created by {@link CRS#forCode(String)} and cached for all tables using the same SRID.
+     * If the CRS can not be created, then this method logs a warning and returns {@code null}.</p>
      *
-     * @param  reflect  the result of {@link DatabaseMetaData#getColumns DatabaseMetaData.getColumns(…)}.
+     * @param  metadata  the metadata of the database containing the column.
+     * @param  reflect   the result of {@link DatabaseMetaData#getColumns DatabaseMetaData.getColumns(…)}.
      * @return Coordinate Reference System in the database for the given column, or {@code null} if unknown.
      * @throws SQLException if a JDBC error occurred while executing a statement.
      */
-    protected CoordinateReferenceSystem createGeometryCRS(ResultSet reflect) throws SQLException {
+    protected CoordinateReferenceSystem createGeometryCRS(final DatabaseMetaData metadata, final ResultSet reflect)
+            throws SQLException
+    {
+        final String typeName = reflect.getString(Reflection.TYPE_NAME);
+        if (dialect != Dialect.POSTGRESQL || !isGeometryType(typeName)) {
+            return null;
+        }
+        final String prefix = typeName.toLowerCase(Locale.ROOT);        // "geometry" or "geography".
+        final String schema = reflect.getString(Reflection.TABLE_SCHEM);
+        final Connection connection = metadata.getConnection();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT c.srid, s.auth_name, s.auth_srid FROM "
+                + prefix + "_columns AS c LEFT JOIN spatial_ref_sys AS s ON c.srid = s.srid WHERE c.f_table_schema = "
+                + (schema != null ? "?" : "current_schema()") + " AND c.f_table_name = ? AND c.f_" + prefix + "_column = ?"))
+        {
+            int p = 0;
+            if (schema != null) {
+                stmt.setString(++p, schema);
+            }
+            stmt.setString(++p, reflect.getString(Reflection.TABLE_NAME));
+            stmt.setString(++p, reflect.getString(Reflection.COLUMN_NAME));
+            try (ResultSet r = stmt.executeQuery()) {
+                final int srid;
+                if (r.next() && (srid = r.getInt(1)) > 0) {     // 0 means "unknown" in PostGIS.
+                    final Integer key = srid;
+                    if (crsForSRID.containsKey(key)) {
+                        return crsForSRID.get(key);
+                    }
+                    CoordinateReferenceSystem crs = null;
+                    final String authority = r.getString(2);
+                    final int code = r.getInt(3);
+                    if (authority != null && !r.wasNull()) {
+                        try {
+                            crs = CRS.forCode(authority + ':' + code);
+                        } catch (FactoryException e) {
+                            Logging.recoverableException(Logging.getLogger(Loggers.SQL),
+                                    SpatialFunctions.class, "createGeometryCRS", e);
+                        }
+                    }
+                    crsForSRID.put(key, crs);
+                    return crs;
+                }
+            }
+        }
         return null;
     }
+
+    /**
+     * Returns whether {@link #appendIntersects appendIntersects(…)} can filter geometries by the given envelope.
+     * If this method returns {@code false}, then the bounding box filter will be applied in Java on the features
+     * returned by the database.
+     *
+     * <p>The default implementation returns {@code true} for two-dimensional envelopes on PostgreSQL databases,
+     * on the assumption that geometry columns can exist only if the PostGIS extension is installed.
+     * Envelopes with bounds that are not finite even after {@linkplain #clip clipping} are left to Java.</p>
+     *
+     * @param  bbox  the area of interest.
+     * @return whether the database can filter geometries by the given envelope.
+     */
+    protected boolean supportsIntersects(final Envelope bbox) {
+        return dialect == Dialect.POSTGRESQL && bbox.getDimension() == 2 && clip(bbox) != null;
+    }
+
+    /**
+     * Returns the given envelope with infinite bounds replaced by the bounds of the CRS domain of validity.
+     * SQL has no literal for infinite values, so this method makes the envelope usable in a SQL statement.
+     *
+     * @param  bbox  the area of interest.
+     * @return the envelope with finite bounds, or {@code null} if some bounds can not be made finite.
+     */
+    private static Envelope clip(final Envelope bbox) {
+        final int dimension = bbox.getDimension();
+        GeneralEnvelope clipped = null;
+        for (int i=0; i<dimension; i++) {
+            if (!Double.isFinite(bbox.getMinimum(i)) || !Double.isFinite(bbox.getMaximum(i))) {
+                if (clipped == null) {
+                    final Envelope domain = CRS.getDomainOfValidity(bbox.getCoordinateReferenceSystem());
+                    if (domain == null) {
+                        return null;
+                    }
+                    clipped = new GeneralEnvelope(bbox);
+                    clipped.intersect(domain);
+                }
+                if (!Double.isFinite(clipped.getMinimum(i)) || !Double.isFinite(clipped.getMaximum(i))) {
+                    return null;
+                }
+            }
+        }
+        return (clipped != null) ? clipped : bbox;
+    }
+
+    /**
+     * Appends a condition testing whether the envelope of the geometry in the given column intersects the given
+     * bounding box. This method is invoked only if {@link #supportsIntersects(Envelope)} returned {@code true}.
+     * The default implementation uses the PostGIS {@code &&} operator, which can use the spatial index.
+     *
+     * @param  sql     the builder where to append the condition.
+     * @param  table   the table containing the geometry column.
+     * @param  column  name of the geometry column.
+     * @param  bbox    the area of interest, in the CRS of the geometries.
+     */
+    protected void appendIntersects(final SQLBuilder sql, final TableReference table, final String column, Envelope bbox) {
+        bbox = clip(bbox);
+        sql.appendIdentifier(column).append(" && ST_MakeEnvelope(")
+           .append(Double.toString(bbox.getMinimum(0))).append(", ")
+           .append(Double.toString(bbox.getMinimum(1))).append(", ")
+           .append(Double.toString(bbox.getMaximum(0))).append(", ")
+           .append(Double.toString(bbox.getMaximum(1))).append(", ");
+        appendFindSRID(sql, table, column);
+        sql.append(')');
+    }
+
+    /**
+     * Appends a call to the PostGIS {@code Find_SRID} function for the given geometry column.
+     */
+    private static void appendFindSRID(final SQLBuilder sql, final TableReference table, final String column) {
+        sql.append("Find_SRID(");
+        if (table.schema != null) {
+            appendLiteral(sql, table.schema);
+        } else {
+            sql.append("current_schema()");
+        }
+        appendLiteral(sql.append(", "), table.table);
+        appendLiteral(sql.append(", "), column);
+        sql.append(')');
+    }
+
+    /**
+     * Appends the parameter for a geometry value to be written in the given column. The value of the parameter
+     * will be the geometry in Well-Known Text (WKT) format. The default implementation uses the PostGIS
+     * {@code ST_GeomFromText} function with the SRID of the column on PostgreSQL databases,
+     * or a plain {@code '?'} parameter (the WKT string is stored as-is) on other databases.
+     *
+     * @param  sql     the builder where to append the parameter.
+     * @param  table   the table containing the geometry column.
+     * @param  column  name of the geometry column.
+     */
+    protected void appendGeometryParameter(final SQLBuilder sql, final TableReference table, final String column) {
+        if (dialect == Dialect.POSTGRESQL) {
+            sql.append("ST_GeomFromText(?, ");
+            appendFindSRID(sql, table, column);
+            sql.append(')');
+        } else {
+            sql.append('?');
+        }
+    }
+
+    /**
+     * Appends the given text as a quoted SQL string literal.
+     */
+    private static void appendLiteral(final SQLBuilder sql, final String text) {
+        sql.append('\'').append(SQLBuilder.doubleQuotes(text)).append('\'');
+    }
+
+    /**
+     * Returns whether tables have a {@code ctid} pseudo-column giving the physical location of rows.
+     * If {@code true}, then tables without integer primary key can be partitioned on block numbers
+     * for reading them with many concurrent cursors.
+     *
+     * <p>The default implementation returns {@code true} for PostgreSQL databases.</p>
+     *
+     * @return whether tables have a {@code ctid} pseudo-column.
+     */
+    protected boolean hasRowLocation() {
+        return dialect == Dialect.POSTGRESQL;
+    }
+
+    /**
+     * Returns whether the driver needs a transaction (auto-commit disabled) for fetching rows in batches.
+     * If this method returns {@code true}, auto-commit will be disabled during iterations over features
+     * when a fetch size is specified. Otherwise the driver may load the whole result set in memory.
+     *
+     * <p>The default implementation returns {@code true} for PostgreSQL databases,
+     * which use server-side cursors only inside transactions.</p>
+     *
+     * @return whether auto-commit shall be disabled for streaming the rows.
+     */
+    protected boolean cursorRequiresTransaction() {
+        return dialect == Dialect.POSTGRESQL;
+    }
+
+    /**
+     * Appends {@code OFFSET} and {@code FETCH} clauses for paging. The default implementation uses the
+     * syntax defined by the SQL:2008 standard, which is supported by Derby, HSQLDB and PostgreSQL among others.
+     *
+     * @param  sql     the builder where to append the clauses.
+     * @param  offset  number of rows to skip, or 0 if none.
+     * @param  limit   maximum number of rows, or a negative value if unlimited.
+     *                 Shall not be 0 since some databases reject {@code FETCH FIRST 0 ROWS}.
+     */
+    protected void appendPaging(final SQLBuilder sql, final long offset, final long limit) {
+        if (offset > 0) {
+            sql.append(" OFFSET ").append(Long.toString(offset)).append(" ROWS");
+        }
+        if (limit > 0) {
+            sql.append(" FETCH FIRST ").append(Long.toString(limit)).append(" ROWS ONLY");
+        }
+    }
 }
@@ -22,7 +22,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.sql.DatabaseMetaData;
@@ -40,12 +43,20 @@ import org.apache.sis.internal.feature.Geometries;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.DataStoreContentException;
 import org.apache.sis.storage.InternalDataStoreException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.WritableFeatureSet;
+import org.apache.sis.storage.IllegalFeatureTypeException;
+import org.apache.sis.storage.Query;
+import org.apache.sis.storage.UnsupportedQueryException;
 import org.apache.sis.internal.metadata.sql.Reflection;
 import org.apache.sis.internal.metadata.sql.SQLUtilities;
 import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.internal.storage.query.Comparison;
+import org.apache.sis.internal.storage.query.SimpleQuery;
 import org.apache.sis.internal.util.CollectionsExt;
 import org.apache.sis.util.collection.WeakValueHashMap;
 import org.apache.sis.util.collection.TreeTable;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.Exceptions;
 import org.apache.sis.util.Classes;
@@ -54,6 +65,8 @@ import org.apache.sis.util.Debug;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractOperation;
+import org.apache.sis.feature.AbstractIdentifiedType;
 import org.apache.sis.feature.DefaultFeatureType;
 import org.apache.sis.feature.DefaultAssociationRole;
 
@@ -66,15 +79,30 @@ import org.apache.sis.feature.DefaultAssociationRole;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
-final class Table extends AbstractFeatureSet {
+final class Table extends AbstractFeatureSet implements WritableFeatureSet {
     /**
      * Provider of (pooled) connections to the database.
      */
-    private final DataSource source;
+    final DataSource source;
+
+    /**
+     * Access to functions provided by the geospatial database, used for translating queries.
+     */
+    final SpatialFunctions functions;
+
+    /**
+     * Number of rows to fetch in each round trip to the database, or 0 for the driver default.
+     */
+    final int fetchSize;
+
+    /**
+     * Number of rows to send to the database in each batch of insertions, updates or deletions.
+     */
+    final int batchSize;
 
     /**
      * The structure of this table represented as a feature. Each feature attribute is a table column,
@@ -93,31 +121,36 @@ final class Table extends AbstractFeatureSet {
      * Those names are in the order of columns declared in the {@code SELECT <columns} statement.
      * This array shall not be modified after construction.
      */
-    private final String[] attributeNames;
+    final String[] attributeNames;
 
     /**
      * Name of columns corresponding to each {@link #attributeNames}. This is often a reference to the
      * same array than {@link #attributeNames}, but may be different if some attributes have been renamed
      * for avoiding name collisions.
      */
-    private final String[] attributeColumns;
+    final String[] attributeColumns;
 
     /**
      * The columns that constitute the primary key, or {@code null} if there is no primary key.
      */
-    private final String[] primaryKeys;
+    final String[] primaryKeys;
+
+    /**
+     * The primary key columns which are generated by the database (auto-increment), or {@code null} if none.
+     */
+    final String[] generatedKeys;
 
     /**
      * The primary keys of other tables that are referenced by this table foreign key columns.
      * They are 0:1 relations. May be {@code null} if there is no imported keys.
      */
-    private final Relation[] importedKeys;
+    final Relation[] importedKeys;
 
     /**
      * The foreign keys of other tables that reference this table primary key columns.
      * They are 0:N relations. May be {@code null} if there is no exported keys.
      */
-    private final Relation[] exportedKeys;
+    final Relation[] exportedKeys;
 
     /**
      * The class of primary key values, or {@code null} if there is no primary keys.
@@ -156,8 +189,11 @@ final class Table extends AbstractFeatureSet {
             throws SQLException, DataStoreException
     {
         super(analyzer.listeners);
-        this.source = analyzer.source;
-        this.name   = id;
+        this.source    = analyzer.source;
+        this.functions = analyzer.functions;
+        this.fetchSize = analyzer.fetchSize;
+        this.batchSize = analyzer.batchSize;
+        this.name      = id;
         final String tableEsc  = analyzer.escape(id.table);
         final String schemaEsc = analyzer.escape(id.schema);
         /*
@@ -282,7 +318,7 @@ final class Table extends AbstractFeatureSet {
                         }
                     }
                     if (Geometries.isKnownType(type)) {
-                        final CoordinateReferenceSystem crs = analyzer.functions.createGeometryCRS(reflect);
+                        final CoordinateReferenceSystem crs = analyzer.functions.createGeometryCRS(analyzer.metadata, reflect);
                         if (crs != null) {
                             attribute.setCRS(crs);
                         }
@@ -378,6 +414,13 @@ final class Table extends AbstractFeatureSet {
          * If the primary keys uses more than one column, we will need an array to store it.
          * If all columns are non-null numbers, use primitive arrays instead than array of wrappers.
          */
+        final List<String> generatedKeys = new ArrayList<>();
+        for (final Map.Entry<String,Boolean> entry : primaryKeys.entrySet()) {
+            if (Boolean.TRUE.equals(entry.getValue())) {
+                generatedKeys.add(entry.getKey());
+            }
+        }
+        this.generatedKeys = generatedKeys.isEmpty() ? null : generatedKeys.toArray(new String[generatedKeys.size()]);
         if (primaryKeys.size() > 1) {
             if (primaryKeyNonNull) {
                 primaryKeyClass = Numbers.wrapperToPrimitive(primaryKeyClass);
@@ -601,11 +644,23 @@ final class Table extends AbstractFeatureSet {
      */
     @Override
     public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        return features(null, parallel);
+    }
+
+    /**
+     * Returns a stream of the features contained in the given subset of this table.
+     *
+     * @param  subset    the subset of this table, or {@code null} for all features.
+     * @param  parallel  {@code true} for a parallel stream (if supported), or {@code false} for a sequential stream.
+     * @return the features contained in the given subset.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    final Stream<AbstractFeature> features(final TableSubset subset, final boolean parallel) throws DataStoreException {
         DataStoreException ex;
         Connection connection = null;
         try {
             connection = source.getConnection();
-            final Features iter = features(connection, new ArrayList<>(), null);
+            final Features iter = features(connection, subset);
             return StreamSupport.stream(iter, parallel).onClose(iter);
         } catch (SQLException cause) {
             ex = new DataStoreException(Exceptions.unwrap(cause));
@@ -628,6 +683,237 @@ final class Table extends AbstractFeatureSet {
     final Features features(final Connection connection, final List<Relation> following, final Relation noFollow)
             throws SQLException, InternalDataStoreException
     {
-        return new Features(this, connection, attributeNames, attributeColumns, importedKeys, exportedKeys, following, noFollow);
+        return new Features(this, connection, attributeNames, attributeColumns, importedKeys, exportedKeys, following, noFollow, null);
+    }
+
+    /**
+     * Returns an iterator over all features of this table or of the given subset. Contrarily to the iterators
+     * created for following relations, this iterator can be split for reading the table with many cursors.
+     *
+     * @param connection  connection to the database.
+     * @param subset      the subset of this table, or {@code null} for all features.
+     */
+    final Features features(final Connection connection, final TableSubset subset)
+            throws SQLException, InternalDataStoreException
+    {
+        if (subset == null) {
+            return new Features(this, connection, attributeNames, attributeColumns,
+                                importedKeys, exportedKeys, new ArrayList<>(), null, null);
+        } else {
+            return new Features(this, connection, subset.attributeNames, subset.attributeColumns,
+                                subset.importedKeys, subset.exportedKeys, new ArrayList<>(), null, subset);
+        }
+    }
+
+    /**
+     * Requests a subset of features and/or feature properties from this table. The query is translated
+     * into a SQL statement for letting the database performs the filtering and the paging, so that only
+     * the requested rows and columns are transferred.
+     *
+     * @param  query  definition of feature and feature properties filtering applied at reading time.
+     * @return resulting subset of features.
+     * @throws UnsupportedQueryException if this table can not execute the given query.
+     * @throws DataStoreException if another error occurred while processing the query.
+     */
+    @Override
+    public FeatureSet subset(final Query query) throws UnsupportedQueryException, DataStoreException {
+        ArgumentChecks.ensureNonNull("query", query);
+        if (query instanceof SimpleQuery) {
+            return TableSubset.create(this, (SimpleQuery) query);
+        }
+        throw new UnsupportedQueryException();
+    }
+
+    /**
+     * Returns the name of the column where are stored the values of the given property, or {@code null} if none.
+     * Links to other properties (for example {@code "sis:geometry"}) are followed, but other operations and the
+     * associations do not have a column.
+     *
+     * @param  property  name of the feature property.
+     * @return name of the column for the given property, or {@code null} if none.
+     */
+    final String getColumn(final String property) {
+        for (int i=0; i<attributeNames.length; i++) {
+            if (attributeNames[i].equals(property)) {
+                return attributeColumns[i];
+            }
+        }
+        final AbstractIdentifiedType type;
+        try {
+            type = featureType.getProperty(property);
+        } catch (IllegalArgumentException e) {
+            return null;                        // Will be reported when the query is evaluated in Java.
+        }
+        if (type instanceof AbstractOperation) {
+            final AbstractOperation operation = (AbstractOperation) type;
+            final Collection<String> dependencies = operation.getDependencies();
+            if (dependencies.size() == 1) {
+                final String dependency = dependencies.iterator().next();
+                if (operation.getResult() == featureType.getProperty(dependency)) {
+                    return getColumn(dependency);           // Link to another property.
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the attribute where are stored the values of the given column, or {@code null} if none.
+     * This is the converse of {@link #getColumn(String)}, ignoring operations.
+     *
+     * @param  column  name of the column.
+     * @return name of the attribute for the given column, or {@code null} if none.
+     */
+    final String getAttributeName(final String column) {
+        for (int i=0; i<attributeColumns.length; i++) {
+            if (attributeColumns[i].equals(column)) {
+                return attributeNames[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the primary key values of the given feature, in the order of {@link #primaryKeys} columns.
+     * This method shall be invoked only if this table has a primary key.
+     */
+    private Object[] primaryKey(final AbstractFeature feature) {
+        final Object[] key = new Object[primaryKeys.length];
+        for (int i=0; i<key.length; i++) {
+            key[i] = feature.getPropertyValue(getAttributeName(primaryKeys[i]));
+        }
+        return key;
+    }
+
+    /**
+     * Ensures that this table has a primary key, which is needed for identifying the rows to update or remove.
+     */
+    private void ensurePrimaryKey() throws DataStoreException {
+        if (primaryKeys == null) {
+            throw new DataStoreException(Resources.format(Resources.Keys.NoPrimaryKey_1, featureType.getName()));
+        }
+    }
+
+    /**
+     * Clears the cache of feature instances after a modification of the table content.
+     */
+    @Override
+    protected synchronized void clearCache() {
+        super.clearCache();
+        if (instanceForPrimaryKeys != null) {
+            instanceForPrimaryKeys.clear();
+        }
+    }
+
+    /**
+     * Verifies that the given type is the type of this table. The table structure can not be changed
+     * by this method, so the only accepted type is the one inferred from the database structure.
+     *
+     * @param  newType  the expected type of features in this table.
+     * @throws IllegalFeatureTypeException if the given type is not the type of this table.
+     */
+    @Override
+    public void updateType(final DefaultFeatureType newType) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("newType", newType);
+        if (!newType.equals(featureType)) {
+            throw new IllegalFeatureTypeException(Resources.format(
+                    Resources.Keys.CanNotChangeTableStructure_1, featureType.getName()));
+        }
+    }
+
+    /**
+     * Inserts the given features in this table. The features are sent to the database in batches of
+     * {@link #batchSize} rows, and all insertions are done in a single transaction. The features need
+     * to contain the properties of this table type, but may be of a different type.
+     *
+     * @param  features  the features to insert.
+     * @throws IllegalFeatureTypeException if a feature does not have the properties of this table.
+     * @throws DataStoreException if another error occurred while inserting the features.
+     */
+    @Override
+    public void add(final Iterator<? extends AbstractFeature> features) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("features", features);
+        try (TableWriter writer = new TableWriter(this)) {
+            writer.insert(features);
+            writer.commit();
+        } catch (SQLException e) {
+            throw new DataStoreException(Exceptions.unwrap(e));
+        }
+        clearCache();
+    }
+
+    /**
+     * Removes all features which match the given predicate. If the predicate is a comparison of a column
+     * with a value, then the deletion is executed in a single SQL statement. Otherwise the features are
+     * evaluated in Java and the matching rows are deleted by primary key values in a single transaction.
+     *
+     * @param  filter  a predicate which returns {@code true} for feature instances to be removed.
+     * @return {@code true} if any elements were removed.
+     * @throws DataStoreException if an error occurred while removing features.
+     */
+    @Override
+    public boolean removeIf(final Predicate<? super AbstractFeature> filter) throws DataStoreException {
+        ArgumentChecks.ensureNonNull("filter", filter);
+        TableSubset subset = null;
+        List<Object[]> keys = null;
+        if (filter instanceof Comparison) {
+            final SimpleQuery query = new SimpleQuery();
+            query.setConditions((Comparison) filter);
+            final FeatureSet s = TableSubset.create(this, query);
+            if (s instanceof TableSubset) {
+                subset = (TableSubset) s;
+            }
+        }
+        if (subset == null) {
+            ensurePrimaryKey();
+            keys = new ArrayList<>();
+            try (Stream<AbstractFeature> stream = features(false)) {
+                final List<Object[]> addTo = keys;
+                stream.filter(filter).forEach((feature) -> addTo.add(primaryKey(feature)));
+            }
+        }
+        final boolean modified;
+        try (TableWriter writer = new TableWriter(this)) {
+            modified = (subset != null) ? writer.delete(subset) : writer.delete(keys);
+            writer.commit();
+        } catch (SQLException e) {
+            throw new DataStoreException(Exceptions.unwrap(e));
+        }
+        clearCache();
+        return modified;
+    }
+
+    /**
+     * Updates all features which match the given predicate. The matching features are collected and given
+     * to the updater, then the rows are updated (or deleted if the updater returned {@code null}) in a single
+     * transaction. Primary key values can not be changed by this method.
+     *
+     * @param  filter   a predicate which returns {@code true} for feature instances to be updated.
+     * @param  updater  operation called for each matching {@code Feature} instance.
+     * @throws IllegalFeatureTypeException if a feature given by the updater does not have the properties of this table.
+     * @throws DataStoreException if another error occurred while replacing features.
+     */
+    @Override
+    public void replaceIf(final Predicate<? super AbstractFeature> filter, final UnaryOperator<AbstractFeature> updater)
+            throws DataStoreException
+    {
+        ArgumentChecks.ensureNonNull("filter",  filter);
+        ArgumentChecks.ensureNonNull("updater", updater);
+        ensurePrimaryKey();
+        final List<Object[]> keys = new ArrayList<>();
+        final List<AbstractFeature> replacements = new ArrayList<>();
+        try (Stream<AbstractFeature> stream = features(false)) {
+            stream.filter(filter).forEach((feature) -> {
+                keys.add(primaryKey(feature));                  // Must be before the call to updater.
+                replacements.add(updater.apply(feature));
+            });
+        }
+        try (TableWriter writer = new TableWriter(this)) {
+            writer.replace(keys, replacements);
+            writer.commit();
+        } catch (SQLException e) {
+            throw new DataStoreException(Exceptions.unwrap(e));
+        }
+        clearCache();
     }
 }
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.util.Set;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.opengis.geometry.Envelope;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.internal.storage.AbstractFeatureSet;
+import org.apache.sis.internal.storage.query.Comparison;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStoreException;
+import org.apache.sis.storage.FeatureSet;
+import org.apache.sis.storage.UnsupportedQueryException;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * The subset of a {@link Table} selected by a {@link SimpleQuery}. The query is translated into the column list,
+ * {@code WHERE} clause and {@code OFFSET}/{@code FETCH} clauses of the {@code SELECT} statement, so that only
+ * the requested rows and columns are transferred from the database. Conditions that can not be translated
+ * (for example on operations other than links) are applied in Java by {@link #create(Table, SimpleQuery)}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class TableSubset extends AbstractFeatureSet {
+    /**
+     * The table from which to read features.
+     */
+    private final Table table;
+
+    /**
+     * The type of features in this subset. This is the table feature type
+     * if the query does not select a subset of the properties.
+     */
+    final DefaultFeatureType featureType;
+
+    /**
+     * Subset of {@link Table#attributeNames} for the properties selected by the query.
+     */
+    final String[] attributeNames;
+
+    /**
+     * Subset of {@link Table#attributeColumns} for the properties selected by the query.
+     */
+    final String[] attributeColumns;
+
+    /**
+     * Subset of {@link Table#importedKeys} for the associations selected by the query, or {@code null} if none.
+     */
+    final Relation[] importedKeys;
+
+    /**
+     * Subset of {@link Table#exportedKeys} for the associations selected by the query, or {@code null} if none.
+     */
+    final Relation[] exportedKeys;
+
+    /**
+     * The conditions to put in the {@code WHERE} clause, combined with the {@code AND} operator.
+     */
+    private final Comparison[] conditions;
+
+    /**
+     * Names of the columns compared by each {@link #conditions} element.
+     */
+    private final String[] conditionColumns;
+
+    /**
+     * Name of the geometry column to compare with {@link #boundingBox}, or {@code null} if none.
+     */
+    private final String geometryColumn;
+
+    /**
+     * The area of interest, or {@code null} if none.
+     */
+    private final Envelope boundingBox;
+
+    /**
+     * Number of rows to skip, or 0 if none.
+     */
+    private final long offset;
+
+    /**
+     * Maximum number of rows, or a negative value if unlimited.
+     */
+    final long limit;
+
+    /**
+     * Creates a new subset of the given table.
+     */
+    private TableSubset(final Table table, final DefaultFeatureType featureType,
+                        final List<Comparison> conditions, final List<String> conditionColumns,
+                        final String geometryColumn, final Envelope boundingBox,
+                        final long offset, final long limit)
+    {
+        super(table);
+        this.table            = table;
+        this.featureType      = featureType;
+        this.conditions       = conditions.toArray(new Comparison[conditions.size()]);
+        this.conditionColumns = conditionColumns.toArray(new String[conditionColumns.size()]);
+        this.geometryColumn   = geometryColumn;
+        this.boundingBox      = boundingBox;
+        this.offset           = offset;
+        this.limit            = limit;
+        if (featureType == table.featureType) {
+            attributeNames   = table.attributeNames;
+            attributeColumns = table.attributeColumns;
+            importedKeys     = table.importedKeys;
+            exportedKeys     = table.exportedKeys;
+        } else {
+            final Set<String> selected = new HashSet<>();
+            for (final AbstractIdentifiedType property : featureType.getProperties(true)) {
+                selected.add(property.getName().toString());
+            }
+            final List<String> names   = new ArrayList<>();
+            final List<String> columns = new ArrayList<>();
+            for (int i=0; i < table.attributeNames.length; i++) {
+                final String name = table.attributeNames[i];
+                if (selected.contains(name)) {
+                    names  .add(name);
+                    columns.add(table.attributeColumns[i]);
+                }
+            }
+            attributeNames   = names  .toArray(new String[names  .size()]);
+            attributeColumns = columns.toArray(new String[columns.size()]);
+            importedKeys     = select(table.importedKeys, selected);
+            exportedKeys     = select(table.exportedKeys, selected);
+        }
+    }
+
+    /**
+     * Returns the relations stored in a property selected by the query, or {@code null} if none.
+     */
+    private static Relation[] select(final Relation[] relations, final Set<String> selected) {
+        if (relations == null) {
+            return null;
+        }
+        final List<Relation> filtered = new ArrayList<>(relations.length);
+        for (final Relation relation : relations) {
+            if (selected.contains(relation.propertyName)) {
+                filtered.add(relation);
+            }
+        }
+        return filtered.isEmpty() ? null : filtered.toArray(new Relation[filtered.size()]);
+    }
+
+    /**
+     * Creates a subset of the given table. If the whole query can be translated into SQL, then this method
+     * returns a {@code TableSubset} which performs all the work in the database. Otherwise this method pushes
+     * in the {@code WHERE} clause the conditions that can be translated, then applies the remaining conditions,
+     * the paging and the property selection in Java.
+     *
+     * @param  table  the table on which to apply the query.
+     * @param  query  the query to apply.
+     * @return the subset of the given table.
+     * @throws UnsupportedQueryException if the query references properties that do not exist in the table.
+     */
+    static FeatureSet create(final Table table, final SimpleQuery query) throws DataStoreException {
+        final List<Comparison> translated = new ArrayList<>();
+        final List<Comparison> remaining  = new ArrayList<>();
+        final List<String>     columns    = new ArrayList<>();
+        for (final Comparison condition : query.getConditions()) {
+            final String column = table.getColumn(condition.getProperty());
+            if (column != null) {
+                columns.add(column);
+                translated.add(condition);
+            } else {
+                remaining.add(condition);
+            }
+        }
+        Envelope bbox = query.getBoundingBox();
+        String geometryColumn = null;
+        if (bbox != null) {
+            geometryColumn = table.getColumn(query.getGeometryProperty());
+            if (geometryColumn == null || !table.functions.supportsIntersects(bbox)) {
+                geometryColumn = null;
+                bbox = null;
+            }
+        }
+        final boolean complete = remaining.isEmpty() && (bbox != null || query.getBoundingBox() == null);
+        if (complete) {
+            final DefaultFeatureType type;
+            try {
+                type = query.expectedType(table.featureType);
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedQueryException(e.getMessage(), e);
+            }
+            return new TableSubset(table, type, translated, columns, geometryColumn, bbox, query.getOffset(), query.getLimit());
+        }
+        /*
+         * Some conditions need to be evaluated in Java. Paging and property selection
+         * must be done after those conditions, so they can not be done by the database.
+         */
+        final SimpleQuery residual = new SimpleQuery();
+        residual.setPropertyNames(query.getPropertyNames());
+        residual.setConditions(remaining.toArray(new Comparison[remaining.size()]));
+        if (bbox == null) {
+            residual.setBoundingBox(query.getGeometryProperty(), query.getBoundingBox());
+        }
+        residual.setOffset(query.getOffset());
+        residual.setLimit(query.getLimit());
+        FeatureSet source = table;
+        if (!translated.isEmpty() || bbox != null) {
+            source = new TableSubset(table, table.featureType, translated, columns, geometryColumn, bbox, 0, -1);
+        }
+        return residual.execute(source);
+    }
+
+    /**
+     * Appends the {@code WHERE} clause to the given SQL statement. The values to compare
+     * are represented by {@code '?'} parameters, to be set by {@link #setParameters}.
+     *
+     * @param  sql  the statement where to append the clause.
+     * @return {@code " AND "} if a {@code WHERE} clause has been appended, or {@code " WHERE "} otherwise.
+     */
+    final String appendWhere(final SQLBuilder sql) {
+        String separator = " WHERE ";
+        for (int i=0; i<conditions.length; i++) {
+            sql.append(separator).appendIdentifier(conditionColumns[i]).append(' ')
+               .append(conditions[i].getOperator().symbol).append(" ?");
+            separator = " AND ";
+        }
+        if (geometryColumn != null) {
+            table.functions.appendIntersects(sql.append(separator), table.name, geometryColumn, boundingBox);
+            separator = " AND ";
+        }
+        return separator;
+    }
+
+    /**
+     * Appends the {@code OFFSET} and {@code FETCH} clauses to the given SQL statement.
+     *
+     * @param  sql  the statement where to append the clauses.
+     */
+    final void appendPaging(final SQLBuilder sql) {
+        table.functions.appendPaging(sql, offset, limit);
+    }
+
+    /**
+     * Returns whether this subset skips some rows or limits the number of rows.
+     */
+    final boolean hasPaging() {
+        return offset != 0 || limit >= 0;
+    }
+
+    /**
+     * Sets the values of the parameters declared by {@link #appendWhere(SQLBuilder)}.
+     *
+     * @param  statement  the statement prepared from the SQL completed by {@code appendWhere(…)}.
+     * @return index of the next parameter to set.
+     * @throws SQLException if an error occurred while setting a parameter.
+     */
+    final int setParameters(final PreparedStatement statement) throws SQLException {
+        for (int i=0; i<conditions.length; i++) {
+            statement.setObject(i+1, conditions[i].getValue());
+        }
+        return conditions.length + 1;
+    }
+
+    /**
+     * Returns the type of features in this subset.
+     */
+    @Override
+    public DefaultFeatureType getType() {
+        return featureType;
+    }
+
+    /**
+     * Returns a stream of all features contained in this subset.
+     *
+     * @param  parallel  {@code true} for a parallel stream (if supported), or {@code false} for a sequential stream.
+     * @return all features contained in this subset.
+     * @throws DataStoreException if an error occurred while creating the stream.
+     */
+    @Override
+    public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
+        if (limit == 0) {
+            return Stream.empty();              // Avoid a query, since "FETCH FIRST 0 ROWS" is illegal in Derby.
+        }
+        return table.features(this, parallel);
+    }
+}
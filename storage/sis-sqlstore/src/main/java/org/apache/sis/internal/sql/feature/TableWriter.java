@@ -0,0 +1,499 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.sql.feature;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.HashSet;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.apache.sis.internal.feature.Geometries;
+import org.apache.sis.internal.metadata.sql.SQLBuilder;
+import org.apache.sis.storage.IllegalFeatureTypeException;
+import org.apache.sis.storage.InternalDataStoreException;
+import org.apache.sis.util.ArraysExt;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractIdentifiedType;
+import org.apache.sis.feature.DefaultAttributeType;
+import org.apache.sis.feature.DefaultFeatureType;
+
+
+/**
+ * Writer of feature instances in a table. Insertions, updates and deletions are sent to the database
+ * in batches of {@link Table#batchSize} rows and executed in a single transaction, which is committed
+ * by {@link #commit()} and rolled back if the writer is closed before the commit.
+ *
+ * <p>The values of feature attributes are written in the corresponding columns. Associations to other tables
+ * are written as the primary key values of the associated features in the foreigner key columns. Associations
+ * from other tables to this table (exported keys) are ignored. Geometries are written in Well-Known Text.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class TableWriter implements AutoCloseable {
+    /**
+     * The table where to write the features.
+     */
+    private final Table table;
+
+    /**
+     * Connection to the database, with auto-commit disabled.
+     */
+    private final Connection connection;
+
+    /**
+     * The auto-commit mode of the connection before this writer disabled it.
+     */
+    private final boolean autoCommit;
+
+    /**
+     * Whether {@link #commit()} has been invoked.
+     */
+    private boolean committed;
+
+    /**
+     * Name of all columns to write.
+     */
+    private final String[] columns;
+
+    /**
+     * Name of the feature property providing the value of each column.
+     */
+    private final String[] properties;
+
+    /**
+     * For columns that are foreigner keys, the attribute of the associated feature providing the value.
+     * For other columns, {@code null}.
+     */
+    private final String[] targets;
+
+    /**
+     * Whether the column at the same index stores geometries.
+     */
+    private final boolean[] isGeometry;
+
+    /**
+     * Whether the column at the same index is a primary key generated by the database (auto-increment).
+     */
+    private final boolean[] isGenerated;
+
+    /**
+     * Whether the column at the same index is a primary key column.
+     */
+    private final boolean[] isPrimaryKey;
+
+    /**
+     * The last feature type verified by {@link #verify(AbstractFeature)}.
+     */
+    private DefaultFeatureType verifiedType;
+
+    /**
+     * Creates a new writer for the given table.
+     *
+     * @param  table  the table where to write features.
+     * @throws SQLException if an error occurred while opening the connection.
+     */
+    TableWriter(final Table table) throws SQLException, InternalDataStoreException {
+        this.table = table;
+        final List<String> columns    = new ArrayList<>();
+        final List<String> properties = new ArrayList<>();
+        final List<String> targets    = new ArrayList<>();
+        for (int i=0; i < table.attributeColumns.length; i++) {
+            columns.add(table.attributeColumns[i]);
+            properties.add(table.attributeNames[i]);
+            targets.add(null);
+        }
+        if (table.importedKeys != null) {
+            final Set<String> added = new HashSet<>(columns);
+            for (final Relation relation : table.importedKeys) {
+                final Table target = relation.getSearchTable();
+                final Iterator<String> fk = relation.getForeignerKeys().iterator();
+                for (final String pk : relation.getSearchColumns()) {
+                    final String column = fk.next();
+                    final String attribute = target.getAttributeName(pk);
+                    if (attribute != null && added.add(column)) {
+                        columns.add(column);
+                        properties.add(relation.propertyName);
+                        targets.add(attribute);
+                    }
+                }
+            }
+        }
+        final int n = columns.size();
+        this.columns    = columns   .toArray(new String[n]);
+        this.properties = properties.toArray(new String[n]);
+        this.targets    = targets   .toArray(new String[n]);
+        isGeometry   = new boolean[n];
+        isGenerated  = new boolean[n];
+        isPrimaryKey = new boolean[n];
+        for (int i=0; i<n; i++) {
+            if (targets.get(i) == null) {
+                final AbstractIdentifiedType property = table.featureType.getProperty(properties.get(i));
+                isGeometry[i] = (property instanceof DefaultAttributeType<?>) &&
+                        Geometries.isKnownType(((DefaultAttributeType<?>) property).getValueClass());
+            }
+            isPrimaryKey[i] = ArraysExt.contains(table.primaryKeys, columns.get(i));
+            isGenerated [i] = ArraysExt.contains(table.generatedKeys, columns.get(i));
+        }
+        connection = table.source.getConnection();
+        boolean success = false;
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            success = true;
+        } finally {
+            if (!success) connection.close();
+        }
+    }
+
+    /**
+     * Creates a builder for a statement on the table.
+     */
+    private SQLBuilder builder(final String verb) throws SQLException {
+        final TableReference name = table.name;
+        return new SQLBuilder(connection.getMetaData(), true).append(verb)
+                .appendIdentifier(name.catalog, name.schema, name.table);
+    }
+
+    /**
+     * Appends the parameter for a value to write in the column at the given index.
+     */
+    private void appendParameter(final SQLBuilder sql, final int i) {
+        if (isGeometry[i]) {
+            table.functions.appendGeometryParameter(sql, table.name, columns[i]);
+        } else {
+            sql.append('?');
+        }
+    }
+
+    /**
+     * Appends the {@code WHERE} clause identifying a row by its primary key.
+     */
+    private void appendWhereKey(final SQLBuilder sql) {
+        String separator = " WHERE ";
+        for (final String column : table.primaryKeys) {
+            sql.append(separator).appendIdentifier(column).append("=?");
+            separator = " AND ";
+        }
+    }
+
+    /**
+     * Verifies that the type of the given feature contains all properties needed by this writer.
+     */
+    private void verify(final AbstractFeature feature) throws IllegalFeatureTypeException {
+        final DefaultFeatureType type = feature.getType();
+        if (type != verifiedType) {
+            for (final String property : properties) {
+                try {
+                    type.getProperty(property);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalFeatureTypeException(Resources.format(
+                            Resources.Keys.IncompatibleFeatureType_2, table.featureType.getName(), type.getName()), e);
+                }
+            }
+            verifiedType = type;
+        }
+    }
+
+    /**
+     * Returns the value to write in the column at the given index.
+     */
+    private Object value(final AbstractFeature feature, final int i) {
+        Object value = feature.getPropertyValue(properties[i]);
+        if (targets[i] != null) {
+            if (value instanceof Collection<?>) {
+                final Iterator<?> it = ((Collection<?>) value).iterator();
+                value = it.hasNext() ? it.next() : null;
+            }
+            value = (value instanceof AbstractFeature) ? ((AbstractFeature) value).getPropertyValue(targets[i]) : null;
+        } else if (value != null && isGeometry[i]) {
+            value = Geometries.formatWKT(value, 0);
+        }
+        return value;
+    }
+
+    /**
+     * Inserts all features given by the iterator. If all auto-increment primary key values of a feature
+     * are null, then those values are omitted from the insertion and will be generated by the database.
+     *
+     * @param  features  the features to insert.
+     */
+    final void insert(final Iterator<? extends AbstractFeature> features) throws SQLException, IllegalFeatureTypeException {
+        final boolean hasGenerated = (table.generatedKeys != null);
+        final Batch[] batches = new Batch[hasGenerated ? 2 : 1];        // With and without generated columns.
+        final Object[] values = new Object[columns.length];
+        try {
+            while (features.hasNext()) {
+                final AbstractFeature feature = features.next();
+                verify(feature);
+                boolean omitGenerated = hasGenerated;
+                for (int i=0; i<values.length; i++) {
+                    final Object value = value(feature, i);
+                    values[i] = value;
+                    if (value != null && isGenerated[i]) {
+                        omitGenerated = false;
+                    }
+                }
+                final int k = omitGenerated ? 1 : 0;
+                Batch batch = batches[k];
+                if (batch == null) {
+                    final SQLBuilder sql = builder("INSERT INTO ");
+                    String separator = " (";
+                    for (int i=0; i<columns.length; i++) {
+                        if (!(omitGenerated && isGenerated[i])) {
+                            sql.append(separator).appendIdentifier(columns[i]);
+                            separator = ", ";
+                        }
+                    }
+                    separator = ") VALUES (";
+                    for (int i=0; i<columns.length; i++) {
+                        if (!(omitGenerated && isGenerated[i])) {
+                            appendParameter(sql.append(separator), i);
+                            separator = ", ";
+                        }
+                    }
+                    batches[k] = batch = new Batch(sql.append(')').toString());
+                }
+                int p = 0;
+                for (int i=0; i<values.length; i++) {
+                    if (!(omitGenerated && isGenerated[i])) {
+                        batch.set(++p, values[i]);
+                    }
+                }
+                batch.add();
+            }
+            for (final Batch batch : batches) {
+                if (batch != null) batch.flush();
+            }
+        } finally {
+            for (final Batch batch : batches) {
+                if (batch != null) batch.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the rows identified by the given primary key values.
+     *
+     * @param  keys  primary key values of the rows to delete, in the order of {@link Table#primaryKeys}.
+     * @return whether at least one row has been deleted.
+     */
+    final boolean delete(final Collection<Object[]> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return false;
+        }
+        final SQLBuilder sql = builder("DELETE FROM ");
+        appendWhereKey(sql);
+        try (Batch batch = new Batch(sql.toString())) {
+            for (final Object[] key : keys) {
+                for (int i=0; i<key.length;) {
+                    batch.set(i+1, key[i++]);
+                }
+                batch.add();
+            }
+            batch.flush();
+            return batch.affected != 0;
+        }
+    }
+
+    /**
+     * Deletes the rows selected by the conditions of the given subset.
+     *
+     * @param  subset  the rows to delete, without paging and projection.
+     * @return whether at least one row has been deleted.
+     */
+    final boolean delete(final TableSubset subset) throws SQLException {
+        final SQLBuilder sql = builder("DELETE FROM ");
+        subset.appendWhere(sql);
+        try (PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+            subset.setParameters(stmt);
+            return stmt.executeUpdate() != 0;
+        }
+    }
+
+    /**
+     * Replaces the rows identified by the given primary key values by the given features.
+     * A {@code null} feature causes the row to be deleted. Primary key values can not be changed.
+     *
+     * @param  keys          primary key values of the rows to replace, in the order of {@link Table#primaryKeys}.
+     * @param  replacements  the new feature for each key, or {@code null} for deleting the row.
+     */
+    final void replace(final List<Object[]> keys, final List<AbstractFeature> replacements)
+            throws SQLException, IllegalFeatureTypeException
+    {
+        final List<Object[]> removed = new ArrayList<>();
+        final SQLBuilder sql = builder("UPDATE ");
+        String separator = " SET ";
+        for (int i=0; i<columns.length; i++) {
+            if (!isPrimaryKey[i]) {
+                appendParameter(sql.append(separator).appendIdentifier(columns[i]).append('='), i);
+                separator = ", ";
+            }
+        }
+        final boolean hasValues = !separator.equals(" SET ");
+        appendWhereKey(sql);
+        try (Batch batch = hasValues ? new Batch(sql.toString()) : null) {
+            for (int r=0; r < keys.size(); r++) {
+                final Object[] key = keys.get(r);
+                final AbstractFeature feature = replacements.get(r);
+                if (feature == null) {
+                    removed.add(key);
+                } else if (batch != null) {
+                    verify(feature);
+                    int p = 0;
+                    for (int i=0; i<columns.length; i++) {
+                        if (!isPrimaryKey[i]) {
+                            batch.set(++p, value(feature, i));
+                        }
+                    }
+                    for (final Object k : key) {
+                        batch.set(++p, k);
+                    }
+                    batch.add();
+                }
+            }
+            if (batch != null) batch.flush();
+        }
+        delete(removed);
+    }
+
+    /**
+     * Commits all changes done by this writer.
+     */
+    final void commit() throws SQLException {
+        connection.commit();
+        committed = true;
+    }
+
+    /**
+     * Rollbacks the changes if they have not been committed, then releases the connection.
+     */
+    @Override
+    public void close() throws SQLException {
+        try (Connection c = connection) {
+            if (!committed) {
+                c.rollback();
+            }
+            c.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * A prepared statement executed in batches of {@link Table#batchSize} rows.
+     */
+    private final class Batch implements AutoCloseable {
+        /**
+         * The statement to execute for each row.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * SQL types of parameters, fetched when first needed for setting null values.
+         * A value of {@link Integer#MIN_VALUE} means not yet fetched.
+         */
+        private int[] sqlTypes;
+
+        /**
+         * Number of rows added to the batch but not yet executed.
+         */
+        private int pending;
+
+        /**
+         * Number of executed rows that affected at least one database row, or an unknown number of rows.
+         */
+        long affected;
+
+        /**
+         * Prepares the given statement.
+         */
+        Batch(final String sql) throws SQLException {
+            statement = connection.prepareStatement(sql);
+        }
+
+        /**
+         * Sets the value of the parameter at the given index (starting at 1).
+         */
+        final void set(final int index, final Object value) throws SQLException {
+            if (value != null) {
+                statement.setObject(index, value);
+            } else {
+                statement.setNull(index, sqlType(index));
+            }
+        }
+
+        /**
+         * Returns the SQL type of the parameter at the given index (starting at 1), or {@link Types#NULL}
+         * if unknown. Some drivers require the actual type of the column for setting null values.
+         */
+        private int sqlType(final int index) {
+            if (sqlTypes == null) {
+                sqlTypes = new int[columns.length + (table.primaryKeys != null ? table.primaryKeys.length : 0)];
+                Arrays.fill(sqlTypes, Integer.MIN_VALUE);
+            }
+            int type = sqlTypes[index - 1];
+            if (type == Integer.MIN_VALUE) {
+                try {
+                    type = statement.getParameterMetaData().getParameterType(index);
+                } catch (SQLException e) {
+                    type = Types.NULL;                  // Parameter metadata not supported by the driver.
+                }
+                sqlTypes[index - 1] = type;
+            }
+            return type;
+        }
+
+        /**
+         * Adds the current set of parameters to the batch, and executes the batch if it is full.
+         */
+        final void add() throws SQLException {
+            statement.addBatch();
+            if (++pending >= table.batchSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Executes the pending rows.
+         */
+        final void flush() throws SQLException {
+            if (pending != 0) {
+                pending = 0;
+                for (final int n : statement.executeBatch()) {
+                    if (n != 0) affected++;         // Negative values mean "success, unknown count".
+                }
+            }
+        }
+
+        /**
+         * Releases the statement.
+         */
+        @Override
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+}
@@ -50,7 +50,7 @@ import org.apache.sis.util.Exceptions;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -82,6 +82,20 @@ public class SQLStore extends DataStore implements Aggregate {
      */
     private final GenericName[] tableNames;
 
+    /**
+     * Number of rows to fetch in each round trip to the database, or 0 for the driver default.
+     *
+     * @see SQLStoreProvider#FETCH_SIZE
+     */
+    private final int fetchSize;
+
+    /**
+     * Number of rows to send to the database in each batch of insertions, updates or deletions.
+     *
+     * @see SQLStoreProvider#BATCH_SIZE
+     */
+    private final int batchSize;
+
     /**
      * The metadata, created when first requested.
      */
@@ -111,8 +125,35 @@ public class SQLStore extends DataStore implements Aggregate {
      */
     protected SQLStore(final SQLStoreProvider provider, final StorageConnector connector, GenericName... tableNames)
             throws DataStoreException
+    {
+        this(provider, connector, SQLStoreProvider.DEFAULT_FETCH_SIZE, SQLStoreProvider.DEFAULT_BATCH_SIZE, tableNames);
+    }
+
+    /**
+     * Creates a new instance for the given storage with the specified number of rows to transfer in each round trip.
+     * The features are read with forward-only and read-only cursors which fetch {@code fetchSize} rows at a time,
+     * so the memory used by an iteration over a large table is bounded by the size of one batch.
+     * Insertions, updates and deletions are sent to the database in batches of {@code batchSize} rows.
+     * See {@link #SQLStore(SQLStoreProvider, StorageConnector, GenericName...)} for a description
+     * of the other arguments.
+     *
+     * @param  provider    the factory that created this {@code DataStore} instance, or {@code null} if unspecified.
+     * @param  connector   information about the storage (JDBC data source, <i>etc</i>).
+     * @param  fetchSize   number of rows to fetch in each round trip to the database, or 0 for the driver default.
+     * @param  batchSize   number of rows to send to the database in each batch of writes.
+     * @param  tableNames  fully qualified names (including catalog and schema) of the tables to include in this store.
+     * @throws DataStoreException if an error occurred while creating the data store for the given storage.
+     *
+     * @since 1.1
+     */
+    protected SQLStore(final SQLStoreProvider provider, final StorageConnector connector, final int fetchSize,
+                       final int batchSize, GenericName... tableNames) throws DataStoreException
     {
         super(provider, connector);
+        ArgumentChecks.ensurePositive("fetchSize", fetchSize);
+        ArgumentChecks.ensureStrictlyPositive("batchSize", batchSize);
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
         source = connector.getStorageAs(DataSource.class);
         ArgumentChecks.ensureNonNull("tableNames", tableNames);
         tableNames = tableNames.clone();
@@ -142,6 +183,8 @@ public class SQLStore extends DataStore implements Aggregate {
         final ParameterValueGroup pg = provider.getOpenParameters().createValue();
         pg.parameter(SQLStoreProvider.LOCATION).setValue(source);
         pg.parameter(SQLStoreProvider.TABLES).setValue(tableNames);
+        pg.parameter(SQLStoreProvider.FETCH_SIZE).setValue(fetchSize);
+        pg.parameter(SQLStoreProvider.BATCH_SIZE).setValue(batchSize);
         return Optional.of(pg);
     }
 
@@ -161,7 +204,7 @@ public class SQLStore extends DataStore implements Aggregate {
     private synchronized Database model() throws DataStoreException {
         if (model == null) {
             try (Connection c = source.getConnection()) {
-                model = new Database(this, c, source, tableNames, listeners);
+                model = new Database(this, c, source, tableNames, fetchSize, batchSize, listeners);
             } catch (SQLException e) {
                 throw new DataStoreException(Exceptions.unwrap(e));
             }
@@ -178,7 +221,7 @@ public class SQLStore extends DataStore implements Aggregate {
      */
     private Database model(final Connection c) throws DataStoreException, SQLException {
         if (model == null) {
-            model = new Database(this, c, source, tableNames, listeners);
+            model = new Database(this, c, source, tableNames, fetchSize, batchSize, listeners);
         }
         return model;
     }
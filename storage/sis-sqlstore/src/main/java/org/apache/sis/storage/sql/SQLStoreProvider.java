@@ -51,12 +51,12 @@ import static org.apache.sis.internal.sql.feature.Database.WILDCARD;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
 @StoreMetadata(formatName   = SQLStoreProvider.NAME,
-               capabilities = Capability.READ)
+               capabilities = {Capability.READ, Capability.WRITE})
 public class SQLStoreProvider extends DataStoreProvider {
     /**
      * The format name.
@@ -69,6 +69,34 @@ public class SQLStoreProvider extends DataStoreProvider {
      */
     static final String TABLES = "tables";
 
+    /**
+     * Name of the parameter for the number of rows to fetch in each round trip to the database.
+     * Values of this parameter are {@code Integer}. The value 0 means to use the driver default.
+     *
+     * @see java.sql.Statement#setFetchSize(int)
+     */
+    static final String FETCH_SIZE = "fetchSize";
+
+    /**
+     * Default value of the {@value #FETCH_SIZE} parameter. This is a compromise between the number
+     * of round trips to the database and the amount of memory retained by the cursor. A non-zero
+     * default value is needed because some drivers load the whole result set in memory otherwise.
+     */
+    static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Name of the parameter for the number of rows to send to the database in each batch of writes.
+     * Values of this parameter are {@code Integer}.
+     *
+     * @see java.sql.Statement#executeBatch()
+     */
+    static final String BATCH_SIZE = "batchSize";
+
+    /**
+     * Default value of the {@value #BATCH_SIZE} parameter.
+     */
+    static final int DEFAULT_BATCH_SIZE = 500;
+
     /**
      * Description of the {@value #LOCATION} parameter.
      */
@@ -79,6 +107,16 @@ public class SQLStoreProvider extends DataStoreProvider {
      */
     private static final ParameterDescriptor<GenericName[]> TABLES_PARAM;
 
+    /**
+     * Description of the {@value #FETCH_SIZE} parameter.
+     */
+    private static final ParameterDescriptor<Integer> FETCH_SIZE_PARAM;
+
+    /**
+     * Description of the {@value #BATCH_SIZE} parameter.
+     */
+    private static final ParameterDescriptor<Integer> BATCH_SIZE_PARAM;
+
     /**
      * The parameter descriptor to be returned by {@link #getOpenParameters()}.
      */
@@ -91,7 +129,13 @@ public class SQLStoreProvider extends DataStoreProvider {
         TABLES_PARAM = builder.addName(TABLES).setRequired(true)
                               .setDescription(Resources.formatInternational(Resources.Keys.QualifiedTableNames))
                               .create(GenericName[].class, null);
-        OPEN_DESCRIPTOR = builder.addName(NAME).createGroup(SOURCE_PARAM, TABLES_PARAM);
+        FETCH_SIZE_PARAM = builder.addName(FETCH_SIZE).setRequired(false)
+                              .setDescription(Resources.formatInternational(Resources.Keys.FetchSize))
+                              .createBounded(0, Integer.MAX_VALUE, DEFAULT_FETCH_SIZE);
+        BATCH_SIZE_PARAM = builder.addName(BATCH_SIZE).setRequired(false)
+                              .setDescription(Resources.formatInternational(Resources.Keys.BatchSize))
+                              .createBounded(1, Integer.MAX_VALUE, DEFAULT_BATCH_SIZE);
+        OPEN_DESCRIPTOR = builder.addName(NAME).createGroup(SOURCE_PARAM, TABLES_PARAM, FETCH_SIZE_PARAM, BATCH_SIZE_PARAM);
     }
 
     /**
@@ -227,7 +271,10 @@ public class SQLStoreProvider extends DataStoreProvider {
             final Parameters p = Parameters.castOrWrap(parameters);
             final StorageConnector connector = new StorageConnector(p.getValue(SOURCE_PARAM));
             final GenericName[] tableNames = p.getValue(TABLES_PARAM);
-            return new SQLStore(this, connector, tableNames);
+            final Integer fetchSize = p.getValue(FETCH_SIZE_PARAM);
+            final Integer batchSize = p.getValue(BATCH_SIZE_PARAM);
+            return new SQLStore(this, connector, (fetchSize != null) ? fetchSize : DEFAULT_FETCH_SIZE,
+                                                 (batchSize != null) ? batchSize : DEFAULT_BATCH_SIZE, tableNames);
         } catch (ParameterNotFoundException | UnconvertibleObjectException e) {
             throw new IllegalOpenParameterException(e.getMessage(), e);
         }
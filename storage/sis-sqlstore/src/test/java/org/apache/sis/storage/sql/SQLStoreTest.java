@@ -21,9 +21,19 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.opengis.util.GenericName;
+import org.opengis.parameter.ParameterValueGroup;
+import org.apache.sis.internal.storage.query.Comparison;
+import org.apache.sis.internal.storage.query.SimpleQuery;
+import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.storage.StorageConnector;
+import org.apache.sis.storage.WritableFeatureSet;
 import org.apache.sis.test.sql.TestDatabase;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
@@ -42,7 +52,7 @@ import org.apache.sis.feature.DefaultAssociationRole;
  * Tests {@link SQLStore}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -94,6 +104,155 @@ public final strictfp class SQLStoreTest extends TestCase {
         test(TestDatabase.createOnPostgreSQL(SCHEMA, true), false);
     }
 
+    /**
+     * Tests reading a table in parallel on Derby.
+     *
+     * @throws Exception if an error occurred while testing the database.
+     */
+    @Test
+    public void testParallelOnDerby() throws Exception {
+        testParallel(TestDatabase.create("SQLStoreParallel"));
+    }
+
+    /**
+     * Tests reading a table in parallel on HSQLDB.
+     *
+     * @throws Exception if an error occurred while testing the database.
+     */
+    @Test
+    public void testParallelOnHSQLDB() throws Exception {
+        testParallel(TestDatabase.createOnHSQLDB("SQLStoreParallel", true));
+    }
+
+    /**
+     * Tests writing in a table on Derby.
+     *
+     * @throws Exception if an error occurred while testing the database.
+     */
+    @Test
+    public void testWriteOnDerby() throws Exception {
+        testWrite(TestDatabase.create("SQLStoreWrite"));
+    }
+
+    /**
+     * Tests writing in a table on HSQLDB.
+     *
+     * @throws Exception if an error occurred while testing the database.
+     */
+    @Test
+    public void testWriteOnHSQLDB() throws Exception {
+        testWrite(TestDatabase.createOnHSQLDB("SQLStoreWrite", true));
+    }
+
+    /**
+     * Tests inserting, removing and replacing features in a table having an auto-increment primary key.
+     * The batch size is smaller than the number of features for testing the execution of many batches.
+     */
+    private static void testWrite(final TestDatabase database) throws Exception {
+        try (TestDatabase tmp = database) {
+            tmp.executeSQL(SQLStoreTest.class, "CREATE TABLE \"Notes\" (" +
+                    "\"id\" INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "\"label\" VARCHAR(20) NOT NULL, \"value\" INTEGER);");
+            try (SQLStore store = new SQLStore(new SQLStoreProvider(), new StorageConnector(tmp.source), 0, 7,
+                    SQLStoreProvider.createTableName(null, null, "Notes")))
+            {
+                final WritableFeatureSet notes = (WritableFeatureSet) store.findResource("Notes");
+                final DefaultFeatureType type = notes.getType();
+                notes.updateType(type);                                 // Shall accept the current type.
+                final List<AbstractFeature> features = new ArrayList<>();
+                for (int i=0; i<20; i++) {
+                    final AbstractFeature feature = type.newInstance();
+                    feature.setPropertyValue("label", "Note " + i);
+                    if (i != 4) {
+                        feature.setPropertyValue("value", i);           // Leave one value to null.
+                    }
+                    features.add(feature);
+                }
+                notes.add(features.iterator());
+                try (Stream<AbstractFeature> stream = notes.features(false)) {
+                    assertEquals(20, stream.map((f) -> f.getPropertyValue("id")).distinct().count());
+                }
+                /*
+                 * Removal translated to SQL, then removal evaluated in Java.
+                 */
+                assertTrue (notes.removeIf(new Comparison("value", Comparison.Operator.LESS_THAN, 5)));
+                assertFalse(notes.removeIf(new Comparison("value", Comparison.Operator.LESS_THAN, 5)));
+                assertTrue (notes.removeIf((f) -> ((String) f.getPropertyValue("label")).endsWith("3")));
+                try (Stream<AbstractFeature> stream = notes.features(false)) {
+                    assertEquals(15, stream.count());                   // Note 4 has a null value.
+                }
+                /*
+                 * Replace a value and remove a feature by returning null.
+                 */
+                notes.replaceIf((f) -> f.getPropertyValue("value") != null && (Integer) f.getPropertyValue("value") >= 18, (f) -> {
+                    if ((Integer) f.getPropertyValue("value") == 19) return null;
+                    f.setPropertyValue("value", 100);
+                    return f;
+                });
+                try (Stream<AbstractFeature> stream = notes.features(false)) {
+                    final Map<String,Object> values = new HashMap<>();
+                    stream.forEach((f) -> values.put((String) f.getPropertyValue("label"), f.getPropertyValue("value")));
+                    assertEquals(14, values.size());
+                    assertEquals(100, values.get("Note 18"));
+                    assertEquals(17,  values.get("Note 17"));
+                    assertNull(values.get("Note 4"));
+                    assertFalse(values.containsKey("Note 19"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests reading a table having an integer primary key with a stream split on primary key ranges.
+     * Each part of the stream uses its own connection, and all parts together shall contain all rows.
+     */
+    private static void testParallel(final TestDatabase database) throws Exception {
+        final int count = 10000;
+        final int batch = 500;                          // Avoid too long statements.
+        final String[] scripts = new String[count / batch + 1];
+        scripts[0] = "CREATE TABLE \"Measures\" (\"id\" INTEGER NOT NULL PRIMARY KEY, \"value\" INTEGER);";
+        for (int s=1; s<scripts.length; s++) {
+            final StringBuilder insert = new StringBuilder(batch * 12).append("INSERT INTO \"Measures\" VALUES ");
+            for (int i = (s-1)*batch + 1; i <= s*batch; i++) {
+                insert.append('(').append(i).append(", ").append(i % 7).append("), ");
+            }
+            insert.setLength(insert.length() - 2);
+            scripts[s] = insert.append(';').toString();
+        }
+        try (TestDatabase tmp = database) {
+            tmp.executeSQL(SQLStoreTest.class, scripts);
+            final SQLStoreProvider provider = new SQLStoreProvider();
+            final ParameterValueGroup parameters = provider.getOpenParameters().createValue();
+            parameters.parameter(SQLStoreProvider.LOCATION).setValue(tmp.source);
+            parameters.parameter(SQLStoreProvider.TABLES).setValue(new GenericName[] {
+                    SQLStoreProvider.createTableName(null, null, "Measures")});
+            parameters.parameter(SQLStoreProvider.FETCH_SIZE).setValue(100);    // Small batches for testing cursors.
+            try (SQLStore store = (SQLStore) provider.open(parameters)) {
+                assertEquals(100, store.getOpenParameters().get().parameter(SQLStoreProvider.FETCH_SIZE).intValue());
+                final FeatureSet measures = (FeatureSet) store.findResource("Measures");
+                try (Stream<AbstractFeature> features = measures.features(true)) {
+                    final Spliterator<AbstractFeature> first = features.spliterator();
+                    final Spliterator<AbstractFeature> second = first.trySplit();
+                    assertNotNull("trySplit", second);
+                    final Collection<Object> ids = new HashSet<>();
+                    first .forEachRemaining((f) -> assertTrue(ids.add(f.getPropertyValue("id"))));
+                    final int n = ids.size();
+                    assertTrue(n > 0 && n < count);
+                    second.forEachRemaining((f) -> assertTrue(ids.add(f.getPropertyValue("id"))));
+                    assertEquals(count, ids.size());
+                }
+                try (Stream<AbstractFeature> features = measures.features(true)) {
+                    assertEquals(count * (count + 1L) / 2, features.mapToLong((f) -> (Integer) f.getPropertyValue("id")).sum());
+                }
+                final SimpleQuery query = new SimpleQuery();
+                query.setConditions(new Comparison("value", Comparison.Operator.EQUAL, 3));
+                try (Stream<AbstractFeature> features = measures.subset(query).features(true)) {
+                    assertEquals((count + 4) / 7, features.count());
+                }
+            }
+        }
+    }
+
     /**
      * Tests reading an existing schema. The schema is created and populated by the {@code Features.sql} script.
      *
@@ -130,6 +289,7 @@ public final strictfp class SQLStoreTest extends TestCase {
                 try (Stream<AbstractFeature> features = cities.features(false)) {
                     features.forEach((f) -> verifyContent(f));
                 }
+                verifyQueries(cities);
             }
         }
         assertEquals(Integer.valueOf(2), countryCount.remove("CAN"));
@@ -138,6 +298,48 @@ public final strictfp class SQLStoreTest extends TestCase {
         assertTrue  (countryCount.isEmpty());
     }
 
+    /**
+     * Verifies {@link FeatureSet#subset(org.apache.sis.storage.Query)} with conditions, paging and property
+     * selection executed by the database, then with a condition that needs to be evaluated in Java.
+     */
+    private static void verifyQueries(final FeatureSet cities) throws DataStoreException {
+        final SimpleQuery query = new SimpleQuery();
+        query.setPropertyNames("english_name", "population");
+        query.setConditions(new Comparison("population", Comparison.Operator.GREATER_THAN, 1000000),
+                            new Comparison("pk:country", Comparison.Operator.NOT_EQUAL,    "JPN"));
+        FeatureSet subset = cities.subset(query);
+        final DefaultFeatureType type = subset.getType();
+        verifyFeatureType(type, new String[] {"english_name", "population"},
+                                new Object[] {String.class,   Integer.class});
+        assertSetEquals(Arrays.asList("Montreal", "Paris"), englishNames(subset));
+        query.setOffset(1);
+        query.setLimit(2);
+        assertEquals(1, englishNames(cities.subset(query)).size());
+        query.setLimit(0);
+        assertTrue(englishNames(cities.subset(query)).isEmpty());
+        query.setLimit(2);
+        /*
+         * "sis:identifier" is an operation; the condition on it can not be translated into SQL.
+         * The other condition is still executed by the database, but paging is done in Java.
+         */
+        query.setPropertyNames((String[]) null);
+        query.setOffset(0);
+        query.setConditions(new Comparison("sis:identifier", Comparison.Operator.EQUAL, "CAN:Montréal"),
+                            new Comparison("population",     Comparison.Operator.GREATER_THAN, 1000000));
+        subset = cities.subset(query);
+        assertSame(cities.getType(), subset.getType());
+        assertSetEquals(Arrays.asList("Montreal"), englishNames(subset));
+    }
+
+    /**
+     * Returns the English names of all features in the given set.
+     */
+    private static List<Object> englishNames(final FeatureSet features) throws DataStoreException {
+        try (Stream<AbstractFeature> stream = features.features(false)) {
+            return stream.map((f) -> f.getPropertyValue("english_name")).collect(Collectors.toList());
+        }
+    }
+
     /**
      * Verifies the result of analyzing the structure of the {@code "Cities"} table.
      */
@@ -46,9 +46,11 @@ import org.apache.sis.feature.DefaultAttributeType;
  *
  * <b>Multi-threading:</b> {@code Iter} is not thread-safe.
  * However many {@code Iter} instances can be used concurrently for the same {@link Store} instance.
+ * If the iterator reads a {@link LineRange} instead than the {@link Store} reader, then {@link #trySplit()}
+ * partitions the file in byte ranges which are parsed independently.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -83,20 +85,59 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      */
     final Object[] values;
 
+    /**
+     * The texts from which the {@link #values} have been converted, or {@code null} if none.
+     * If a field contains the same text than the previous line, the previous value is reused
+     * without creating a new {@code String} or converting it again. This is not done for
+     * trajectories and times, which are parsed directly from the characters of the line.
+     */
+    private final String[] texts;
+
+    /**
+     * The splitter of lines in fields, reused for all lines.
+     */
+    private final Tokenizer tokens;
+
+    /**
+     * Start time and end time of the last line read by {@link #nextLine(boolean)} when the times
+     * are not stored as {@code Instant} objects, in milliseconds since January 1st, 1970 midnight UTC.
+     */
+    long startTime, endTime;
+
     /**
      * Number of calls to {@link #trySplit()}. Created only if needed.
+     * This is used only if {@link #range} is null.
      */
     private AtomicInteger splitCount;
 
+    /**
+     * The range of bytes to read in the CSV file, or {@code null} for reading lines from the {@link Store}.
+     * If non-null, then this iterator does not share any reader with other iterators.
+     */
+    private final LineRange range;
+
+    /**
+     * Whether the first line of the {@linkplain #range} still need to be read.
+     * This is used for fetching values omitted in the first line from the previous lines.
+     */
+    private boolean atRangeStart;
+
     /**
      * Creates a new iterator.
+     *
+     * @param  store  the store for which to create an iterator.
+     * @param  range  the range of bytes to read, or {@code null} for reading lines from the store.
      */
     @SuppressWarnings({"unchecked", "rawtypes", "fallthrough"})
-    FeatureIterator(final Store store) {
+    FeatureIterator(final Store store, final LineRange range) {
         this.store = store;
+        this.range = range;
+        atRangeStart = (range != null);
         final Collection<? extends AbstractIdentifiedType> properties = store.featureType.getProperties(true);
         converters    = new ObjectConverter[properties.size()];
         values        = new Object[converters.length];
+        texts         = new String[converters.length];
+        tokens        = new Tokenizer(converters.length);
         propertyNames = new String[converters.length];
         int i = -1;
         for (final AbstractIdentifiedType p : properties) {
@@ -147,32 +188,130 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
 
     /**
      * Creates a new iterator using the same configuration than the given iterator.
-     * This constructor is for {@link #trySplit()} implementation only.
+     * This constructor is for {@link #trySplit()} implementation and for parallel
+     * parsing of moving features.
+     *
+     * @param  other  the iterator from which to copy the configuration.
+     * @param  range  the range of bytes to read, or {@code null} for reading lines from the store.
      */
-    private FeatureIterator(final FeatureIterator other) {
+    FeatureIterator(final FeatureIterator other, final LineRange range) {
         store         = other.store;
         splitCount    = other.splitCount;
         converters    = other.converters;
         propertyNames = other.propertyNames;
         values        = new Object[converters.length];
+        texts         = new String[converters.length];
+        tokens        = new Tokenizer(converters.length);
+        this.range    = range;
+        atRangeStart  = (range != null);
     }
 
     /**
      * If this spliterator can be partitioned, returns a {@code Spliterator} covering elements.
-     * This method does not make any guarantees about iteration order; i.e. the returned iterator
-     * is not guaranteed to cover a strict prefix of the elements.
+     * If this iterator reads a range of bytes, then the returned iterator covers the first half
+     * of that range (a strict prefix of the elements) and this iterator covers the second half.
+     * Otherwise this method does not make any guarantees about iteration order; i.e. the returned
+     * iterator is not guaranteed to cover a strict prefix of the elements.
      */
     @Override
     public Spliterator<AbstractFeature> trySplit() {
+        if (range != null) {
+            final LineRange prefix = range.split();
+            return (prefix != null) ? new FeatureIterator(this, prefix) : null;
+        }
         if (splitCount == null) {
             splitCount = new AtomicInteger();
         }
         if (splitCount.incrementAndGet() < 8) {        // Arbitrary limit.
-            return new FeatureIterator(this);
+            return new FeatureIterator(this, null);
         }
         return null;
     }
 
+    /**
+     * Reads the next line and stores the converted values in the {@link #values} array.
+     * Values omitted at the end of the line are left unchanged, i.e. they are the values
+     * of the previous line as required by the Moving Features specification.
+     * If the line is the first line of a range, then omitted values are fetched from
+     * the previous lines of the file.
+     *
+     * <p>If {@code instants} is {@code false}, then the start time and end time are not stored
+     * in the {@link #values} array but in the {@link #startTime} and {@link #endTime} fields.
+     * This avoid the creation of {@link java.time.Instant} objects when not needed.</p>
+     *
+     * @param  instants  whether to store the times as {@code Instant} objects in the {@link #values} array.
+     * @return {@code false} if there is no more line to read.
+     * @throws IOException if an I/O error occurred while reading a feature.
+     * @throws IllegalArgumentException if parsing of a number failed, or other error.
+     * @throws DateTimeException if parsing of a date failed.
+     */
+    final boolean nextLine(final boolean instants) throws IOException {
+        final CharSequence line = (range != null) ? range.readLine() : store.readLine();
+        if (line == null) {
+            return false;
+        }
+        tokens.split(line);
+        final int n = tokens.count();
+        if (atRangeStart) {
+            atRangeStart = false;
+            if (n < values.length) {
+                loadOmittedValues(n, instants);
+            }
+        }
+        for (int i=0; i<n; i++) {
+            parse(tokens, i, instants);
+        }
+        return true;
+    }
+
+    /**
+     * Parses the field at the given index and stores the result in the {@link #values} array,
+     * or in the {@link #startTime} or {@link #endTime} fields if {@code instants} is false.
+     *
+     * @param  source    the tokenizer which contains the current line.
+     * @param  i         index of the field to parse.
+     * @param  instants  whether to store the times as {@code Instant} objects in the {@link #values} array.
+     */
+    private void parse(final Tokenizer source, final int i, final boolean instants) {
+        final ObjectConverter<String,?> c = converters[i];
+        if (c instanceof TimeEncoding) {
+            final TimeEncoding encoding = (TimeEncoding) c;
+            if (instants) {
+                values[i] = encoding.parse(source, i);
+            } else if (i == 1) {
+                startTime = encoding.parseMillis(source, i);
+            } else {
+                endTime = encoding.parseMillis(source, i);
+            }
+        } else if (c == GeometryParser.INSTANCE) {
+            values[i] = source.parseDoubles(i, Store.ORDINATE_SEPARATOR);
+        } else if (!source.contentEquals(i, texts[i])) {
+            final String text = source.getString(i);
+            values[i] = c.apply(text);
+            texts [i] = text;
+        }
+    }
+
+    /**
+     * Fetches the values omitted at the end of the first line of the {@linkplain #range} from the previous
+     * lines of the file. This method walks back until all values have been found or the first line of data
+     * has been reached. Only the values at index {@code n} and after are set by this method.
+     *
+     * @param  n         index of the first omitted value.
+     * @param  instants  whether to store the times as {@code Instant} objects in the {@link #values} array.
+     */
+    private void loadOmittedValues(int n, final boolean instants) throws IOException {
+        final Tokenizer previous = new Tokenizer(values.length);
+        CharSequence line;
+        while (n < values.length && (line = range.previousLine()) != null) {
+            previous.split(line);
+            final int size = previous.count();
+            for (; n < size; n++) {
+                parse(previous, n, instants);
+            }
+        }
+    }
+
     /**
      * Executes the given action only on the next feature, if any.
      */
@@ -206,7 +345,8 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      * {@code Iter} does not need to be thread-safe, so we do not perform synchronization for its {@link #values}.
      * Accesses to {@code Store} fields need to be thread-safe, but this method uses only immutable or thread-safe
      * objects from {@link Store}, so there is no need for {@code synchronize(Store.this)} statement.
-     * The only object that need synchronization is {@link Store#source}, which is already synchronized.</p>
+     * The only object that need synchronization is {@link Store#source}, which is already synchronized.
+     * If this iterator reads a {@link LineRange}, then no object is shared with other iterators.</p>
      *
      * @param  action  the action to execute.
      * @param  all     {@code true} for executing the given action on all remaining features.
@@ -216,24 +356,14 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      * @throws DateTimeException if parsing of a date failed.
      */
     private boolean read(final Consumer<? super AbstractFeature> action, final boolean all) throws IOException {
-        final FixedSizeList elements = new FixedSizeList(values);
-        String line;
-        while ((line = store.readLine()) != null) {
-            Store.split(line, elements);
+        while (nextLine(true)) {
             final AbstractFeature feature = store.featureType.newInstance();
-            int i, n = elements.size();
-            for (i=0; i<n; i++) {
-                values[i] = converters[i].apply((String) values[i]);
-                feature.setPropertyValue(propertyNames[i], values[i]);
-            }
-            n = values.length;
-            for (; i<n; i++) {
+            for (int i=0; i<values.length; i++) {
                 // For omitted elements, reuse previous value.
                 feature.setPropertyValue(propertyNames[i], values[i]);
             }
             action.accept(feature);
             if (!all) return true;
-            elements.clear();
         }
         return false;
     }
@@ -251,13 +381,13 @@ class FeatureIterator implements Spliterator<AbstractFeature> {
      * The iteration is {@link #NONNULL} (i.e. {@link #tryAdvance(Consumer)} is not allowed
      * to return null value) and {@link #IMMUTABLE} (i.e. we do not support modification of
      * the CSV file while an iteration is in progress).
-     * The iteration is not declared {@link #ORDERED} because {@link #trySplit()} does not
-     * return a strict prefix of the elements.
+     * The iteration is declared {@link #ORDERED} only when reading a range of bytes,
+     * because otherwise {@link #trySplit()} does not return a strict prefix of the elements.
      *
      * @return characteristics of iteration over the features in the CSV file.
      */
     @Override
     public int characteristics() {
-        return NONNULL | IMMUTABLE;
+        return (range != null) ? ORDERED | NONNULL | IMMUTABLE : NONNULL | IMMUTABLE;
     }
 }
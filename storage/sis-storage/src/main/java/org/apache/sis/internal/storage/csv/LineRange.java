@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.io.IOException;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * A range of bytes in a CSV file, read line by line independently of other ranges.
+ * Each range covers all lines <em>starting</em> in the {@code [start … end)} interval,
+ * with the last line possibly extending past the end of the range. Range boundaries do not need
+ * to be aligned on line boundaries: the first partial line of a range is skipped since it is read
+ * by the previous range. This allows to partition a CSV file in arbitrary byte ranges, then parse
+ * each range in a different thread.
+ *
+ * <p>This class can be used only with character encodings where the line feed character is encoded
+ * on a single byte which can not appear in the encoding of any other character. This is the case of
+ * UTF-8, US-ASCII and ISO-8859 families, but not UTF-16. See {@link #isSupported(Charset)}.</p>
+ *
+ * <b>Multi-threading:</b> {@code LineRange} is not thread-safe. However many {@code LineRange} instances
+ * can be used concurrently on the same {@link FileChannel} since only positional reads are performed.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class LineRange {
+    /**
+     * Minimal number of bytes in a range. Ranges are not split if they would be smaller than this size.
+     * This is an arbitrary value large enough for making the overhead of partitioning negligible.
+     */
+    static final int MINIMAL_SIZE = 64 * 1024;
+
+    /**
+     * Initial size of the buffer where to read bytes. The buffer will be enlarged if a line is longer.
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * The line feed character, which is the only line separator recognized by this class.
+     * A carriage return before the line feed is removed.
+     */
+    private static final byte LF = '\n', CR = '\r';
+
+    /**
+     * The channel from which to read bytes. Only positional reads are performed on this channel,
+     * which allow many threads to use the same channel concurrently.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The decoder to use for converting bytes to characters.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * Position of the first byte after the header in the file. No line is read before that position.
+     */
+    private final long dataStart;
+
+    /**
+     * Position of the first byte of this range. May be in the middle of a line.
+     */
+    private long start;
+
+    /**
+     * Position after the last byte of this range. The last line may extend after this position.
+     */
+    private long end;
+
+    /**
+     * File position of the first byte in the {@link #buffer}.
+     */
+    private long bufferStart;
+
+    /**
+     * The buffer where bytes are read. The buffer position is the next byte to read.
+     * This is {@code null} before the first read, which is used as a sentinel value
+     * meaning that {@link #split()} is still allowed.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The characters of the last line returned by {@link #readLine()}.
+     * This buffer is reused for all lines.
+     */
+    private CharBuffer line;
+
+    /**
+     * Position of the line before which {@link #previousLine()} will search, or {@code -1} if not yet determined.
+     */
+    private long backward;
+
+    /**
+     * Creates a new range for the given part of a file.
+     *
+     * @param  channel    the channel from which to read bytes.
+     * @param  encoding   the character encoding. Shall be supported according {@link #isSupported(Charset)}.
+     * @param  dataStart  position of the first byte after the header.
+     * @param  start      position of the first byte of this range, not necessarily at a line start.
+     * @param  end        position after the last byte of this range.
+     */
+    LineRange(final FileChannel channel, final Charset encoding, final long dataStart, final long start, final long end) {
+        this.channel   = channel;
+        this.dataStart = dataStart;
+        this.start     = start;
+        this.end       = end;
+        this.backward  = -1;
+        decoder = encoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Returns {@code true} if files in the given encoding can be partitioned in line ranges.
+     * This is true if line feeds are encoded on a single byte which is never part of the encoding
+     * of another character.
+     *
+     * @param  encoding  the character encoding of the file.
+     * @return whether files in the given encoding can be partitioned.
+     */
+    static boolean isSupported(final Charset encoding) {
+        return StandardCharsets.UTF_8.equals(encoding) ||
+               (encoding.canEncode() && encoding.newEncoder().maxBytesPerChar() == 1
+                    && encoding.encode("\n").equals(ByteBuffer.wrap(new byte[] {LF})));
+    }
+
+    /**
+     * Returns the position of the next line to be read by {@link #readLine()}.
+     * This method can be invoked only after at least one call to {@code readLine()}.
+     */
+    final long position() {
+        return bufferStart + buffer.position();
+    }
+
+    /**
+     * Splits this range in two parts if this range has not yet been read and is large enough.
+     * The returned range covers the first half and this range is reduced to the second half,
+     * so the returned range is a prefix of this range.
+     *
+     * @return a range covering the first half of this range, or {@code null} if this range can not be split.
+     */
+    final LineRange split() {
+        if (buffer == null) {
+            final long length = end - start;
+            if (length >= 2 * MINIMAL_SIZE) {
+                final long mid = start + length / 2;
+                final LineRange prefix = new LineRange(channel, decoder.charset(), dataStart, start, mid);
+                start = mid;
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Partitions the given range of bytes in approximately {@code count} ranges of similar sizes.
+     * Ranges are not smaller than {@link #MINIMAL_SIZE} (except the last one).
+     *
+     * @param  channel    the channel from which to read bytes.
+     * @param  encoding   the character encoding.
+     * @param  dataStart  position of the first byte after the header.
+     * @param  end        position after the last byte to read, usually the file size.
+     * @param  count      desired number of ranges.
+     * @return ranges in increasing position order.
+     */
+    static LineRange[] partition(final FileChannel channel, final Charset encoding,
+                                 final long dataStart, final long end, final int count)
+    {
+        final long length = Math.max(end - dataStart, 0);
+        final long size = Math.max(MINIMAL_SIZE, (length + count - 1) / count);
+        final LineRange[] ranges = new LineRange[(int) Math.max(1, (length + size - 1) / size)];
+        long lower = dataStart;
+        for (int i=0; i<ranges.length; i++) {
+            final long upper = (i == ranges.length - 1) ? end : lower + size;
+            ranges[i] = new LineRange(channel, encoding, dataStart, lower, upper);
+            lower = upper;
+        }
+        return ranges;
+    }
+
+    /**
+     * Reads bytes in the buffer, starting at the given file position.
+     * This method guarantees that the buffer contains at least the byte at the given position,
+     * unless end of file has been reached.
+     *
+     * @param  position  file position of the first byte to keep in the buffer.
+     * @return {@code false} if the end of file has been reached before any new byte could be read.
+     */
+    private boolean fill(final long position) throws IOException {
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(0);
+            bufferStart = position;
+        }
+        final int skip = Math.toIntExact(position - bufferStart);
+        buffer.position(skip);
+        buffer.compact();                           // Discard bytes before the given position.
+        if (!buffer.hasRemaining()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put((ByteBuffer) buffer.flip());
+        }
+        bufferStart = position;
+        final int n = channel.read(buffer, bufferStart + buffer.position());
+        buffer.flip();
+        return n > 0;
+    }
+
+    /**
+     * Returns the file position of the next line feed at or after the given position, reading more bytes
+     * if needed. The bytes from the current buffer position are kept, but may be moved in the buffer.
+     *
+     * @param  from  file position where to start the search. Shall be inside the buffer.
+     * @return file position of the line feed, or the file position after the last byte if end of file.
+     */
+    private long findLineFeed(long from) throws IOException {
+        for (;;) {
+            final int limit = buffer.limit();
+            for (int i = Math.toIntExact(from - bufferStart); i < limit; i++) {
+                if (buffer.get(i) == LF) {
+                    return bufferStart + i;
+                }
+            }
+            from = bufferStart + limit;
+            if (!fill(bufferStart + buffer.position())) {
+                return from;                                // End of file.
+            }
+        }
+    }
+
+    /**
+     * Reads the next line in this range, or returns {@code null} if there is no more line starting in this range.
+     * The returned buffer is reused by each call to this method, so its content is valid only until the next call.
+     *
+     * @return the next line, or {@code null} if none.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    final CharBuffer readLine() throws IOException {
+        if (buffer == null) {
+            if (!fill(start)) {
+                return null;
+            }
+            if (start > dataStart) {
+                /*
+                 * Skip the first partial line, which is read by the previous range. If the byte just
+                 * before this range is a line feed, then the range starts exactly on a new line.
+                 */
+                final ByteBuffer b = ByteBuffer.allocate(1);
+                if (channel.read(b, start - 1) <= 0) {
+                    throw new EOFException();
+                }
+                if (b.get(0) != LF) {
+                    final long lf = findLineFeed(start);
+                    if (lf >= end) {
+                        end = start;                // No line starts in this range.
+                        return null;
+                    }
+                    buffer.position(Math.toIntExact(lf + 1 - bufferStart));
+                }
+            }
+        }
+        final long lineStart = bufferStart + buffer.position();
+        if (lineStart >= end) {
+            return null;
+        }
+        final long lf = findLineFeed(lineStart);
+        final int lower = Math.toIntExact(lineStart - bufferStart);
+        int upper = Math.toIntExact(lf - bufferStart);
+        if (upper == lower && upper >= buffer.limit()) {
+            return null;                                        // Empty line at end of file.
+        }
+        buffer.position(Math.min(upper + 1, buffer.limit()));
+        if (upper > lower && buffer.get(upper - 1) == CR) upper--;
+        if (backward < 0) {
+            backward = lineStart;
+        }
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(upper).position(lower);
+        final int capacity = (int) Math.ceil(slice.remaining() * (double) decoder.maxCharsPerByte());
+        if (line == null || line.capacity() < capacity) {
+            line = CharBuffer.allocate(Math.max(capacity, BUFFER_SIZE / 8));
+        }
+        line.clear();
+        decoder.reset().decode(slice, line, true);
+        decoder.flush(line);
+        line.flip();
+        return line;
+    }
+
+    /**
+     * Returns the line before the first line of this range or before the line returned by the last call
+     * to this method. This is used for fetching values omitted in the first line of this range.
+     * Contrarily to {@link #readLine()}, the returned buffer is not reused.
+     *
+     * @return the previous line, or {@code null} if the beginning of data has been reached.
+     * @throws IOException if an error occurred while reading the file.
+     */
+    final CharBuffer previousLine() throws IOException {
+        final long next = backward;                 // Start of the line after the one to search.
+        if (next <= dataStart) {
+            return null;
+        }
+        final long lineEnd = next - 1;              // Position of the line feed terminating the previous line.
+        long lower = lineEnd;
+        final ByteBuffer b = ByteBuffer.allocate(Math.toIntExact(Math.min(BUFFER_SIZE, lineEnd - dataStart + 1)));
+search: while (lower > dataStart) {
+            final long chunk = Math.max(dataStart, lower - b.capacity());
+            b.clear().limit(Math.toIntExact(lower - chunk));
+            while (b.hasRemaining()) {
+                if (channel.read(b, chunk + b.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            for (int i = b.limit(); --i >= 0;) {
+                if (b.get(i) == LF) {
+                    lower = chunk + i + 1;
+                    break search;
+                }
+            }
+            lower = chunk;
+        }
+        final ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(lineEnd - lower));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, lower + bytes.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        bytes.flip();
+        if (bytes.hasRemaining() && bytes.get(bytes.limit() - 1) == CR) {
+            bytes.limit(bytes.limit() - 1);
+        }
+        backward = lower;
+        return decoder.decode(bytes);
+    }
+}
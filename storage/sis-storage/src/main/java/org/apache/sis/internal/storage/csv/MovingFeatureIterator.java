@@ -20,7 +20,6 @@ import java.util.Map;
 import java.util.LinkedHashMap;
 import java.util.function.Consumer;
 import java.util.logging.LogRecord;
-import java.time.Instant;
 import java.time.DateTimeException;
 import java.io.IOException;
 import org.apache.sis.internal.feature.MovingFeature;
@@ -44,8 +43,11 @@ import org.apache.sis.feature.AbstractFeature;
  *    c,  10, 190, 12.0 1.0 10.0 2.0 11.0 3.0
  * }
  *
+ * When the file is partitioned in many {@link LineRange}s parsed in parallel, the iterators of each range
+ * are combined with {@link #merge(MovingFeatureIterator)} in the order of the ranges in the file.
+ *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -69,10 +71,39 @@ final class MovingFeatureIterator extends FeatureIterator implements Consumer<Lo
      * Creates a new iterator.
      */
     MovingFeatureIterator(final Store store) {
-        super(store);
+        super(store, null);
+        builders = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates a new iterator for the given range of bytes,
+     * using the same configuration than the given iterator.
+     *
+     * @param  other  the iterator from which to copy the configuration.
+     * @param  range  the range of bytes to read.
+     */
+    MovingFeatureIterator(final MovingFeatureIterator other, final LineRange range) {
+        super(other, range);
         builders = new LinkedHashMap<>();
     }
 
+    /**
+     * Appends the moving features parsed by the given iterator after the features parsed by this iterator.
+     * The given iterator shall have parsed a range of bytes located after the range parsed by this iterator.
+     * Features that have been found by both iterators are merged in a single trajectory.
+     * This method can only be invoked after {@link #readMoving(Consumer, boolean)} completion of both iterators.
+     *
+     * @param  next  the iterator which parsed the lines after the lines parsed by this iterator.
+     */
+    void merge(final MovingFeatureIterator next) {
+        for (final Map.Entry<String,MovingFeature> entry : next.builders.entrySet()) {
+            final MovingFeature mf = builders.putIfAbsent(entry.getKey(), entry.getValue());
+            if (mf != null) {
+                mf.addAll(entry.getValue());
+            }
+        }
+    }
+
     /**
      * Creates all moving features.
      * This method can only be invoked after {@link #readMoving(Consumer, boolean)} completion.
@@ -125,19 +156,10 @@ final class MovingFeatureIterator extends FeatureIterator implements Consumer<Lo
      * @throws DateTimeException if parsing of a date failed.
      */
     boolean readMoving(final Consumer<? super AbstractFeature> action, final boolean all) throws IOException {
-        final FixedSizeList elements = new FixedSizeList(values);
         final int np = values.length - TRAJECTORY_COLUMN;
-        String line;
-        while ((line = store.readLine()) != null) {
-            Store.split(line, elements);
-            int n = elements.size();
-            for (int i=0; i<n; i++) {
-                values[i] = converters[i].apply((String) values[i]);
-            }
-            final String  mfIdRef   =  (String)  values[0];
-            final long    startTime = ((Instant) values[1]).toEpochMilli();
-            final long    endTime   = ((Instant) values[2]).toEpochMilli();
-            String        publish   = null;
+        while (nextLine(false)) {
+            final String mfIdRef = (String) values[0];
+            String       publish = null;
             if (!mfIdRef.equals(identifier)) {
                 publish    = identifier;
                 identifier = mfIdRef;
@@ -155,7 +177,6 @@ final class MovingFeatureIterator extends FeatureIterator implements Consumer<Lo
                 action.accept(createMovingFeature(publish, builders.remove(publish), np));
                 if (!all) return true;
             }
-            elements.clear();
         }
         return false;
     }
@@ -17,6 +17,7 @@
 package org.apache.sis.internal.storage.csv;
 
 import java.util.List;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -33,6 +34,10 @@ import java.io.BufferedReader;
 import java.io.LineNumberReader;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import javax.measure.Unit;
 import javax.measure.quantity.Time;
@@ -74,6 +79,7 @@ import org.apache.sis.setup.OptionKey;
 import org.apache.sis.util.ArraysExt;
 import org.apache.sis.util.CharSequences;
 import org.apache.sis.util.resources.Errors;
+import org.apache.sis.util.collection.BackingStoreException;
 import org.apache.sis.io.InvalidSeekException;
 import org.apache.sis.measure.Units;
 
@@ -87,7 +93,7 @@ import org.apache.sis.feature.AbstractIdentifiedType;
  * See package javadoc for more information on the syntax.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -106,7 +112,7 @@ final class Store extends URIDataStore implements FeatureSet {
     /**
      * The quote character. Quotes inside quoted texts must be doubled.
      */
-    private static final char QUOTE = '"';
+    static final char QUOTE = '"';
 
     /**
      * The column separator.
@@ -143,6 +149,22 @@ final class Store extends URIDataStore implements FeatureSet {
      */
     private BufferedReader source;
 
+    /**
+     * The channel for reading ranges of bytes in parallel, or {@code null} if not yet opened
+     * or if the file can not be partitioned. This channel is opened when first needed.
+     *
+     * @see #lineRanges(int)
+     */
+    private FileChannel channel;
+
+    /**
+     * Position of the first byte after the header, or -1 if not yet computed.
+     * This is {@link Long#MAX_VALUE} if the file can not be partitioned in ranges of bytes.
+     *
+     * @see #lineRanges(int)
+     */
+    private long dataStart = -1;
+
     /**
      * The character encoding, or {@code null} if unspecified (in which case the platform default is assumed).
      * Note that the default value is different than the moving feature specification, which requires UTF-8.
@@ -705,24 +727,107 @@ final class Store extends URIDataStore implements FeatureSet {
      */
     @Override
     public final synchronized Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
-        /*
-         * If the user asks for one feature instance per line, then we can return a FeatureIter instance directly.
-         * Since each feature is fully constructed from a single line and each line are read atomically, we can
-         * parallelize this mode.
-         */
-        if (dissociate) {
-            return StreamSupport.stream(new FeatureIterator(this), parallel);
-        }
-        if (movingFeatures == null) try {
-            final MovingFeatureIterator iter = new MovingFeatureIterator(this);
-            iter.readMoving(null, true);
-            movingFeatures = UnmodifiableArrayList.wrap(iter.createMovingFeatures());
+        try {
+            /*
+             * If the user asks for one feature instance per line, then we can return a FeatureIter instance directly.
+             * Since each feature is fully constructed from a single line and each line are read atomically, we can
+             * parallelize this mode. If the file can be partitioned in ranges of bytes, each thread reads its own
+             * range instead of sharing the same reader.
+             */
+            if (dissociate) {
+                LineRange range = null;
+                if (parallel) {
+                    final LineRange[] ranges = lineRanges(1);
+                    if (ranges != null) range = ranges[0];
+                }
+                return StreamSupport.stream(new FeatureIterator(this, range), parallel);
+            }
+            /*
+             * If the user asks for moving features, we need to merge all lines having the same identifier.
+             * In parallel mode, the file is partitioned in ranges of bytes which are parsed independently.
+             * Then the results are merged in the order of the ranges in the file.
+             */
+            if (movingFeatures == null) {
+                MovingFeatureIterator iter = new MovingFeatureIterator(this);
+                final LineRange[] ranges = parallel ? lineRanges(4 * Runtime.getRuntime().availableProcessors()) : null;
+                if (ranges != null && ranges.length > 1) {
+                    final MovingFeatureIterator template = iter;
+                    final MovingFeatureIterator[] parts = Arrays.stream(ranges).parallel().map((range) -> {
+                        final MovingFeatureIterator part = new MovingFeatureIterator(template, range);
+                        try {
+                            part.readMoving(null, true);
+                        } catch (IOException e) {
+                            throw new BackingStoreException(e);
+                        }
+                        return part;
+                    }).toArray(MovingFeatureIterator[]::new);
+                    iter = parts[0];
+                    for (int i=1; i<parts.length; i++) {
+                        iter.merge(parts[i]);
+                    }
+                } else {
+                    iter.readMoving(null, true);
+                }
+                movingFeatures = UnmodifiableArrayList.wrap(iter.createMovingFeatures());
+            }
         } catch (IOException | IllegalArgumentException | DateTimeException e) {
             throw new DataStoreException(canNotParseFile(), e);
+        } catch (BackingStoreException e) {
+            throw new DataStoreException(canNotParseFile(), e.getCause());
         }
         return movingFeatures.stream();
     }
 
+    /**
+     * Partitions the data part of the CSV file in approximately {@code count} ranges of bytes,
+     * or returns {@code null} if the file can not be partitioned. Partitioning is possible only
+     * if the store has been opened on a regular file, in an encoding where line feeds are encoded
+     * on a single byte (UTF-8, ISO-8859, <i>etc.</i>). Each range can be read in a different thread.
+     *
+     * @param  count  desired number of ranges.
+     * @return ranges of bytes in increasing position order, or {@code null} if the file can not be partitioned.
+     * @throws IOException if an error occurred while reading the header lines.
+     */
+    private LineRange[] lineRanges(final int count) throws IOException {
+        final Charset cs = (encoding != null) ? encoding : Charset.defaultCharset();
+        if (dataStart < 0) {
+            dataStart = Long.MAX_VALUE;
+            if (!LineRange.isSupported(cs)) {
+                return null;
+            }
+            final Path[] files;
+            try {
+                files = getComponentFiles();
+            } catch (DataStoreException e) {
+                return null;                // Not a file on a supported file system. Will read sequentially.
+            }
+            if (files.length != 1 || !Files.isRegularFile(files[0])) {
+                return null;
+            }
+            channel = FileChannel.open(files[0], StandardOpenOption.READ);
+            /*
+             * Skip the header lines. We reproduce the constructor loop (without parsing metadata)
+             * in the same way than rewind() does.
+             */
+            final LineRange header = new LineRange(channel, cs, 0, 0, Long.MAX_VALUE);
+            long start = 0;
+            CharSequence buffer;
+            while ((buffer = header.readLine()) != null) {
+                final String line = buffer.toString().trim();
+                if (!line.isEmpty()) {
+                    final char c = line.charAt(0);
+                    if (c != COMMENT && c != METADATA) break;
+                }
+                start = header.position();
+            }
+            dataStart = start;
+        }
+        if (channel == null) {
+            return null;
+        }
+        return LineRange.partition(channel, cs, dataStart, channel.size(), count);
+    }
+
     /**
      * Splits the content of the given line around the column separator.
      * Quotes are taken in account. The elements are added in the given list.
@@ -858,9 +963,12 @@ final class Store extends URIDataStore implements FeatureSet {
     @Override
     public synchronized void close() throws DataStoreException {
         final BufferedReader s = source;
-        source = null;                  // Cleared first in case of failure.
-        if (s != null) try {
-            s.close();
+        final FileChannel c = channel;
+        source  = null;                 // Cleared first in case of failure.
+        channel = null;
+        try {
+            if (c != null) c.close();
+            if (s != null) s.close();
         } catch (IOException e) {
             throw new DataStoreException(e);
         }
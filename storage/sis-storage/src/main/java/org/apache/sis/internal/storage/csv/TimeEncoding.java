@@ -30,9 +30,10 @@ import org.apache.sis.measure.Units;
  * Specifies how time is encoded in the CSV file.
  * Time values are formatted as numbers of seconds or minutes since an epoch,
  * except in the special case of {@link #ABSOLUTE} encoding.
+ * Time values can be parsed from {@code String} instances or directly from the fields of a {@link Tokenizer}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -49,6 +50,14 @@ class TimeEncoding extends SurjectiveConverter<String,Instant> {
         @Override public Instant apply(final String time) {
             return Instant.parse(time);
         }
+
+        @Override Instant parse(final Tokenizer tokens, final int field) {
+            return tokens.parseInstant(field);
+        }
+
+        @Override long parseMillis(final Tokenizer tokens, final int field) {
+            return tokens.parseEpochMillis(field);
+        }
     };
 
     /**
@@ -93,7 +102,46 @@ class TimeEncoding extends SurjectiveConverter<String,Instant> {
      */
     @Override
     public Instant apply(final String time) {
-        final double value = Double.parseDouble(time) * interval;
+        return toInstant(Double.parseDouble(time));
+    }
+
+    /**
+     * Returns the instant for the given field of the current line of the given tokenizer.
+     * This method performs the same work than {@link #apply(String)} without creating a string.
+     *
+     * @param  tokens  the tokenizer which contains the current line.
+     * @param  field   index of the field to parse.
+     * @return the instant parsed from the given field.
+     */
+    Instant parse(final Tokenizer tokens, final int field) {
+        return toInstant(tokens.parseDouble(field));
+    }
+
+    /**
+     * Returns the instant for the given field of the current line of the given tokenizer,
+     * in milliseconds since January 1st, 1970 midnight UTC. This method avoids the creation
+     * of {@link Instant} objects in the common cases. The fraction of millisecond is truncated
+     * toward negative infinity, as in {@link Instant#toEpochMilli()}.
+     *
+     * @param  tokens  the tokenizer which contains the current line.
+     * @param  field   index of the field to parse.
+     * @return the instant parsed from the given field, in milliseconds since epoch.
+     */
+    long parseMillis(final Tokenizer tokens, final int field) {
+        final double value = tokens.parseDouble(field) * interval;
+        final long millis = Math.round(value);
+        final long nanos  = Math.round((value - millis) * StandardDateFormat.NANOS_PER_MILLISECOND);
+        return (nanos < 0) ? millis + origin - 1 : millis + origin;
+    }
+
+    /**
+     * Returns the instant for the given time elapsed since the CRS temporal origin.
+     *
+     * @param  time  the time elapsed since the CRS temporal origin, in units of the CRS.
+     * @return the instant for the given time.
+     */
+    private Instant toInstant(final double time) {
+        final double value = time * interval;
         final long millis = Math.round(value);
         return Instant.ofEpochMilli(millis + origin)
                       .plusNanos(Math.round((value - millis) * StandardDateFormat.NANOS_PER_MILLISECOND));
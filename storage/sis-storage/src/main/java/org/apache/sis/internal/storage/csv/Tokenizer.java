@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.util.Arrays;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import org.apache.sis.util.ArraysExt;
+import org.apache.sis.internal.util.StandardDateFormat;
+
+
+/**
+ * Splits a line of a CSV file in fields without creating {@link String} instances.
+ * The characters are kept in a {@code char[]} array reused for all lines, and the fields are
+ * identified by index ranges in that array. Numbers, coordinate tuples and ISO instants can
+ * be parsed directly from those ranges. A {@code String} is created only when a field needs
+ * to be stored as a character string.
+ *
+ * <p>The splitting rules are the same than {@link Store#split(String, java.util.List)}:
+ * fields are separated by {@value Store#SEPARATOR}, quotes are removed (doubled quotes are
+ * replaced by a single quote) and leading and trailing whitespaces are trimmed.</p>
+ *
+ * <b>Multi-threading:</b> {@code Tokenizer} is not thread-safe.
+ * Each {@link FeatureIterator} uses its own instance.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class Tokenizer {
+    /**
+     * Maximal number of significant digits for which the fast path of {@link #parseDouble(int, int)}
+     * produces correctly rounded values. Any integer having this number of digits is exactly representable
+     * as a {@code double}, so only one rounding happen in the multiplication or division by a power of 10.
+     */
+    private static final int MAX_DIGITS = 15;
+
+    /**
+     * Powers of 10 which are exactly representable as {@code double} values.
+     */
+    private static final double[] POWERS_OF_10 = {
+        1E+0,  1E+1,  1E+2,  1E+3,  1E+4,  1E+5,  1E+6,  1E+7,  1E+8,  1E+9,  1E+10, 1E+11,
+        1E+12, 1E+13, 1E+14, 1E+15, 1E+16, 1E+17, 1E+18, 1E+19, 1E+20, 1E+21, 1E+22
+    };
+
+    /**
+     * Buffer owned by this tokenizer, used when the line is not backed by a writable array.
+     */
+    private char[] buffer;
+
+    /**
+     * The characters of the current line. This is either {@link #buffer} or the array backing the
+     * {@link CharBuffer} given to {@link #split(CharSequence)}. Quoted fields are decoded in-place.
+     */
+    private char[] chars;
+
+    /**
+     * Lower (inclusive) and upper (exclusive) indices in {@link #chars} of each field.
+     * The bounds of field <var>i</var> are at indices 2<var>i</var> and 2<var>i</var>+1.
+     */
+    private final int[] bounds;
+
+    /**
+     * Number of fields found in the current line.
+     */
+    private int count;
+
+    /**
+     * A view over {@link #chars} as a character sequence, created when first needed.
+     * Used for delegating the parsing of instants to {@link StandardDateFormat}.
+     */
+    private CharBuffer sequence;
+
+    /**
+     * Creates a new tokenizer for lines having the given maximal number of fields.
+     * Fields after the maximal number are ignored.
+     *
+     * @param  capacity  maximal number of fields.
+     */
+    Tokenizer(final int capacity) {
+        bounds = new int[capacity * 2];
+        buffer = new char[256];
+    }
+
+    /**
+     * Splits the given line around the column separator. The fields are available by the other methods
+     * of this class until the next call to {@code split(…)}. If the given line is a {@link CharBuffer}
+     * backed by an array, then that array is used directly and may be modified by this method.
+     *
+     * @param  line  the line to split.
+     */
+    void split(final CharSequence line) {
+        final int length = line.length();
+        int offset = 0;
+        if (line instanceof CharBuffer && ((CharBuffer) line).hasArray()) {
+            final CharBuffer cb = (CharBuffer) line;
+            chars  = cb.array();
+            offset = cb.arrayOffset() + cb.position();
+        } else {
+            if (buffer.length < length) {
+                buffer = new char[Math.max(length, buffer.length * 2)];
+            }
+            if (line instanceof String) {
+                ((String) line).getChars(0, length, buffer, 0);
+            } else {
+                for (int i=0; i<length; i++) {
+                    buffer[i] = line.charAt(i);
+                }
+            }
+            chars = buffer;
+        }
+        count = 0;
+        int startAt = offset;
+        boolean isQuoting = false;        // If a quote has been opened and not yet closed.
+        boolean hasQuotes = false;        // If the value contains at least one quote (not used for quoting the value).
+        final int end = offset + length;
+        for (int i=offset; i<end; i++) {
+            switch (chars[i]) {
+                case Store.QUOTE: {
+                    hasQuotes = true;
+                    if (isQuoting && i+1 < end && chars[i+1] == Store.QUOTE) {
+                        i++;
+                    } else {
+                        isQuoting = !isQuoting;
+                    }
+                    break;
+                }
+                case Store.SEPARATOR: {
+                    if (!isQuoting) {
+                        if (!add(startAt, i, hasQuotes)) {
+                            return;     // Reached the maximal capacity.
+                        }
+                        startAt = i+1;
+                        hasQuotes = false;
+                    }
+                    break;
+                }
+            }
+        }
+        add(startAt, end, hasQuotes);
+    }
+
+    /**
+     * Adds a field for the given range of characters, removing quotes and trimming whitespaces.
+     * Quotes are removed in-place; a quote following another quote is kept.
+     *
+     * @return {@code false} if the maximal number of fields has been reached.
+     */
+    private boolean add(int lower, int upper, final boolean hasQuotes) {
+        if (count * 2 >= bounds.length) {
+            return false;
+        }
+        if (hasQuotes) {
+            int w = lower;
+            for (int r=lower; r<upper; r++) {
+                if (chars[r] == Store.QUOTE && ++r >= upper) break;
+                chars[w++] = chars[r];          // If this char is a second quote, it is preserved.
+            }
+            upper = w;
+        }
+        while (lower < upper && Character.isWhitespace(chars[lower])) lower++;
+        while (upper > lower && Character.isWhitespace(chars[upper - 1])) upper--;
+        bounds[count*2  ] = lower;
+        bounds[count*2+1] = upper;
+        count++;
+        return true;
+    }
+
+    /**
+     * Returns the number of fields found in the current line.
+     */
+    final int count() {
+        return count;
+    }
+
+    /**
+     * Returns {@code true} if the given field contains the same characters than the given text.
+     *
+     * @param  field  index of the field to compare.
+     * @param  text   the text to compare with the field, or {@code null}.
+     * @return whether the field is equal to the given text.
+     */
+    final boolean contentEquals(final int field, final String text) {
+        if (text != null) {
+            int i = bounds[field*2];
+            final int length = bounds[field*2+1] - i;
+            if (text.length() == length) {
+                for (int j=0; j<length; j++) {
+                    if (text.charAt(j) != chars[i++]) return false;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the content of the given field as a character string.
+     *
+     * @param  field  index of the field.
+     * @return the field content.
+     */
+    final String getString(final int field) {
+        final int lower = bounds[field*2];
+        return new String(chars, lower, bounds[field*2+1] - lower);
+    }
+
+    /**
+     * Parses the given field as a floating point number.
+     *
+     * @param  field  index of the field to parse.
+     * @return the parsed value.
+     * @throws NumberFormatException if the field is not a valid number.
+     */
+    final double parseDouble(final int field) {
+        return parseDouble(bounds[field*2], bounds[field*2+1]);
+    }
+
+    /**
+     * Parses the given field as a sequence of floating point numbers separated by the given character.
+     * Empty tokens are parsed as {@link Double#NaN}, except if the separator is a whitespace in which
+     * case empty tokens are ignored. This is the same policy than {@code CharSequences.parseDoubles(…)}.
+     *
+     * @param  field      index of the field to parse.
+     * @param  separator  the separator between numbers, usually {@value Store#ORDINATE_SEPARATOR}.
+     * @return the parsed values.
+     * @throws NumberFormatException if a token is not a valid number.
+     */
+    final double[] parseDoubles(final int field, final char separator) {
+        final int lower = bounds[field*2];
+        final int upper = bounds[field*2+1];
+        if (lower == upper) {
+            return ArraysExt.EMPTY_DOUBLE;
+        }
+        final boolean excludeEmpty = Character.isWhitespace(separator);
+        double[] values = new double[8];
+        int n = 0;
+        int start = lower;
+        for (int i=lower; i <= upper; i++) {
+            if (i == upper || chars[i] == separator) {
+                int s = start, e = i;
+                while (s < e && Character.isWhitespace(chars[s])) s++;
+                while (e > s && Character.isWhitespace(chars[e - 1])) e--;
+                if (s != e || !excludeEmpty) {
+                    if (n == values.length) {
+                        values = Arrays.copyOf(values, n * 2);
+                    }
+                    values[n++] = (s != e) ? parseDouble(s, e) : Double.NaN;
+                }
+                start = i + 1;
+            }
+        }
+        return ArraysExt.resize(values, n);
+    }
+
+    /**
+     * Parses a floating point number in the given range of characters. This method handles directly
+     * the common case of decimal numbers having no more than {@value #MAX_DIGITS} significant digits.
+     * Other cases (many digits, large exponents, {@code NaN}, <i>etc.</i>) are delegated to
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseDouble(final int lower, final int upper) {
+        int i = lower;
+        boolean negative = false;
+        if (i < upper && (chars[i] == '-' || chars[i] == '+')) {
+            negative = (chars[i++] == '-');
+        }
+        long    mantissa = 0;
+        int     digits   = 0;           // Number of significant digits.
+        int     exponent = 0;           // Power of 10 by which to multiply the mantissa.
+        boolean hasDigit = false;
+        boolean fraction = false;
+        for (; i < upper; i++) {
+            final char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > MAX_DIGITS) break;
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (fraction) exponent--;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (hasDigit && digits <= MAX_DIGITS) {
+            if (i < upper && (chars[i] == 'e' || chars[i] == 'E')) {
+                int j = i + 1;
+                boolean negativeExponent = false;
+                if (j < upper && (chars[j] == '-' || chars[j] == '+')) {
+                    negativeExponent = (chars[j++] == '-');
+                }
+                int e = 0;
+                final int start = j;
+                while (j < upper && j - start < 4) {
+                    final char c = chars[j];
+                    if (c < '0' || c > '9') break;
+                    e = e * 10 + (c - '0');
+                    j++;
+                }
+                if (j != start) {
+                    exponent += negativeExponent ? -e : e;
+                    i = j;
+                }
+            }
+            if (i == upper) {
+                double value = mantissa;
+                if (exponent != 0 && mantissa != 0) {
+                    if (exponent > 0 && exponent < POWERS_OF_10.length) {
+                        value *= POWERS_OF_10[exponent];
+                    } else if (exponent < 0 && -exponent < POWERS_OF_10.length) {
+                        value /= POWERS_OF_10[-exponent];
+                    } else {
+                        return Double.parseDouble(new String(chars, lower, upper - lower));
+                    }
+                }
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble(new String(chars, lower, upper - lower));
+    }
+
+    /**
+     * Parses the given field as an ISO 8601 instant.
+     *
+     * @param  field  index of the field to parse.
+     * @return the parsed instant.
+     * @throws java.time.DateTimeException if the field is not a valid instant.
+     */
+    final Instant parseInstant(final int field) {
+        final long nanos = parseEpochNanos(field);
+        if (nanos == Long.MIN_VALUE) {
+            return Instant.parse(getString(field));
+        }
+        return Instant.ofEpochSecond(0, nanos);
+    }
+
+    /**
+     * Parses the given field as an ISO 8601 instant and returns the number of milliseconds since epoch.
+     * This method avoids the creation of {@link Instant} objects in the common cases.
+     *
+     * @param  field  index of the field to parse.
+     * @return the parsed instant in milliseconds since January 1st, 1970 midnight UTC.
+     * @throws java.time.DateTimeException if the field is not a valid instant.
+     */
+    final long parseEpochMillis(final int field) {
+        final long nanos = parseEpochNanos(field);
+        if (nanos == Long.MIN_VALUE) {
+            return Instant.parse(getString(field)).toEpochMilli();
+        }
+        return Math.floorDiv(nanos, StandardDateFormat.NANOS_PER_MILLISECOND);
+    }
+
+    /**
+     * Parses the given field with {@link StandardDateFormat#parseEpochNanos(CharSequence, int, int)}.
+     *
+     * @param  field  index of the field to parse.
+     * @return nanoseconds since January 1st, 1970 midnight UTC, or {@link Long#MIN_VALUE}
+     *         if the field needs to be parsed by {@link Instant#parse(CharSequence)}.
+     */
+    private long parseEpochNanos(final int field) {
+        if (sequence == null || sequence.array() != chars) {
+            sequence = CharBuffer.wrap(chars);
+        }
+        return StandardDateFormat.parseEpochNanos(sequence, bounds[field*2], bounds[field*2+1]);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.resources.Errors;
+
+
+/**
+ * A read-only channel where bytes are fetched by ranges at arbitrary positions.
+ * This is an abstraction over storages where each read operation may be a costly round-trip,
+ * for example HTTP servers supporting {@code Range} requests or cloud object stores.
+ * Data stores can detect this channel type and adapt their reading strategy,
+ * for example by fetching fewer but larger ranges of bytes.
+ *
+ * <p>Subclasses need to implement only {@link #read(long, ByteBuffer)}, {@link #size()},
+ * {@link #isOpen()} and {@link #close()}. The {@link #read(long, ByteBuffer)} method shall
+ * be safe for concurrent use by multiple threads, since it does not depend on the channel
+ * {@linkplain #position() position}.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public abstract class ByteRangeChannel implements SeekableByteChannel {
+    /**
+     * A short identifier (typically a filename without path) used for formatting error message.
+     */
+    public final String filename;
+
+    /**
+     * Current position of this channel, used only by the methods inherited from {@link SeekableByteChannel}.
+     */
+    private long position;
+
+    /**
+     * Creates a new channel positioned at the beginning of the stream.
+     *
+     * @param  filename  a short identifier (typically a filename without path) used for formatting error message.
+     */
+    protected ByteRangeChannel(final String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Returns a channel reading the same bytes than the given channel but with an independent position,
+     * or {@code null} if the given channel does not support concurrent positional reads.
+     * This method recognizes {@link ByteRangeChannel} and {@link FileChannel} instances.
+     * The returned view shares the underlying storage, so closing the view has no effect;
+     * the given channel shall be closed instead.
+     *
+     * <p>Views are cheap to create. They allow different threads to read the same file without
+     * contention on a shared buffer or channel position.</p>
+     *
+     * @param  channel   the channel for which to create a view.
+     * @param  filename  a short identifier (typically a filename without path) used for formatting error message.
+     * @return a view over the same bytes with an independent position, or {@code null} if none.
+     */
+    public static ByteRangeChannel view(final ReadableByteChannel channel, final String filename) {
+        final ByteRangeChannel source;
+        if (channel instanceof ByteRangeChannel) {
+            source = (ByteRangeChannel) channel;
+        } else if (channel instanceof FileChannel) {
+            source = new FileRangeChannel(filename, (FileChannel) channel);
+        } else {
+            return null;
+        }
+        return new View(source);
+    }
+
+    /**
+     * A channel sharing the storage of another {@code ByteRangeChannel} with an independent position.
+     * Closing this view does not close the source.
+     *
+     * @see ByteRangeChannel#view(ReadableByteChannel, String)
+     */
+    private static final class View extends ByteRangeChannel {
+        /** The channel from which to read bytes. */
+        private final ByteRangeChannel source;
+
+        /** Creates a new view over the given channel. */
+        View(final ByteRangeChannel source) {
+            super(source.filename);
+            this.source = source;
+        }
+
+        /** Delegates to the source channel. */
+        @Override public int     read(long start, ByteBuffer target) throws IOException {return source.read(start, target);}
+        @Override public long    size()   throws IOException {return source.size();}
+        @Override public boolean isOpen() {return source.isOpen();}
+        @Override public void    close()  {}
+    }
+
+    /**
+     * Reads a sequence of bytes starting at the given position, without changing the channel position.
+     * This method reads at most {@link ByteBuffer#remaining()} bytes and returns the number of bytes
+     * actually read, which may be less than the number of bytes requested.
+     * This method can be invoked concurrently from different threads.
+     *
+     * @param  start   position in the stream of the first byte to read.
+     * @param  target  the buffer where to store the bytes.
+     * @return number of bytes read, possibly zero, or -1 if the given position is after the end of stream.
+     * @throws IOException if an error occurred while reading the bytes.
+     */
+    public abstract int read(long start, ByteBuffer target) throws IOException;
+
+    /**
+     * Reads exactly {@link ByteBuffer#remaining()} bytes starting at the given position,
+     * without changing the channel position. This method can be invoked concurrently
+     * from different threads.
+     *
+     * @param  start   position in the stream of the first byte to read.
+     * @param  target  the buffer where to store the bytes.
+     * @throws EOFException if the end of stream is reached before the buffer has been filled.
+     * @throws IOException if another error occurred while reading the bytes.
+     */
+    public void readFully(long start, final ByteBuffer target) throws IOException {
+        ArgumentChecks.ensurePositive("start", start);
+        while (target.hasRemaining()) {
+            final int n = read(start, target);
+            if (n < 0) {
+                throw new EOFException(Errors.format(Errors.Keys.UnexpectedEndOfFile_1, filename));
+            }
+            start += n;
+        }
+    }
+
+    /**
+     * Reads a sequence of bytes from the current channel position, then increments the position.
+     *
+     * @param  target  the buffer where to store the bytes.
+     * @return number of bytes read, possibly zero, or -1 if the channel has reached end of stream.
+     * @throws IOException if an error occurred while reading the bytes.
+     */
+    @Override
+    public synchronized int read(final ByteBuffer target) throws IOException {
+        final int n = read(position, target);
+        if (n > 0) position += n;
+        return n;
+    }
+
+    /**
+     * Returns the current position of this channel.
+     *
+     * @return the current position.
+     */
+    @Override
+    public synchronized long position() {
+        return position;
+    }
+
+    /**
+     * Sets the position of this channel.
+     *
+     * @param  newPosition  the new position.
+     * @return {@code this}.
+     */
+    @Override
+    public synchronized SeekableByteChannel position(final long newPosition) {
+        ArgumentChecks.ensurePositive("newPosition", newPosition);
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Unsupported operation since this channel is read-only.
+     *
+     * @param  source  ignored.
+     * @return never returns.
+     */
+    @Override
+    public final int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Unsupported operation since this channel is read-only.
+     *
+     * @param  size  ignored.
+     * @return never returns.
+     */
+    @Override
+    public final SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+}
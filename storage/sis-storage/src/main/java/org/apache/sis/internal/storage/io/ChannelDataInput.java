@@ -27,6 +27,7 @@ import java.nio.LongBuffer;
 import java.nio.FloatBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import org.apache.sis.internal.storage.Resources;
@@ -61,7 +62,7 @@ import static org.apache.sis.util.ArgumentChecks.ensureBetween;
  * {@link javax.imageio} is needed.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.1
  * @since   0.3
  * @module
  */
@@ -96,6 +97,56 @@ public class ChannelDataInput extends ChannelData {
         }
     }
 
+    /**
+     * Returns an input reading the same stream than this input but with an independent position and buffer,
+     * or {@code null} if the channel does not support concurrent positional reads. The returned input uses
+     * the same stream positions than this input (i.e. {@link #seek(long)} arguments have the same meaning),
+     * and a buffer of the same capacity and byte order. It can be used by a thread other than the threads
+     * using this input, without synchronization. Closing the returned input has no effect on this input.
+     *
+     * @return an independent input over the same stream, or {@code null} if none.
+     * @throws IOException if an error occurred while creating the view.
+     *
+     * @see ByteRangeChannel#view(ReadableByteChannel, String)
+     *
+     * @since 1.1
+     */
+    public ChannelDataInput view() throws IOException {
+        final ByteRangeChannel view = ByteRangeChannel.view(channel, filename);
+        if (view == null) {
+            return null;
+        }
+        view.position(channelOffset);
+        final ByteBuffer copy = ByteBuffer.allocate(buffer.capacity()).order(buffer.order());
+        copy.limit(0);
+        return new ChannelDataInput(filename, view, copy, true);
+    }
+
+    /**
+     * Maps the given region of the stream directly into memory, or returns {@code null} if the channel is not
+     * a {@link FileChannel}. The position is relative to the stream, with the same meaning than {@link #seek(long)}
+     * arguments. The returned buffer is read-only, uses the byte order of {@link #buffer} and is independent from
+     * this input: the position of this input is not modified, and the mapping stays valid after this input is closed.
+     *
+     * <p>Memory mapping avoids copying the bytes in a Java array, but has a non-negligible setup cost.
+     * Consequently it should be used only for reading large regions.</p>
+     *
+     * @param  position  stream position of the first byte to map.
+     * @param  length    number of bytes to map.
+     * @return a read-only view of the given region of the file, or {@code null} if memory mapping is not supported.
+     * @throws IOException if an error occurred while mapping the file.
+     *
+     * @since 1.1
+     */
+    public ByteBuffer map(final long position, final int length) throws IOException {
+        if (channel instanceof FileChannel) {
+            final ByteBuffer region = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY,
+                                            Math.addExact(channelOffset, position), length);
+            return region.order(buffer.order());
+        }
+        return null;
+    }
+
     /**
      * Tries to read more bytes from the channel without changing the buffer position.
      * This method returns a negative number if the buffer is already full or if the channel reached the
@@ -517,6 +568,41 @@ public class ChannelDataInput extends ChannelData {
         }
     }
 
+    /**
+     * Reads bytes from the stream until the given buffer is full (from its position to its limit).
+     * Bytes which are already in the {@linkplain #buffer} are copied first, then the remaining bytes
+     * are read directly from the channel without copy in the {@linkplain #buffer}. This method is more
+     * efficient than {@link #readFully(byte[], int, int)} for reading large blocks of bytes.
+     *
+     * @param  dest  the buffer where to store the bytes. Its position is moved to its limit.
+     * @throws IOException if an error (including EOF) occurred while reading the stream.
+     *
+     * @since 1.1
+     */
+    public final void readFully(final ByteBuffer dest) throws IOException {
+        final int n = Math.min(buffer.remaining(), dest.remaining());
+        if (n != 0) {
+            final int limit = buffer.limit();
+            buffer.limit(buffer.position() + n);
+            dest.put(buffer);
+            buffer.limit(limit);
+        }
+        if (dest.hasRemaining()) {
+            bufferOffset += buffer.limit();                 // All bytes in the buffer have been consumed.
+            buffer.clear().limit(0);
+            do {
+                final int c = channel.read(dest);
+                if (c <= 0) {
+                    if (c != 0) {
+                        throw new EOFException(eof());
+                    }
+                    onEmptyTransfer();
+                }
+                bufferOffset += c;
+            } while (dest.hasRemaining());
+        }
+    }
+
     /**
      * Helper class for the {@code readFully(…)} methods,
      * in order to avoid duplicating almost identical code many times.
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A channel reading byte ranges from a local file. This implementation delegates to the
+ * {@link FileChannel#read(ByteBuffer, long)} method, which is safe for concurrent use.
+ * It is useful as a stand-in for remote storages when testing data stores optimized
+ * for {@link ByteRangeChannel}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public class FileRangeChannel extends ByteRangeChannel {
+    /**
+     * The channel to the local file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Opens a channel for reading the given file.
+     *
+     * @param  file  the file to read.
+     * @throws IOException if the file can not be opened.
+     */
+    public FileRangeChannel(final Path file) throws IOException {
+        super(IOUtilities.filename(file));
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Wraps an existing file channel. The given channel will be closed when this channel is closed.
+     *
+     * @param  filename  a short identifier (typically a filename without path) used for formatting error message.
+     * @param  channel   the channel to the local file.
+     */
+    FileRangeChannel(final String filename, final FileChannel channel) {
+        super(filename);
+        this.channel = channel;
+    }
+
+    /**
+     * Reads a sequence of bytes starting at the given position, without changing the channel position.
+     *
+     * @param  start   position in the file of the first byte to read.
+     * @param  target  the buffer where to store the bytes.
+     * @return number of bytes read, possibly zero, or -1 if the given position is after the end of file.
+     * @throws IOException if an error occurred while reading the bytes.
+     */
+    @Override
+    public int read(final long start, final ByteBuffer target) throws IOException {
+        return channel.read(target, start);
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the file size in bytes.
+     * @throws IOException if an error occurred while fetching the size.
+     */
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Returns whether this channel is open.
+     *
+     * @return whether this channel is open.
+     */
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if an error occurred while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
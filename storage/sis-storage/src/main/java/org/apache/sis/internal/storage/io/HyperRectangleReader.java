@@ -18,8 +18,10 @@ package org.apache.sis.internal.storage.io;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.io.IOException;
 import org.apache.sis.util.Numbers;
+import org.apache.sis.util.ArgumentChecks;
 import org.apache.sis.util.resources.Errors;
 import org.apache.sis.storage.DataStoreContentException;
 
@@ -31,16 +33,39 @@ import org.apache.sis.storage.DataStoreContentException;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
 public final class HyperRectangleReader {
+    /**
+     * Default value of the maximal number of bytes to read in a single operation when coalescing nearby blocks.
+     *
+     * @see #setReadAhead(int)
+     */
+    public static final int DEFAULT_READ_AHEAD = 0x10000;
+
     /**
      * The channel from which to read the values, together with a buffer for transferring data.
      */
     private final DataTransfer reader;
 
+    /**
+     * The channel from which to read the values, or {@code null} if the values are read from a buffer in memory.
+     * This is used for creating {@linkplain #concurrentView() views} using independent channel positions.
+     */
+    private final ChannelDataInput input;
+
+    /**
+     * The type of elements to read, as one of the constants defined in {@link Numbers}.
+     */
+    private final byte dataType;
+
+    /**
+     * The byte order of values, as the {@linkplain ChannelDataInput#buffer buffer} order at construction time.
+     */
+    private final ByteOrder order;
+
     /**
      * The {@code input} position of the first sample (ignoring sub-area and subsampling).
      * This is the {@code origin} argument given to the constructor, copied verbatim.
@@ -49,6 +74,36 @@ public final class HyperRectangleReader {
      */
     public final long origin;
 
+    /**
+     * Maximal number of bytes to read in a single sequential read operation when coalescing nearby blocks of
+     * contiguous values, or 0 for disabling coalescing. Coalescing avoids a seek operation for each row (or
+     * plane, <i>etc.</i>) of a sub-area when the gap between those rows is small, at the cost of reading the
+     * bytes in the gaps.
+     *
+     * @see #setReadAhead(int)
+     */
+    private int readAhead;
+
+    /**
+     * Buffer where to read coalesced blocks before to scatter them in the destination array,
+     * or {@code null} if not yet created. Created when first needed.
+     */
+    private ByteBuffer scratch;
+
+    /**
+     * Number of bytes read from the input, including the bytes in the gaps between coalesced blocks.
+     *
+     * @see #getBytesRead()
+     */
+    private long bytesRead;
+
+    /**
+     * Number of bytes stored in the destination arrays.
+     *
+     * @see #getBytesUsed()
+     */
+    private long bytesUsed;
+
     /**
      * Creates a new reader for the given input and source region.
      *
@@ -70,8 +125,12 @@ public final class HyperRectangleReader {
             case Numbers.DOUBLE:    reader = input.new DoublesReader((double[]) null); break;
             default: throw new DataStoreContentException(Errors.format(Errors.Keys.UnknownType_1, dataType));
         }
-        this.origin = origin;
+        this.origin    = origin;
+        this.input     = input;
+        this.dataType  = dataType;
+        this.readAhead = DEFAULT_READ_AHEAD;
         final ByteBuffer buffer = input.buffer;
+        order = buffer.order();
         final int pos = buffer.position();
         final int lim = buffer.limit();
         try {
@@ -91,8 +150,88 @@ public final class HyperRectangleReader {
      * @throws IOException should never happen.
      */
     public HyperRectangleReader(final String filename, final Buffer data) throws IOException {
-        reader = new MemoryDataTransfer(filename, data).reader();
-        origin = 0;
+        reader   = new MemoryDataTransfer(filename, data).reader();
+        origin   = 0;
+        input    = null;
+        dataType = 0;
+        order    = null;
+    }
+
+    /**
+     * Returns a reader for the same hyper-rectangle but using a channel position and a buffer independent from
+     * this reader, or {@code null} if the channel does not support concurrent positional reads. The returned
+     * reader can be used in a thread different than the threads using this reader, without synchronization.
+     * This is possible only if the channel is a {@link java.nio.channels.FileChannel} or a {@link ByteRangeChannel}.
+     *
+     * @return a reader which can be used concurrently with this reader, or {@code null} if none.
+     * @throws IOException if an error occurred while creating the view.
+     * @throws DataStoreContentException should never happen since the data type has been verified at construction time.
+     *
+     * @see ChannelDataInput#view()
+     *
+     * @since 1.1
+     */
+    public HyperRectangleReader concurrentView() throws IOException, DataStoreContentException {
+        if (input != null) {
+            final ChannelDataInput view = input.view();
+            if (view != null) {
+                view.buffer.order(order);
+                final HyperRectangleReader r = new HyperRectangleReader(dataType, view, origin);
+                r.readAhead = readAhead;
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a read-only view of the data in the given region without copying them, or {@code null} if not possible.
+     * This method maps the file directly into memory when all the following conditions are true:
+     *
+     * <ul>
+     *   <li>this reader reads from a {@link java.nio.channels.FileChannel},</li>
+     *   <li>the values in the given region are contiguous in the file
+     *       (i.e. there is no subsampling and no gap between rows, planes, <i>etc.</i>),</li>
+     *   <li>the length of the region in bytes is not greater than {@link Integer#MAX_VALUE}.</li>
+     * </ul>
+     *
+     * The returned buffer is a view of type {@link ByteBuffer}, {@link java.nio.ShortBuffer}, {@link java.nio.IntBuffer},
+     * <i>etc.</i> depending on the data type, with the byte order of the input buffer at this reader construction time.
+     * That buffer is not backed by a Java array. The same conditions than {@link #read(Region)} apply to the region.
+     *
+     * @param  region  the sub-area to map.
+     * @return the data in a read-only buffer not backed by a Java array, or {@code null} if the region can not be mapped.
+     * @throws IOException if an error occurred while mapping the file.
+     * @throws ArithmeticException if the region is too far from origin.
+     *
+     * @see ChannelDataInput#map(long, int)
+     *
+     * @since 1.1
+     */
+    public Buffer map(final Region region) throws IOException {
+        if (input != null) {
+            final int length = region.contiguousLength();
+            if (length > 0) {
+                final int sampleSize = sampleSize();
+                if (length <= Integer.MAX_VALUE / sampleSize) {
+                    final ByteBuffer bytes = input.map(Math.addExact(origin, Math.multiplyExact(region.startAt, sampleSize)),
+                                                       length * sampleSize);
+                    if (bytes != null) {
+                        bytes.order(order);
+                        switch (dataType) {
+                            case Numbers.BYTE:      return bytes;
+                            case Numbers.CHARACTER: return bytes.asCharBuffer();
+                            case Numbers.SHORT:     return bytes.asShortBuffer();
+                            case Numbers.INTEGER:   return bytes.asIntBuffer();
+                            case Numbers.LONG:      return bytes.asLongBuffer();
+                            case Numbers.FLOAT:     return bytes.asFloatBuffer();
+                            case Numbers.DOUBLE:    return bytes.asDoubleBuffer();
+                        }
+                    }
+                }
+            }
+        }
+        return null;
     }
 
     /**
@@ -104,6 +243,54 @@ public final class HyperRectangleReader {
         return reader.filename();
     }
 
+    /**
+     * Sets the maximal number of bytes to read in a single sequential read operation when coalescing nearby blocks
+     * of contiguous values. When reading a sub-area or using subsampling, the values to read are split in blocks
+     * (rows, planes, <i>etc.</i>) separated by gaps. If many blocks fit in the given number of bytes, including
+     * the gaps between them, then they are read with a single sequential read operation and scattered in the
+     * destination array. This avoids a seek operation for each block. A value of 0 disables coalescing.
+     * The default value is {@value #DEFAULT_READ_AHEAD}.
+     *
+     * <p>This setting is ignored for readers of data in memory.</p>
+     *
+     * @param  size  maximal number of bytes to read in a single operation, or 0 for disabling coalescing.
+     *
+     * @see #getBytesRead()
+     * @see #getBytesUsed()
+     *
+     * @since 1.1
+     */
+    public void setReadAhead(final int size) {
+        ArgumentChecks.ensurePositive("size", size);
+        readAhead = size;
+        scratch   = null;
+    }
+
+    /**
+     * Returns the number of bytes read from the input since this reader has been created.
+     * This includes the bytes skipped in the gaps between coalesced blocks, but not the bytes
+     * that the {@link ChannelDataInput} may have read in advance in its own buffer.
+     * The difference between this number and {@link #getBytesUsed()} is the amount of wasted reads.
+     *
+     * @return number of bytes read from the input.
+     *
+     * @since 1.1
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of bytes stored in destination arrays since this reader has been created.
+     *
+     * @return number of bytes of sample values returned by {@link #read(Region)}.
+     *
+     * @since 1.1
+     */
+    public long getBytesUsed() {
+        return bytesUsed;
+    }
+
     /**
      * Returns the number of bytes in each value to be read.
      *
@@ -134,13 +321,23 @@ public final class HyperRectangleReader {
             strides[i] = region.stride(i + contiguousDataDimension, contiguousDataLength, sampleSize);
             assert (strides[i] > 0) : i;
         }
+        final int  totalLength = region.targetLength(region.getDimension());
+        final long blockLength = Math.multiplyExact((long) contiguousDataLength, sampleSize);
         try {
-            reader.createDataArray(region.targetLength(region.getDimension()));
+            reader.createDataArray(totalLength);
+            if (input != null && totalLength > contiguousDataLength && blockLength < readAhead) {
+                readCoalesced(streamPosition, strides, region.targetSize, contiguousDataDimension,
+                              contiguousDataLength, (int) blockLength);
+                bytesUsed += blockLength * (totalLength / contiguousDataLength);
+                return reader.dataArray();
+            }
             final Buffer view = reader.view();
 loop:       do {
                 reader.seek(streamPosition);
                 assert reader.view() == view;
                 reader.readFully(view, arrayPosition, contiguousDataLength);
+                bytesRead += blockLength;
+                bytesUsed += blockLength;
                 for (int i=0; i<cursor.length; i++) {
                     /*
                      * After we have read as much contiguous data as we can (may be a row, or a plane, or
@@ -163,4 +360,89 @@ loop:       do {
             reader.setDest(null);
         }
     }
+
+    /**
+     * Reads all blocks of contiguous values with as few sequential read operations as possible.
+     * Consecutive blocks are merged in a single read operation as long as the merged range,
+     * including the gaps between blocks, does not exceed {@link #readAhead} bytes.
+     * Then the blocks are scattered from the merged range to their location in the destination array.
+     *
+     * @param  streamPosition  stream position of the first block.
+     * @param  strides         number of bytes between two blocks for each dimension, starting at the first non-contiguous one.
+     * @param  targetSize      number of values to read in each dimension.
+     * @param  contiguous      number of dimensions for which values are contiguous.
+     * @param  blockSize       number of values in a block of contiguous values.
+     * @param  blockLength     number of bytes in a block of contiguous values.
+     */
+    private void readCoalesced(long streamPosition, final long[] strides, final int[] targetSize,
+            final int contiguous, final int blockSize, final int blockLength) throws IOException
+    {
+        if (scratch == null) {
+            scratch = ByteBuffer.allocate(readAhead).order(order);
+        }
+        final int[] cursor  = new int[strides.length];
+        final int[] offsets = new int[readAhead / blockLength];     // Position of blocks relative to `rangeStart`.
+        final Object array  = reader.dataArray();
+        long rangeStart = streamPosition;
+        int  arrayStart = 0;
+        int  count      = 0;
+loop:   do {
+            long offset = streamPosition - rangeStart;
+            if (count != 0 && (count == offsets.length || offset < 0 || offset > readAhead - blockLength)) {
+                scatter(rangeStart, offsets, count, array, arrayStart, blockSize, blockLength);
+                arrayStart += count * blockSize;
+                rangeStart  = streamPosition;
+                offset      = 0;
+                count       = 0;
+            }
+            offsets[count++] = (int) offset;
+            for (int i=0; i<cursor.length; i++) {
+                if (++cursor[i] < targetSize[contiguous + i]) {
+                    streamPosition = Math.addExact(streamPosition, strides[i]);
+                    continue loop;
+                }
+                cursor[i] = 0;
+            }
+            break;
+        } while (true);
+        scatter(rangeStart, offsets, count, array, arrayStart, blockSize, blockLength);
+    }
+
+    /**
+     * Reads a range of bytes in a single sequential read operation, then copies the blocks
+     * at the given offsets in the destination array.
+     *
+     * @param  rangeStart   stream position of the first byte to read.
+     * @param  offsets      position of each block relative to {@code rangeStart}, in bytes.
+     * @param  count        number of valid elements in the {@code offsets} array.
+     * @param  array        the destination array.
+     * @param  arrayStart   index in the destination array where to store the first value.
+     * @param  blockSize    number of values in each block.
+     * @param  blockLength  number of bytes in each block.
+     */
+    private void scatter(final long rangeStart, final int[] offsets, final int count, final Object array,
+            int arrayStart, final int blockSize, final int blockLength) throws IOException
+    {
+        final int length = offsets[count - 1] + blockLength;
+        final ByteBuffer buffer = scratch;
+        buffer.clear().limit(length);
+        input.seek(rangeStart);
+        input.readFully(buffer);
+        bytesRead += length;
+        for (int i=0; i<count; i++) {
+            final int start = offsets[i];
+            buffer.limit(start + blockLength).position(start);
+            switch (dataType) {
+                case Numbers.BYTE:      buffer                 .get(  (byte[]) array, arrayStart, blockSize); break;
+                case Numbers.CHARACTER: buffer.asCharBuffer()  .get(  (char[]) array, arrayStart, blockSize); break;
+                case Numbers.SHORT:     buffer.asShortBuffer() .get( (short[]) array, arrayStart, blockSize); break;
+                case Numbers.INTEGER:   buffer.asIntBuffer()   .get(   (int[]) array, arrayStart, blockSize); break;
+                case Numbers.LONG:      buffer.asLongBuffer()  .get(  (long[]) array, arrayStart, blockSize); break;
+                case Numbers.FLOAT:     buffer.asFloatBuffer() .get( (float[]) array, arrayStart, blockSize); break;
+                case Numbers.DOUBLE:    buffer.asDoubleBuffer().get((double[]) array, arrayStart, blockSize); break;
+                default: throw new AssertionError(dataType);
+            }
+            arrayStart += blockSize;
+        }
+    }
 }
@@ -202,6 +202,20 @@ public final class Region {
         return toIntExact(length);
     }
 
+    /**
+     * Returns the total number of values to read if all of them are contiguous in the stream, or -1 otherwise.
+     * Values are contiguous if the region can be read in a single read operation starting at {@link #startAt}.
+     * This is the case when all dimensions after {@link #contiguousDataDimension()} have a size of one.
+     */
+    final int contiguousLength() {
+        final int dimension = getDimension();
+        final int contiguous = contiguousDataDimension();
+        for (int i=contiguous; i<dimension; i++) {
+            if (targetSize[i] != 1) return -1;
+        }
+        return targetLength(contiguous);
+    }
+
     /**
      * Returns a string representation of this region for debugging purpose.
      *
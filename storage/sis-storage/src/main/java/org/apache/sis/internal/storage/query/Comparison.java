@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.query;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.apache.sis.util.ArgumentChecks;
+import org.apache.sis.util.Numbers;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * A comparison between the value of a feature property and a literal, as in {@code WHERE population > 1000000}.
+ * This is a minimal substitute for OGC filters, which are not available on this branch. Comparisons are simple
+ * enough for being translated into SQL {@code WHERE} clauses by data stores backed by a database, and can also
+ * be evaluated in Java on arbitrary features when no such translation is possible.
+ *
+ * <p>Comparisons follow SQL semantic for missing values: if the property value is null,
+ * then the comparison result is {@code false} for all operators.</p>
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final class Comparison implements Predicate<AbstractFeature> {
+    /**
+     * The operators that can be used in a comparison.
+     */
+    public enum Operator {
+        /** Property value is equal to the literal.                 */ EQUAL                ("="),
+        /** Property value is not equal to the literal.             */ NOT_EQUAL            ("<>"),
+        /** Property value is less than the literal.                */ LESS_THAN            ("<"),
+        /** Property value is less than or equal to the literal.    */ LESS_THAN_OR_EQUAL   ("<="),
+        /** Property value is greater than the literal.             */ GREATER_THAN         (">"),
+        /** Property value is greater than or equal to the literal. */ GREATER_THAN_OR_EQUAL(">=");
+
+        /**
+         * The symbol of this operator in SQL statements.
+         */
+        public final String symbol;
+
+        /**
+         * Creates a new enumeration value for the given SQL symbol.
+         */
+        private Operator(final String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Returns whether the result of a {@code compareTo(…)} method call satisfies this operator.
+         */
+        final boolean accept(final int c) {
+            switch (this) {
+                case EQUAL:                 return c == 0;
+                case NOT_EQUAL:             return c != 0;
+                case LESS_THAN:             return c <  0;
+                case LESS_THAN_OR_EQUAL:    return c <= 0;
+                case GREATER_THAN:          return c >  0;
+                case GREATER_THAN_OR_EQUAL: return c >= 0;
+                default: throw new AssertionError(this);
+            }
+        }
+    }
+
+    /**
+     * Name of the feature property to compare.
+     */
+    private final String property;
+
+    /**
+     * The comparison operator.
+     */
+    private final Operator operator;
+
+    /**
+     * The value to compare with the property value.
+     */
+    private final Object value;
+
+    /**
+     * Creates a new comparison between the given property and the given value.
+     *
+     * @param  property  name of the feature property to compare.
+     * @param  operator  the comparison operator.
+     * @param  value     the value to compare with the property value.
+     */
+    public Comparison(final String property, final Operator operator, final Object value) {
+        ArgumentChecks.ensureNonEmpty("property", property);
+        ArgumentChecks.ensureNonNull ("operator", operator);
+        ArgumentChecks.ensureNonNull ("value",    value);
+        this.property = property;
+        this.operator = operator;
+        this.value    = value;
+    }
+
+    /**
+     * Returns the name of the feature property to compare.
+     *
+     * @return name of the feature property to compare.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns the comparison operator.
+     *
+     * @return the comparison operator.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the value to compare with the property value.
+     *
+     * @return the value to compare with the property value.
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * Returns whether the given feature satisfies this comparison.
+     * Numbers of different classes are compared by their numerical value.
+     * Other objects are compared with {@link Comparable#compareTo(Object)} if they are of compatible classes,
+     * or with {@link Object#equals(Object)} otherwise (in which case only equality operators can succeed).
+     *
+     * @param  feature  the feature to test.
+     * @return whether the property value of the given feature satisfies this comparison.
+     * @throws IllegalArgumentException if the feature does not have the {@linkplain #getProperty() property}.
+     */
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public boolean test(final AbstractFeature feature) {
+        final Object actual = feature.getPropertyValue(property);
+        if (actual == null) {
+            return false;
+        }
+        final int c;
+        if (actual instanceof Number && value instanceof Number) {
+            final Number n1 = (Number) actual;
+            final Number n2 = (Number) value;
+            if (isLong(n1) && isLong(n2)) {
+                c = Long.compare(n1.longValue(), n2.longValue());
+            } else {
+                c = Double.compare(n1.doubleValue(), n2.doubleValue());
+            }
+        } else if (actual instanceof Comparable<?> && actual.getClass().isInstance(value)) {
+            c = ((Comparable) actual).compareTo(value);
+        } else switch (operator) {
+            case EQUAL:     return  actual.equals(value);
+            case NOT_EQUAL: return !actual.equals(value);
+            default:        return false;
+        }
+        return operator.accept(c);
+    }
+
+    /**
+     * Returns whether the given number can be represented as a {@code long} without loss of information.
+     */
+    private static boolean isLong(final Number n) {
+        return Numbers.isInteger(n.getClass()) && !(n instanceof BigInteger);
+    }
+
+    /**
+     * Returns a hash code value for this comparison.
+     *
+     * @return a hash code value for this comparison.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, operator, value);
+    }
+
+    /**
+     * Compares this comparison with the given object for equality.
+     *
+     * @param  obj  the object to compare with this comparison.
+     * @return whether the two objects are equal.
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj instanceof Comparison) {
+            final Comparison other = (Comparison) obj;
+            return property.equals(other.property) && operator == other.operator && value.equals(other.value);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a string representation of this comparison in a SQL-like syntax.
+     *
+     * @return a string representation of this comparison.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(40).append(property).append(' ').append(operator.symbol).append(' ');
+        if (value instanceof CharSequence) {
+            sb.append('\'').append(value).append('\'');
+        } else {
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+}
@@ -16,6 +16,9 @@
  */
 package org.apache.sis.internal.storage.query;
 
+import java.util.List;
+import java.util.ArrayList;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.apache.sis.internal.storage.AbstractFeatureSet;
 import org.apache.sis.internal.storage.Resources;
@@ -26,6 +29,8 @@ import org.apache.sis.storage.event.StoreListeners;
 
 // Branch-dependent imports
 import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractOperation;
+import org.apache.sis.feature.AbstractIdentifiedType;
 import org.apache.sis.feature.DefaultFeatureType;
 
 
@@ -37,7 +42,7 @@ import org.apache.sis.feature.DefaultFeatureType;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -90,6 +95,13 @@ final class FeatureSubset extends AbstractFeatureSet {
     @Override
     public Stream<AbstractFeature> features(final boolean parallel) throws DataStoreException {
         Stream<AbstractFeature> stream = source.features(parallel);
+        /*
+         * Apply filter.
+         */
+        final Predicate<AbstractFeature> filter = query.filter();
+        if (filter != null) {
+            stream = stream.filter(filter);
+        }
         /*
          * Apply offset.
          */
@@ -104,6 +116,26 @@ final class FeatureSubset extends AbstractFeatureSet {
         if (limit >= 0) {
             stream = stream.limit(limit);
         }
+        /*
+         * Copy the selected properties in new feature instances.
+         * Operations are not copied since they are computed from other properties.
+         */
+        final DefaultFeatureType type = getType();
+        if (type != source.getType()) {
+            final List<String> names = new ArrayList<>();
+            for (final AbstractIdentifiedType property : type.getProperties(true)) {
+                if (!(property instanceof AbstractOperation)) {
+                    names.add(property.getName().toString());
+                }
+            }
+            stream = stream.map((feature) -> {
+                final AbstractFeature copy = type.newInstance();
+                for (final String name : names) {
+                    copy.setPropertyValue(name, feature.getPropertyValue(name));
+                }
+                return copy;
+            });
+        }
         return stream;
     }
 }
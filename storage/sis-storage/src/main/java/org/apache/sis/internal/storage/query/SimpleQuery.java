@@ -16,21 +16,40 @@
  */
 package org.apache.sis.internal.storage.query;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.opengis.geometry.Envelope;
+import org.apache.sis.geometry.GeneralEnvelope;
+import org.apache.sis.geometry.ImmutableEnvelope;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.feature.Geometries;
 import org.apache.sis.storage.FeatureSet;
 import org.apache.sis.storage.Query;
 import org.apache.sis.util.ArgumentChecks;
 
 // Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+import org.apache.sis.feature.AbstractOperation;
+import org.apache.sis.feature.AbstractIdentifiedType;
 import org.apache.sis.feature.DefaultFeatureType;
 
 
 /**
  * Mimics {@code SQL SELECT} statements using OGC Filter and Expressions.
  * Information stored in this query can be used directly with {@link java.util.stream.Stream} API.
+ * A query can select a subset of feature properties, keep only the features satisfying some
+ * {@linkplain Comparison comparisons} and intersecting a bounding box, and apply paging.
+ * Data stores backed by a database should translate those criteria into their native query language
+ * (for example SQL {@code SELECT … WHERE … OFFSET … FETCH} statements) instead of filtering in Java.
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -60,10 +79,130 @@ public class SimpleQuery extends Query {
     private long limit;
 
     /**
-     * Creates a new query retrieving no column and applying no filter.
+     * Names of the properties to retrieve, or {@code null} for all properties.
+     *
+     * @see #getPropertyNames()
+     * @see #setPropertyNames(String...)
+     */
+    private String[] propertyNames;
+
+    /**
+     * Conditions that features must satisfy, combined with the {@code AND} operator.
+     * This array is empty if there is no condition.
+     *
+     * @see #getConditions()
+     * @see #setConditions(Comparison...)
+     */
+    private Comparison[] conditions;
+
+    /**
+     * The area of interest, or {@code null} if none.
+     *
+     * @see #getBoundingBox()
+     * @see #setBoundingBox(String, Envelope)
+     */
+    private ImmutableEnvelope boundingBox;
+
+    /**
+     * Name of the geometry property to compare with {@link #boundingBox},
+     * or {@code null} for the default geometry.
+     *
+     * @see #getGeometryProperty()
+     */
+    private String geometryProperty;
+
+    /**
+     * Creates a new query retrieving all properties and applying no filter.
      */
     public SimpleQuery() {
-        limit  = UNLIMITED;
+        limit      = UNLIMITED;
+        conditions = new Comparison[0];
+    }
+
+    /**
+     * Sets the names of the feature properties to retrieve. Operations such as {@code "sis:identifier"}
+     * can be specified; the properties on which they depend will be retrieved together with them.
+     * A {@code null} value means to retrieve all properties.
+     *
+     * @param  names  names of the properties to retrieve, or {@code null} for all properties.
+     */
+    public void setPropertyNames(String... names) {
+        if (names != null) {
+            names = names.clone();
+            for (final String name : names) {
+                ArgumentChecks.ensureNonEmpty("names", name);
+            }
+        }
+        propertyNames = names;
+    }
+
+    /**
+     * Returns the names of the feature properties to retrieve, or {@code null} for all properties.
+     * This is the value specified in the last call to {@link #setPropertyNames(String...)}.
+     *
+     * @return names of the properties to retrieve, or {@code null} for all properties.
+     */
+    public String[] getPropertyNames() {
+        return (propertyNames != null) ? propertyNames.clone() : null;
+    }
+
+    /**
+     * Sets the conditions that features must satisfy. All conditions must be satisfied
+     * (they are combined with the {@code AND} operator). This method replaces all
+     * conditions specified in previous calls.
+     *
+     * @param  conditions  the conditions that features must satisfy (may be empty).
+     */
+    public void setConditions(final Comparison... conditions) {
+        ArgumentChecks.ensureNonNull("conditions", conditions);
+        for (int i=0; i<conditions.length; i++) {
+            ArgumentChecks.ensureNonNullElement("conditions", i, conditions[i]);
+        }
+        this.conditions = conditions.clone();
+    }
+
+    /**
+     * Returns the conditions that features must satisfy, or an empty list if none.
+     * This is the value specified in the last call to {@link #setConditions(Comparison...)}.
+     *
+     * @return the conditions that features must satisfy.
+     */
+    public List<Comparison> getConditions() {
+        return Collections.unmodifiableList(Arrays.asList(conditions));
+    }
+
+    /**
+     * Sets the area of interest. Only the features having a geometry whose envelope intersects
+     * the given bounding box will be retrieved. The bounding box should be expressed in the
+     * coordinate reference system of the geometries.
+     *
+     * @param  property  name of the geometry property, or {@code null} for the default geometry.
+     * @param  bbox      the area of interest, or {@code null} for removing this filter.
+     */
+    public void setBoundingBox(final String property, final Envelope bbox) {
+        geometryProperty = (bbox != null) ? property : null;
+        boundingBox = ImmutableEnvelope.castOrCopy(bbox);
+    }
+
+    /**
+     * Returns the area of interest, or {@code null} if none.
+     * This is the value specified in the last call to {@link #setBoundingBox(String, Envelope)}.
+     *
+     * @return the area of interest, or {@code null} if none.
+     */
+    public Envelope getBoundingBox() {
+        return boundingBox;
+    }
+
+    /**
+     * Returns the name of the geometry property compared with the {@linkplain #getBoundingBox() bounding box}.
+     * If no property name has been specified, then this method returns {@code "sis:geometry"}, which is the
+     * name of the link to the default geometry.
+     *
+     * @return name of the geometry property to compare with the bounding box.
+     */
+    public String getGeometryProperty() {
+        return (geometryProperty != null) ? geometryProperty : AttributeConvention.GEOMETRY;
     }
 
     /**
@@ -134,16 +273,68 @@ public class SimpleQuery extends Query {
         return new FeatureSubset(source, this);
     }
 
+    /**
+     * Returns a predicate testing all conditions and the bounding box of this query,
+     * or {@code null} if this query does not filter features.
+     *
+     * @return the filter to apply on features, or {@code null} if none.
+     */
+    final Predicate<AbstractFeature> filter() {
+        Predicate<AbstractFeature> filter = null;
+        for (final Comparison condition : conditions) {
+            filter = (filter != null) ? filter.and(condition) : condition;
+        }
+        final ImmutableEnvelope bbox = boundingBox;
+        if (bbox != null) {
+            final String property = getGeometryProperty();
+            final Predicate<AbstractFeature> intersects = (feature) -> {
+                final GeneralEnvelope envelope = Geometries.getEnvelope(feature.getPropertyValue(property));
+                return (envelope != null) && envelope.intersects(bbox, true);
+            };
+            filter = (filter != null) ? filter.and(intersects) : intersects;
+        }
+        return filter;
+    }
+
     /**
      * Returns the type or values evaluated by this query when executed on features of the given type.
+     * If this query selects a subset of the properties, then the returned type contains only those
+     * properties together with the properties on which selected operations depend.
      *
      * @param  valueType  the type of features to be evaluated by the expressions in this query.
      * @return type resulting from expressions evaluation (never null).
      * @throws IllegalArgumentException if this method can operate only on some feature types
      *         and the given type is not one of them.
      */
-    final DefaultFeatureType expectedType(final DefaultFeatureType valueType) {
-        return valueType;       // More elaborated code in geoapi-4.0 branch.
+    public final DefaultFeatureType expectedType(final DefaultFeatureType valueType) {
+        if (propertyNames == null) {
+            return valueType;
+        }
+        final Map<String,AbstractIdentifiedType> properties = new LinkedHashMap<>();
+        for (final String name : propertyNames) {
+            addProperty(valueType, name, properties);
+        }
+        return new DefaultFeatureType(Collections.singletonMap(DefaultFeatureType.NAME_KEY, valueType.getName()),
+                valueType.isAbstract(), null, properties.values().toArray(new AbstractIdentifiedType[properties.size()]));
+    }
+
+    /**
+     * Adds the property of the given name in the given map, together with its dependencies if it is an operation.
+     *
+     * @throws IllegalArgumentException if the given feature type does not contain a property of the given name.
+     */
+    private static void addProperty(final DefaultFeatureType valueType, final String name,
+                                    final Map<String,AbstractIdentifiedType> properties)
+    {
+        if (!properties.containsKey(name)) {
+            final AbstractIdentifiedType property = valueType.getProperty(name);
+            properties.put(name, property);
+            if (property instanceof AbstractOperation) {
+                for (final String dependency : ((AbstractOperation) property).getDependencies()) {
+                    addProperty(valueType, dependency, properties);
+                }
+            }
+        }
     }
 
     /**
@@ -153,7 +344,8 @@ public class SimpleQuery extends Query {
      */
     @Override
     public int hashCode() {
-        return Long.hashCode(limit ^ skip);
+        return Long.hashCode(limit ^ skip) + 31 * (Arrays.hashCode(propertyNames) + 31 *
+               (Arrays.hashCode(conditions) + 31 * Objects.hash(boundingBox, geometryProperty)));
     }
 
     /**
@@ -170,7 +362,11 @@ public class SimpleQuery extends Query {
         if (obj != null && getClass() == obj.getClass()) {
             final SimpleQuery other = (SimpleQuery) obj;
             return skip  == other.skip &&
-                   limit == other.limit;
+                   limit == other.limit &&
+                   Arrays.equals (propertyNames,    other.propertyNames) &&
+                   Arrays.equals (conditions,       other.conditions)    &&
+                   Objects.equals(boundingBox,      other.boundingBox)   &&
+                   Objects.equals(geometryProperty, other.geometryProperty);
         }
         return false;
     }
@@ -184,7 +380,22 @@ public class SimpleQuery extends Query {
     public String toString() {
         final StringBuilder sb = new StringBuilder(80);
         sb.append("SELECT ");
-        sb.append('*');
+        if (propertyNames != null) {
+            for (int i=0; i<propertyNames.length; i++) {
+                if (i != 0) sb.append(", ");
+                sb.append(propertyNames[i]);
+            }
+        } else {
+            sb.append('*');
+        }
+        String separator = " WHERE ";
+        for (final Comparison condition : conditions) {
+            sb.append(separator).append(condition);
+            separator = " AND ";
+        }
+        if (boundingBox != null) {
+            sb.append(separator).append("BBOX(").append(getGeometryProperty()).append(", ").append(boundingBox).append(')');
+        }
         if (limit != UNLIMITED) {
             sb.append(" LIMIT ").append(limit);
         }
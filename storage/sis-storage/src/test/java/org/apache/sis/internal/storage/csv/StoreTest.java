@@ -16,10 +16,17 @@
  */
 package org.apache.sis.internal.storage.csv;
 
+import java.util.List;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.stream.Collectors;
 import java.time.Instant;
+import java.io.IOException;
 import java.io.StringReader;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.extent.Extent;
 import org.opengis.metadata.extent.GeographicBoundingBox;
@@ -27,6 +34,7 @@ import org.apache.sis.feature.FoliationRepresentation;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.StorageConnector;
 import org.apache.sis.storage.DataOptionKey;
+import org.apache.sis.setup.OptionKey;
 import org.apache.sis.test.TestCase;
 import org.junit.Test;
 import com.esri.core.geometry.Point2D;
@@ -49,7 +57,7 @@ import org.apache.sis.metadata.iso.identification.AbstractIdentification;
  * Tests {@link Store}.
  *
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -157,6 +165,83 @@ public final strictfp class StoreTest extends TestCase {
         }
     }
 
+    /**
+     * Tests reading a file partitioned in ranges of bytes parsed in parallel.
+     * This test writes a temporary file large enough for being partitioned,
+     * with some lines omitting the last values, then verifies that the features
+     * read in parallel are the same than the features read sequentially.
+     *
+     * @throws IOException if an error occurred while writing the temporary file.
+     * @throws DataStoreException if an error occurred while parsing the data.
+     */
+    @Test
+    public void testParallel() throws IOException, DataStoreException {
+        final Path file = Files.createTempFile("MovingFeatures", ".csv");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write("@stboundedby, urn:ogc:def:crs:CRS:1.3:84, 2D,  0 0,  100 100,  2012-01-17T12:33:41Z, 2012-01-18T12:33:41Z, sec\r\n");
+                out.write("@columns, mfidref, trajectory, state,xsd:string, \"\"\"type\"\" code\",xsd:integer\r\n");
+                for (int i=0; i<10000; i++) {
+                    final int t = (i / 5) * 10;
+                    out.write(String.format("f%d, %d, %d, %d.0 %d.0 %d.0 %d.0", i % 5, t, t + 10, i % 5, t, i % 5, t + 10));
+                    if (i % 7 != 3) {
+                        out.write(String.format(", s%d, %d", (i / 50) % 3, i % 4));
+                    }
+                    out.write("\r\n");
+                }
+            }
+            assertTrue(Files.size(file) > 4 * LineRange.MINIMAL_SIZE);
+            for (final FoliationRepresentation mode : FoliationRepresentation.values()) {
+                final List<AbstractFeature> sequential = readAll(file, mode, false);
+                final List<AbstractFeature> parallel   = readAll(file, mode, true);
+                assertEquals("size", (mode == FoliationRepresentation.FRAGMENTED) ? 10000 : 5, sequential.size());
+                assertEquals("size", sequential.size(), parallel.size());
+                for (int i=0; i<sequential.size(); i++) {
+                    assertFeatureEquals(sequential.get(i), parallel.get(i));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Reads all features in the given file using a new store. A new store is created for each read
+     * because moving features are cached.
+     */
+    private static List<AbstractFeature> readAll(final Path file, final FoliationRepresentation mode,
+            final boolean parallel) throws DataStoreException
+    {
+        final StorageConnector connector = new StorageConnector(file);
+        connector.setOption(OptionKey.ENCODING, StandardCharsets.UTF_8);
+        connector.setOption(DataOptionKey.FOLIATION_REPRESENTATION, mode);
+        try (Store store = new Store(null, connector)) {
+            return store.features(parallel).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Asserts that the given features have the same property values.
+     */
+    private static void assertFeatureEquals(final AbstractFeature expected, final AbstractFeature actual) {
+        for (final String name : new String[] {"mfidref", "startTime", "endTime", "state", "\"type\" code"}) {
+            assertEquals(name, expected.getPropertyValue(name), actual.getPropertyValue(name));
+        }
+        final Object trajectory = expected.getPropertyValue("trajectory");
+        if (trajectory instanceof double[]) {
+            assertArrayEquals("trajectory", (double[]) trajectory, (double[]) actual.getPropertyValue("trajectory"), STRICT);
+        } else {
+            final Polyline polyline = (Polyline) trajectory;
+            final double[] coordinates = new double[polyline.getPointCount() * 2];
+            for (int i=0; i<coordinates.length; i += 2) {
+                final Point2D xy = polyline.getXY(i / 2);
+                coordinates[i  ] = xy.x;
+                coordinates[i+1] = xy.y;
+            }
+            assertPolylineEquals(coordinates, (Polyline) actual.getPropertyValue("trajectory"));
+        }
+    }
+
     /**
      * Verifies that the feature type is equal to the expected one.
      */
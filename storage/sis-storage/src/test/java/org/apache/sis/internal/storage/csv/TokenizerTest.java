@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.csv;
+
+import java.util.Random;
+import java.time.Instant;
+import org.apache.sis.test.TestCase;
+import org.apache.sis.test.TestUtilities;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests {@link Tokenizer}.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+public final strictfp class TokenizerTest extends TestCase {
+    /**
+     * Tests {@link Tokenizer#split(CharSequence)} with quoted fields and whitespaces.
+     */
+    @Test
+    public void testSplit() {
+        final Tokenizer tokens = new Tokenizer(4);
+        tokens.split("a,  10 , \"\"\"type\"\" code\", \"x,y\"");
+        assertEquals("count", 4, tokens.count());
+        assertEquals("a",            tokens.getString(0));
+        assertEquals("10",           tokens.getString(1));
+        assertEquals("\"type\" code", tokens.getString(2));
+        assertEquals("x,y",          tokens.getString(3));
+        assertTrue (tokens.contentEquals(1, "10"));
+        assertFalse(tokens.contentEquals(1, "100"));
+        assertFalse(tokens.contentEquals(1, null));
+
+        tokens.split("b, 20, c, d, e, f");
+        assertEquals("Fields after capacity shall be ignored.", 4, tokens.count());
+        assertEquals("d", tokens.getString(3));
+
+        tokens.split("c,30");
+        assertEquals("count", 2, tokens.count());
+        assertEquals("c",  tokens.getString(0));
+        assertEquals(30, tokens.parseDouble(1), STRICT);
+    }
+
+    /**
+     * Tests {@link Tokenizer#parseDouble(int)} by comparison with {@link Double#parseDouble(String)}.
+     */
+    @Test
+    public void testParseDouble() {
+        final Tokenizer tokens = new Tokenizer(1);
+        for (final String text : new String[] {"0", "-0", "+0.0", "12.5", ".5", "3.", "1E3", "1.25e-7", "-4.9E-324",
+                "1.7976931348623157E308", "123456789012345678", "0.1000000000000000055511151231257827",
+                "NaN", "-Infinity", "1e400", "2d", "0x1p3"})
+        {
+            tokens.split(text);
+            assertEquals(text, Double.doubleToLongBits(Double.parseDouble(text)),
+                               Double.doubleToLongBits(tokens.parseDouble(0)));
+        }
+        final Random random = TestUtilities.createRandomNumberGenerator();
+        for (int i=0; i<1000; i++) {
+            final double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+            for (final String text : new String[] {Double.toString(value), String.format("%.6f", value)}) {
+                tokens.split(text);
+                assertEquals(text, Double.parseDouble(text), tokens.parseDouble(0), STRICT);
+            }
+        }
+        tokens.split("1.2.3");
+        try {
+            tokens.parseDouble(0);
+            fail("Expected NumberFormatException.");
+        } catch (NumberFormatException e) {
+            // This is the expected exception.
+        }
+    }
+
+    /**
+     * Tests {@link Tokenizer#parseDoubles(int, char)}.
+     */
+    @Test
+    public void testParseDoubles() {
+        final Tokenizer tokens = new Tokenizer(2);
+        tokens.split("a, 11.0 2.0  12.0 3.0 ");
+        assertArrayEquals(new double[] {11, 2, 12, 3}, tokens.parseDoubles(1, ' '), STRICT);
+        tokens.split("a,");
+        assertEquals(0, tokens.parseDoubles(1, ' ').length);
+    }
+
+    /**
+     * Tests {@link Tokenizer#parseInstant(int)} and {@link Tokenizer#parseEpochMillis(int)}
+     * by comparison with {@link Instant#parse(CharSequence)}.
+     */
+    @Test
+    public void testParseInstant() {
+        final Tokenizer tokens = new Tokenizer(1);
+        for (final String text : new String[] {"2012-01-17T12:33:41Z", "1969-12-31T23:59:59.999Z", "2000-02-29T00:00:00.5Z",
+                "1600-03-01T10:11:12.123456789Z", "2016-12-31T23:59:60Z", "+12016-01-01T00:00:00Z"})
+        {
+            tokens.split(text);
+            final Instant expected = Instant.parse(text);
+            assertEquals(text, expected, tokens.parseInstant(0));
+            assertEquals(text, expected.toEpochMilli(), tokens.parseEpochMillis(0));
+        }
+    }
+}
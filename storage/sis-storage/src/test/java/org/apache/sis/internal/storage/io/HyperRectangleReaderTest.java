@@ -22,6 +22,10 @@ import java.nio.ByteOrder;
 import java.nio.ByteBuffer;
 import java.nio.ShortBuffer;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
 import org.apache.sis.util.Numbers;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.test.DependsOnMethod;
@@ -38,7 +42,7 @@ import static org.junit.Assert.*;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.7
+ * @version 1.1
  * @since   0.7
  * @module
  */
@@ -70,6 +74,16 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
      */
     private HyperRectangleReader reader;
 
+    /**
+     * The bytes read by {@link #reader}, including the random bytes before the {@link #origin}.
+     */
+    private byte[] array;
+
+    /**
+     * Position of the first sample value in {@link #array}.
+     */
+    private int origin;
+
     /**
      * Encodes the given index in the sample values to be stored in the array of data.
      * We use a decimal encoding for making easier to compare the actual values with the expected ones.
@@ -111,8 +125,8 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
          * Put small amout of random value at the array beginning in order to test with an origin
          * different than zero.
          */
-        final int origin = random.nextInt(10);
-        final byte[] array = new byte[origin + length*Short.BYTES];
+        origin = random.nextInt(10);
+        array  = new byte[origin + length*Short.BYTES];
         for (int i=0; i<origin; i++) {
             array[i] = (byte) random.nextInt(0x100);
         }
@@ -142,6 +156,18 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         }
     }
 
+    /**
+     * Writes the {@link #array} content in the given channel, then creates a reader for the data in that channel.
+     * This method shall be invoked after {@link #initialize(Random, boolean)}.
+     */
+    private HyperRectangleReader createFileReader(final FileChannel channel) throws IOException, DataStoreException {
+        channel.write(ByteBuffer.wrap(array));
+        channel.position(0);
+        final ByteBuffer       buffer = ByteBuffer.allocate(24).order(ByteOrder.nativeOrder());
+        final ChannelDataInput input  = new ChannelDataInput("HyperRectangle in file", channel, buffer, false);
+        return new HyperRectangleReader(Numbers.SHORT, input, origin);
+    }
+
     /**
      * Extracts data from a region defined by current {@link #lower}, {@link #upper} and {@link #subsampling} values,
      * then compares against the expected values.
@@ -205,6 +231,32 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         verifyRegionRead();
     }
 
+    /**
+     * Tests reading with coalescing of nearby blocks disabled, then with a read-ahead size small enough for forcing
+     * many coalesced read operations. Verifies also the statistics about the number of bytes read and used.
+     *
+     * @throws IOException should never happen.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testCoalescing() throws IOException, DataStoreException {
+        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        final int length = ((short[]) reader.read(new Region(size, lower, upper, subsampling))).length;
+        final long used = length * (long) Short.BYTES;
+        assertEquals("bytesUsed", used, reader.getBytesUsed());
+        assertTrue  ("bytesRead", reader.getBytesRead() >= used);
+
+        reader.setReadAhead(0);
+        verifyRegionRead();
+        assertEquals("bytesUsed", 2*used, reader.getBytesUsed());
+
+        reader.setReadAhead(4 * Short.BYTES);
+        verifyRegionRead();
+        assertEquals("bytesUsed", 3*used, reader.getBytesUsed());
+        assertTrue  ("bytesRead", reader.getBytesRead() >= 3*used);
+    }
+
     /**
      * Tests reading data from an existing buffer, without channel.
      *
@@ -217,4 +269,73 @@ public final strictfp class HyperRectangleReaderTest extends TestCase {
         initialize(TestUtilities.createRandomNumberGenerator(), false);
         verifyRegionRead();
     }
+
+    /**
+     * Tests reading data through a {@link HyperRectangleReader#concurrentView()} of a reader backed by a file channel.
+     * The view shall use its own buffer and position, so reading through the original reader between two reads
+     * through the view shall not change the result.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testConcurrentView() throws IOException, DataStoreException {
+        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        assertNull("Memory channels do not support positional reads.", reader.concurrentView());
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            final HyperRectangleReader main = createFileReader(channel);
+            reader = main.concurrentView();
+            assertNotNull("File channels support positional reads.", reader);
+            verifyRegionRead();
+            Arrays.fill(lower, 0);                          // Read everything through the main reader.
+            System.arraycopy(size, 0, upper, 0, size.length);
+            Arrays.fill(subsampling, 1);
+            final short[] full = (short[]) main.read(new Region(size, lower, upper, subsampling));
+            assertEquals(sampleValue(size[0] - 1, size[1] - 1, size[2] - 1, size[3] - 1), full[full.length - 1]);
+            verifyRegionRead();                             // Shall not be disturbed by the main reader.
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests {@link HyperRectangleReader#map(Region)} on a region where all values are contiguous in the file.
+     * The region covers the full extent of the three first dimensions and a single index in the last dimension.
+     *
+     * @throws IOException if an error occurred while writing or reading the temporary file.
+     * @throws DataStoreException should never happen.
+     */
+    @Test
+    @DependsOnMethod("testRandom")
+    public void testMap() throws IOException, DataStoreException {
+        initialize(TestUtilities.createRandomNumberGenerator(), true);
+        Arrays.fill(lower, 0);
+        Arrays.fill(subsampling, 1);
+        System.arraycopy(size, 0, upper, 0, size.length);
+        lower[3] = size[3] - 1;
+        final Region region = new Region(size, lower, upper, subsampling);
+        assertNull("Memory channels can not be mapped.", reader.map(region));
+        final Path file = Files.createTempFile("HyperRectangle", ".raw");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            reader = createFileReader(channel);
+            final ShortBuffer mapped = (ShortBuffer) reader.map(region);
+            assertNotNull("File channels can be mapped.", mapped);
+            assertFalse(mapped.hasArray());
+            assertTrue(mapped.isReadOnly());
+            final short[] expected = (short[]) reader.read(region);
+            final short[] actual = new short[mapped.remaining()];
+            mapped.get(actual);
+            assertArrayEquals(expected, actual);
+            upper[0] = lower[0] + 1;
+            if (size[0] > 1 && (size[1] > 1 || size[2] > 1)) {
+                assertNull("Non-contiguous region.", reader.map(new Region(size, lower, upper, subsampling)));
+            }
+        } finally {
+            if (!file.toFile().delete()) {
+                file.toFile().deleteOnExit();       // May happen on Windows if the mapped buffer has not been garbage-collected.
+            }
+        }
+    }
 }
@@ -18,8 +18,10 @@ package org.apache.sis.internal.storage.query;
 
 import java.util.List;
 import java.util.Arrays;
+import java.awt.geom.Rectangle2D;
 import java.util.stream.Collectors;
 import org.apache.sis.feature.builder.FeatureTypeBuilder;
+import org.apache.sis.geometry.Envelope2D;
 import org.apache.sis.internal.storage.MemoryFeatureSet;
 import org.apache.sis.storage.DataStoreException;
 import org.apache.sis.storage.FeatureSet;
@@ -37,7 +39,8 @@ import org.apache.sis.feature.DefaultFeatureType;
  * Tests {@link SimpleQuery} and (indirectly) {@link FeatureSubset}.
  *
  * @author  Johann Sorel (Geomatys)
- * @version 1.0
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.1
  * @since   1.0
  * @module
  */
@@ -65,6 +68,7 @@ public final strictfp class SimpleQueryTest extends TestCase {
         ftb.setName("Test");
         ftb.addAttribute(Integer.class).setName("value1");
         ftb.addAttribute(Integer.class).setName("value2");
+        ftb.addAttribute(Rectangle2D.class).setName("bounds");
         final DefaultFeatureType type = ftb.build();
         features = new AbstractFeature[] {
             feature(type, 3, 1),
@@ -81,6 +85,7 @@ public final strictfp class SimpleQueryTest extends TestCase {
         final AbstractFeature f = type.newInstance();
         f.setPropertyValue("value1", value1);
         f.setPropertyValue("value2", value2);
+        f.setPropertyValue("bounds", new Rectangle2D.Double(value1, value2, 0.5, 0.5));
         return f;
     }
 
@@ -126,4 +131,52 @@ public final strictfp class SimpleQueryTest extends TestCase {
         query.setOffset(2);
         verifyQueryResult(2, 3, 4);
     }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setConditions(Comparison...)}.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testConditions() throws DataStoreException {
+        query.setConditions(new Comparison("value1", Comparison.Operator.LESS_THAN_OR_EQUAL, 3),
+                            new Comparison("value2", Comparison.Operator.EQUAL, 1L));
+        verifyQueryResult(0, 2, 3);
+        query.setLimit(2);
+        query.setOffset(1);
+        verifyQueryResult(2, 3);
+        assertEquals("SELECT * WHERE value1 <= 3 AND value2 = 1 LIMIT 2 OFFSET 1", query.toString());
+    }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setBoundingBox(String, org.opengis.geometry.Envelope)}.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testBoundingBox() throws DataStoreException {
+        query.setBoundingBox("bounds", new Envelope2D(null, 1.75, 0.25, 1, 2));
+        verifyQueryResult(1, 2);
+    }
+
+    /**
+     * Verifies the effect of {@link SimpleQuery#setPropertyNames(String...)}.
+     *
+     * @throws DataStoreException if an error occurred while executing the query.
+     */
+    @Test
+    public void testPropertyNames() throws DataStoreException {
+        query.setPropertyNames("value2");
+        query.setConditions(new Comparison("value1", Comparison.Operator.GREATER_THAN, 2));
+        final FeatureSet fs = query.execute(featureSet);
+        final DefaultFeatureType type = fs.getType();
+        assertEquals("properties", 1, type.getProperties(true).size());
+        assertNotNull(type.getProperty("value2"));
+        final List<AbstractFeature> result = fs.features(false).collect(Collectors.toList());
+        assertEquals("size", 2, result.size());
+        for (final AbstractFeature f : result) {
+            assertSame(type, f.getType());
+            assertEquals("value2", 1, f.getPropertyValue("value2"));
+        }
+    }
 }
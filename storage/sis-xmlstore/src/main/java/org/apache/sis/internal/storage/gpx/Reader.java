@@ -56,7 +56,7 @@ import org.apache.sis.feature.AbstractFeature;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 1.0
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -90,6 +90,15 @@ final class Reader extends StaxStreamReader {
      */
     private int trackId;
 
+    /**
+     * Whether to create the features of route points and track points in worker threads.
+     * Parsing of the XML file is still done in a single thread, but creation of feature and geometry instances
+     * from the parsed values can be done in parallel.
+     *
+     * @see WayPoints
+     */
+    boolean parallel;
+
     /**
      * Creates a new GPX reader for the given data store.
      * The {@link #initialize(boolean)} method must be invoked after this constructor.
@@ -388,13 +397,29 @@ parse:  while (reader.hasNext()) {
     }
 
     /**
-     * Parses a {@code <wpt>}, {@code <rtept>} or {@code <trkpt>} element.
+     * Parses a {@code <wpt>} element.
      * The STAX reader {@linkplain XMLStreamReader#getEventType() current event} must be a {@link #START_ELEMENT}.
      * After this method invocation, the reader will be on {@link #END_ELEMENT}.
      *
      * @throws Exception see the list of exceptions documented in {@link #parse(Consumer, boolean)}.
      */
     private AbstractFeature parseWayPoint(final int index) throws Exception {
+        final WayPoints.Block block = new WayPoints.Block(((Store) owner).types, 1);
+        block.firstId = index;
+        parseWayPoint(block);
+        return block.toFeature(0);
+    }
+
+    /**
+     * Parses a {@code <wpt>}, {@code <rtept>} or {@code <trkpt>} element and stores the values in the given block.
+     * Coordinates, elevation and time are stored as primitive values; no feature or geometry is created by this method.
+     * The STAX reader {@linkplain XMLStreamReader#getEventType() current event} must be a {@link #START_ELEMENT}.
+     * After this method invocation, the reader will be on {@link #END_ELEMENT}.
+     *
+     * @param  block  the block where to add the way point. Must have room for at least one more point.
+     * @throws Exception see the list of exceptions documented in {@link #parse(Consumer, boolean)}.
+     */
+    private void parseWayPoint(final WayPoints.Block block) throws Exception {
         assert reader.isStartElement();
         /*
          * Way points might be located in different elements: <wpt>, <rtept> and <trkpt>.
@@ -408,10 +433,7 @@ parse:  while (reader.hasNext()) {
             throw new DataStoreContentException(errors().getString(Errors.Keys.MandatoryAttribute_2,
                     (lat == null) ? Attributes.LATITUDE : Attributes.LONGITUDE, tagName));
         }
-        final Types types = ((Store) owner).types;
-        final AbstractFeature feature = types.wayPoint.newInstance();
-        feature.setPropertyValue(AttributeConvention.IDENTIFIER, index);
-        feature.setPropertyValue(AttributeConvention.GEOMETRY, types.geometries.createPoint(parseDouble(lon), parseDouble(lat)));
+        final int index = block.add(parseDouble(lon), parseDouble(lat));
         List<Link> links = null;
         while (true) {
             /*
@@ -429,14 +451,18 @@ parse:  while (reader.hasNext()) {
                         case Tags.SOURCE:           // ︙
                         case Tags.SYMBOL:           // ︙
                         case Tags.TYPE:             value = getElementText(); break;
-                        case Tags.TIME:             value = getElementAsTemporal(); break;
+                        case Tags.TIME:             block.setTime(index, getElementText()); continue;
+                        case Tags.ELEVATION: {
+                            final String text = getElementText();
+                            if (text != null) block.setElevation(index, parseDouble(text));
+                            continue;
+                        }
                         case Tags.MAGNETIC_VAR:     // Fallthrough to getElementAsDouble()
                         case Tags.GEOID_HEIGHT:     // ︙
                         case Tags.AGE_OF_GPS_DATA:  // ︙
                         case Tags.HDOP:             // ︙
                         case Tags.PDOP:             // ︙
-                        case Tags.VDOP:             // ︙
-                        case Tags.ELEVATION:        value = getElementAsDouble(); break;
+                        case Tags.VDOP:             value = getElementAsDouble(); break;
                         case Tags.SATELITTES:       // Fallthrough to getElementAsInteger()
                         case Tags.DGPS_ID:          value = getElementAsInteger(); break;
                         case Tags.FIX:              value = Fix.fromGPX(getElementText()); break;
@@ -449,13 +475,13 @@ parse:  while (reader.hasNext()) {
                             continue;
                         }
                     }
-                    feature.setPropertyValue(name, value);
+                    block.setProperty(index, name, value);
                     break;
                 }
                 case END_ELEMENT: {
                     if (tagName.equals(reader.getLocalName()) && isGPX()) {
-                        if (links != null) feature.setPropertyValue(Tags.LINK, links);
-                        return feature;
+                        if (links != null) block.setProperty(index, Tags.LINK, links);
+                        return;
                     }
                     break;
                 }
@@ -474,9 +500,10 @@ parse:  while (reader.hasNext()) {
      */
     private AbstractFeature parseRoute(final int index) throws Exception {
         assert reader.isStartElement() && Tags.ROUTES.equals(reader.getLocalName());
-        final AbstractFeature feature = ((Store) owner).types.route.newInstance();
+        final Types types = ((Store) owner).types;
+        final AbstractFeature feature = types.route.newInstance();
         feature.setPropertyValue(AttributeConvention.IDENTIFIER, index);
-        List<AbstractFeature> wayPoints = null;
+        WayPoints wayPoints = null;
         List<Link> links = null;
         while (true) {
             /*
@@ -499,8 +526,8 @@ parse:  while (reader.hasNext()) {
                         case Tags.URL:         links = Metadata.addIfNonNull(links, Link.valueOf(getElementAsURI())); continue;
                         case Tags.ROUTES:      throw new DataStoreContentException(nestedElement(name));
                         case Tags.ROUTE_POINTS: {
-                            if (wayPoints == null) wayPoints = new ArrayList<>(8);
-                            wayPoints.add(parseWayPoint(wayPoints.size() + 1));
+                            if (wayPoints == null) wayPoints = new WayPoints(types, parallel);
+                            parseWayPoint(wayPoints.block());
                             continue;
                         }
                     }
@@ -509,7 +536,7 @@ parse:  while (reader.hasNext()) {
                 }
                 case END_ELEMENT: {
                     if (Tags.ROUTES.equals(reader.getLocalName()) && isGPX()) {
-                        if (wayPoints != null) feature.setPropertyValue(Tags.ROUTE_POINTS, wayPoints);
+                        if (wayPoints != null) feature.setPropertyValue(Tags.ROUTE_POINTS, wayPoints.finish());
                         if (links     != null) feature.setPropertyValue(Tags.LINK, links);
                         return feature;
                     }
@@ -530,9 +557,10 @@ parse:  while (reader.hasNext()) {
      */
     private AbstractFeature parseTrackSegment(final int index) throws Exception {
         assert reader.isStartElement() && Tags.TRACK_SEGMENTS.equals(reader.getLocalName());
-        final AbstractFeature feature = ((Store) owner).types.trackSegment.newInstance();
+        final Types types = ((Store) owner).types;
+        final AbstractFeature feature = types.trackSegment.newInstance();
         feature.setPropertyValue(AttributeConvention.IDENTIFIER, index);
-        List<AbstractFeature> wayPoints = null;
+        WayPoints wayPoints = null;
         while (true) {
             /*
              * We do not need to check 'reader.hasNext()' in above loop
@@ -544,8 +572,8 @@ parse:  while (reader.hasNext()) {
                     switch (isGPX() ? name : "") {
                         default: continue;
                         case Tags.TRACK_POINTS: {
-                            if (wayPoints == null) wayPoints = new ArrayList<>(8);
-                            wayPoints.add(parseWayPoint(wayPoints.size() + 1));
+                            if (wayPoints == null) wayPoints = new WayPoints(types, parallel);
+                            parseWayPoint(wayPoints.block());
                             continue;
                         }
                         case Tags.TRACK_SEGMENTS: throw new DataStoreContentException(nestedElement(name));
@@ -553,7 +581,7 @@ parse:  while (reader.hasNext()) {
                 }
                 case END_ELEMENT: {
                     if (Tags.TRACK_SEGMENTS.equals(reader.getLocalName()) && isGPX()) {
-                        if (wayPoints != null) feature.setPropertyValue(Tags.TRACK_POINTS, wayPoints);
+                        if (wayPoints != null) feature.setPropertyValue(Tags.TRACK_POINTS, wayPoints.finish());
                         return feature;
                     }
                     break;
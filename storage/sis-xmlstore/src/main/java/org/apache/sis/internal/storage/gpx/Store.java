@@ -55,7 +55,7 @@ import org.apache.sis.feature.DefaultFeatureType;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -208,9 +208,11 @@ public final class Store extends StaxDataStore implements FeatureSet {
     }
 
     /**
-     * Returns the stream of features.
+     * Returns the stream of features. The XML file is always parsed sequentially, but if {@code parallel} is
+     * {@code true}, then the features and geometries of route points and track points are created by worker
+     * threads while the parsing continues. This is useful for GPX files containing millions of points.
      *
-     * @param  parallel  ignored in current implementation.
+     * @param  parallel  whether to create route and track points in worker threads.
      * @return a stream over all features in the XML file.
      * @throws DataStoreException if an error occurred while creating the feature stream.
      */
@@ -228,6 +230,7 @@ public final class Store extends StaxDataStore implements FeatureSet {
         } catch (Exception e) {
             throw new DataStoreException(e);
         }
+        r.parallel = parallel;
         final Stream<AbstractFeature> features = StreamSupport.stream(r, false);
         return features.onClose(r);
     }
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.sis.internal.storage.gpx;
+
+import java.util.Map;
+import java.util.List;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import org.apache.sis.internal.feature.AttributeConvention;
+import org.apache.sis.internal.system.CommonExecutor;
+import org.apache.sis.internal.util.StandardDateFormat;
+import org.apache.sis.internal.util.Numerics;
+
+// Branch-dependent imports
+import org.apache.sis.feature.AbstractFeature;
+
+
+/**
+ * Accumulator of the way points found in a {@code <rte>} or {@code <trkseg>} element. The reader stores the coordinates,
+ * elevations and times of way points in blocks of primitive arrays, without creating any feature or geometry object.
+ * Features are created from a block when that block is full, either immediately in the reader thread or in a worker
+ * thread of the {@linkplain CommonExecutor common executor} while the reader continues to parse the XML file.
+ * In the later case, the number of blocks waiting for feature creation is bounded.
+ *
+ * @author  agent
+ * @version 1.1
+ * @since   1.1
+ * @module
+ */
+final class WayPoints {
+    /**
+     * Number of way points in a block.
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    /**
+     * Maximal number of blocks waiting for feature creation in worker threads.
+     * When this limit is reached, the reader waits for the oldest block to be completed.
+     */
+    private static final int MAX_PENDING = 2 * CommonExecutor.PARALLELISM;
+
+    /**
+     * The feature types, together with the library to use for creating geometries.
+     */
+    private final Types types;
+
+    /**
+     * Whether to create features in worker threads.
+     */
+    private final boolean parallel;
+
+    /**
+     * The way point features created so far, in declaration order.
+     */
+    private final List<AbstractFeature> features;
+
+    /**
+     * Blocks for which feature creation is in progress in worker threads, in declaration order.
+     */
+    private final ArrayDeque<FutureTask<AbstractFeature[]>> pending;
+
+    /**
+     * The block where to store the next way points, or {@code null} if not yet created.
+     */
+    private Block current;
+
+    /**
+     * Number of way points added to this list, including the ones in the current block.
+     */
+    private int count;
+
+    /**
+     * Creates an initially empty list of way points.
+     *
+     * @param  types     the feature types, together with the library to use for creating geometries.
+     * @param  parallel  whether to create features in worker threads.
+     */
+    WayPoints(final Types types, final boolean parallel) {
+        this.types    = types;
+        this.parallel = parallel;
+        features      = new ArrayList<>();
+        pending       = parallel ? new ArrayDeque<>() : null;
+    }
+
+    /**
+     * Returns a block with room for at least one more way point.
+     * Features are created for the current block if it is full.
+     *
+     * @throws Exception if an error occurred while creating the features of a previous block.
+     */
+    Block block() throws Exception {
+        if (current != null) {
+            if (current.size < BLOCK_SIZE) {
+                return current;
+            }
+            flush();
+        }
+        if (current == null) {
+            current = new Block(types, BLOCK_SIZE);
+        }
+        current.firstId = count + 1;
+        return current;
+    }
+
+    /**
+     * Creates the features for all way points in the current block. If features are created in the current thread,
+     * then the block is cleared for reuse. Otherwise the block is given to a worker thread and a new block will be
+     * created by the next call to {@link #block()}.
+     */
+    private void flush() throws Exception {
+        final Block block = current;
+        count += block.size;
+        if (parallel) {
+            current = null;
+            if (pending.size() >= MAX_PENDING) {
+                join(pending.removeFirst());
+            }
+            final FutureTask<AbstractFeature[]> task = new FutureTask<>(block::toFeatures);
+            pending.addLast(task);
+            try {
+                CommonExecutor.instance().execute(task);
+            } catch (RejectedExecutionException e) {
+                // Executor shutdown: the task will be executed in the calling thread by `join(…)`.
+            }
+        } else {
+            features.addAll(Arrays.asList(block.toFeatures()));
+            block.size = 0;
+        }
+    }
+
+    /**
+     * Waits for the features of the given block and adds them to the list. If no worker thread started
+     * the task yet, then the task is executed in the calling thread. This is the same strategy than
+     * {@link CommonExecutor#invokeAll(List)}, which avoid blocking when all workers are busy.
+     */
+    private void join(final FutureTask<AbstractFeature[]> task) throws Exception {
+        task.run();                                     // No-op if the task has already been started.
+        try {
+            features.addAll(Arrays.asList(task.get()));
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the features for all remaining way points and returns all way point features in declaration order.
+     *
+     * @return all way point features.
+     * @throws Exception if an error occurred while creating the features.
+     */
+    List<AbstractFeature> finish() throws Exception {
+        if (current != null && current.size != 0) {
+            flush();
+        }
+        if (parallel) {
+            FutureTask<AbstractFeature[]> task;
+            while ((task = pending.pollFirst()) != null) {
+                join(task);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * A block of way points stored in primitive arrays. Properties other than the coordinates, the elevation
+     * and the time are rare in large GPX files; they are stored in maps created only when first needed.
+     */
+    static final class Block {
+        /**
+         * Value of {@link #nanos} when the time is not a UTC instant.
+         */
+        private static final int NO_INSTANT = -1;
+
+        /**
+         * The feature types, together with the library to use for creating geometries.
+         */
+        private final Types types;
+
+        /**
+         * Identifier of the first way point in this block. Other way points have sequential identifiers.
+         */
+        int firstId;
+
+        /**
+         * Number of valid way points in this block.
+         */
+        int size;
+
+        /**
+         * The longitude and latitude values.
+         */
+        private final double[] x, y;
+
+        /**
+         * The elevation values, or NaN if none.
+         */
+        private final double[] elevation;
+
+        /**
+         * The time values as seconds since epoch, valid only if the corresponding {@link #nanos} value is positive.
+         */
+        private final long[] seconds;
+
+        /**
+         * The nanoseconds of time values, or {@link #NO_INSTANT} if the time is not a UTC instant.
+         */
+        private final int[] nanos;
+
+        /**
+         * Times which are not UTC instants (for example local dates), or {@code null} if none.
+         */
+        private Temporal[] otherTimes;
+
+        /**
+         * Other properties of way points, or {@code null} if none.
+         */
+        private Map<String,Object>[] properties;
+
+        /**
+         * Creates a new block for the given number of way points.
+         *
+         * @param  types     the feature types, together with the library to use for creating geometries.
+         * @param  capacity  maximal number of way points in this block.
+         */
+        Block(final Types types, final int capacity) {
+            this.types = types;
+            x          = new double[capacity];
+            y          = new double[capacity];
+            elevation  = new double[capacity];
+            seconds    = new long  [capacity];
+            nanos      = new int   [capacity];
+        }
+
+        /**
+         * Adds a way point at the given coordinates.
+         *
+         * @return index of the new way point in this block.
+         */
+        int add(final double lon, final double lat) {
+            final int i = size++;
+            x[i]         = lon;
+            y[i]         = lat;
+            elevation[i] = Double.NaN;
+            nanos[i]     = NO_INSTANT;
+            if (otherTimes != null) otherTimes[i] = null;
+            if (properties != null) properties[i] = null;
+            return i;
+        }
+
+        /**
+         * Sets the elevation of the way point at the given index.
+         */
+        void setElevation(final int i, final double value) {
+            elevation[i] = value;
+        }
+
+        /**
+         * Sets the time of the way point at the given index. Texts of the form {@code "2000-01-01T00:00:00Z"},
+         * optionally with a fraction of second, are parsed directly in primitive values. Other times are parsed
+         * by {@link StandardDateFormat#parseBest(CharSequence)}.
+         *
+         * @throws java.time.format.DateTimeParseException if the text can not be parsed as a date.
+         */
+        void setTime(final int i, final String text) {
+            if (text == null) {
+                return;
+            }
+            final long epochNanos = StandardDateFormat.parseEpochNanos(text, 0, text.length());
+            if (epochNanos != Long.MIN_VALUE) {
+                seconds[i] = Math.floorDiv(epochNanos, StandardDateFormat.NANOS_PER_SECOND);
+                nanos  [i] = (int) Math.floorMod(epochNanos, StandardDateFormat.NANOS_PER_SECOND);
+            } else {
+                final Temporal t = StandardDateFormat.parseBest(text);
+                if (t instanceof Instant) {
+                    seconds[i] = ((Instant) t).getEpochSecond();
+                    nanos  [i] = ((Instant) t).getNano();
+                } else {
+                    if (otherTimes == null) {
+                        otherTimes = new Temporal[x.length];
+                    }
+                    otherTimes[i] = t;
+                }
+            }
+        }
+
+        /**
+         * Sets a property other than coordinates, elevation and time of the way point at the given index.
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void setProperty(final int i, final String name, final Object value) {
+            if (properties == null) {
+                properties = new Map[x.length];
+            }
+            Map<String,Object> p = properties[i];
+            if (p == null) {
+                properties[i] = p = new LinkedHashMap<>(4);
+            }
+            p.put(name, value);
+        }
+
+        /**
+         * Creates the feature for the way point at the given index.
+         */
+        AbstractFeature toFeature(final int i) {
+            final AbstractFeature feature = types.wayPoint.newInstance();
+            feature.setPropertyValue(AttributeConvention.IDENTIFIER, firstId + i);
+            feature.setPropertyValue(AttributeConvention.GEOMETRY, types.geometries.createPoint(x[i], y[i]));
+            final double z = elevation[i];
+            if (!Double.isNaN(z)) {
+                feature.setPropertyValue(Tags.ELEVATION, Numerics.valueOf(z));
+            }
+            if (nanos[i] != NO_INSTANT) {
+                feature.setPropertyValue(Tags.TIME, Instant.ofEpochSecond(seconds[i], nanos[i]));
+            } else if (otherTimes != null && otherTimes[i] != null) {
+                feature.setPropertyValue(Tags.TIME, otherTimes[i]);
+            }
+            if (properties != null && properties[i] != null) {
+                for (final Map.Entry<String,Object> entry : properties[i].entrySet()) {
+                    feature.setPropertyValue(entry.getKey(), entry.getValue());
+                }
+            }
+            return feature;
+        }
+
+        /**
+         * Creates the features for all way points in this block.
+         */
+        AbstractFeature[] toFeatures() {
+            final AbstractFeature[] features = new AbstractFeature[size];
+            for (int i=0; i<features.length; i++) {
+                features[i] = toFeature(i);
+            }
+            return features;
+        }
+    }
+}
@@ -16,11 +16,17 @@
  */
 package org.apache.sis.internal.storage.gpx;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import com.esri.core.geometry.Point;
 import com.esri.core.geometry.Polyline;
 import org.opengis.geometry.Envelope;
@@ -51,7 +57,7 @@ import org.opengis.util.GenericName;
  *
  * @author  Johann Sorel (Geomatys)
  * @author  Martin Desruisseaux (Geomatys)
- * @version 0.8
+ * @version 1.1
  * @since   0.8
  * @module
  */
@@ -630,4 +636,70 @@ public final strictfp class ReaderTest extends TestCase {
             f3.close();
         }
     }
+
+    /**
+     * Tests parsing of a track with more points than the size of the blocks used by {@link WayPoints},
+     * with features created in the reader thread and in worker threads. Both modes shall give the same
+     * points in the same order.
+     *
+     * @throws DataStoreException if reader failed to be created or failed at reading.
+     */
+    @Test
+    @DependsOnMethod("testTrack110")
+    public void testLargeTrack() throws DataStoreException {
+        final int n = WayPoints.BLOCK_SIZE * 5 + 17;
+        final StringBuilder xml = new StringBuilder(n * 100)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\" creator=\"test\">\n")
+                .append("<trk><trkseg>\n");
+        for (int i=0; i<n; i++) {
+            xml.append("<trkpt lat=\"").append(i * 0.001).append("\" lon=\"").append(-i * 0.002).append("\">");
+            if (i % 5 != 4) xml.append("<ele>").append(i * 0.5).append("</ele>");
+            switch (i % 4) {
+                case 0: xml.append("<time>2019-03-01T12:").append(String.format("%02d:%02d", (i / 60) % 60, i % 60)).append("Z</time>"); break;
+                case 1: xml.append("<time>2019-03-01T12:00:00.").append(i % 1000).append("Z</time>"); break;
+                case 2: xml.append("<time>2019-03-01T12:00:00</time>"); break;
+            }
+            if (i % 100 == 0) xml.append("<name>P").append(i).append("</name>");
+            xml.append("</trkpt>\n");
+        }
+        xml.append("</trkseg></trk>\n</gpx>\n");
+        final byte[] bytes = xml.toString().getBytes(StandardCharsets.UTF_8);
+        final List<List<Object>> sequential = readTrackPoints(bytes, false);
+        assertEquals(n, sequential.size());
+        assertEquals(sequential, readTrackPoints(bytes, true));
+        /*
+         * Verify a few values.
+         */
+        final List<Object> p = sequential.get(3000);              // i % 4 == 0, i % 5 == 0.
+        assertEquals(3001, p.get(0));
+        assertEquals(1500.0, p.get(3));
+        assertEquals(Instant.parse("2019-03-01T12:50:00Z"), p.get(4));
+        assertEquals("P3000", p.get(5));
+        assertEquals(Instant.parse("2019-03-01T12:00:00.1Z"), sequential.get(1001).get(4));
+        assertEquals(LocalDateTime.parse("2019-03-01T12:00:00"), sequential.get(1002).get(4));
+        assertNull(sequential.get(1003).get(4));
+        assertNull(sequential.get(1004).get(3));
+    }
+
+    /**
+     * Reads the points of the first track segment in the given GPX file. For each point, this method returns
+     * the identifier, the coordinates, elevation, time and name.
+     */
+    private static List<List<Object>> readTrackPoints(final byte[] gpx, final boolean parallel) throws DataStoreException {
+        final List<List<Object>> points = new ArrayList<>();
+        try (Store reader = new Store(provider, new StorageConnector(new ByteArrayInputStream(gpx)))) {
+            try (Stream<AbstractFeature> features = reader.features(parallel)) {
+                final AbstractFeature track = getSingleton(features.collect(Collectors.toList()));
+                final AbstractFeature segment = (AbstractFeature) getSingleton((Collection<?>) track.getPropertyValue("trkseg"));
+                for (final Object point : (Collection<?>) segment.getPropertyValue("trkpt")) {
+                    final AbstractFeature f = (AbstractFeature) point;
+                    final Point geometry = (Point) f.getPropertyValue("sis:geometry");
+                    points.add(Arrays.asList(f.getPropertyValue("sis:identifier"), geometry.getX(), geometry.getY(),
+                            f.getPropertyValue("ele"), f.getPropertyValue("time"), f.getPropertyValue("name")));
+                }
+            }
+        }
+        return points;
+    }
 }